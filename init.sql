@@ -5,6 +5,8 @@ CREATE TABLE IF NOT EXISTS users (
     username VARCHAR(100) NOT NULL UNIQUE COMMENT '用戶名稱',
     points INT NOT NULL DEFAULT 0 COMMENT '用戶積分',
     registration_date DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '註冊日期',
+    last_login_date DATE NULL COMMENT '最近一次登入日期',
+    current_streak INT NOT NULL DEFAULT 0 COMMENT '截至最近一次登入的連續登入天數',
     created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '創建時間',
     updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新時間',
     INDEX idx_username (username),
@@ -43,11 +45,11 @@ CREATE TABLE IF NOT EXISTS game_launch_record (
     id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '遊戲啟動記錄ID',
     user_id BIGINT NOT NULL COMMENT '用戶ID',
     game_id BIGINT NOT NULL COMMENT '遊戲ID',
-    launch_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '啟動時間',
+    launch_time DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) COMMENT '啟動時間（微秒精度，任務統計以此判斷記錄是否已計入）',
     created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '創建時間',
     INDEX idx_user_id (user_id),
+    UNIQUE KEY uk_user_game (user_id, game_id),
     INDEX idx_game_id (game_id),
-    INDEX idx_user_game (user_id, game_id),
     INDEX idx_launch_time (launch_time),
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (game_id) REFERENCES games(id) ON DELETE CASCADE
@@ -60,7 +62,7 @@ CREATE TABLE IF NOT EXISTS games_play_record (
     game_id BIGINT NOT NULL COMMENT '遊戲ID',
     score INT NOT NULL DEFAULT 0 COMMENT '遊戲分數',
     play_duration INT COMMENT '遊玩時長(秒)',
-    play_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '遊玩時間',
+    play_time DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) COMMENT '遊玩時間（微秒精度，任務統計以此判斷記錄是否已計入）',
     created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '創建時間',
     INDEX idx_user_id (user_id),
     INDEX idx_game_id (game_id),
@@ -94,6 +96,80 @@ CREATE TABLE IF NOT EXISTS missions (
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- User mission stats table: persisted per-user counters for incremental mission progress
+CREATE TABLE IF NOT EXISTS user_mission_stats (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '統計ID',
+    user_id BIGINT NOT NULL COMMENT '用戶ID',
+    launched_games_count INT NOT NULL DEFAULT 0 COMMENT '啟動過的不同遊戲數',
+    play_count INT NOT NULL DEFAULT 0 COMMENT '遊玩次數',
+    total_score INT NOT NULL DEFAULT 0 COMMENT '遊玩總分數',
+    seeded_until DATETIME(6) NOT NULL COMMENT '起始值所包含的最晚記錄時間',
+    last_event_at DATETIME(6) NOT NULL COMMENT '已計入的最晚記錄時間',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '創建時間',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新時間',
+    UNIQUE KEY uk_user_id (user_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Reward ledger table: append-only record of granted rewards, one row per user and reward type
+CREATE TABLE IF NOT EXISTS reward_ledger (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '帳本ID',
+    user_id BIGINT NOT NULL COMMENT '用戶ID',
+    reward_type VARCHAR(50) NOT NULL COMMENT '獎勵類型 (MISSION_COMPLETION:完成所有任務)',
+    points INT NOT NULL COMMENT '發放積分',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '發放時間',
+    UNIQUE KEY uk_user_reward_type (user_id, reward_type),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Mission catalog table: mission definitions compiled into the in-memory mission catalog
+CREATE TABLE IF NOT EXISTS mission_catalog (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '任務定義ID',
+    mission_type VARCHAR(50) NOT NULL COMMENT '任務類型 (CONSECUTIVE_LOGIN:連續登入, LAUNCH_GAMES:啟動遊戲, PLAY_GAMES:遊玩遊戲)',
+    target_progress INT NOT NULL COMMENT '目標進度',
+    min_score INT NOT NULL DEFAULT 0 COMMENT '完成所需最低總分數 (0:不限制)',
+    reward_points INT NOT NULL DEFAULT 0 COMMENT '獎勵積分',
+    enabled BOOLEAN NOT NULL DEFAULT TRUE COMMENT '是否啟用',
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) COMMENT '創建時間',
+    updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6) COMMENT '更新時間 (作為目錄版本戳記)',
+    UNIQUE KEY uk_mission_type (mission_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Event outbox table: domain events written in the request transaction and relayed to RocketMQ asynchronously
+CREATE TABLE IF NOT EXISTS event_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '事件ID',
+    topic VARCHAR(100) NOT NULL COMMENT '主題名稱 (不含前綴)',
+    sharding_key VARCHAR(64) NULL COMMENT '分片鍵 (使用者ID)，相同分片鍵的事件依序發送到同一個佇列',
+    event_id CHAR(36) NOT NULL COMMENT '事件ID，重送時沿用，供消費者判斷重複投遞',
+    format VARCHAR(16) NOT NULL COMMENT '事件編碼格式 (JSON, BINARY)',
+    payload BLOB NOT NULL COMMENT '編碼後的事件內容',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '創建時間',
+    claim_token CHAR(36) NULL COMMENT '取得此事件的轉發批次，NULL 表示尚未被取得',
+    claimed_until DATETIME(6) NULL COMMENT '轉發租約到期時間，到期後其他節點可重新取得',
+    INDEX idx_event_outbox_claim_token (claim_token),
+    INDEX idx_event_outbox_claimed_until (claimed_until)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Dead letter table: events that still failed after every delayed retry, kept for bulk replay
+CREATE TABLE IF NOT EXISTS event_dead_letter (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '死信ID',
+    topic VARCHAR(100) NOT NULL COMMENT '原主題名稱 (不含前綴)',
+    sharding_key VARCHAR(64) NULL COMMENT '原分片鍵 (使用者ID)，重新投遞時沿用',
+    event_id CHAR(36) NULL COMMENT '事件ID，重新投遞時沿用',
+    format VARCHAR(16) NULL COMMENT '事件編碼格式 (JSON, BINARY)，NULL 表示 JSON',
+    payload BLOB NOT NULL COMMENT '編碼後的事件內容',
+    retry_attempts INT NOT NULL DEFAULT 0 COMMENT '已延遲重試的次數',
+    failure_reason VARCHAR(500) NULL COMMENT '最後一次處理失敗的原因',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '創建時間'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Insert default mission catalog
+INSERT INTO mission_catalog (mission_type, target_progress, min_score, reward_points) VALUES
+('CONSECUTIVE_LOGIN', 3, 0, 0),
+('LAUNCH_GAMES', 3, 0, 0),
+('PLAY_GAMES', 3, 1000, 0)
+ON DUPLICATE KEY UPDATE mission_type=VALUES(mission_type);
+
 -- Insert sample games for testing
 INSERT INTO games (game_code, game_name, description, is_active) VALUES
 ('GAME001', 'Adventure Quest', 'Epic adventure game', TRUE),
@@ -0,0 +1,238 @@
+package com.example.demo.game.application.service;
+
+import com.example.demo.game.domain.model.GamePlayRecord;
+import com.example.demo.game.domain.repository.GamePlayRecordRepository;
+import com.example.demo.shared.application.dto.event.GamePlayEvent;
+import com.example.demo.shared.infrastructure.message.EventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 遊戲遊玩記錄寫入緩衝區
+ * 啟用時將遊玩記錄放入有界佇列，累積到批次大小或經過寫入間隔後，以單一多列 INSERT 語句寫入資料庫。
+ * 記錄對應的遊玩事件與記錄在同一個交易中寫入 outbox，兩者一起提交或回滾，不會只有記錄或只有事件。
+ * 每筆記錄的呼叫者會等到所屬批次提交後才繼續。
+ * 佇列已滿時呼叫者會等待佇列空出位置，超過等待時間仍無法放入則以 {@link BufferFullException} 失敗，
+ * 讓尖峰流量受批次寫入速度限制，而不是退回逐筆寫入；應用關閉時會寫入佇列中剩餘的記錄。
+ */
+@Slf4j
+@Service
+public class GamePlayRecordBuffer implements InitializingBean, DisposableBean {
+
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration ENQUEUE_RETRY_DELAY = Duration.ofMillis(5);
+
+    private final GamePlayRecordRepository gamePlayRecordRepository;
+    private final EventPublisher eventPublisher;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration enqueueTimeout;
+    private final BlockingQueue<PendingRecord> queue;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Counter bufferedCounter;
+    private final Counter rejectedCounter;
+    private final Counter batchCounter;
+    private Disposable flushTask;
+
+    public GamePlayRecordBuffer(GamePlayRecordRepository gamePlayRecordRepository,
+                                EventPublisher eventPublisher,
+                                TransactionalOperator transactionalOperator,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.game.play-record-buffer.enabled:false}") boolean enabled,
+                                @Value("${app.game.play-record-buffer.capacity:10000}") int capacity,
+                                @Value("${app.game.play-record-buffer.batch-size:500}") int batchSize,
+                                @Value("${app.game.play-record-buffer.flush-interval-ms:20}") long flushIntervalMillis,
+                                @Value("${app.game.play-record-buffer.enqueue-timeout-ms:1000}") long enqueueTimeoutMillis) {
+        this.gamePlayRecordRepository = gamePlayRecordRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionalOperator = transactionalOperator;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = Duration.ofMillis(flushIntervalMillis);
+        this.enqueueTimeout = Duration.ofMillis(enqueueTimeoutMillis);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.bufferedCounter = Counter.builder("game.play.buffer.records")
+            .description("經由緩衝區批次寫入的遊玩記錄數")
+            .tag("result", "buffered")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("game.play.buffer.records")
+            .description("等待緩衝區空位逾時而被拒絕的遊玩記錄數")
+            .tag("result", "rejected")
+            .register(meterRegistry);
+        this.batchCounter = Counter.builder("game.play.buffer.batches")
+            .description("緩衝區執行的批次寫入次數")
+            .register(meterRegistry);
+        Gauge.builder("game.play.buffer.size", queue, BlockingQueue::size)
+            .description("緩衝區中等待寫入的遊玩記錄數")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 在所有屬性設置完成後調用，啟用時啟動定期寫入。
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            flushTask = Flux.interval(flushInterval, flushInterval)
+                .subscribe(tick -> scheduleFlush());
+        }
+    }
+
+    /**
+     * 應用關閉時停止定期寫入，並寫入佇列中剩餘的記錄。
+     */
+    @Override
+    public void destroy() {
+        if (flushTask != null) {
+            flushTask.dispose();
+        }
+        if (!queue.isEmpty()) {
+            log.info("應用關閉，寫入緩衝區中剩餘的 {} 筆遊玩記錄", queue.size());
+            drain().block(SHUTDOWN_FLUSH_TIMEOUT);
+        }
+    }
+
+    /**
+     * 寫入一筆遊戲遊玩記錄，並在同一個交易中將遊玩事件寫入 outbox。
+     * 未啟用緩衝區時直接寫入；否則放入佇列，於所屬批次提交時結束。
+     * 佇列已滿時等待空位，超過等待時間則以 {@link BufferFullException} 結束，記錄不會被寫入。
+     *
+     * @param gamePlayRecord 遊戲遊玩記錄
+     * @param event          遊玩事件，null 表示不發布事件
+     * @return 記錄與事件提交後結束的 Mono<Void>
+     */
+    public Mono<Void> submit(GamePlayRecord gamePlayRecord, GamePlayEvent event) {
+        if (!enabled) {
+            return saveDirectly(gamePlayRecord, event);
+        }
+
+        PendingRecord pending = new PendingRecord(gamePlayRecord, event);
+        Mono<Void> enqueued = queue.offer(pending)
+            ? Mono.empty()
+            : waitForSpace(pending, System.nanoTime() + enqueueTimeout.toNanos());
+        return enqueued.then(Mono.defer(() -> {
+            if (queue.size() >= batchSize) {
+                scheduleFlush();
+            }
+            return pending.result.asMono();
+        }));
+    }
+
+    /**
+     * 佇列已滿時立即開始寫入，並每隔一小段時間重試放入，直到放入或超過期限。
+     * 是否放入只由 offer 的結果決定，逾時失敗的記錄一定不在佇列中。
+     */
+    private Mono<Void> waitForSpace(PendingRecord pending, long deadlineNanos) {
+        return Mono.defer(() -> {
+            scheduleFlush();
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                rejectedCounter.increment();
+                log.warn("遊玩記錄緩衝區已滿，等待 {} 毫秒後仍無空位，拒絕使用者 {} 的遊玩記錄",
+                    enqueueTimeout.toMillis(), pending.record().getUserId());
+                return Mono.error(new BufferFullException(enqueueTimeout));
+            }
+            return Mono.delay(ENQUEUE_RETRY_DELAY)
+                .then(Mono.defer(() -> queue.offer(pending) ? Mono.<Void>empty() : waitForSpace(pending, deadlineNanos)));
+        });
+    }
+
+    /**
+     * 不經過佇列，在單一交易中寫入一筆記錄與其事件。
+     */
+    private Mono<Void> saveDirectly(GamePlayRecord gamePlayRecord, GamePlayEvent event) {
+        return transactionalOperator.transactional(gamePlayRecordRepository.save(gamePlayRecord)
+            .then(event != null ? eventPublisher.publishGamePlayEvents(List.of(event)) : Mono.<Void>empty()));
+    }
+
+    /**
+     * 若目前沒有寫入正在進行，則開始寫入佇列中的記錄；結束時若又累積滿一批則繼續寫入。
+     */
+    private void scheduleFlush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        drain()
+            .doFinally(signal -> {
+                flushing.set(false);
+                if (queue.size() >= batchSize) {
+                    scheduleFlush();
+                }
+            })
+            .subscribe();
+    }
+
+    /**
+     * 依序寫入佇列中的所有記錄，每次最多一個批次。
+     */
+    private Mono<Void> drain() {
+        return Mono.defer(() -> {
+            List<PendingRecord> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                return Mono.empty();
+            }
+            return flush(batch).then(drain());
+        });
+    }
+
+    /**
+     * 在單一交易中以多列 INSERT 寫入一個批次的記錄與事件，並通知批次中每筆記錄的呼叫者。
+     * 寫入失敗時整個批次回滾，批次中的所有呼叫者都會收到錯誤，不影響後續批次。
+     */
+    private Mono<Void> flush(List<PendingRecord> batch) {
+        List<GamePlayRecord> records = batch.stream().map(PendingRecord::record).toList();
+        List<GamePlayEvent> events = batch.stream().map(PendingRecord::event).filter(Objects::nonNull).toList();
+        return transactionalOperator.transactional(gamePlayRecordRepository.insertAll(records)
+                .flatMap(rows -> eventPublisher.publishGamePlayEvents(events).thenReturn(rows)))
+            .doOnSuccess(rows -> {
+                batchCounter.increment();
+                bufferedCounter.increment(batch.size());
+                batch.forEach(pending -> pending.result.tryEmitEmpty());
+            })
+            .doOnError(e -> {
+                log.error("批次寫入 {} 筆遊玩記錄失敗", batch.size(), e);
+                batch.forEach(pending -> pending.result.tryEmitError(e));
+            })
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
+
+    /**
+     * 緩衝區已滿且在等待時間內沒有空出位置時拋出的例外，呼叫者應視為暫時無法服務並稍後重試。
+     */
+    public static class BufferFullException extends RuntimeException {
+        public BufferFullException(Duration waited) {
+            super("遊玩記錄緩衝區已滿，等待 " + waited.toMillis() + " 毫秒後仍無空位");
+        }
+    }
+
+    /**
+     * 等待寫入的遊玩記錄、其遊玩事件與呼叫者的通知。
+     */
+    private record PendingRecord(GamePlayRecord record, GamePlayEvent event, Sinks.One<Void> result) {
+        private PendingRecord(GamePlayRecord record, GamePlayEvent event) {
+            this(record, event, Sinks.one());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.game.application.service;
+
+import com.example.demo.game.domain.repository.GameLaunchRecordRepository;
+import com.example.demo.shared.infrastructure.redis.RedisService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 已啟動遊戲服務
+ * 以 Redis 集合保存每位使用者啟動過的遊戲ID，
+ * 「是否已啟動過」由 SISMEMBER 回答，「啟動過幾款遊戲」由 SCARD 回答，皆只需一次往返。
+ * 集合只是資料庫的快取：第一次啟動由 game_launch_record 的唯一鍵判定，遊戲在交易提交後才加入集合，
+ * 交易失敗或取消時集合不會多出未寫入的遊戲。
+ * 集合不存在時從 game_launch_record 重建；Redis 不可用時改由資料庫回答。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LaunchedGamesService {
+
+    private static final String LAUNCHED_GAMES_KEY_PREFIX = "user:launched:games:";
+    private static final Duration LAUNCHED_GAMES_TTL = Duration.ofDays(7);
+
+    /**
+     * 佔位成員，讓尚未啟動過遊戲的使用者也有集合，避免每次都從資料庫重建。計數時需扣除。
+     */
+    private static final long PLACEHOLDER_GAME_ID = 0L;
+
+    /**
+     * 集合不存在時回傳 -1；ARGV[3] 之後為重建用的歷史遊戲ID（至少包含佔位成員）。
+     */
+    private static final String REBUILD_IF_NEEDED = """
+        if #ARGV > 2 then
+            redis.call('SADD', KEYS[1], unpack(ARGV, 3))
+        elseif redis.call('EXISTS', KEYS[1]) == 0 then
+            return -1
+        end
+        """;
+
+    /**
+     * KEYS[1]: 集合鍵；ARGV[1]: TTL 秒數；ARGV[2]: 遊戲ID。回傳 1 表示已啟動過，0 表示尚未啟動。
+     */
+    private static final RedisScript<Long> CHECK_SCRIPT = RedisScript.of(REBUILD_IF_NEEDED + """
+        redis.call('EXPIRE', KEYS[1], ARGV[1])
+        return redis.call('SISMEMBER', KEYS[1], ARGV[2])
+        """, Long.class);
+
+    /**
+     * KEYS[1]: 集合鍵；ARGV[1]: TTL 秒數；ARGV[2]: 遊戲ID。回傳 1 表示已加入，0 表示原本就在集合中。
+     */
+    private static final RedisScript<Long> LAUNCH_SCRIPT = RedisScript.of(REBUILD_IF_NEEDED + """
+        local added = redis.call('SADD', KEYS[1], ARGV[2])
+        redis.call('EXPIRE', KEYS[1], ARGV[1])
+        return added
+        """, Long.class);
+
+    /**
+     * KEYS[1]: 集合鍵；ARGV[1]: TTL 秒數；ARGV[2]: 未使用。回傳啟動過的不同遊戲數量。
+     */
+    private static final RedisScript<Long> COUNT_SCRIPT = RedisScript.of(REBUILD_IF_NEEDED + """
+        redis.call('EXPIRE', KEYS[1], ARGV[1])
+        return redis.call('SCARD', KEYS[1]) - 1
+        """, Long.class);
+
+    private final RedisService redisService;
+    private final GameLaunchRecordRepository gameLaunchRecordRepository;
+
+    /**
+     * 判斷使用者是否已啟動過遊戲。
+     * Redis 不可用時返回 false，交由資料庫的唯一鍵判斷是否第一次啟動。
+     *
+     * @param userId 使用者ID
+     * @param gameId 遊戲ID
+     * @return 若已啟動過該遊戲則返回 true 的 Mono<Boolean>
+     */
+    public Mono<Boolean> isLaunched(Long userId, Long gameId) {
+        return execute(CHECK_SCRIPT, userId, gameId)
+            .map(member -> member > 0)
+            .onErrorResume(e -> {
+                log.warn("從 Redis 查詢使用者 {} 是否啟動過遊戲 {} 失敗，改由資料庫判斷", userId, gameId, e);
+                return Mono.just(false);
+            });
+    }
+
+    /**
+     * 將遊戲加入使用者的已啟動集合。
+     * 在交易中呼叫時延後到交易提交後才加入，交易回滾或取消時不會加入；不在交易中時立即加入。
+     * 加入失敗只會讓下次查詢改由資料庫判斷，因此只記錄警告。
+     *
+     * @param userId 使用者ID
+     * @param gameId 遊戲ID
+     * @return Mono<Void>
+     */
+    public Mono<Void> markLaunched(Long userId, Long gameId) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+            .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public Mono<Void> afterCommit() {
+                    return addToSet(userId, gameId);
+                }
+            }))
+            .then()
+            .onErrorResume(NoTransactionException.class, e -> addToSet(userId, gameId));
+    }
+
+    private Mono<Void> addToSet(Long userId, Long gameId) {
+        return execute(LAUNCH_SCRIPT, userId, gameId)
+            .onErrorResume(e -> {
+                log.warn("記錄使用者 {} 啟動遊戲 {} 至 Redis 失敗", userId, gameId, e);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    /**
+     * 計算使用者啟動過的不同遊戲數量，Redis 不可用時改查資料庫。
+     *
+     * @param userId 使用者ID
+     * @return 包含不同遊戲數量的 Mono<Long>
+     */
+    public Mono<Long> countLaunchedGames(Long userId) {
+        return execute(COUNT_SCRIPT, userId, PLACEHOLDER_GAME_ID)
+            .onErrorResume(e -> {
+                log.warn("從 Redis 計算使用者 {} 啟動過的遊戲數失敗，改查資料庫", userId, e);
+                return gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId);
+            });
+    }
+
+    /**
+     * 從資料庫計算使用者在指定時間（含）之前啟動過的不同遊戲數量。
+     * Redis 集合不保存啟動時間，需要與歷史記錄時間點一致的計數時使用。
+     *
+     * @param userId 使用者ID
+     * @param until  啟動時間上限
+     * @return 包含不同遊戲數量的 Mono<Long>
+     */
+    public Mono<Long> countLaunchedGamesUntil(Long userId, LocalDateTime until) {
+        return gameLaunchRecordRepository.countDistinctGamesLaunchedByUserUntil(userId, until);
+    }
+
+    /**
+     * 執行腳本，集合不存在時從資料庫載入歷史遊戲ID後重新執行一次。
+     *
+     * @param script 腳本
+     * @param userId 使用者ID
+     * @param gameId 遊戲ID
+     * @return 腳本回傳值的 Mono<Long>
+     */
+    private Mono<Long> execute(RedisScript<Long> script, Long userId, Long gameId) {
+        String key = launchedGamesKey(userId);
+        long ttlSeconds = LAUNCHED_GAMES_TTL.toSeconds();
+        return redisService.executeScript(script, List.of(key), ttlSeconds, gameId)
+            .flatMap(result -> result >= 0 ? Mono.just(result) : gameLaunchRecordRepository.findLaunchedGameIds(userId)
+                .collectList()
+                .flatMap(history -> {
+                    log.debug("重建使用者 {} 的已啟動遊戲集合，共 {} 款遊戲", userId, history.size());
+                    List<Object> args = new ArrayList<>(history.size() + 3);
+                    args.add(ttlSeconds);
+                    args.add(gameId);
+                    args.add(PLACEHOLDER_GAME_ID);
+                    args.addAll(history);
+                    return redisService.executeScript(script, List.of(key), args.toArray());
+                }));
+    }
+
+    private String launchedGamesKey(Long userId) {
+        return LAUNCHED_GAMES_KEY_PREFIX + userId;
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.demo.game.application.service.impl;
 
 import com.example.demo.game.application.service.GameCommandService;
+import com.example.demo.game.application.service.GamePlayRecordBuffer;
 import com.example.demo.game.application.service.GameQueryService;
+import com.example.demo.game.application.service.LaunchedGamesService;
 import com.example.demo.game.domain.model.GamePlayRecord;
 import com.example.demo.shared.application.dto.event.GameLaunchEvent;
 import com.example.demo.game.domain.model.Game;
@@ -10,7 +12,6 @@ import com.example.demo.shared.application.dto.event.GamePlayEvent;
 import com.example.demo.shared.application.dto.event.UserLoginEvent;
 import com.example.demo.user.domain.model.User;
 import com.example.demo.game.domain.repository.GameLaunchRecordRepository;
-import com.example.demo.game.domain.repository.GamePlayRecordRepository;
 import com.example.demo.user.application.service.UserQueryService;
 import com.example.demo.shared.infrastructure.message.EventPublisher;
 import lombok.RequiredArgsConstructor;
@@ -27,12 +28,13 @@ import java.time.LocalDateTime;
 public class GameCommandServiceImpl implements GameCommandService {
 
     private final GameLaunchRecordRepository gameLaunchRecordRepository;
-    private final GamePlayRecordRepository gamePlayRecordRepository;
     private final EventPublisher eventPublisher;
     private final GameQueryService gameQueryService;
+    private final LaunchedGamesService launchedGamesService;
+    private final GamePlayRecordBuffer gamePlayRecordBuffer;
 
   /**
-   * 處理遊戲啟動事件。 檢查使用者和遊戲是否存在，並記錄遊戲啟動。 如果遊戲曾經啟動過，則跳過處理。
+   * 處理遊戲啟動事件。 檢查遊戲是否存在，先以 Redis 集合判斷是否已啟動過，尚未啟動才寫入資料庫。 如果遊戲曾經啟動過，則不發布事件。
    *
    * @param userId 使用者ID
    * @param gameCode 遊戲代碼
@@ -41,51 +43,59 @@ public class GameCommandServiceImpl implements GameCommandService {
   @Transactional
   @Override
   public Mono<Void> handleGameLaunch(User user, String gameCode) {
-    Long userId = user.getId();
     return gameQueryService.findGameByCodeOrThrow(gameCode)
-        .flatMap(game ->
-                // 檢查是否曾經啟動過這款遊戲
-            gameLaunchRecordRepository.existsByUserIdAndGameId(userId, game.getId())
-                .flatMap(hasLaunched -> {
-                    if (game.isAvailable()) {
-                        return Mono.error(new IllegalStateException("遊戲不可用: " + gameCode));
-                    }
+        .flatMap(game -> {
+            if (game.isAvailable()) {
+                return Mono.error(new IllegalStateException("遊戲不可用: " + gameCode));
+            }
 
-                    if (Boolean.TRUE.equals(hasLaunched)) {
-                        log.debug("使用者 {} 已啟動過遊戲 {}，跳過處理。", userId, gameCode);
+            GameLaunchRecord gameLaunchRecord = GameLaunchRecord.create(user.getId(), game.getId());
+            return recordGameLaunch(gameLaunchRecord)
+                .flatMap(firstLaunch -> {
+                    if (Boolean.FALSE.equals(firstLaunch)) {
+                        log.debug("使用者 {} 已啟動過遊戲 {}，跳過處理。", user.getId(), gameCode);
                         return Mono.empty(); // 如果已啟動，則不執行任何操作
                     }
 
-                    // 如果從未啟動過，則執行完整流程
                     log.info("處理遊戲啟動 - 使用者: {}, 遊戲: {}", user.getUsername(), gameCode);
-                    return recordGameLaunch(user, game)
-                        .flatMap(savedGame -> publishGameLaunchEvent(user, savedGame));
-                }))
+                    return publishGameLaunchEvent(user, game, gameLaunchRecord.getLaunchTime());
+                });
+        })
         .then();
   }
 
     /**
-     * 記錄遊戲啟動。
+     * 記錄遊戲啟動，已啟動過的遊戲不會重複記錄。
+     * Redis 集合已包含該遊戲時直接略過，不存取資料庫；否則由資料庫的唯一鍵判斷是否第一次啟動。
+     * 遊戲在交易提交後才加入集合，啟動記錄、事件或提交失敗時集合保持不變，下次啟動可以重試。
      *
-     * @param user 使用者實體
-     * @param game 遊戲實體
-     * @return 儲存的遊戲啟動紀錄資料 Mono<Game>
+     * @param gameLaunchRecord 遊戲啟動記錄
+     * @return 若為第一次啟動該遊戲則返回 true 的 Mono<Boolean>
      */
-    private Mono<Game> recordGameLaunch(User user, Game game) {
-        GameLaunchRecord gameLaunchRecord = GameLaunchRecord.create(user.getId(), game.getId());
-        return gameLaunchRecordRepository.save(gameLaunchRecord).thenReturn(game);
+    private Mono<Boolean> recordGameLaunch(GameLaunchRecord gameLaunchRecord) {
+        Long userId = gameLaunchRecord.getUserId();
+        Long gameId = gameLaunchRecord.getGameId();
+        return launchedGamesService.isLaunched(userId, gameId)
+            .flatMap(launched -> {
+                if (launched) {
+                    return Mono.just(false);
+                }
+                return gameLaunchRecordRepository.insertIfAbsent(gameLaunchRecord)
+                    .flatMap(firstLaunch -> launchedGamesService.markLaunched(userId, gameId).thenReturn(firstLaunch));
+            });
     }
 
     /**
-     * 發布遊戲啟動事件。
+     * 發布遊戲啟動事件，事件時間沿用啟動記錄的時間。
      *
      * @param user 使用者實體
      * @param game 遊戲實體
+     * @param launchTime 啟動記錄的時間
      * @return Mono<Void>
      */
-    private Mono<Void> publishGameLaunchEvent(User user, Game game) {
+    private Mono<Void> publishGameLaunchEvent(User user, Game game, LocalDateTime launchTime) {
         if (user.isEligibleForMissions()) {
-            GameLaunchEvent event = new GameLaunchEvent(user.getId(), user.getUsername(), game.getId(), game.getGameCode(), LocalDateTime.now());
+            GameLaunchEvent event = new GameLaunchEvent(user.getId(), user.getUsername(), game.getId(), game.getGameCode(), launchTime);
             return eventPublisher.publishGameLaunchEvent(event);
         } else {
             log.debug("使用者 {} 不符合任務資格（註冊超過30天），跳過發布遊戲啟動事件。", user.getUsername());
@@ -96,6 +106,7 @@ public class GameCommandServiceImpl implements GameCommandService {
     /**
      * 處理玩遊戲的事件。
      * 檢查使用者和遊戲是否存在，並記錄玩遊戲記錄。
+     * 遊玩記錄與遊玩事件經由緩衝區在同一個交易中寫入資料庫與 outbox；啟用緩衝區時會與其他請求的記錄合併為批次寫入。
      *
      * @param userId 使用者ID
      * @param gameCode 遊戲代碼
@@ -103,7 +114,6 @@ public class GameCommandServiceImpl implements GameCommandService {
      * @param playDuration 遊戲時間
      * @return Mono<Void>
      */
-    @Transactional
     @Override
     public Mono<Void> handleGamePlay(User user, String gameCode, int score, Integer playDuration) {
         log.info("玩遊戲處理 - 使用者: {}, 遊戲: {}, 分數: {}", user.getUsername(), gameCode, score);
@@ -113,41 +123,26 @@ public class GameCommandServiceImpl implements GameCommandService {
                     return Mono.error(new IllegalStateException("遊戲未啟用: " + gameCode));
                 }
 
-                return recordGamePlay(user, game, score, playDuration)
-                    .flatMap(savedGame -> publishGamePlayEvent(user, savedGame, score, playDuration));
+                GamePlayRecord gamePlayRecord = GamePlayRecord.create(user.getId(), game.getId(), score, playDuration);
+                return gamePlayRecordBuffer.submit(gamePlayRecord, gamePlayEvent(user, game, gamePlayRecord));
             }).then();
     }
 
     /**
-     * 記錄遊戲遊玩。
+     * 建立玩遊戲事件，事件時間沿用遊玩記錄的時間。
      *
      * @param user 使用者實體
      * @param game 遊戲實體
-     * @param score 遊戲分數
-     * @param playDuration 遊戲時長
-     * @return 儲存的遊戲遊玩紀錄資料Mono<Game>
+     * @param gamePlayRecord 遊戲遊玩記錄
+     * @return 玩遊戲事件，使用者不符合任務資格時返回 null
      */
-    private Mono<Game> recordGamePlay(User user, Game game, int score, Integer playDuration) {
-        GamePlayRecord gamePlayRecord = GamePlayRecord.create(user.getId(), game.getId(), score, playDuration);
-        return gamePlayRecordRepository.save(gamePlayRecord).thenReturn(game);
-    }
-
-    /**
-     * 發布玩遊戲事件。
-     *
-     * @param user 使用者實體
-     * @param game 遊戲實體
-     * @param score 遊戲分數
-     * @param playDuration 遊戲時長
-     * @return Mono<Void>
-     */
-    private Mono<Void> publishGamePlayEvent(User user, Game game, int score, Integer playDuration) {
+    private GamePlayEvent gamePlayEvent(User user, Game game, GamePlayRecord gamePlayRecord) {
         if (user.isEligibleForMissions()) {
-            GamePlayEvent event = new GamePlayEvent(user.getId(), user.getUsername(), game.getId(), game.getGameCode(), score, playDuration, LocalDateTime.now());
-            return eventPublisher.publishGamePlayEvent(event);
+            return new GamePlayEvent(user.getId(), user.getUsername(), game.getId(), game.getGameCode(),
+                gamePlayRecord.getScore(), gamePlayRecord.getPlayDuration(), gamePlayRecord.getPlayTime());
         } else {
             log.debug("使用者 {} 不符合任務資格（註冊超過30天），跳過發布玩遊戲事件事件。", user.getUsername());
-            return Mono.empty();
+            return null;
         }
     }
 }
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
  * 遊戲啟動記錄實體
@@ -44,8 +45,9 @@ public class GameLaunchRecord {
         GameLaunchRecord gameLaunchRecord = new GameLaunchRecord();
         gameLaunchRecord.userId = userId;
         gameLaunchRecord.gameId = gameId;
-        gameLaunchRecord.launchTime = LocalDateTime.now();
-        gameLaunchRecord.createdAt = LocalDateTime.now();
+        // 精確到微秒，與資料庫欄位精度一致；事件沿用此時間，任務統計以它判斷事件是否已計入
+        gameLaunchRecord.launchTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        gameLaunchRecord.createdAt = gameLaunchRecord.launchTime;
         return gameLaunchRecord;
     }
 }
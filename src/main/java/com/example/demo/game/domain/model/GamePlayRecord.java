@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
  * 遊戲遊玩記錄實體
@@ -55,8 +56,9 @@ public class GamePlayRecord {
         gamePlayRecord.gameId = gameId;
         gamePlayRecord.score = score;
         gamePlayRecord.playDuration = playDuration;
-        gamePlayRecord.playTime = LocalDateTime.now();
-        gamePlayRecord.createdAt = LocalDateTime.now();
+        // 精確到微秒，與資料庫欄位精度一致；事件沿用此時間，任務統計以它判斷事件是否已計入
+        gamePlayRecord.playTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        gamePlayRecord.createdAt = gamePlayRecord.playTime;
         return gamePlayRecord;
     }
 }
@@ -1,8 +1,12 @@
 package com.example.demo.game.domain.repository;
 
 import com.example.demo.game.domain.model.GameLaunchRecord;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * 遊戲啟動記錄儲存庫介面
  */
@@ -13,11 +17,35 @@ public interface GameLaunchRecordRepository {
     Mono<Long> countDistinctGamesLaunchedByUser(Long userId);
 
     /**
-     * 檢查使用者是否曾經啟動過指定的遊戲。
+     * 計算使用者在指定時間（含）之前啟動過的不同遊戲的數量。
      *
      * @param userId 使用者ID
-     * @param gameId 遊戲ID
-     * @return 如果曾經啟動過，則返回 Mono<Boolean> of true
+     * @param until  啟動時間上限
+     * @return 包含不同遊戲數量的 Mono<Long>
+     */
+    Mono<Long> countDistinctGamesLaunchedByUserUntil(Long userId, LocalDateTime until);
+
+    /**
+     * 查詢使用者啟動過的所有遊戲ID。
+     *
+     * @param userId 使用者ID
+     * @return 不重複遊戲ID的 Flux<Long>
+     */
+    Flux<Long> findLaunchedGameIds(Long userId);
+
+    /**
+     * 以單一語句新增遊戲啟動記錄，使用者已啟動過該遊戲時不做任何變更。
+     *
+     * @param gameLaunchRecord 要新增的遊戲啟動記錄
+     * @return 若為第一次啟動該遊戲則返回 true 的 Mono<Boolean>
+     */
+    Mono<Boolean> insertIfAbsent(GameLaunchRecord gameLaunchRecord);
+
+    /**
+     * 以批次語句新增多筆遊戲啟動記錄，使用者已啟動過的遊戲會被略過。
+     *
+     * @param gameLaunchRecords 要新增的遊戲啟動記錄
+     * @return 包含受影響行數的 Mono<Long>，略過的重複記錄也會計入
      */
-    Mono<Boolean> existsByUserIdAndGameId(Long userId, Long gameId);
+    Mono<Long> insertAllIfAbsent(List<GameLaunchRecord> gameLaunchRecords);
 }
@@ -4,6 +4,9 @@ import com.example.demo.game.domain.model.GamePlayRecord;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * 遊戲遊玩記錄儲存庫介面
  */
@@ -11,6 +14,14 @@ public interface GamePlayRecordRepository {
 
     Mono<GamePlayRecord> save(GamePlayRecord gamePlayRecord);
 
+    /**
+     * 以單一多列 INSERT 語句新增多筆遊戲遊玩記錄。
+     *
+     * @param gamePlayRecords 要新增的遊戲遊玩記錄
+     * @return 包含實際新增筆數的 Mono<Long>
+     */
+    Mono<Long> insertAll(List<GamePlayRecord> gamePlayRecords);
+
     /**
      * 計算使用者的玩遊戲記錄總數。
      *
@@ -26,4 +37,22 @@ public interface GamePlayRecordRepository {
      * @return 包含總分數的 Mono<Integer>
      */
     Mono<Integer> sumScoreByUserId(Long userId);
+
+    /**
+     * 計算使用者在指定時間（含）之前的玩遊戲記錄總數。
+     *
+     * @param userId 使用者ID
+     * @param until  遊玩時間上限
+     * @return 包含玩遊戲記錄總數的 Mono<Long>
+     */
+    Mono<Long> countByUserIdUntil(Long userId, LocalDateTime until);
+
+    /**
+     * 計算使用者在指定時間（含）之前的總分數。
+     *
+     * @param userId 使用者ID
+     * @param until  遊玩時間上限
+     * @return 包含總分數的 Mono<Integer>
+     */
+    Mono<Integer> sumScoreByUserIdUntil(Long userId, LocalDateTime until);
 }
@@ -1,6 +1,7 @@
 package com.example.demo.game.interfaces.controller;
 
 import com.example.demo.game.application.service.GameCommandService;
+import com.example.demo.game.application.service.GamePlayRecordBuffer;
 import com.example.demo.shared.application.dto.ApiResponse;
 import com.example.demo.shared.application.dto.LaunchGameRequest;
 import com.example.demo.shared.application.dto.PlayGameRequest;
@@ -8,11 +9,13 @@ import com.example.demo.user.application.service.UserQueryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
 @Slf4j
@@ -52,7 +55,9 @@ public class GameController {
                 )
             )
             .then(Mono.just(ApiResponse.<Void>success("遊戲記錄成功")))
-            .onErrorResume(e -> {
+            .onErrorMap(GamePlayRecordBuffer.BufferFullException.class,
+                e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e))
+            .onErrorResume(e -> !(e instanceof ResponseStatusException), e -> {
                 log.error("遊玩遊戲失敗", e);
                 return Mono.just(ApiResponse.error("遊玩遊戲失敗: " + e.getMessage()));
             });
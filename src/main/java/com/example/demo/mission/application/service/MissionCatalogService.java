@@ -0,0 +1,147 @@
+package com.example.demo.mission.application.service;
+
+import com.example.demo.mission.domain.model.MissionCatalog;
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.repository.MissionCatalogRepository;
+import com.example.demo.mission.domain.repository.MissionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 任務目錄服務
+ * 將資料庫中的任務目錄編譯為不可變的 {@link MissionCatalog} 並保存在記憶體中，
+ * 定期比對版本戳記，目錄有變更時重新編譯並原子性地替換，無需重新啟動。
+ * 任務進度計算只會讀取記憶體中的目錄。
+ * 目錄變更時會將尚未完成的既有任務改為新的目標進度與獎勵點數，已完成的任務保留完成當時的值。
+ */
+@Slf4j
+@Service
+public class MissionCatalogService implements InitializingBean, DisposableBean {
+
+    private static final String FALLBACK_VERSION = "fallback";
+
+    private final MissionCatalogRepository missionCatalogRepository;
+    private final MissionRepository missionRepository;
+    private final CacheManager cacheManager;
+    private final List<MissionDefinition> fallbackDefinitions;
+    private final Duration reloadInterval;
+    private final AtomicReference<MissionCatalog> catalog;
+    private Disposable reloadTask;
+
+    public MissionCatalogService(MissionCatalogRepository missionCatalogRepository,
+                                 MissionRepository missionRepository,
+                                 CacheManager cacheManager,
+                                 @Value("${app.mission.consecutive-login-days:3}") int consecutiveLoginDays,
+                                 @Value("${app.mission.launch-games-count:3}") int launchGamesCount,
+                                 @Value("${app.mission.play-games-count:3}") int playGamesCount,
+                                 @Value("${app.mission.play-games-min-score:1000}") int playGamesMinScore,
+                                 @Value("${app.mission.catalog-reload-interval-ms:30000}") long reloadIntervalMillis) {
+        this.missionCatalogRepository = missionCatalogRepository;
+        this.missionRepository = missionRepository;
+        this.cacheManager = cacheManager;
+        this.fallbackDefinitions = List.of(
+            new MissionDefinition(MissionType.CONSECUTIVE_LOGIN, consecutiveLoginDays, 0, 0),
+            new MissionDefinition(MissionType.LAUNCH_GAMES, launchGamesCount, 0, 0),
+            new MissionDefinition(MissionType.PLAY_GAMES, playGamesCount, playGamesMinScore, 0)
+        );
+        this.reloadInterval = Duration.ofMillis(reloadIntervalMillis);
+        this.catalog = new AtomicReference<>(MissionCatalog.compile(FALLBACK_VERSION, fallbackDefinitions));
+    }
+
+    /**
+     * 在所有屬性設置完成後調用，載入任務目錄並啟動定期的版本檢查。
+     */
+    @Override
+    public void afterPropertiesSet() {
+        reloadIfChanged().subscribe(
+            loaded -> log.info("已載入任務目錄，版本 {}，共 {} 個任務", loaded.version(), loaded.size()),
+            error -> log.error("載入任務目錄失敗，使用設定檔中的預設任務", error)
+        );
+        if (!reloadInterval.isZero() && !reloadInterval.isNegative()) {
+            reloadTask = Flux.interval(reloadInterval, reloadInterval)
+                .concatMap(tick -> reloadIfChanged()
+                    .doOnNext(loaded -> log.info("任務目錄已更新為版本 {}，共 {} 個任務", loaded.version(), loaded.size()))
+                    .onErrorResume(e -> {
+                        log.warn("檢查任務目錄版本失敗，沿用目前的目錄", e);
+                        return Mono.empty();
+                    }))
+                .subscribe();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (reloadTask != null) {
+            reloadTask.dispose();
+        }
+    }
+
+    /**
+     * 獲取目前的任務目錄。
+     *
+     * @return 目前的任務目錄
+     */
+    public MissionCatalog current() {
+        return catalog.get();
+    }
+
+    /**
+     * 若資料庫中的目錄版本與目前不同，則重新載入並編譯任務目錄。
+     * 目錄為空時改用設定檔中的預設任務。
+     * 新目錄生效後將尚未完成的既有任務改為新的目標進度與獎勵點數並清除 "missions" 快取；
+     * 先替換目錄再更新任務，避免更新期間的進度計算又寫回舊的目標。更新失敗時還原為舊目錄，由下一次檢查重試。
+     *
+     * @return 包含新目錄的 Mono<MissionCatalog>，若版本未變更則為空
+     */
+    public Mono<MissionCatalog> reloadIfChanged() {
+        return missionCatalogRepository.findVersion()
+            .filter(version -> !version.equals(catalog.get().version()))
+            .flatMap(version -> missionCatalogRepository.findAllEnabled()
+                .collectList()
+                .map(definitions -> MissionCatalog.compile(version, definitions.isEmpty() ? fallbackDefinitions : definitions)))
+            .flatMap(compiled -> {
+                MissionCatalog previous = catalog.getAndSet(compiled);
+                return retargetMissions(compiled)
+                    .onErrorResume(e -> {
+                        catalog.compareAndSet(compiled, previous);
+                        return Mono.error(e);
+                    })
+                    .thenReturn(compiled);
+            });
+    }
+
+    /**
+     * 將尚未完成的既有任務改為目錄中的目標進度與獎勵點數，並清除 "missions" 快取。
+     *
+     * @param compiled 新的任務目錄
+     * @return 表示操作完成的 Mono<Void>
+     */
+    private Mono<Void> retargetMissions(MissionCatalog compiled) {
+        return Flux.fromIterable(compiled.missionTypes())
+            .concatMap(type -> missionRepository.retargetIncomplete(compiled.definition(type))
+                .doOnNext(updated -> {
+                    if (updated > 0) {
+                        log.info("任務目錄版本 {}：已將 {} 筆未完成的 {} 任務改為新的目標與獎勵", compiled.version(), updated, type);
+                    }
+                }))
+            .then(Mono.fromRunnable(() -> {
+                Cache cache = cacheManager.getCache("missions");
+                if (cache != null) {
+                    cache.clear();
+                }
+            }));
+    }
+}
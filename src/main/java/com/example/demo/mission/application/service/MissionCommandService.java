@@ -1,5 +1,6 @@
 package com.example.demo.mission.application.service;
 
+import com.example.demo.mission.domain.model.MissionProgressDelta;
 import reactor.core.publisher.Mono;
 
 public interface MissionCommandService {
@@ -8,5 +9,7 @@ public interface MissionCommandService {
 
     Mono<Void> updateMissionProgress(Long userId, String userName);
 
+    Mono<Void> applyProgress(Long userId, String userName, MissionProgressDelta delta);
+
     Mono<Void> checkAndDistributeRewards(Long userId, String userName);
 }
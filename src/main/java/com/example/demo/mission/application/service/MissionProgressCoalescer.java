@@ -0,0 +1,48 @@
+package com.example.demo.mission.application.service;
+
+import com.example.demo.mission.domain.model.MissionProgressDelta;
+import com.example.demo.shared.infrastructure.concurrent.KeyedSerialExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * 任務進度評估的使用者信箱。
+ * 同一使用者的評估一律經由其專屬信箱依序執行，不同使用者之間則平行執行，
+ * 避免同一使用者的任務列被並行更新。
+ * 同一使用者多個事件的合併由批次消費的 {@link com.example.demo.shared.infrastructure.message.consumer.MissionProgressBatchProcessor}
+ * 在提交前完成；順序消費者每個佇列一次只處理一則訊息，逐筆提交即可。
+ */
+@Service
+public class MissionProgressCoalescer {
+
+    private final MissionCommandService missionCommandService;
+    private final KeyedSerialExecutor<Long> userLanes = new KeyedSerialExecutor<>();
+    private final Counter evaluationCounter;
+
+    public MissionProgressCoalescer(MissionCommandService missionCommandService, MeterRegistry meterRegistry) {
+        this.missionCommandService = missionCommandService;
+        this.evaluationCounter = Counter.builder("mission.coalescer.evaluations")
+            .description("實際執行的任務評估次數")
+            .register(meterRegistry);
+        Gauge.builder("mission.lanes.active", userLanes, KeyedSerialExecutor::activeKeys)
+            .description("目前有任務評估在排隊或執行中的使用者數")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 在使用者專屬的信箱中評估一個（或已合併的多個）任務進度事件。
+     * 取消返回的 Mono 時，排隊中的評估不會執行，執行中的評估會被取消。
+     *
+     * @param userId   使用者ID
+     * @param userName 使用者名稱
+     * @param delta    事件帶來的進度增量
+     * @return 評估完成時結束的 Mono<Void>
+     */
+    public Mono<Void> submit(Long userId, String userName, MissionProgressDelta delta) {
+        evaluationCounter.increment();
+        return userLanes.submit(userId, () -> missionCommandService.applyProgress(userId, userName, delta));
+    }
+}
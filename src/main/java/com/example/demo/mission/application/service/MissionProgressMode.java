@@ -0,0 +1,22 @@
+package com.example.demo.mission.application.service;
+
+/**
+ * 任務進度計算模式
+ */
+public enum MissionProgressMode {
+    /**
+     * 每個事件都從完整歷史記錄重新計算任務進度
+     */
+    RECOMPUTE,
+
+    /**
+     * 將事件內容作為增量套用到持久化的使用者計數器
+     */
+    INCREMENTAL,
+
+    /**
+     * 任務計數器與進度保存在 Redis 並由伺服器端腳本更新，事件處理過程不存取資料庫；
+     * 有變更的進度由 {@link MissionStateFlusher} 定期批次寫回資料庫，任務完成時則立即寫回
+     */
+    REDIS
+}
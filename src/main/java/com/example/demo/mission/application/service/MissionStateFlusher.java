@@ -0,0 +1,195 @@
+package com.example.demo.mission.application.service;
+
+import com.example.demo.mission.domain.model.Mission;
+import com.example.demo.mission.domain.model.MissionCatalog;
+import com.example.demo.mission.domain.model.MissionState;
+import com.example.demo.mission.domain.repository.MissionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任務狀態寫回器
+ * 在 Redis 模式下定期取出有變更的使用者，將 {@link MissionStateStore} 中的任務進度批次寫回資料庫，
+ * 寫回成功後才將使用者移出待寫回集合，應用重新啟動後會繼續寫回先前未完成的使用者。
+ */
+@Slf4j
+@Service
+public class MissionStateFlusher implements InitializingBean, DisposableBean {
+
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(5);
+
+    private final MissionStateStore missionStateStore;
+    private final MissionRepository missionRepository;
+    private final MissionCatalogService missionCatalogService;
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Counter flushedCounter;
+    private Disposable flushTask;
+
+    public MissionStateFlusher(MissionStateStore missionStateStore,
+                               MissionRepository missionRepository,
+                               MissionCatalogService missionCatalogService,
+                               CacheManager cacheManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.mission.progress-mode:RECOMPUTE}") MissionProgressMode progressMode,
+                               @Value("${app.mission.state-flush-interval-ms:1000}") long flushIntervalMillis,
+                               @Value("${app.mission.state-flush-batch-size:200}") int batchSize) {
+        this.missionStateStore = missionStateStore;
+        this.missionRepository = missionRepository;
+        this.missionCatalogService = missionCatalogService;
+        this.cacheManager = cacheManager;
+        this.enabled = progressMode == MissionProgressMode.REDIS;
+        this.flushInterval = Duration.ofMillis(flushIntervalMillis);
+        this.batchSize = batchSize;
+        this.flushedCounter = Counter.builder("mission.state.flushed")
+            .description("從 Redis 寫回資料庫的使用者任務狀態數")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 在所有屬性設置完成後調用，Redis 模式下啟動定期寫回。
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled || flushInterval.isZero() || flushInterval.isNegative()) {
+            return;
+        }
+        flushTask = Flux.interval(flushInterval, flushInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> flushDirtyUsers()
+                .onErrorResume(e -> {
+                    log.warn("寫回任務狀態失敗，下次重試", e);
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    /**
+     * 應用關閉時停止定期寫回，並再寫回一批尚未寫回的使用者。
+     */
+    @Override
+    public void destroy() {
+        if (flushTask == null) {
+            return;
+        }
+        flushTask.dispose();
+        flushDirtyUsers()
+            .doOnNext(count -> log.info("應用關閉，已寫回 {} 個使用者的任務狀態", count))
+            .onErrorResume(e -> {
+                log.warn("應用關閉時寫回任務狀態失敗，將於下次啟動時繼續", e);
+                return Mono.empty();
+            })
+            .block(SHUTDOWN_FLUSH_TIMEOUT);
+    }
+
+    /**
+     * 寫回一批有變更的使用者。
+     *
+     * @return 包含寫回使用者數量的 Mono<Integer>
+     */
+    public Mono<Integer> flushDirtyUsers() {
+        return missionStateStore.findDirtyUsers(batchSize)
+            .collectList()
+            .flatMap(this::flush);
+    }
+
+    /**
+     * 將指定使用者的任務狀態以單次查詢與單次批次寫入寫回資料庫。
+     * 寫回期間又有新變更的使用者會留在待寫回集合中，等待下一次寫回。
+     * 在交易中呼叫時延後到交易提交後才將使用者移出待寫回集合，交易回滾時由定期寫回補上。
+     *
+     * @param userIds 使用者ID
+     * @return 包含寫回使用者數量的 Mono<Integer>
+     */
+    public Mono<Integer> flush(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        return Flux.fromIterable(userIds)
+            .flatMap(missionStateStore::load)
+            .collectMap(MissionState::userId)
+            .flatMap(states -> saveStates(states)
+                .then(acknowledgeAfterCommit(userIds, states))
+                .then(Mono.fromRunnable(() -> evictMissionsCache(userIds)))
+                .thenReturn(states.size()))
+            .doOnNext(count -> {
+                flushedCounter.increment(count);
+                log.debug("已將 {} 個使用者的任務狀態寫回資料庫", count);
+            });
+    }
+
+    /**
+     * 將使用者移出待寫回集合；在交易中時註冊到交易提交後執行，確認失敗只會讓使用者在下次再寫回一次。
+     */
+    private Mono<Void> acknowledgeAfterCommit(List<Long> userIds, Map<Long, MissionState> states) {
+        Mono<Void> acknowledge = Flux.fromIterable(userIds)
+            .concatMap(userId -> missionStateStore.acknowledge(userId,
+                states.containsKey(userId) ? states.get(userId).version() : -1))
+            .then();
+        return TransactionSynchronizationManager.forCurrentTransaction()
+            .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public Mono<Void> afterCommit() {
+                    return acknowledge.onErrorResume(e -> {
+                        log.warn("交易提交後將使用者 {} 移出待寫回集合失敗，將於下次寫回", userIds, e);
+                        return Mono.empty();
+                    });
+                }
+            }))
+            .then()
+            .onErrorResume(NoTransactionException.class, e -> acknowledge);
+    }
+
+    /**
+     * 一次載入這些使用者的任務，套用 Redis 中的進度後以單次批次寫入儲存，進度未變更的任務會被略過。
+     * Redis 中的進度以目前目錄的目標計算，因此先將任務改為目錄中的目標與獎勵再套用進度。
+     */
+    private Mono<Void> saveStates(Map<Long, MissionState> states) {
+        if (states.isEmpty()) {
+            return Mono.empty();
+        }
+        return missionRepository.findByUserIdIn(states.keySet())
+            .collectList()
+            .flatMap(missions -> {
+                MissionCatalog catalog = missionCatalogService.current();
+                missions.forEach(mission -> applyState(mission, states.get(mission.getUserId()), catalog));
+                return missionRepository.saveAll(missions);
+            });
+    }
+
+    private void applyState(Mission mission, MissionState state, MissionCatalog catalog) {
+        Integer progress = state == null ? null : state.progress().get(mission.getMissionType());
+        if (progress != null) {
+            if (catalog.missionTypes().contains(mission.getMissionType())) {
+                mission.retarget(catalog.definition(mission.getMissionType()));
+            }
+            mission.updateProgress(progress);
+        }
+    }
+
+    private void evictMissionsCache(List<Long> userIds) {
+        Cache cache = cacheManager.getCache("missions");
+        if (cache != null) {
+            userIds.forEach(cache::evict);
+        }
+    }
+}
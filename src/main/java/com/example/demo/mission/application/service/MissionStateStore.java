@@ -0,0 +1,391 @@
+package com.example.demo.mission.application.service;
+
+import com.example.demo.mission.domain.model.Mission;
+import com.example.demo.mission.domain.model.MissionCatalog;
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
+import com.example.demo.mission.domain.model.MissionState;
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.shared.infrastructure.redis.RedisService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任務狀態儲存
+ * 將每位使用者的任務計數器（連續登入天數、啟動遊戲數、遊玩次數與總分數）與任務進度保存在 Redis hash 中，
+ * 由伺服器端腳本原子性地套用事件增量、計算進度並偵測任務完成，事件處理過程不需存取資料庫。
+ * 有變更的使用者會被加入待寫回集合，由 {@link MissionStateFlusher} 批次寫回資料庫；
+ * 待寫回集合依使用者ID分成多個分片，狀態 hash 與所屬分片的鍵帶有相同的 hash tag，
+ * 同時存取兩者的腳本在 Redis Cluster 中落在同一個 slot。
+ * 資料庫仍是持久的資料來源，Redis 中沒有狀態時會從資料庫重新建立。
+ * 計數器的起始值從歷史記錄彙總到 seededUntil 為止，只有記錄時間晚於 seededUntil 的增量才會被累加，
+ * 已寫入歷史記錄但尚未被消費的事件因此不會被重複計入。時間以 epoch 微秒保存。
+ * 晚於 seededUntil 的增量以記錄鍵記錄在已套用集合中，交易失敗後重新處理同一事件時不會重複累加；
+ * 剛完成任務的標記在交易回滾時由 {@link #clearCompleted} 移除，重新處理時才能再次偵測到任務完成。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MissionStateStore {
+
+    private static final String STATE_KEY_PREFIX = "mission:state:";
+    private static final String DIRTY_KEY_PREFIX = "mission:state:dirty:";
+    private static final String APPLIED_KEY_PREFIX = "mission:state:applied:";
+
+    /**
+     * 待寫回集合的分片數，也是使用者狀態分布的 slot 數
+     */
+    private static final int DIRTY_SHARDS = 256;
+
+    /**
+     * 取出待寫回使用者時同時查詢的分片數
+     */
+    private static final int DIRTY_SHARD_CONCURRENCY = 16;
+
+    private static final Duration STATE_TTL = Duration.ofDays(7);
+    private static final String PROGRESS_FIELD_PREFIX = "progress:";
+    private static final String COMPLETED_FIELD_PREFIX = "completed:";
+    private static final String VERSION_FIELD = "version";
+    private static final String LAST_EVENT_AT_FIELD = "lastEventAt";
+    private static final long NO_EVENT_TIME = -1L;
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+
+    /**
+     * KEYS[1]: 狀態 hash；KEYS[2]: 使用者所屬的待寫回集合分片；KEYS[3]: 已套用記錄的 sorted set。
+     * ARGV[1]: 使用者ID；ARGV[2]: TTL 秒數；ARGV[3..5]: 啟動遊戲數、遊玩次數與分數的增量；
+     * ARGV[6]: 連續登入天數（-1 表示不變）；ARGV[7..8]: 增量中最早與最晚的記錄時間（沒有計數器變化時為 -1）；
+     * ARGV[9]: 記錄鍵數量 n；ARGV[10..9+n]: 記錄鍵；ARGV[10+n..]: 每個受影響任務依序為類型、目標進度與最低分數。
+     * 記錄都不晚於 seededUntil 的增量已包含在起始值中，不再累加；沒有 seededUntil 的舊狀態也需要重新彙總。
+     * 晚於 seededUntil 的增量只有在所有記錄鍵都尚未套用時才累加，並以套用時間為分數記錄這些鍵；
+     * 全部都已套用時視為重新處理而不累加，只有部分已套用時需要重新彙總。超過 TTL 的已套用記錄會被移除。
+     * 狀態不存在，或增量需要重新彙總時回傳 -1，否則回傳剛完成任務的位元遮罩（第 i 位對應第 i 個受影響任務）。
+     * 進度規則與 {@link MissionCatalog} 中編譯的規則一致。
+     */
+    private static final RedisScript<Long> APPLY_SCRIPT = RedisScript.of("""
+        if redis.call('EXISTS', KEYS[1]) == 0 then
+            return -1
+        end
+        local firstEventAt, lastEventAt = tonumber(ARGV[7]), tonumber(ARGV[8])
+        local seededUntil = tonumber(redis.call('HGET', KEYS[1], 'seededUntil') or '-1')
+        if lastEventAt >= 0 and seededUntil < 0 then
+            return -1
+        end
+        local recordCount = tonumber(ARGV[9])
+        if lastEventAt > seededUntil then
+            if firstEventAt <= seededUntil then
+                return -1
+            end
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', now - tonumber(ARGV[2]) * 1000000)
+            local applied = 0
+            for i = 10, 9 + recordCount do
+                if redis.call('ZSCORE', KEYS[3], ARGV[i]) then
+                    applied = applied + 1
+                end
+            end
+            if applied > 0 and applied < recordCount then
+                return -1
+            end
+            if applied == 0 then
+                for i = 10, 9 + recordCount do
+                    redis.call('ZADD', KEYS[3], now, ARGV[i])
+                end
+                if recordCount > 0 then
+                    redis.call('EXPIRE', KEYS[3], ARGV[2])
+                end
+                redis.call('HINCRBY', KEYS[1], 'launched', ARGV[3])
+                redis.call('HINCRBY', KEYS[1], 'plays', ARGV[4])
+                redis.call('HINCRBY', KEYS[1], 'score', ARGV[5])
+                if lastEventAt > tonumber(redis.call('HGET', KEYS[1], 'lastEventAt') or '-1') then
+                    redis.call('HSET', KEYS[1], 'lastEventAt', ARGV[8])
+                end
+            end
+        end
+        local launched = tonumber(redis.call('HGET', KEYS[1], 'launched') or '0')
+        local plays = tonumber(redis.call('HGET', KEYS[1], 'plays') or '0')
+        local score = tonumber(redis.call('HGET', KEYS[1], 'score') or '0')
+        local streak = tonumber(ARGV[6])
+        if streak >= 0 then
+            redis.call('HSET', KEYS[1], 'streak', streak)
+        else
+            streak = tonumber(redis.call('HGET', KEYS[1], 'streak') or '0')
+        end
+        local changed = false
+        local completed = 0
+        local bit = 1
+        for i = 10 + recordCount, #ARGV, 3 do
+            local missionType, target, minScore = ARGV[i], tonumber(ARGV[i + 1]), tonumber(ARGV[i + 2])
+            local progress
+            if missionType == 'CONSECUTIVE_LOGIN' then
+                progress = streak
+            elseif missionType == 'LAUNCH_GAMES' then
+                progress = launched
+            elseif plays >= target and score >= minScore then
+                progress = target
+            elseif plays >= target then
+                progress = target - 1
+            else
+                progress = plays
+            end
+            local field = 'progress:' .. missionType
+            if tonumber(redis.call('HGET', KEYS[1], field) or '-1') ~= progress then
+                redis.call('HSET', KEYS[1], field, progress)
+                changed = true
+            end
+            if progress >= target and redis.call('HSETNX', KEYS[1], 'completed:' .. missionType, 1) == 1 then
+                completed = completed + bit
+            end
+            bit = bit * 2
+        end
+        redis.call('EXPIRE', KEYS[1], ARGV[2])
+        if changed then
+            redis.call('HINCRBY', KEYS[1], 'version', 1)
+            redis.call('SADD', KEYS[2], ARGV[1])
+        end
+        return completed
+        """, Long.class);
+
+    /**
+     * KEYS[1]: 狀態 hash；KEYS[2]: 已套用記錄的 sorted set；ARGV[1]: TTL 秒數；ARGV[2]: seededUntil；
+     * ARGV[3..5]: 啟動遊戲數、遊玩次數與總分數；ARGV[6..]: 狀態不存在時才寫入的其他欄位與值。
+     * 狀態已存在時只覆寫計數器，且只有已計入的最晚記錄不晚於新的 seededUntil 時才覆寫，避免遺失之後已累加的增量。
+     * 已套用的記錄都不晚於新的 seededUntil，已包含在起始值中，因此一併清除。
+     * 回傳 1 表示已寫入。
+     */
+    private static final RedisScript<Long> SEED_SCRIPT = RedisScript.of("""
+        local exists = redis.call('EXISTS', KEYS[1]) == 1
+        if exists and tonumber(redis.call('HGET', KEYS[1], 'lastEventAt') or '-1') > tonumber(ARGV[2]) then
+            return 0
+        end
+        redis.call('HSET', KEYS[1], 'seededUntil', ARGV[2], 'lastEventAt', ARGV[2],
+            'launched', ARGV[3], 'plays', ARGV[4], 'score', ARGV[5])
+        redis.call('DEL', KEYS[2])
+        if not exists and #ARGV > 5 then
+            redis.call('HSET', KEYS[1], unpack(ARGV, 6))
+        end
+        redis.call('EXPIRE', KEYS[1], ARGV[1])
+        return 1
+        """, Long.class);
+
+    /**
+     * KEYS[1]: 狀態 hash；KEYS[2]: 使用者所屬的待寫回集合分片；ARGV[1]: 使用者ID；ARGV[2]: 已寫回的版本。
+     * 寫回期間版本沒有變更（或狀態已過期）時才將使用者移出待寫回集合。
+     */
+    private static final RedisScript<Long> ACKNOWLEDGE_SCRIPT = RedisScript.of("""
+        local version = redis.call('HGET', KEYS[1], 'version')
+        if version == false or version == ARGV[2] then
+            return redis.call('SREM', KEYS[2], ARGV[1])
+        end
+        return 0
+        """, Long.class);
+
+    private final RedisService redisService;
+    private final AtomicInteger dirtyShardCursor = new AtomicInteger();
+
+    /**
+     * 以伺服器端腳本套用任務進度增量，並計算受影響任務的新進度。
+     *
+     * @param userId        使用者ID
+     * @param delta         任務進度增量
+     * @param loginStreak   目前的連續登入天數，-1 表示不變
+     * @param catalog       任務目錄
+     * @param affectedTypes 受影響的任務類型
+     * @return 剛完成的任務類型的 Mono<Set<MissionType>>，若 Redis 中沒有此使用者的狀態，或增量橫跨起始值、
+     * 部分記錄已套用而需要重新建立時則為空
+     */
+    public Mono<Set<MissionType>> apply(Long userId, MissionProgressDelta delta, int loginStreak,
+                                        MissionCatalog catalog, Set<MissionType> affectedTypes) {
+        List<MissionType> types = List.copyOf(affectedTypes);
+        List<String> args = new ArrayList<>(List.of(
+            userId.toString(),
+            Long.toString(STATE_TTL.toSeconds()),
+            Integer.toString(delta.launchedGames()),
+            Integer.toString(delta.plays()),
+            Integer.toString(delta.score()),
+            Integer.toString(loginStreak),
+            Long.toString(delta.hasCounterChanges() ? toEpochMicros(delta.firstEventAt()) : NO_EVENT_TIME),
+            Long.toString(delta.hasCounterChanges() ? toEpochMicros(delta.lastEventAt()) : NO_EVENT_TIME),
+            Integer.toString(delta.recordKeys().size())));
+        delta.recordKeys().stream().sorted().forEach(args::add);
+        for (MissionType type : types) {
+            MissionDefinition definition = catalog.definition(type);
+            args.add(type.name());
+            args.add(Integer.toString(definition.targetProgress()));
+            args.add(Integer.toString(definition.minScore()));
+        }
+
+        return redisService.executeScriptWithStringArgs(APPLY_SCRIPT,
+                List.of(stateKey(userId), dirtyKey(userId), appliedKey(userId)), args)
+            .filter(completedMask -> completedMask >= 0)
+            .map(completedMask -> {
+                Set<MissionType> completed = EnumSet.noneOf(MissionType.class);
+                for (int i = 0; i < types.size(); i++) {
+                    if ((completedMask >> i & 1L) == 1L) {
+                        completed.add(types.get(i));
+                    }
+                }
+                return completed;
+            });
+    }
+
+    /**
+     * 以資料庫中彙總到 seededUntil 的計數器與任務建立使用者的 Redis 狀態。
+     * 狀態已存在時只覆寫計數器與 seededUntil，且已有晚於 seededUntil 的增量被累加時不做任何變更。
+     *
+     * @param userId        使用者ID
+     * @param seededUntil   計數器所包含的最晚記錄時間
+     * @param launchedGames 啟動過的不同遊戲數
+     * @param plays         遊玩次數
+     * @param score         遊玩總分數
+     * @param missions      使用者目前的任務
+     * @return 若確實寫入了狀態則返回 true 的 Mono<Boolean>
+     */
+    public Mono<Boolean> seed(Long userId, LocalDateTime seededUntil, long launchedGames, long plays, long score,
+                              List<Mission> missions) {
+        List<String> args = new ArrayList<>(List.of(
+            Long.toString(STATE_TTL.toSeconds()),
+            Long.toString(toEpochMicros(seededUntil)),
+            Long.toString(launchedGames),
+            Long.toString(plays),
+            Long.toString(score),
+            VERSION_FIELD, "0",
+            "streak", "0"));
+        for (Mission mission : missions) {
+            args.add(PROGRESS_FIELD_PREFIX + mission.getMissionType().name());
+            args.add(mission.getCurrentProgress().toString());
+            if (Boolean.TRUE.equals(mission.getIsCompleted())) {
+                args.add(COMPLETED_FIELD_PREFIX + mission.getMissionType().name());
+                args.add("1");
+            }
+        }
+        return redisService.executeScriptWithStringArgs(SEED_SCRIPT, List.of(stateKey(userId), appliedKey(userId)), args)
+            .map(seeded -> seeded > 0);
+    }
+
+    /**
+     * 移除任務的完成標記，之後再次達到目標時會重新回報為剛完成。
+     * 偵測到任務完成的交易回滾時呼叫，讓重新處理同一事件時仍會發布任務完成事件並檢查獎勵。
+     *
+     * @param userId    使用者ID
+     * @param completed 要移除完成標記的任務類型
+     * @return 表示操作完成的 Mono<Void>
+     */
+    public Mono<Void> clearCompleted(Long userId, Set<MissionType> completed) {
+        Object[] fields = completed.stream().map(type -> COMPLETED_FIELD_PREFIX + type.name()).toArray();
+        return redisService.remove(stateKey(userId), fields).then();
+    }
+
+    /**
+     * 讀取使用者狀態中已計入的最晚記錄時間，重新建立狀態時以它決定彙總範圍。
+     *
+     * @param userId 使用者ID
+     * @return 最晚記錄時間的 Mono<LocalDateTime>，若沒有狀態或尚未記錄則為空
+     */
+    public Mono<LocalDateTime> findLastEventAt(Long userId) {
+        return redisService.<String, Object>get(stateKey(userId), LAST_EVENT_AT_FIELD)
+            .map(value -> fromEpochMicros(((Number) value).longValue()));
+    }
+
+    /**
+     * 讀取使用者目前的任務狀態。
+     *
+     * @param userId 使用者ID
+     * @return 任務狀態的 Mono<MissionState>，若 Redis 中沒有此使用者的狀態則為空
+     */
+    public Mono<MissionState> load(Long userId) {
+        return redisService.entries(stateKey(userId))
+            .filter(fields -> !fields.isEmpty())
+            .map(fields -> {
+                Map<MissionType, Integer> progress = new EnumMap<>(MissionType.class);
+                fields.forEach((field, value) -> {
+                    if (field.startsWith(PROGRESS_FIELD_PREFIX)) {
+                        progress.put(MissionType.valueOf(field.substring(PROGRESS_FIELD_PREFIX.length())),
+                            ((Number) value).intValue());
+                    }
+                });
+                long version = ((Number) fields.getOrDefault(VERSION_FIELD, 0)).longValue();
+                return new MissionState(userId, version, progress);
+            });
+    }
+
+    /**
+     * 取出最多指定數量、有變更尚未寫回資料庫的使用者。
+     * 每次從不同的分片開始查詢，避免變更較多的分片讓其他分片的使用者一直無法寫回。
+     *
+     * @param count 最多取出的使用者數量
+     * @return 使用者ID的 Flux<Long>
+     */
+    public Flux<Long> findDirtyUsers(int count) {
+        int start = dirtyShardCursor.getAndIncrement();
+        return Flux.range(0, DIRTY_SHARDS)
+            .flatMapSequential(i -> redisService.randomMembers(dirtyShardKey(Math.floorMod(start + i, DIRTY_SHARDS)), count),
+                DIRTY_SHARD_CONCURRENCY)
+            .map(member -> Long.valueOf(member.toString()))
+            .take(count);
+    }
+
+    /**
+     * 確認使用者的狀態已寫回資料庫。寫回期間又有新的變更時，使用者會留在待寫回集合中。
+     *
+     * @param userId  使用者ID
+     * @param version 已寫回的狀態版本，-1 表示狀態已不存在
+     * @return 若使用者已移出待寫回集合則返回 true 的 Mono<Boolean>
+     */
+    public Mono<Boolean> acknowledge(Long userId, long version) {
+        return redisService.executeScriptWithStringArgs(ACKNOWLEDGE_SCRIPT, List.of(stateKey(userId), dirtyKey(userId)),
+                List.of(userId.toString(), Long.toString(version)))
+            .map(removed -> removed > 0);
+    }
+
+    private String stateKey(Long userId) {
+        return STATE_KEY_PREFIX + hashTag(shardOf(userId)) + ":" + userId;
+    }
+
+    private String appliedKey(Long userId) {
+        return APPLIED_KEY_PREFIX + hashTag(shardOf(userId)) + ":" + userId;
+    }
+
+    private String dirtyKey(Long userId) {
+        return dirtyShardKey(shardOf(userId));
+    }
+
+    private String dirtyShardKey(int shard) {
+        return DIRTY_KEY_PREFIX + hashTag(shard);
+    }
+
+    private static int shardOf(Long userId) {
+        return (int) Math.floorMod(userId, (long) DIRTY_SHARDS);
+    }
+
+    /**
+     * 分片的 hash tag，Redis Cluster 只以大括號內的內容計算 slot。
+     */
+    private static String hashTag(int shard) {
+        return "{" + shard + "}";
+    }
+
+    private static long toEpochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * MICROS_PER_SECOND + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, MICROS_PER_SECOND),
+            (int) Math.floorMod(micros, MICROS_PER_SECOND) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -1,22 +1,46 @@
 package com.example.demo.mission.application.service.impl;
 
-import com.example.demo.game.domain.repository.GameLaunchRecordRepository;
+import com.example.demo.game.application.service.LaunchedGamesService;
 import com.example.demo.game.domain.repository.GamePlayRecordRepository;
+import com.example.demo.mission.application.service.MissionCatalogService;
 import com.example.demo.mission.application.service.MissionCommandService;
+import com.example.demo.mission.application.service.MissionProgressMode;
+import com.example.demo.mission.application.service.MissionStateFlusher;
+import com.example.demo.mission.application.service.MissionStateStore;
 import com.example.demo.mission.domain.model.Mission;
+import com.example.demo.mission.domain.model.MissionCatalog;
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.model.MissionEventType;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
 import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.model.RewardType;
+import com.example.demo.mission.domain.model.UserMissionStats;
 import com.example.demo.mission.domain.repository.MissionRepository;
+import com.example.demo.mission.domain.repository.RewardLedgerRepository;
+import com.example.demo.mission.domain.repository.UserMissionStatsRepository;
 import com.example.demo.shared.application.dto.event.MissionCompletedEvent;
 import com.example.demo.shared.infrastructure.message.EventPublisher;
+import com.example.demo.shared.infrastructure.redis.RedisService;
 import com.example.demo.user.application.service.UserQueryService;
 import com.example.demo.user.domain.repository.UserRepository;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -30,65 +54,81 @@ import reactor.core.publisher.Mono;
 public class MissionCommandServiceImpl implements MissionCommandService {
 
     private final MissionRepository missionRepository;
+    private final UserMissionStatsRepository userMissionStatsRepository;
+    private final RewardLedgerRepository rewardLedgerRepository;
     private final UserRepository userRepository;
-    private final GameLaunchRecordRepository gameLaunchRecordRepository;
+    private final LaunchedGamesService launchedGamesService;
     private final GamePlayRecordRepository gamePlayRecordRepository;
     private final UserQueryService userQueryService;
     private final EventPublisher eventPublisher;
+    private final MissionCatalogService missionCatalogService;
+    private final RedisService redisService;
+    private final MissionStateStore missionStateStore;
+    private final MissionStateFlusher missionStateFlusher;
+
+    private static final String MISSION_INITIALIZED_KEY_PREFIX = "mission:initialized:";
+    private static final Duration MISSION_INITIALIZED_TTL = Duration.ofDays(30);
+    private static final int MAX_STATS_ATTEMPTS = 3;
 
-    @Value("${app.mission.consecutive-login-days:3}")
-    private int consecutiveLoginDays;
-    @Value("${app.mission.launch-games-count:3}")
-    private int launchGamesCount;
-    @Value("${app.mission.play-games-count:3}")
-    private int playGamesCount;
-    @Value("${app.mission.play-games-min-score:1000}")
-    private int playGamesMinScore;
     @Value("${app.mission.completion-reward-points:777}")
     private int completionRewardPoints;
+    @Value("${app.mission.progress-mode:RECOMPUTE}")
+    private MissionProgressMode progressMode = MissionProgressMode.RECOMPUTE;
+    @Value("${app.mission.seed-grace-ms:2000}")
+    private long seedGraceMillis = 2000;
 
     /**
      * 如果使用者尚未初始化任務時則初始化所有類型任務。
-     * 如果任務已存在則不執行任何操作。
+     * Redis 中的初始化標記存在時直接返回，不查詢資料庫；
+     * 否則以單一 INSERT 語句一次新增任務目錄中的所有任務，已存在的任務保持不變，成功後寫入標記。
+     * 標記包含任務目錄版本，目錄變更後會再執行一次初始化以補上新任務。
+     * 新增只有單一語句，不需要交易，並確保標記只會在寫入成功後才設定。
      *
      * @param userId 使用者ID
      * @return 表示操作完成的 Mono<Void>
      */
-    @Transactional
     @Override
     public Mono<Void> initializeMissions(Long userId) {
-        return missionRepository.existsByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN)
-            .flatMap(exists -> {
-                if (Boolean.TRUE.equals(exists)) {
+        MissionCatalog catalog = missionCatalogService.current();
+        String markerKey = MISSION_INITIALIZED_KEY_PREFIX + userId + ":" + catalog.version();
+
+        return redisService.hasKey(markerKey)
+            .onErrorResume(e -> {
+                log.warn("讀取使用者 {} 的任務初始化標記失敗，改為直接初始化", userId, e);
+                return Mono.just(false);
+            })
+            .flatMap(initialized -> {
+                if (Boolean.TRUE.equals(initialized)) {
                     return Mono.empty();
                 }
-                log.info("為使用者 {} 初始化任務", userId);
-                return Flux.fromArray(MissionType.values())
-                    .flatMap(type -> createMission(userId, type))
+                List<Mission> missions = catalog.missionTypes().stream()
+                    .map(type -> createMission(userId, catalog.definition(type)))
+                    .toList();
+                return missionRepository.insertAllIfAbsent(missions)
+                    .doOnNext(rows -> log.debug("已確保使用者 {} 擁有任務目錄版本 {} 的 {} 個任務", userId, catalog.version(), missions.size()))
+                    .then(redisService.setIfAbsent(markerKey, "1", MISSION_INITIALIZED_TTL)
+                        .onErrorResume(e -> {
+                            log.warn("寫入使用者 {} 的任務初始化標記失敗", userId, e);
+                            return Mono.just(false);
+                        }))
                     .then();
             });
     }
 
     /**
-     * 根據任務類型建立一個新的、未完成的任務。
+     * 根據任務定義建立一個新的、未完成的任務。
      *
-     * @param userId 使用者ID
-     * @param type   任務類型
-     * @return 包含已儲存任務的 Mono<Mission>
-     */
-    private Mono<Mission> createMission(Long userId, MissionType type) {
-        int target = switch (type) {
-            case CONSECUTIVE_LOGIN -> consecutiveLoginDays;
-            case LAUNCH_GAMES -> launchGamesCount;
-            case PLAY_GAMES -> playGamesCount;
-        };
-        Mission mission = Mission.create(userId, type, target, 0);
-        return missionRepository.save(mission);
+     * @param userId     使用者ID
+     * @param definition 任務定義
+     * @return 新建立的任務
+     */
+    private Mission createMission(Long userId, MissionDefinition definition) {
+        return Mission.create(userId, definition.missionType(), definition.targetProgress(), definition.rewardPoints());
     }
 
     /**
      * 更新指定使用者的所有任務進度。
-     * 觸發所有任務的進度檢查和更新。
+     * 從歷史記錄重新計算每種任務的進度，並以單次批次寫入儲存所有任務。
      * 成功後會清除 "missions" 快取，並觸發獎勵檢查。
      *
      * @param userId 使用者ID
@@ -99,119 +139,414 @@ public class MissionCommandServiceImpl implements MissionCommandService {
     @Override
     public Mono<Void> updateMissionProgress(Long userId, String userName) {
         log.info("為使用者 {} 更新任務進度並清除快取", userId);
-        return Mono.when(updateConsecutiveLoginMission(userId), updateLaunchGamesMission(userId), updatePlayGamesMission(userId))
+        return recomputeProgress(userId, missionCatalogService.current().missionTypes())
+            .flatMap(progressByType -> saveAllProgress(userId, progressByType))
             .then(Mono.defer(() -> checkAndDistributeRewards(userId, userName)));
     }
 
     /**
-     * 更新連續登入任務的進度。
-     * 它會呼叫 UserQueryService 來獲取最新的連續登入天數。
+     * 將單一事件（或合併後事件）的增量套用到使用者的任務進度。
+     * 只會查詢與更新該事件可能影響的任務類型（見 {@link MissionEventType}）。
+     * 在增量模式下只更新持久化的計數器，不再掃描完整歷史記錄；
+     * 在重算模式下則只從歷史記錄重算受影響的任務；
+     * 在 Redis 模式下由 Redis 計算進度，只有任務完成時才存取資料庫。
+     * 成功後會清除 "missions" 快取，並觸發獎勵檢查。
      *
-     * @param userId 使用者ID
+     * @param userId   使用者ID
+     * @param userName 使用者名稱
+     * @param delta    任務進度增量
      * @return 表示操作完成的 Mono<Void>
      */
-    private Mono<Void> updateConsecutiveLoginMission(Long userId) {
-        return Mono.zip(
-            missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN),
-            userQueryService.getConsecutiveLoginDays(userId)
-        ).flatMap(tuple -> {
-            Mission mission = tuple.getT1();
-            int consecutiveDays = tuple.getT2();
-            boolean justCompleted = mission.updateProgress(consecutiveDays);
-            return missionRepository.save(mission)
-                .flatMap(savedMission -> justCompleted ? publishMissionCompletedEvent(userId, savedMission) : Mono.empty());
-        }).then();
+    @Transactional
+    @CacheEvict(value = "missions", key = "#userId")
+    @Override
+    public Mono<Void> applyProgress(Long userId, String userName, MissionProgressDelta delta) {
+        Set<MissionType> affectedTypes = delta.affectedMissionTypes();
+        affectedTypes.retainAll(missionCatalogService.current().missionTypes());
+        log.info("為使用者 {} 更新受影響的任務 {} 並清除快取: {}", userId, affectedTypes, delta);
+        if (progressMode == MissionProgressMode.REDIS) {
+            return applyProgressInRedis(userId, userName, delta, affectedTypes);
+        }
+        Mono<Map<MissionType, Integer>> progress = progressMode == MissionProgressMode.RECOMPUTE
+            ? recomputeProgress(userId, affectedTypes)
+            : incrementalProgress(userId, delta, affectedTypes);
+        return progress
+            .flatMap(progressByType -> saveAllProgress(userId, progressByType))
+            .then(Mono.defer(() -> checkAndDistributeRewards(userId, userName)));
     }
 
     /**
-     * 更新啟動不同遊戲任務的進度。
+     * 以 Redis 中的任務狀態套用增量，進度由伺服器端腳本計算，變更後的進度由 {@link MissionStateFlusher} 批次寫回。
+     * Redis 中沒有狀態時先從資料庫建立；任務剛完成時立即寫回，再發布任務完成事件並檢查獎勵。
+     * 交易回滾時移除剛完成任務的標記，重新處理同一事件時才能再次偵測到任務完成。
+     *
+     * @param userId        使用者ID
+     * @param userName      使用者名稱
+     * @param delta         任務進度增量
+     * @param affectedTypes 受影響的任務類型
+     * @return 表示操作完成的 Mono<Void>
+     */
+    private Mono<Void> applyProgressInRedis(Long userId, String userName, MissionProgressDelta delta,
+                                            Set<MissionType> affectedTypes) {
+        if (affectedTypes.isEmpty()) {
+            return Mono.empty();
+        }
+        MissionCatalog catalog = missionCatalogService.current();
+        Mono<Integer> loginStreak = affectedTypes.contains(MissionType.CONSECUTIVE_LOGIN)
+            ? userQueryService.getConsecutiveLoginDays(userId)
+            : Mono.just(-1);
+
+        return loginStreak
+            .flatMap(streak -> applyStateInRedis(userId, delta, streak, catalog, affectedTypes, 1))
+            .flatMap(completed -> completed.isEmpty() ? Mono.empty()
+                : clearCompletedOnRollback(userId, completed).then(completeMissions(userId, userName, completed)));
+    }
+
+    /**
+     * 在目前的交易註冊回滾後的處理，移除 Redis 中剛完成任務的標記；不在交易中時不做任何事。
+     *
+     * @param userId    使用者ID
+     * @param completed 剛完成的任務類型
+     * @return 表示註冊完成的 Mono<Void>
+     */
+    private Mono<Void> clearCompletedOnRollback(Long userId, Set<MissionType> completed) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+            .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public Mono<Void> afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        return Mono.empty();
+                    }
+                    log.warn("使用者 {} 完成任務 {} 的交易未提交，移除完成標記", userId, completed);
+                    return missionStateStore.clearCompleted(userId, completed)
+                        .onErrorResume(e -> {
+                            log.error("移除使用者 {} 的任務完成標記失敗", userId, e);
+                            return Mono.empty();
+                        });
+                }
+            }))
+            .then()
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty());
+    }
+
+    /**
+     * 將增量套用到 Redis 中的任務狀態；狀態不存在或增量橫跨起始值時，先從資料庫建立狀態，再重新套用同一增量。
+     * 最多嘗試 {@value #MAX_STATS_ATTEMPTS} 次。
+     *
+     * @param userId        使用者ID
+     * @param delta         任務進度增量
+     * @param loginStreak   目前的連續登入天數，-1 表示不變
+     * @param catalog       任務目錄
+     * @param affectedTypes 受影響的任務類型
+     * @param attempt       目前的嘗試次數
+     * @return 剛完成的任務類型的 Mono<Set<MissionType>>
+     */
+    private Mono<Set<MissionType>> applyStateInRedis(Long userId, MissionProgressDelta delta, int loginStreak,
+                                                     MissionCatalog catalog, Set<MissionType> affectedTypes, int attempt) {
+        if (attempt > MAX_STATS_ATTEMPTS) {
+            return Mono.error(new IllegalStateException("無法將增量套用到使用者 " + userId + " 的任務狀態: " + delta));
+        }
+        return missionStateStore.apply(userId, delta, loginStreak, catalog, affectedTypes)
+            .switchIfEmpty(Mono.defer(() -> seedMissionState(userId, delta)
+                .then(applyStateInRedis(userId, delta, loginStreak, catalog, affectedTypes, attempt + 1))));
+    }
+
+    /**
+     * 從資料庫建立使用者在 Redis 中的任務狀態。
+     * 狀態不存在時彙總到 {@link #seedPoint} 決定的時間點；狀態已存在時需涵蓋增量與狀態中已計入的最晚記錄，
+     * 等到該時間點之前的記錄都已提交後才彙總（見 {@link #whenCommitted}）。
+     * 之後記錄時間不晚於彙總時間點的事件不會被重複計入。
      *
      * @param userId 使用者ID
+     * @param delta  觸發建立的任務進度增量
      * @return 表示操作完成的 Mono<Void>
      */
-    private Mono<Void> updateLaunchGamesMission(Long userId) {
-        return missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES)
-            .flatMap(mission ->
-                gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)
-                    .flatMap(count -> {
-                        boolean justCompleted = mission.updateProgress(count.intValue());
-                        return missionRepository.save(mission)
-                            .flatMap(savedMission -> justCompleted ? publishMissionCompletedEvent(userId, savedMission) : Mono.empty());
-                    })
-            ).then();
+    private Mono<Void> seedMissionState(Long userId, MissionProgressDelta delta) {
+        return missionStateStore.findLastEventAt(userId)
+            .flatMap(lastEventAt -> whenCommitted(delta.hasCounterChanges() && delta.lastEventAt().isAfter(lastEventAt)
+                ? delta.lastEventAt()
+                : lastEventAt))
+            .switchIfEmpty(Mono.fromSupplier(() -> seedPoint(delta)))
+            .flatMap(seededUntil -> {
+                log.info("從資料庫建立使用者 {} 在 Redis 中的任務狀態，彙總 {} 之前的歷史記錄", userId, seededUntil);
+                return Mono.zip(
+                        launchedGamesService.countLaunchedGamesUntil(userId, seededUntil),
+                        gamePlayRecordRepository.countByUserIdUntil(userId, seededUntil),
+                        gamePlayRecordRepository.sumScoreByUserIdUntil(userId, seededUntil),
+                        missionRepository.findByUserId(userId).collectList())
+                    .flatMap(tuple -> missionStateStore.seed(userId, seededUntil, tuple.getT1(), tuple.getT2(),
+                        tuple.getT3(), tuple.getT4()));
+            })
+            .then();
+    }
+
+    /**
+     * 決定第一次從歷史記錄彙總起始值時的時間上限。
+     * 記錄的時間在寫入前就已決定，經過遊玩記錄緩衝區或較長的交易後才提交，提交順序因此不一定與記錄時間相同；
+     * 只有早於目前時間減去寬限時間的記錄才能確定都已提交。
+     * 增量的記錄都早於此時間點時彙總到增量最晚的記錄，增量已包含在起始值中；
+     * 否則彙總到此時間點與增量最早的記錄之前兩者中較早者，整個增量在建立起始值後才累加，不會橫跨起始值。
+     *
+     * @param delta 觸發建立的任務進度增量
+     * @return 彙總的記錄時間上限
+     */
+    private LocalDateTime seedPoint(MissionProgressDelta delta) {
+        LocalDateTime committedBefore = LocalDateTime.now().minus(Duration.ofMillis(seedGraceMillis)).truncatedTo(ChronoUnit.MICROS);
+        if (!delta.hasCounterChanges()) {
+            return committedBefore;
+        }
+        if (!delta.lastEventAt().isAfter(committedBefore)) {
+            return delta.lastEventAt();
+        }
+        LocalDateTime beforeDelta = delta.firstEventAt().minus(1, ChronoUnit.MICROS);
+        return beforeDelta.isBefore(committedBefore) ? beforeDelta : committedBefore;
     }
 
     /**
-     * 更新遊玩遊戲任務的進度。
-     * 綜合考慮遊玩次數和總分數。
+     * 重新彙總時必須涵蓋已計入的最晚記錄，無法改用較早的時間點；
+     * 此時等到該時間點早於目前時間減去寬限時間，確保之前的記錄都已提交後才繼續。
+     *
+     * @param seededUntil 彙總的記錄時間上限
+     * @return 可以彙總時發出 seededUntil 的 Mono<LocalDateTime>
+     */
+    private Mono<LocalDateTime> whenCommitted(LocalDateTime seededUntil) {
+        Duration wait = Duration.between(LocalDateTime.now().minus(Duration.ofMillis(seedGraceMillis)), seededUntil);
+        if (wait.isNegative() || wait.isZero()) {
+            return Mono.just(seededUntil);
+        }
+        log.debug("等待 {} 毫秒，讓 {} 之前的記錄都已提交後再彙總", wait.toMillis(), seededUntil);
+        return Mono.delay(wait).thenReturn(seededUntil);
+    }
+
+    /**
+     * 立即將剛完成任務的使用者狀態寫回資料庫，發布任務完成事件後檢查是否發放獎勵。
+     *
+     * @param userId    使用者ID
+     * @param userName  使用者名稱
+     * @param completed 剛完成的任務類型
+     * @return 表示操作完成的 Mono<Void>
+     */
+    private Mono<Void> completeMissions(Long userId, String userName, Set<MissionType> completed) {
+        log.info("使用者 {} 完成任務 {}，立即寫回任務狀態", userId, completed);
+        return missionStateFlusher.flush(List.of(userId))
+            .thenMany(Flux.fromIterable(completed))
+            .concatMap(type -> missionRepository.findByUserIdAndMissionType(userId, type))
+            .concatMap(mission -> publishMissionCompletedEvent(userId, mission))
+            .then(Mono.defer(() -> checkAndDistributeRewards(userId, userName)));
+    }
+
+    /**
+     * 從歷史記錄重新計算指定任務類型的進度，只執行這些任務需要的查詢。
+     *
+     * @param userId       使用者ID
+     * @param missionTypes 要重算的任務類型
+     * @return 各任務類型新進度值的 Mono<Map<MissionType, Integer>>
+     */
+    private Mono<Map<MissionType, Integer>> recomputeProgress(Long userId, Set<MissionType> missionTypes) {
+        return Flux.fromIterable(missionTypes)
+            .flatMap(type -> recomputeProgress(userId, type).map(progress -> Map.entry(type, progress)))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue, () -> new EnumMap<>(MissionType.class));
+    }
+
+    private Mono<Integer> recomputeProgress(Long userId, MissionType missionType) {
+        return switch (missionType) {
+            case CONSECUTIVE_LOGIN -> userQueryService.getConsecutiveLoginDays(userId)
+                .map(days -> missionCatalogService.current().evaluate(missionType, days, 0));
+            case LAUNCH_GAMES -> launchedGamesService.countLaunchedGames(userId)
+                .map(count -> missionCatalogService.current().evaluate(missionType, count, 0));
+            case PLAY_GAMES -> Mono.zip(
+                    gamePlayRecordRepository.countByUserId(userId),
+                    gamePlayRecordRepository.sumScoreByUserId(userId))
+                .map(tuple -> calculatePlayGameProgress(tuple.getT1(), tuple.getT2()));
+        };
+    }
+
+    /**
+     * 以增量計算指定任務類型的進度。
+     * 只有遊戲啟動或遊玩任務受影響時才讀寫任務統計，只有連續登入任務受影響時才查詢登入記錄。
+     *
+     * @param userId        使用者ID
+     * @param delta         任務進度增量
+     * @param affectedTypes 受影響的任務類型
+     * @return 各任務類型新進度值的 Mono<Map<MissionType, Integer>>
+     */
+    private Mono<Map<MissionType, Integer>> incrementalProgress(Long userId, MissionProgressDelta delta,
+                                                                Set<MissionType> affectedTypes) {
+        Mono<Map<MissionType, Integer>> counterProgress =
+            affectedTypes.contains(MissionType.LAUNCH_GAMES) || affectedTypes.contains(MissionType.PLAY_GAMES)
+                ? applyDeltaToStats(userId, delta).map(stats -> progressFromStats(stats, affectedTypes))
+                : Mono.just(Map.of());
+        Mono<Map<MissionType, Integer>> loginProgress = affectedTypes.contains(MissionType.CONSECUTIVE_LOGIN)
+            ? userQueryService.getConsecutiveLoginDays(userId).map(days -> Map.of(MissionType.CONSECUTIVE_LOGIN,
+                missionCatalogService.current().evaluate(MissionType.CONSECUTIVE_LOGIN, days, 0)))
+            : Mono.just(Map.of());
+
+        return Mono.zip(counterProgress, loginProgress, (counters, login) -> {
+            Map<MissionType, Integer> progressByType = new EnumMap<>(MissionType.class);
+            progressByType.putAll(counters);
+            progressByType.putAll(login);
+            return progressByType;
+        });
+    }
+
+    /**
+     * 將增量套用到使用者任務統計。
+     * 增量中的記錄若已包含在起始值中則不再累加；晚於起始值的增量以單一 UPDATE 原子性累加；
+     * 統計尚未建立時從歷史記錄彙總到 {@link #seedPoint} 決定的時間點，合併後的增量橫跨起始值時重新彙總，之後再重新判斷一次。
+     * 與其他事件並行更新時重新讀取統計再判斷，最多嘗試 {@value #MAX_STATS_ATTEMPTS} 次。
      *
      * @param userId 使用者ID
+     * @param delta  任務進度增量
+     * @return 套用後的統計資料 Mono<UserMissionStats>
+     */
+    private Mono<UserMissionStats> applyDeltaToStats(Long userId, MissionProgressDelta delta) {
+        return applyDeltaToStats(userId, delta, 1);
+    }
+
+    private Mono<UserMissionStats> applyDeltaToStats(Long userId, MissionProgressDelta delta, int attempt) {
+        if (attempt > MAX_STATS_ATTEMPTS) {
+            return Mono.error(new IllegalStateException("無法將增量套用到使用者 " + userId + " 的任務統計: " + delta));
+        }
+        Mono<UserMissionStats> retry = Mono.defer(() -> applyDeltaToStats(userId, delta, attempt + 1));
+        return userMissionStatsRepository.findByUserId(userId)
+            .flatMap(stats -> {
+                if (stats.includes(delta)) {
+                    return Mono.just(stats);
+                }
+                if (delta.firstEventAt().isAfter(stats.getSeededUntil())) {
+                    return userMissionStatsRepository.incrementAfterSeed(userId, delta)
+                        .flatMap(applied -> applied ? userMissionStatsRepository.findByUserId(userId) : retry);
+                }
+                return whenCommitted(stats.reseedPoint(delta))
+                    .flatMap(seededUntil -> reseedStats(userId, seededUntil))
+                    .then(retry);
+            })
+            .switchIfEmpty(Mono.defer(() -> seedStatsFromHistory(userId, seedPoint(delta))
+                .flatMap(seeded -> seeded.includes(delta) ? Mono.just(seeded) : retry)
+                .onErrorResume(DataIntegrityViolationException.class, e -> {
+                    log.warn("使用者 {} 的任務統計已由其他事件建立，改為讀取現有統計", userId);
+                    return retry;
+                })));
+    }
+
+    /**
+     * 從歷史記錄彙總出使用者任務統計的起始值並新增。
+     * 只彙總記錄時間不晚於 seededUntil 的記錄，之後只有記錄時間更晚的增量才會被累加，
+     * 因此已寫入歷史記錄但尚未被消費的事件不會被重複計入。
+     * seededUntil 由 {@link #seedPoint} 決定，早於目前時間減去寬限時間，彙總時之前的記錄都已提交。
+     *
+     * @param userId      使用者ID
+     * @param seededUntil 彙總的記錄時間上限
+     * @return 已儲存統計資料的 Mono<UserMissionStats>
+     */
+    private Mono<UserMissionStats> seedStatsFromHistory(Long userId, LocalDateTime seededUntil) {
+        log.info("使用者 {} 尚無任務統計，從 {} 之前的歷史記錄建立", userId, seededUntil);
+        return aggregateStats(userId, seededUntil).flatMap(userMissionStatsRepository::save);
+    }
+
+    /**
+     * 以彙總到 seededUntil 的歷史記錄覆寫使用者任務統計。
+     * 已有更晚的增量被累加時不會覆寫，由呼叫端重新判斷。
+     *
+     * @param userId      使用者ID
+     * @param seededUntil 彙總的記錄時間上限
+     * @return 表示操作完成的 Mono<Void>
+     */
+    private Mono<Void> reseedStats(Long userId, LocalDateTime seededUntil) {
+        log.info("使用者 {} 的增量橫跨任務統計起始值，重新彙總 {} 之前的歷史記錄", userId, seededUntil);
+        return aggregateStats(userId, seededUntil)
+            .flatMap(userMissionStatsRepository::reseed)
+            .then();
+    }
+
+    private Mono<UserMissionStats> aggregateStats(Long userId, LocalDateTime seededUntil) {
+        return Mono.zip(
+                launchedGamesService.countLaunchedGamesUntil(userId, seededUntil),
+                gamePlayRecordRepository.countByUserIdUntil(userId, seededUntil),
+                gamePlayRecordRepository.sumScoreByUserIdUntil(userId, seededUntil))
+            .map(tuple -> UserMissionStats.create(userId, tuple.getT1().intValue(), tuple.getT2().intValue(),
+                tuple.getT3(), seededUntil));
+    }
+
+    /**
+     * 根據任務統計計算受影響任務的進度。
+     *
+     * @param stats         使用者任務統計
+     * @param affectedTypes 受影響的任務類型
+     * @return 各任務類型的新進度值
+     */
+    private Map<MissionType, Integer> progressFromStats(UserMissionStats stats, Set<MissionType> affectedTypes) {
+        Map<MissionType, Integer> progressByType = new EnumMap<>(MissionType.class);
+        if (affectedTypes.contains(MissionType.LAUNCH_GAMES)) {
+            progressByType.put(MissionType.LAUNCH_GAMES,
+                missionCatalogService.current().evaluate(MissionType.LAUNCH_GAMES, stats.getLaunchedGamesCount(), 0));
+        }
+        if (affectedTypes.contains(MissionType.PLAY_GAMES)) {
+            progressByType.put(MissionType.PLAY_GAMES, calculatePlayGameProgress(stats.getPlayCount(), stats.getTotalScore()));
+        }
+        return progressByType;
+    }
+
+    /**
+     * 一次載入使用者的所有任務、更新進度，並以單次批次寫入儲存。
+     * 進度以目前目錄的規則計算，更新前先將任務改為目錄中的目標進度與獎勵點數。
+     * 寫入成功後，為剛好完成的任務發布任務完成事件。
+     *
+     * @param userId         使用者ID
+     * @param progressByType 各任務類型的新進度值
      * @return 表示操作完成的 Mono<Void>
      */
-    private Mono<Void> updatePlayGamesMission(Long userId) {
-        return missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES)
-            .flatMap(mission ->
-                Mono.zip(gamePlayRecordRepository.countByUserId(userId), gamePlayRecordRepository.sumScoreByUserId(userId))
-                    .flatMap(tuple -> {
-                        long playCount = tuple.getT1();
-                        int totalScore = tuple.getT2();
-                        int progress = calculatePlayGameProgress(playCount, totalScore);
-                        boolean justCompleted = mission.updateProgress(progress);
-                        return missionRepository.save(mission)
-                            .flatMap(savedMission -> justCompleted ? publishMissionCompletedEvent(userId, savedMission) : Mono.empty());
+    private Mono<Void> saveAllProgress(Long userId, Map<MissionType, Integer> progressByType) {
+        return missionRepository.findByUserId(userId)
+            .filter(mission -> progressByType.containsKey(mission.getMissionType()))
+            .collectList()
+            .flatMap(missions -> {
+                MissionCatalog catalog = missionCatalogService.current();
+                List<Mission> justCompleted = missions.stream()
+                    .filter(mission -> {
+                        mission.retarget(catalog.definition(mission.getMissionType()));
+                        return mission.updateProgress(progressByType.get(mission.getMissionType()));
                     })
-            ).then();
+                    .toList();
+                return missionRepository.saveAll(missions)
+                    .thenMany(Flux.fromIterable(justCompleted))
+                    .concatMap(mission -> publishMissionCompletedEvent(userId, mission))
+                    .then();
+            });
     }
 
     /**
-     * 根據遊玩次數和總分數，計算遊玩遊戲任務的進度。
+     * 根據遊玩次數和總分數，以任務目錄中預先編譯的規則計算遊玩遊戲任務的進度。
      * @param playCount  遊玩次數
      * @param totalScore 總分數
      * @return 計算出的進度值
      */
     private int calculatePlayGameProgress(long playCount, int totalScore) {
-        if (playCount >= playGamesCount && totalScore >= playGamesMinScore) {
-            return playGamesCount; // 條件全部滿足，任務完成
-        } else if (playCount >= playGamesCount) {
-            return 2; // 次數達標但分數未達標，給予一個中間進度
-        } else {
-            return (int) playCount; // 次數未達標，進度等於當前次數
-        }
+        return missionCatalogService.current().evaluate(MissionType.PLAY_GAMES, playCount, totalScore);
     }
 
     /**
      * 檢查使用者是否完成了所有任務，如果是，則發放獎勵。
-     * 成功後會清除 "users" 快取
+     * 資格判斷、寫入獎勵帳本、標記任務已領取與增加點數在同一交易中完成，
+     * 獎勵帳本的唯一鍵確保並行評估時獎勵只會發放一次。
+     * 成功後會清除 "users" 與 "missions" 快取
      *
      * @param userId 使用者ID
      * @return 表示操作完成的 Mono<Void>
      */
-    @CacheEvict(value = "users", key = "#userName")
+    @Transactional
+    @Caching(evict = {
+        @CacheEvict(value = "users", key = "#userName"),
+        @CacheEvict(value = "missions", key = "#userId")
+    })
     @Override
     public Mono<Void> checkAndDistributeRewards(Long userId, String userName) {
-        return missionRepository.areAllMissionsCompleted(userId)
-            .flatMap(allCompleted -> {
-                if (Boolean.FALSE.equals(allCompleted)) {
-                    return Mono.empty();
+        return rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION,
+                missionCatalogService.current().missionTypes(), completionRewardPoints)
+            .doOnNext(claimed -> {
+                if (Boolean.TRUE.equals(claimed)) {
+                    log.info("使用者 {} 的所有任務已完成，已發放 {} 點獎勵並清除使用者快取", userId, completionRewardPoints);
                 }
-                log.info("使用者 {} 的所有任務已完成，正在發放獎勵並清除使用者快取", userId);
-                return userRepository.addPoints(userId, completionRewardPoints)
-                    .then(markAllMissionsAsRewarded(userId));
-            });
-    }
-
-    /**
-     * 將指定使用者的所有已完成但未領取獎勵的任務，標記為已領取。
-     *
-     * @param userId 使用者ID
-     * @return 表示操作完成的 Mono<Void>
-     */
-    private Mono<Void> markAllMissionsAsRewarded(Long userId) {
-        return missionRepository.findByUserId(userId)
-            .filter(mission -> mission.getIsCompleted() && !mission.getIsRewarded())
-            .flatMap(mission -> {
-                mission.markAsRewarded();
-                return missionRepository.save(mission);
             })
             .then();
     }
@@ -1,11 +1,18 @@
 package com.example.demo.mission.domain.model;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * 任務聚合根
@@ -41,6 +48,28 @@ public class Mission {
 
     private LocalDateTime updatedAt;
 
+    /**
+     * 自載入後被修改過的欄位，用於讓持久層略過未變更的任務並只更新變更的欄位。
+     * 不參與建構子、Builder 與相等性比較。
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final transient Set<Field> changedFields = EnumSet.noneOf(Field.class);
+
+    /**
+     * 可被追蹤變更的任務欄位
+     */
+    public enum Field {
+        CURRENT_PROGRESS,
+        TARGET_PROGRESS,
+        IS_COMPLETED,
+        COMPLETED_AT,
+        IS_REWARDED,
+        REWARDED_AT,
+        REWARD_POINTS
+    }
+
     /**
      *
      * @param userId         使用者ID
@@ -86,8 +115,11 @@ public class Mission {
         }
 
         boolean wasCompleted = this.isCompleted;
-        this.currentProgress = newProgress;
-        this.updatedAt = LocalDateTime.now();
+        if (this.currentProgress == null || this.currentProgress != newProgress) {
+            this.currentProgress = newProgress;
+            this.updatedAt = LocalDateTime.now();
+            this.changedFields.add(Field.CURRENT_PROGRESS);
+        }
 
         if (!wasCompleted && this.currentProgress >= this.targetProgress) {
             this.complete();
@@ -97,6 +129,32 @@ public class Mission {
         return false;
     }
 
+    /**
+     * 以任務目錄中的定義更新任務的目標進度與獎勵點數。
+     * 已完成的任務保留完成當時的目標與獎勵，不受目錄變更影響。
+     *
+     * @param definition 任務目錄中的任務定義
+     * @throws IllegalArgumentException 如果任務定義與任務類型不符
+     */
+    public void retarget(MissionDefinition definition) {
+        if (definition.missionType() != this.missionType) {
+            throw new IllegalArgumentException("任務定義與任務類型不符");
+        }
+        if (Boolean.TRUE.equals(this.isCompleted)) {
+            return;
+        }
+        if (this.targetProgress == null || this.targetProgress != definition.targetProgress()) {
+            this.targetProgress = definition.targetProgress();
+            this.updatedAt = LocalDateTime.now();
+            this.changedFields.add(Field.TARGET_PROGRESS);
+        }
+        if (this.rewardPoints == null || this.rewardPoints != definition.rewardPoints()) {
+            this.rewardPoints = definition.rewardPoints();
+            this.updatedAt = LocalDateTime.now();
+            this.changedFields.add(Field.REWARD_POINTS);
+        }
+    }
+
     /**
      * 將任務標記為已完成。
      */
@@ -105,6 +163,8 @@ public class Mission {
             this.isCompleted = true;
             this.completedAt = LocalDateTime.now();
             this.updatedAt = LocalDateTime.now();
+            this.changedFields.add(Field.IS_COMPLETED);
+            this.changedFields.add(Field.COMPLETED_AT);
         }
     }
 
@@ -124,6 +184,33 @@ public class Mission {
         this.isRewarded = true;
         this.rewardedAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
+        this.changedFields.add(Field.IS_REWARDED);
+        this.changedFields.add(Field.REWARDED_AT);
+    }
+
+    /**
+     * 檢查任務自載入後是否有任何欄位被修改。
+     *
+     * @return 如果有欄位被修改，則返回 true
+     */
+    public boolean hasChanges() {
+        return !this.changedFields.isEmpty();
+    }
+
+    /**
+     * 獲取自載入後被修改過的欄位。
+     *
+     * @return 被修改欄位的唯讀集合
+     */
+    public Set<Field> changedFields() {
+        return Collections.unmodifiableSet(this.changedFields);
+    }
+
+    /**
+     * 在任務被持久化後清除變更追蹤。
+     */
+    public void markClean() {
+        this.changedFields.clear();
     }
 
     /**
@@ -0,0 +1,130 @@
+package com.example.demo.mission.domain.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 任務目錄
+ * 由任務定義編譯而成的不可變任務集合，每種任務都預先編譯好進度計算規則，
+ * 進度計算時不需再讀取任何外部資料。
+ */
+public final class MissionCatalog {
+
+    private final String version;
+    private final Map<MissionType, CompiledMission> missions;
+    private final Set<MissionType> missionTypes;
+
+    private MissionCatalog(String version, Map<MissionType, CompiledMission> missions) {
+        this.version = version;
+        this.missions = missions;
+        this.missionTypes = Collections.unmodifiableSet(
+            missions.isEmpty() ? EnumSet.noneOf(MissionType.class) : EnumSet.copyOf(missions.keySet()));
+    }
+
+    /**
+     * 將任務定義編譯為任務目錄。
+     *
+     * @param version     目錄版本戳記
+     * @param definitions 任務定義
+     * @return 編譯後的任務目錄
+     * @throws IllegalArgumentException 如果同一任務類型重複定義
+     */
+    public static MissionCatalog compile(String version, Collection<MissionDefinition> definitions) {
+        Map<MissionType, CompiledMission> missions = new EnumMap<>(MissionType.class);
+        for (MissionDefinition definition : definitions) {
+            CompiledMission compiled = new CompiledMission(definition, compileEvaluator(definition));
+            if (missions.put(definition.missionType(), compiled) != null) {
+                throw new IllegalArgumentException("任務類型重複定義: " + definition.missionType());
+            }
+        }
+        return new MissionCatalog(version, Collections.unmodifiableMap(missions));
+    }
+
+    private static MissionEvaluator compileEvaluator(MissionDefinition definition) {
+        int target = definition.targetProgress();
+        int minScore = definition.minScore();
+        return switch (definition.missionType()) {
+            case CONSECUTIVE_LOGIN, LAUNCH_GAMES -> (count, score) -> (int) count;
+            case PLAY_GAMES -> (count, score) -> {
+                if (count >= target && score >= minScore) {
+                    return target; // 條件全部滿足，任務完成
+                } else if (count >= target) {
+                    return target - 1; // 次數達標但分數未達標，給予一個中間進度
+                } else {
+                    return (int) count; // 次數未達標，進度等於當前次數
+                }
+            };
+        };
+    }
+
+    /**
+     * 獲取目錄版本戳記。
+     *
+     * @return 版本戳記
+     */
+    public String version() {
+        return version;
+    }
+
+    /**
+     * 獲取目錄中啟用的任務類型。
+     *
+     * @return 任務類型的唯讀集合
+     */
+    public Set<MissionType> missionTypes() {
+        return missionTypes;
+    }
+
+    /**
+     * 獲取目錄中的任務數量。
+     *
+     * @return 任務數量
+     */
+    public int size() {
+        return missions.size();
+    }
+
+    /**
+     * 獲取指定任務類型的定義。
+     *
+     * @param missionType 任務類型
+     * @return 任務定義
+     * @throws IllegalArgumentException 如果目錄中沒有此任務類型
+     */
+    public MissionDefinition definition(MissionType missionType) {
+        return compiled(missionType).definition();
+    }
+
+    /**
+     * 以預先編譯的規則計算任務進度。
+     *
+     * @param missionType 任務類型
+     * @param count       任務計數 (連續登入天數、啟動遊戲數或遊玩次數)
+     * @param score       遊玩總分數
+     * @return 計算出的進度值
+     * @throws IllegalArgumentException 如果目錄中沒有此任務類型
+     */
+    public int evaluate(MissionType missionType, long count, long score) {
+        return compiled(missionType).evaluator().evaluate(count, score);
+    }
+
+    private CompiledMission compiled(MissionType missionType) {
+        CompiledMission compiled = missions.get(missionType);
+        if (compiled == null) {
+            throw new IllegalArgumentException("任務目錄中沒有此任務類型: " + missionType);
+        }
+        return compiled;
+    }
+
+    @FunctionalInterface
+    private interface MissionEvaluator {
+        int evaluate(long count, long score);
+    }
+
+    private record CompiledMission(MissionDefinition definition, MissionEvaluator evaluator) {
+    }
+}
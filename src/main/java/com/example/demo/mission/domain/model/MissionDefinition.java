@@ -0,0 +1,30 @@
+package com.example.demo.mission.domain.model;
+
+/**
+ * 任務定義
+ * 描述一種任務的完成條件與獎勵，來源為任務目錄。
+ *
+ * @param missionType    任務類型
+ * @param targetProgress 任務目標進度
+ * @param minScore       完成任務所需的最低總分數，0 表示不限制
+ * @param rewardPoints   任務獎勵點數
+ */
+public record MissionDefinition(
+    MissionType missionType,
+    int targetProgress,
+    int minScore,
+    int rewardPoints
+) {
+
+    public MissionDefinition {
+        if (missionType == null) {
+            throw new IllegalArgumentException("任務類型不能為空");
+        }
+        if (targetProgress <= 0) {
+            throw new IllegalArgumentException("目標進度必須為正數");
+        }
+        if (minScore < 0 || rewardPoints < 0) {
+            throw new IllegalArgumentException("最低分數與獎勵點數不能為負數");
+        }
+    }
+}
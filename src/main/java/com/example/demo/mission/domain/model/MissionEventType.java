@@ -0,0 +1,58 @@
+package com.example.demo.mission.domain.model;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 任務事件類型枚舉
+ * 記錄每種事件可能影響的任務類型，作為事件到任務的依賴索引。
+ */
+public enum MissionEventType {
+    /**
+     * 使用者登入，只影響連續登入任務
+     */
+    LOGIN(EnumSet.of(MissionType.CONSECUTIVE_LOGIN)),
+
+    /**
+     * 遊戲啟動，只影響遊戲啟動任務
+     */
+    GAME_LAUNCH(EnumSet.of(MissionType.LAUNCH_GAMES)),
+
+    /**
+     * 遊戲遊玩，只影響遊戲遊玩任務
+     */
+    GAME_PLAY(EnumSet.of(MissionType.PLAY_GAMES));
+
+    private final Set<MissionType> affectedMissionTypes;
+
+    /**
+     * 建構子
+     *
+     * @param affectedMissionTypes 此事件可能改變進度的任務類型
+     */
+    MissionEventType(Set<MissionType> affectedMissionTypes) {
+        this.affectedMissionTypes = affectedMissionTypes;
+    }
+
+    /**
+     * 獲取此事件可能改變進度的任務類型。
+     *
+     * @return 受影響任務類型的副本
+     */
+    public Set<MissionType> getAffectedMissionTypes() {
+        return EnumSet.copyOf(affectedMissionTypes);
+    }
+
+    /**
+     * 計算多個事件合起來可能影響的任務類型。
+     *
+     * @param eventTypes 事件類型
+     * @return 受影響任務類型的聯集
+     */
+    public static Set<MissionType> affectedBy(Collection<MissionEventType> eventTypes) {
+        Set<MissionType> affected = EnumSet.noneOf(MissionType.class);
+        eventTypes.forEach(eventType -> affected.addAll(eventType.affectedMissionTypes));
+        return affected;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.mission.domain.model;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 任務進度增量
+ * 描述單一（或合併後的多個）事件對使用者任務統計造成的變化量。
+ * 啟動與遊玩事件帶有對應記錄的時間，任務統計以此判斷事件是否已包含在從歷史記錄建立的起始值中；
+ * 並帶有記錄鍵，讓 Redis 中的任務狀態判斷同一筆記錄的增量是否已經套用過。
+ *
+ * @param login         是否包含登入事件
+ * @param launchedGames 新啟動的不同遊戲數量
+ * @param plays         新增的遊玩次數
+ * @param score         新增的遊玩分數
+ * @param firstEventAt  增量中最早的啟動或遊玩記錄時間，不含計數器變化時為 null
+ * @param lastEventAt   增量中最晚的啟動或遊玩記錄時間，不含計數器變化時為 null
+ * @param recordKeys    增量所包含的啟動與遊玩記錄的鍵，同一使用者的每筆記錄各有唯一的鍵
+ */
+public record MissionProgressDelta(
+    boolean login,
+    int launchedGames,
+    int plays,
+    int score,
+    LocalDateTime firstEventAt,
+    LocalDateTime lastEventAt,
+    Set<String> recordKeys
+) {
+
+    public MissionProgressDelta {
+        recordKeys = Set.copyOf(recordKeys);
+    }
+
+    /**
+     * 建立不含記錄鍵的增量。
+     *
+     * @param login         是否包含登入事件
+     * @param launchedGames 新啟動的不同遊戲數量
+     * @param plays         新增的遊玩次數
+     * @param score         新增的遊玩分數
+     * @param firstEventAt  增量中最早的啟動或遊玩記錄時間
+     * @param lastEventAt   增量中最晚的啟動或遊玩記錄時間
+     */
+    public MissionProgressDelta(boolean login, int launchedGames, int plays, int score,
+                                LocalDateTime firstEventAt, LocalDateTime lastEventAt) {
+        this(login, launchedGames, plays, score, firstEventAt, lastEventAt, Set.of());
+    }
+
+    /**
+     * 建立不含記錄時間的增量。
+     *
+     * @param login         是否包含登入事件
+     * @param launchedGames 新啟動的不同遊戲數量
+     * @param plays         新增的遊玩次數
+     * @param score         新增的遊玩分數
+     */
+    public MissionProgressDelta(boolean login, int launchedGames, int plays, int score) {
+        this(login, launchedGames, plays, score, null, null, Set.of());
+    }
+
+    /**
+     * 建立登入事件的增量。
+     *
+     * @return 登入事件增量
+     */
+    public static MissionProgressDelta ofLogin() {
+        return new MissionProgressDelta(true, 0, 0, 0);
+    }
+
+    /**
+     * 建立遊戲啟動事件的增量。
+     * 遊戲啟動事件只會在使用者首次啟動某款遊戲時發布，因此代表一款新的不同遊戲。
+     *
+     * @param launchTime 遊戲啟動記錄的時間
+     * @return 遊戲啟動事件增量
+     */
+    public static MissionProgressDelta ofGameLaunch(LocalDateTime launchTime) {
+        return new MissionProgressDelta(false, 1, 0, 0, launchTime, launchTime, Set.of("launch:" + launchTime));
+    }
+
+    /**
+     * 建立遊戲遊玩事件的增量。
+     *
+     * @param score    遊玩分數
+     * @param playTime 遊戲遊玩記錄的時間
+     * @return 遊戲遊玩事件增量
+     * @throws IllegalArgumentException 如果分數為負數
+     */
+    public static MissionProgressDelta ofGamePlay(int score, LocalDateTime playTime) {
+        if (score < 0) {
+            throw new IllegalArgumentException("分數不能為負數");
+        }
+        return new MissionProgressDelta(false, 0, 1, score, playTime, playTime, Set.of("play:" + playTime));
+    }
+
+    /**
+     * 是否會改變啟動遊戲數、遊玩次數或總分數。
+     *
+     * @return 如果包含啟動或遊玩事件，則返回 true
+     */
+    public boolean hasCounterChanges() {
+        return launchedGames != 0 || plays != 0 || score != 0;
+    }
+
+    /**
+     * 獲取此增量所包含的事件類型。
+     *
+     * @return 事件類型集合
+     */
+    public Set<MissionEventType> eventTypes() {
+        Set<MissionEventType> eventTypes = EnumSet.noneOf(MissionEventType.class);
+        if (login) {
+            eventTypes.add(MissionEventType.LOGIN);
+        }
+        if (launchedGames > 0) {
+            eventTypes.add(MissionEventType.GAME_LAUNCH);
+        }
+        if (plays > 0) {
+            eventTypes.add(MissionEventType.GAME_PLAY);
+        }
+        return eventTypes;
+    }
+
+    /**
+     * 獲取此增量可能影響的任務類型。
+     *
+     * @return 受影響的任務類型集合
+     */
+    public Set<MissionType> affectedMissionTypes() {
+        return MissionEventType.affectedBy(eventTypes());
+    }
+
+    /**
+     * 合併兩個增量，記錄時間取兩者的最早與最晚時間，記錄鍵取兩者的聯集。
+     *
+     * @param other 另一個增量
+     * @return 合併後的增量
+     */
+    public MissionProgressDelta merge(MissionProgressDelta other) {
+        return new MissionProgressDelta(
+            this.login || other.login,
+            this.launchedGames + other.launchedGames,
+            this.plays + other.plays,
+            this.score + other.score,
+            earlier(this.firstEventAt, other.firstEventAt),
+            later(this.lastEventAt, other.lastEventAt),
+            union(this.recordKeys, other.recordKeys)
+        );
+    }
+
+    private static Set<String> union(Set<String> a, Set<String> b) {
+        Set<String> union = new HashSet<>(a);
+        union.addAll(b);
+        return union;
+    }
+
+    private static LocalDateTime earlier(LocalDateTime a, LocalDateTime b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.mission.domain.model;
+
+import java.util.Map;
+
+/**
+ * 任務狀態快照
+ * 保存在 Redis 中的使用者任務進度，由 write-behind 寫回資料庫。
+ *
+ * @param userId   使用者ID
+ * @param version  狀態版本，每次進度變更時遞增，用於判斷寫回期間是否又有新的變更
+ * @param progress 各任務類型的目前進度
+ */
+public record MissionState(
+    Long userId,
+    long version,
+    Map<MissionType, Integer> progress
+) {
+}
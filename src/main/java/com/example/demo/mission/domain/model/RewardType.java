@@ -0,0 +1,12 @@
+package com.example.demo.mission.domain.model;
+
+/**
+ * 獎勵類型枚舉
+ * 每位使用者的每種獎勵在獎勵帳本中最多只會有一筆記錄。
+ */
+public enum RewardType {
+    /**
+     * 完成任務目錄中所有任務的獎勵
+     */
+    MISSION_COMPLETION
+}
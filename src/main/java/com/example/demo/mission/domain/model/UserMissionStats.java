@@ -0,0 +1,97 @@
+package com.example.demo.mission.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 使用者任務統計聚合根
+ * 持久化每位使用者的累計計數器，讓任務進度可以透過增量更新，而不需每次重新掃描完整歷史記錄。
+ * 起始值從歷史記錄彙總到 seededUntil 為止，之後只累加記錄時間晚於 seededUntil 的增量，
+ * 已寫入歷史記錄但尚未被消費的事件因此不會被重複計入。
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserMissionStats {
+
+    private Long id;
+
+    private Long userId;
+
+    private Integer launchedGamesCount;
+
+    private Integer playCount;
+
+    private Integer totalScore;
+
+    /**
+     * 起始值所包含的最晚記錄時間。
+     */
+    private LocalDateTime seededUntil;
+
+    /**
+     * 已計入的最晚記錄時間，不早於 seededUntil。
+     */
+    private LocalDateTime lastEventAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * 以歷史記錄的彙總結果建立統計資料。
+     *
+     * @param userId             使用者ID
+     * @param launchedGamesCount 啟動過的不同遊戲數
+     * @param playCount          遊玩次數
+     * @param totalScore         遊玩總分數
+     * @param seededUntil        彙總所包含的最晚記錄時間
+     * @return 新建立的統計實體
+     * @throws IllegalArgumentException 如果使用者ID無效或未指定彙總時間
+     */
+    public static UserMissionStats create(Long userId, int launchedGamesCount, int playCount, int totalScore,
+                                          LocalDateTime seededUntil) {
+        if (userId == null || userId <= 0) {
+            throw new IllegalArgumentException("無效的使用者ID");
+        }
+        if (seededUntil == null) {
+            throw new IllegalArgumentException("彙總時間不能為空");
+        }
+
+        UserMissionStats stats = new UserMissionStats();
+        stats.userId = userId;
+        stats.launchedGamesCount = launchedGamesCount;
+        stats.playCount = playCount;
+        stats.totalScore = totalScore;
+        stats.seededUntil = seededUntil;
+        stats.lastEventAt = seededUntil;
+        stats.createdAt = LocalDateTime.now();
+        stats.updatedAt = LocalDateTime.now();
+        return stats;
+    }
+
+    /**
+     * 增量中的記錄是否都已包含在起始值中。
+     *
+     * @param delta 任務進度增量
+     * @return 如果增量沒有計數器變化，或最晚的記錄不晚於 seededUntil，則返回 true
+     */
+    public boolean includes(MissionProgressDelta delta) {
+        return !delta.hasCounterChanges() || !delta.lastEventAt().isAfter(seededUntil);
+    }
+
+    /**
+     * 重新彙總時應涵蓋到的時間點：增量與已計入記錄中較晚者，確保兩者都包含在新的起始值中。
+     *
+     * @param delta 任務進度增量
+     * @return 重新彙總的時間上限
+     */
+    public LocalDateTime reseedPoint(MissionProgressDelta delta) {
+        return delta.lastEventAt().isAfter(lastEventAt) ? delta.lastEventAt() : lastEventAt;
+    }
+}
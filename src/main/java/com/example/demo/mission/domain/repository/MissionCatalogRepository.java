@@ -0,0 +1,25 @@
+package com.example.demo.mission.domain.repository;
+
+import com.example.demo.mission.domain.model.MissionDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 任務目錄儲存庫介面
+ */
+public interface MissionCatalogRepository {
+
+    /**
+     * 查詢所有啟用的任務定義。
+     *
+     * @return 包含任務定義的 Flux<MissionDefinition>
+     */
+    Flux<MissionDefinition> findAllEnabled();
+
+    /**
+     * 查詢任務目錄目前的版本戳記，目錄內容有任何新增、修改或刪除時都會改變。
+     *
+     * @return 包含版本戳記的 Mono<String>
+     */
+    Mono<String> findVersion();
+}
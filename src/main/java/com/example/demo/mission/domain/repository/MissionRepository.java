@@ -1,10 +1,15 @@
 package com.example.demo.mission.domain.repository;
 
+import com.example.demo.mission.domain.model.MissionDefinition;
 import com.example.demo.mission.domain.model.MissionType;
 import com.example.demo.mission.domain.model.Mission;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 /**
  * 任務儲存庫介面
  */
@@ -12,13 +17,53 @@ public interface MissionRepository {
 
     Mono<Mission> save(Mission mission);
 
+    /**
+     * 以單次批次寫入新增或更新多筆任務。
+     * 已存在的任務（依 ID 或使用者與任務類型判斷）會被更新，其餘則新增。
+     *
+     * @param missions 要儲存的任務列表
+     * @return 表示操作完成的 Mono<Void>
+     */
+    Mono<Void> saveAll(List<Mission> missions);
+
+    /**
+     * 以單次批次寫入新增多筆任務，已存在的同類型任務保持不變。
+     *
+     * @param missions 要新增的任務
+     * @return 包含受影響行數的 Mono<Long>，已存在的任務也會計入
+     */
+    Mono<Long> insertAllIfAbsent(List<Mission> missions);
+
+    /**
+     * 將所有尚未完成的此類型任務的目標進度與獎勵點數更新為任務定義中的值。
+     *
+     * @param definition 任務定義
+     * @return 包含實際更新筆數的 Mono<Long>
+     */
+    Mono<Long> retargetIncomplete(MissionDefinition definition);
+
     Flux<Mission> findByUserId(Long userId);
 
+    /**
+     * 以單一查詢載入多位使用者的所有任務。
+     *
+     * @param userIds 使用者ID
+     * @return 這些使用者任務的 Flux<Mission>
+     */
+    Flux<Mission> findByUserIdIn(Collection<Long> userIds);
+
     Mono<Mission> findByUserIdAndMissionType(Long userId, MissionType missionType);
 
     Mono<Boolean> existsByUserIdAndMissionType(Long userId, MissionType missionType);
 
     Flux<Mission> findUnrewardedCompletedMissions(Long userId);
 
-    Mono<Boolean> areAllMissionsCompleted(Long userId);
+    /**
+     * 檢查使用者是否已完成任務目錄中的所有任務。
+     *
+     * @param userId       使用者ID
+     * @param missionTypes 任務目錄中啟用的任務類型
+     * @return 如果所有任務都已完成，則返回 Mono<Boolean> of true
+     */
+    Mono<Boolean> areAllMissionsCompleted(Long userId, Set<MissionType> missionTypes);
 }
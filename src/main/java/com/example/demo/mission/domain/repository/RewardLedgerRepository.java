@@ -0,0 +1,28 @@
+package com.example.demo.mission.domain.repository;
+
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.model.RewardType;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * 獎勵帳本儲存庫介面
+ * 獎勵帳本只會新增記錄，以 (使用者ID, 獎勵類型) 確保每種獎勵只發放一次。
+ */
+public interface RewardLedgerRepository {
+
+    /**
+     * 領取任務全部完成獎勵。
+     * 以單一條件式寫入同時判斷資格並寫入帳本，只有成功寫入帳本的呼叫才會將任務標記為已領取並增加點數，
+     * 因此並行呼叫時最多只有一次會發放獎勵，且不需要事先查詢任務狀態。
+     * 呼叫端需在交易中執行，確保帳本、任務與點數同時生效。
+     *
+     * @param userId       使用者ID
+     * @param rewardType   獎勵類型
+     * @param missionTypes 需全部完成的任務類型
+     * @param points       獎勵點數
+     * @return 如果本次呼叫發放了獎勵，則返回 Mono<Boolean> of true；不符合資格或已發放過則為 false
+     */
+    Mono<Boolean> claimMissionReward(Long userId, RewardType rewardType, Set<MissionType> missionTypes, int points);
+}
@@ -0,0 +1,46 @@
+package com.example.demo.mission.domain.repository;
+
+import com.example.demo.mission.domain.model.MissionProgressDelta;
+import com.example.demo.mission.domain.model.UserMissionStats;
+import reactor.core.publisher.Mono;
+
+/**
+ * 使用者任務統計儲存庫介面
+ */
+public interface UserMissionStatsRepository {
+
+    /**
+     * 儲存（新增或更新）使用者任務統計。
+     *
+     * @param stats 要儲存的統計資料
+     * @return 已儲存統計資料的 Mono<UserMissionStats>
+     */
+    Mono<UserMissionStats> save(UserMissionStats stats);
+
+    /**
+     * 根據使用者ID查詢任務統計。
+     *
+     * @param userId 使用者ID
+     * @return 包含統計資料的 Mono<UserMissionStats>，若尚未建立則為空
+     */
+    Mono<UserMissionStats> findByUserId(Long userId);
+
+    /**
+     * 以單一語句原子性地將增量累加到計數器。
+     * 只有增量中最早的記錄晚於統計的 seededUntil 時才會累加，避免重複計入起始值已包含的記錄。
+     *
+     * @param userId 使用者ID
+     * @param delta  任務進度增量，必須包含計數器變化與記錄時間
+     * @return 若已累加則返回 true 的 Mono<Boolean>
+     */
+    Mono<Boolean> incrementAfterSeed(Long userId, MissionProgressDelta delta);
+
+    /**
+     * 以重新彙總的起始值覆寫統計。
+     * 只有目前已計入的最晚記錄不晚於新的 seededUntil 時才會覆寫，避免遺失之後已累加的增量。
+     *
+     * @param stats 重新彙總的統計資料
+     * @return 若已覆寫則返回 true 的 Mono<Boolean>
+     */
+    Mono<Boolean> reseed(UserMissionStats stats);
+}
@@ -0,0 +1,22 @@
+package com.example.demo.shared.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 登入日曆回應 DTO
+ * 用於顯示使用者在一段期間內的登入情況
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LoginCalendarResponse(
+    String username,
+    LocalDate startDate,
+    LocalDate endDate,
+    List<LocalDate> loginDates,
+    Integer loggedInDays,
+    Integer currentStreak,
+    Long totalLoginDays
+) {
+}
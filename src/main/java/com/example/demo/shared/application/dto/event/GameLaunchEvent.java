@@ -8,5 +8,5 @@ public record GameLaunchEvent(
     Long gameId,
     String gameCode,
     LocalDateTime launchTime
-) {
+) implements UserScopedEvent {
 }
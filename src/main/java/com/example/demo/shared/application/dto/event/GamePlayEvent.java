@@ -10,5 +10,5 @@ public record GamePlayEvent(
     Integer score,
     Integer playDuration,
     LocalDateTime playTime
-) {
+) implements UserScopedEvent {
 }
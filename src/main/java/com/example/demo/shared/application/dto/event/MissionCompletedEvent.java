@@ -9,5 +9,5 @@ public record MissionCompletedEvent(
     String missionType,
     Integer rewardPoints,
     LocalDateTime completedAt
-) {
+) implements UserScopedEvent {
 }
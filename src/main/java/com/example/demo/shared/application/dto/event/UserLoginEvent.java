@@ -6,5 +6,5 @@ public record UserLoginEvent(
     Long userId,
     String username,
     LocalDateTime loginTime
-) {
+) implements UserScopedEvent {
 }
@@ -0,0 +1,10 @@
+package com.example.demo.shared.application.dto.event;
+
+/**
+ * 屬於單一使用者的事件
+ * 發布時以使用者 ID 作為分片鍵，使同一使用者的事件依序進入同一個訊息佇列。
+ */
+public interface UserScopedEvent {
+
+    Long userId();
+}
@@ -0,0 +1,156 @@
+package com.example.demo.shared.infrastructure.concurrent;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 依鍵值序列化執行的無鎖信箱執行器。
+ * 同一個鍵值的任務依提交順序逐一執行（前一個任務的 Mono 結束後才開始下一個），
+ * 不同鍵值的任務則在排程器上平行執行。閒置的信箱會被移除，不會無限累積。
+ * 取消返回的 Mono 時，尚未開始的任務不會執行，執行中的任務會被取消（交易中的任務因此回滾），
+ * 呼叫者取消後不會有任務在背景繼續執行並提交。
+ *
+ * @param <K> 鍵值類型
+ */
+public class KeyedSerialExecutor<K> {
+
+    private static final int CLOSED = -1;
+
+    private final Map<K, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Scheduler scheduler;
+
+    public KeyedSerialExecutor() {
+        this(Schedulers.parallel());
+    }
+
+    public KeyedSerialExecutor(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 將任務排入指定鍵值的信箱。任務在訂閱返回的 Mono 時才會入列，取消訂閱時一併取消任務。
+     *
+     * @param key  序列化的鍵值
+     * @param task 產生要執行的 Mono 的任務
+     * @return 任務執行結果的 Mono
+     */
+    public <T> Mono<T> submit(K key, Supplier<Mono<T>> task) {
+        return Mono.create(sink -> {
+            Job<T> job = new Job<>(task, sink);
+            sink.onCancel(job::cancel);
+            enqueue(key, job);
+        });
+    }
+
+    /**
+     * 目前有待處理或執行中任務的鍵值數量。
+     */
+    public int activeKeys() {
+        return mailboxes.size();
+    }
+
+    private void enqueue(K key, Job<?> job) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(key, k -> new Mailbox());
+            int pending = mailbox.tryAcquire();
+            if (pending == CLOSED) {
+                // 信箱剛被關閉，協助移除後重試
+                mailboxes.remove(key, mailbox);
+                continue;
+            }
+            mailbox.queue.offer(job);
+            if (pending == 1) {
+                runNext(key, mailbox);
+            }
+            return;
+        }
+    }
+
+    private void runNext(K key, Mailbox mailbox) {
+        Job<?> job;
+        // 計數已增加的提交者必定會立即入列，短暫自旋等待即可
+        while ((job = mailbox.queue.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        job.run(scheduler, () -> {
+            if (mailbox.state.decrementAndGet() > 0) {
+                runNext(key, mailbox);
+            } else if (mailbox.state.compareAndSet(0, CLOSED)) {
+                mailboxes.remove(key, mailbox);
+            }
+            // CAS 失敗代表期間有新任務加入，由該提交者負責啟動執行
+        });
+    }
+
+    /**
+     * 單一鍵值的信箱。state 為已接受但尚未完成的任務數，CLOSED 表示信箱已關閉。
+     */
+    private static final class Mailbox {
+        private final Queue<Job<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger state = new AtomicInteger();
+
+        private int tryAcquire() {
+            while (true) {
+                int current = state.get();
+                if (current == CLOSED) {
+                    return CLOSED;
+                }
+                if (state.compareAndSet(current, current + 1)) {
+                    return current + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * 信箱中的單一任務。subscription 為執行中任務的訂閱，任務被取消後固定為 {@link #CANCELLED}。
+     */
+    private static final class Job<T> {
+
+        private static final Disposable CANCELLED = Disposables.disposed();
+
+        private final Supplier<Mono<T>> task;
+        private final MonoSink<T> sink;
+        private final AtomicReference<Disposable> subscription = new AtomicReference<>();
+
+        private Job(Supplier<Mono<T>> task, MonoSink<T> sink) {
+            this.task = task;
+            this.sink = sink;
+        }
+
+        private void run(Scheduler scheduler, Runnable onDone) {
+            if (subscription.get() == CANCELLED) {
+                // 呼叫者已取消，不再執行任務，直接交給下一個任務
+                onDone.run();
+                return;
+            }
+            Disposable running = Mono.defer(task)
+                .subscribeOn(scheduler)
+                .doFinally(signal -> onDone.run())
+                .subscribe(sink::success, sink::error, sink::success);
+            if (!subscription.compareAndSet(null, running)) {
+                // 訂閱期間被取消
+                running.dispose();
+            }
+        }
+
+        private void cancel() {
+            Disposable running = subscription.getAndSet(CANCELLED);
+            if (running != null) {
+                running.dispose();
+            }
+        }
+    }
+}
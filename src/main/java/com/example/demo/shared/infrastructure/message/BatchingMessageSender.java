@@ -0,0 +1,279 @@
+package com.example.demo.shared.infrastructure.message;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.MessageQueueSelector;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RocketMQ 批次訊息發送器
+ * 啟用時依主題累積訊息，累積到批次大小或經過等待時間後，以單一批次訊息發送到 broker。
+ * 每則訊息的呼叫者會在所屬批次發送完成時收到該批次的結果；發送失敗時批次中的所有呼叫者都會收到錯誤。
+ * 順序發送的訊息依分片鍵以 RocketMQTemplate 的佇列選擇器決定所屬佇列，只與同一佇列的訊息合併為批次，
+ * 每則訊息仍進入其分片鍵對應的佇列；同一分片鍵的訊息需由呼叫者依序發送（等待前一則完成），
+ * 例如 {@link OutboxRelay} 逐一發送同一使用者的事件。
+ */
+@Slf4j
+@Component
+public class BatchingMessageSender implements InitializingBean, DisposableBean {
+
+    /**
+     * 主題佇列清單的快取時間，與 RocketMQ client 更新路由的預設間隔相同
+     */
+    private static final Duration QUEUE_ROUTE_TTL = Duration.ofSeconds(30);
+
+    private final RocketMQTemplate rocketMQTemplate;
+    private final boolean enabled;
+    private final Duration linger;
+    private final int maxBatchSize;
+    private final Map<String, TopicBatch> batches = new ConcurrentHashMap<>();
+    private final Map<String, TopicBatch> orderlyBatches = new ConcurrentHashMap<>();
+    private final Map<String, QueueRoute> queueRoutes = new ConcurrentHashMap<>();
+    private Disposable lingerTask;
+
+    public BatchingMessageSender(RocketMQTemplate rocketMQTemplate,
+                                 @Value("${app.producer.batch.enabled:false}") boolean enabled,
+                                 @Value("${app.producer.batch.linger-ms:5}") long lingerMillis,
+                                 @Value("${app.producer.batch.max-size:64}") int maxBatchSize) {
+        this.rocketMQTemplate = rocketMQTemplate;
+        this.enabled = enabled;
+        this.linger = Duration.ofMillis(lingerMillis);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 在所有屬性設置完成後調用，啟用時啟動定期發送累積的訊息。
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled && !linger.isZero() && !linger.isNegative()) {
+            lingerTask = Flux.interval(linger, linger)
+                .subscribe(tick -> flushAll());
+        }
+    }
+
+    /**
+     * 應用關閉時停止定期發送，並發送所有累積中的訊息。
+     */
+    @Override
+    public void destroy() {
+        if (lingerTask != null) {
+            lingerTask.dispose();
+        }
+        flushAll();
+    }
+
+    private void flushAll() {
+        batches.values().forEach(TopicBatch::flush);
+        orderlyBatches.values().forEach(TopicBatch::flush);
+    }
+
+    /**
+     * 是否啟用批次發送
+     *
+     * @return 啟用時返回 true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 將訊息加入所屬主題的批次，於批次發送完成時結束。
+     *
+     * @param fullTopic 完整主題名稱
+     * @param message   要發送的訊息
+     * @return 包含所屬批次發送結果的 Mono<SendResult>
+     */
+    public Mono<SendResult> send(String fullTopic, Message<byte[]> message) {
+        PendingMessage pending = new PendingMessage(message, null, Sinks.one());
+        batches.computeIfAbsent(fullTopic, topic -> new TopicBatch(topic, false)).add(pending);
+        return pending.result.asMono();
+    }
+
+    /**
+     * 將訊息加入所屬主題的順序批次，與分片鍵對應到同一佇列的訊息合併發送，於批次發送完成時結束。
+     *
+     * @param fullTopic   完整主題名稱
+     * @param message     要發送的訊息
+     * @param shardingKey 分片鍵，決定訊息進入的佇列
+     * @return 包含所屬批次發送結果的 Mono<SendResult>
+     */
+    public Mono<SendResult> sendOrderly(String fullTopic, Message<byte[]> message, String shardingKey) {
+        PendingMessage pending = new PendingMessage(message, shardingKey, Sinks.one());
+        orderlyBatches.computeIfAbsent(fullTopic, topic -> new TopicBatch(topic, true)).add(pending);
+        return pending.result.asMono();
+    }
+
+    /**
+     * 主題目前可寫入的佇列，快取 {@link #QUEUE_ROUTE_TTL} 以免每次發送都查詢 name server。
+     * 佇列清單與 producer 發送時使用的路由來自相同的 name server 資料，選擇器對同一分片鍵會選出相同的佇列。
+     */
+    private List<MessageQueue> publishQueues(String fullTopic) throws MQClientException {
+        long now = System.nanoTime();
+        QueueRoute route = queueRoutes.get(fullTopic);
+        if (route == null || now - route.fetchedAt() > QUEUE_ROUTE_TTL.toNanos()) {
+            route = new QueueRoute(rocketMQTemplate.getProducer().fetchPublishMessageQueues(fullTopic), now);
+            queueRoutes.put(fullTopic, route);
+        }
+        return route.queues();
+    }
+
+    /**
+     * 單一主題累積中的訊息
+     */
+    private final class TopicBatch {
+
+        private final String fullTopic;
+        private final boolean orderly;
+        private final Queue<PendingMessage> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private TopicBatch(String fullTopic, boolean orderly) {
+            this.fullTopic = fullTopic;
+            this.orderly = orderly;
+        }
+
+        private void add(PendingMessage pending) {
+            queue.offer(pending);
+            if (size.incrementAndGet() >= maxBatchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * 依序取出累積的訊息，每次最多一個批次並以單一批次訊息發送。
+         */
+        private void flush() {
+            if (orderly) {
+                flushByQueue();
+                return;
+            }
+            while (true) {
+                List<PendingMessage> batch = new ArrayList<>();
+                PendingMessage pending;
+                while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+                    batch.add(pending);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                size.addAndGet(-batch.size());
+                send(batch);
+            }
+        }
+
+        private void send(List<PendingMessage> batch) {
+            List<Message<?>> messages = batch.stream().<Message<?>>map(PendingMessage::message).toList();
+            try {
+                rocketMQTemplate.asyncSend(fullTopic, messages, new SendCallback() {
+                    @Override
+                    public void onSuccess(SendResult sendResult) {
+                        log.debug("已批次發布 {} 則事件到主題 {}", batch.size(), fullTopic);
+                        batch.forEach(pending -> pending.result.tryEmitValue(sendResult));
+                    }
+
+                    @Override
+                    public void onException(Throwable throwable) {
+                        fail(batch, throwable);
+                    }
+                });
+            } catch (RuntimeException e) {
+                fail(batch, e);
+            }
+        }
+
+        /**
+         * 取出所有累積的訊息，依所屬佇列分組後各自發送。
+         * 查詢佇列與順序發送批次訊息都是阻塞呼叫，在 boundedElastic 執行緒上執行，不同佇列的批次平行發送。
+         */
+        private void flushByQueue() {
+            List<PendingMessage> drained = new ArrayList<>();
+            PendingMessage pending;
+            while ((pending = queue.poll()) != null) {
+                drained.add(pending);
+            }
+            if (drained.isEmpty()) {
+                return;
+            }
+            size.addAndGet(-drained.size());
+            Schedulers.boundedElastic().schedule(() -> {
+                Map<MessageQueue, List<PendingMessage>> byQueue;
+                try {
+                    byQueue = groupByQueue(drained);
+                } catch (MQClientException | RuntimeException e) {
+                    fail(drained, e);
+                    return;
+                }
+                byQueue.values().forEach(messages -> Schedulers.boundedElastic().schedule(() -> sendToQueue(messages)));
+            });
+        }
+
+        private Map<MessageQueue, List<PendingMessage>> groupByQueue(List<PendingMessage> messages) throws MQClientException {
+            List<MessageQueue> queues = publishQueues(fullTopic);
+            MessageQueueSelector selector = rocketMQTemplate.getMessageQueueSelector();
+            Map<MessageQueue, List<PendingMessage>> byQueue = new LinkedHashMap<>();
+            for (PendingMessage pending : messages) {
+                byQueue.computeIfAbsent(selector.select(queues, null, pending.shardingKey()), queue -> new ArrayList<>())
+                    .add(pending);
+            }
+            return byQueue;
+        }
+
+        /**
+         * 將同一佇列的訊息依序切成批次發送，以批次中第一則訊息的分片鍵選擇佇列，所有訊息都會進入該佇列。
+         */
+        private void sendToQueue(List<PendingMessage> messages) {
+            for (int from = 0; from < messages.size(); from += maxBatchSize) {
+                List<PendingMessage> batch = messages.subList(from, Math.min(from + maxBatchSize, messages.size()));
+                try {
+                    SendResult sendResult = rocketMQTemplate.syncSendOrderly(fullTopic,
+                        batch.stream().map(PendingMessage::message).toList(), batch.get(0).shardingKey());
+                    log.debug("已順序批次發布 {} 則事件到主題 {}", batch.size(), fullTopic);
+                    batch.forEach(pending -> pending.result.tryEmitValue(sendResult));
+                } catch (RuntimeException e) {
+                    fail(batch, e);
+                }
+            }
+        }
+
+        private void fail(List<PendingMessage> batch, Throwable throwable) {
+            log.error("批次發布 {} 則事件到主題 {} 失敗", batch.size(), fullTopic, throwable);
+            batch.forEach(pending -> pending.result.tryEmitError(throwable));
+        }
+    }
+
+    /**
+     * 等待發送的訊息與其呼叫者的通知，順序發送的訊息帶有分片鍵
+     */
+    private record PendingMessage(Message<byte[]> message, String shardingKey, Sinks.One<SendResult> result) {
+    }
+
+    /**
+     * 主題的佇列清單與取得時間
+     */
+    private record QueueRoute(List<MessageQueue> queues, long fetchedAt) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.shared.infrastructure.message;
+
+import com.example.demo.shared.infrastructure.repository.data.DeadLetterEventData;
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.DeadLetterEventR2dbcRepository;
+import com.example.demo.shared.infrastructure.repository.r2dbc.OutboxEventR2dbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 死信事件重新投遞
+ * 依寫入順序取出死信事件，在同一交易中寫回 outbox 並刪除死信紀錄，由 {@link OutboxRelay} 發送回原主題。
+ * 重新投遞沿用原事件 ID 與分片鍵，已成功處理該事件的消費者會視為重複而略過，
+ * 重新投遞的事件與同一使用者的其他事件進入同一個佇列。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeadLetterReplayService {
+
+    private final DeadLetterEventR2dbcRepository deadLetterEventRepository;
+    private final OutboxEventR2dbcRepository outboxEventRepository;
+
+    /**
+     * 重新投遞最早的死信事件。
+     *
+     * @param limit 最多筆數
+     * @return 重新投遞的事件數
+     */
+    @Transactional
+    public Mono<Integer> replay(int limit) {
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("重新投遞筆數必須大於 0: " + limit));
+        }
+        return deadLetterEventRepository.findOldest(limit)
+            .collectList()
+            .flatMap(deadLetters -> {
+                if (deadLetters.isEmpty()) {
+                    return Mono.just(0);
+                }
+                LocalDateTime now = LocalDateTime.now();
+                List<OutboxEventData> outboxEvents = deadLetters.stream()
+                    .map(deadLetter -> toOutboxEvent(deadLetter, now))
+                    .toList();
+                List<Long> ids = deadLetters.stream().map(DeadLetterEventData::getId).toList();
+                return outboxEventRepository.saveAll(outboxEvents)
+                    .then(deadLetterEventRepository.deleteAllById(ids))
+                    .thenReturn(deadLetters.size())
+                    .doOnSuccess(count -> log.info("已重新投遞 {} 筆死信事件", count));
+            });
+    }
+
+    private static OutboxEventData toOutboxEvent(DeadLetterEventData deadLetter, LocalDateTime now) {
+        OutboxEventData outboxEvent = new OutboxEventData();
+        outboxEvent.setTopic(deadLetter.getTopic());
+        outboxEvent.setShardingKey(deadLetter.getShardingKey());
+        outboxEvent.setEventId(deadLetter.getEventId() != null ? deadLetter.getEventId() : EventIds.next());
+        outboxEvent.setFormat(deadLetter.getFormat() != null ? deadLetter.getFormat() : EventFormat.JSON.name());
+        outboxEvent.setPayload(deadLetter.getPayload());
+        outboxEvent.setCreatedAt(now);
+        return outboxEvent;
+    }
+}
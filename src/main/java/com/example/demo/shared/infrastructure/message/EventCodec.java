@@ -0,0 +1,258 @@
+package com.example.demo.shared.infrastructure.message;
+
+import com.example.demo.shared.application.dto.event.GameLaunchEvent;
+import com.example.demo.shared.application.dto.event.GamePlayEvent;
+import com.example.demo.shared.application.dto.event.MissionCompletedEvent;
+import com.example.demo.shared.application.dto.event.UserLoginEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 事件訊息編解碼器
+ * 依設定的 {@link EventFormat} 編碼事件，並依訊息標頭解碼；沒有標頭的訊息視為 JSON，讓舊訊息仍可被消費。
+ * 二進位格式為：版本號、事件類型、標示 null 欄位的位元組，接著依事件欄位順序寫入非 null 的值，
+ * 整數以 zigzag 可變長度編碼，字串以長度加 UTF-8 位元組編碼，時間以 UTC 秒數加奈秒編碼。
+ */
+@Component
+public class EventCodec {
+
+    public static final String FORMAT_HEADER = "eventFormat";
+
+    private static final byte BINARY_VERSION = 1;
+    private static final byte USER_LOGIN = 1;
+    private static final byte GAME_LAUNCH = 2;
+    private static final byte GAME_PLAY = 3;
+    private static final byte MISSION_COMPLETED = 4;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final EventFormat format;
+
+    public EventCodec(@Value("${app.event.format:JSON}") EventFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * 編碼事件時使用的格式
+     *
+     * @return 設定的事件格式
+     */
+    public EventFormat format() {
+        return format;
+    }
+
+    /**
+     * 以設定的格式編碼事件。
+     *
+     * @param event 要編碼的事件
+     * @return 編碼後的位元組
+     * @throws IllegalArgumentException 事件無法編碼時
+     */
+    public byte[] encode(Object event) {
+        return format == EventFormat.BINARY ? encodeBinary(event) : encodeJson(event);
+    }
+
+    /**
+     * 依訊息標頭的格式解碼事件。
+     *
+     * @param body         訊息內容
+     * @param formatHeader 訊息標頭中的格式，null 表示 JSON
+     * @param type         事件類型
+     * @param <T>          事件的類型
+     * @return 解碼後的事件
+     * @throws IllegalArgumentException 訊息無法解碼時
+     */
+    public <T> T decode(byte[] body, String formatHeader, Class<T> type) {
+        EventFormat messageFormat = formatHeader == null ? EventFormat.JSON : EventFormat.valueOf(formatHeader);
+        Object event = messageFormat == EventFormat.BINARY ? decodeBinary(body) : decodeJson(body, type);
+        if (!type.isInstance(event)) {
+            throw new IllegalArgumentException("事件類型不符，預期 " + type.getSimpleName() + "，實際為 " + event.getClass().getSimpleName());
+        }
+        return type.cast(event);
+    }
+
+    private byte[] encodeJson(Object event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("無法編碼事件: " + event, e);
+        }
+    }
+
+    private <T> T decodeJson(byte[] body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("無法解碼 JSON 事件", e);
+        }
+    }
+
+    private byte[] encodeBinary(Object event) {
+        BinaryWriter writer = new BinaryWriter();
+        if (event instanceof UserLoginEvent e) {
+            writer.header(USER_LOGIN)
+                .fields(e.userId(), e.username(), e.loginTime());
+        } else if (event instanceof GameLaunchEvent e) {
+            writer.header(GAME_LAUNCH)
+                .fields(e.userId(), e.username(), e.gameId(), e.gameCode(), e.launchTime());
+        } else if (event instanceof GamePlayEvent e) {
+            writer.header(GAME_PLAY)
+                .fields(e.userId(), e.username(), e.gameId(), e.gameCode(), e.score(), e.playDuration(), e.playTime());
+        } else if (event instanceof MissionCompletedEvent e) {
+            writer.header(MISSION_COMPLETED)
+                .fields(e.userId(), e.username(), e.missionId(), e.missionType(), e.rewardPoints(), e.completedAt());
+        } else {
+            throw new IllegalArgumentException("不支援二進位編碼的事件類型: " + event.getClass().getName());
+        }
+        return writer.toByteArray();
+    }
+
+    private Object decodeBinary(byte[] body) {
+        try {
+            BinaryReader reader = new BinaryReader(body);
+            return switch (reader.type()) {
+                case USER_LOGIN -> new UserLoginEvent(reader.readLong(), reader.readString(), reader.readDateTime());
+                case GAME_LAUNCH -> new GameLaunchEvent(reader.readLong(), reader.readString(), reader.readLong(),
+                    reader.readString(), reader.readDateTime());
+                case GAME_PLAY -> new GamePlayEvent(reader.readLong(), reader.readString(), reader.readLong(),
+                    reader.readString(), reader.readInt(), reader.readInt(), reader.readDateTime());
+                case MISSION_COMPLETED -> new MissionCompletedEvent(reader.readLong(), reader.readString(), reader.readLong(),
+                    reader.readString(), reader.readInt(), reader.readDateTime());
+                default -> throw new IllegalArgumentException("未知的事件類型: " + reader.type());
+            };
+        } catch (BufferUnderflowException | ArithmeticException e) {
+            throw new IllegalArgumentException("無法解碼二進位事件", e);
+        }
+    }
+
+    /**
+     * 二進位事件的寫入器
+     */
+    private static final class BinaryWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+        private BinaryWriter header(byte type) {
+            out.write(BINARY_VERSION);
+            out.write(type);
+            return this;
+        }
+
+        private void fields(Object... values) {
+            int nulls = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    nulls |= 1 << i;
+                }
+            }
+            out.write(nulls);
+            for (Object value : values) {
+                if (value == null) {
+                    continue;
+                }
+                if (value instanceof Long l) {
+                    writeVarLong(l);
+                } else if (value instanceof Integer i) {
+                    writeVarLong(i);
+                } else if (value instanceof String s) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(bytes.length);
+                    out.write(bytes, 0, bytes.length);
+                } else if (value instanceof LocalDateTime t) {
+                    writeVarLong(t.toEpochSecond(ZoneOffset.UTC));
+                    writeVarLong(t.getNano());
+                } else {
+                    throw new IllegalArgumentException("不支援的欄位類型: " + value.getClass().getName());
+                }
+            }
+        }
+
+        private void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+        }
+
+        private byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 二進位事件的讀取器，依欄位順序讀取，null 欄位不佔用位元組
+     */
+    private static final class BinaryReader {
+
+        private final ByteBuffer buffer;
+        private final byte type;
+        private final int nulls;
+        private int field;
+
+        private BinaryReader(byte[] body) {
+            this.buffer = ByteBuffer.wrap(body);
+            byte version = buffer.get();
+            if (version != BINARY_VERSION) {
+                throw new IllegalArgumentException("不支援的二進位事件版本: " + version);
+            }
+            this.type = buffer.get();
+            this.nulls = buffer.get() & 0xFF;
+        }
+
+        private byte type() {
+            return type;
+        }
+
+        private boolean nextIsNull() {
+            return (nulls & (1 << field++)) != 0;
+        }
+
+        private Long readLong() {
+            return nextIsNull() ? null : readVarLong();
+        }
+
+        private Integer readInt() {
+            return nextIsNull() ? null : Math.toIntExact(readVarLong());
+        }
+
+        private String readString() {
+            if (nextIsNull()) {
+                return null;
+            }
+            byte[] bytes = new byte[Math.toIntExact(readVarLong())];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private LocalDateTime readDateTime() {
+            if (nextIsNull()) {
+                return null;
+            }
+            long epochSecond = readVarLong();
+            return LocalDateTime.ofEpochSecond(epochSecond, Math.toIntExact(readVarLong()), ZoneOffset.UTC);
+        }
+
+        private long readVarLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get();
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+}
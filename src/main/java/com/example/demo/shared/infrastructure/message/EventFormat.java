@@ -0,0 +1,16 @@
+package com.example.demo.shared.infrastructure.message;
+
+/**
+ * 事件訊息的編碼格式，以訊息標頭 {@link EventCodec#FORMAT_HEADER} 標示
+ */
+public enum EventFormat {
+    /**
+     * 以 Jackson 序列化的 JSON 文字
+     */
+    JSON,
+
+    /**
+     * 帶版本號的精簡二進位編碼，由 {@link EventCodec} 依事件類型逐欄位寫入
+     */
+    BINARY
+}
@@ -0,0 +1,47 @@
+package com.example.demo.shared.infrastructure.message;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 事件 ID
+ * 每個事件在發布時取得唯一 ID，寫入訊息標頭供消費者判斷重複投遞。
+ * ID 採用 UUID 第 7 版格式：前 48 位元為產生時間（毫秒），其餘為隨機值，
+ * 因此同一事件無論重送幾次，都能由 ID 取得相同的產生時間。
+ */
+public final class EventIds {
+
+    public static final String HEADER = "eventId";
+
+    private static final int TIME_ORDERED_VERSION = 7;
+
+    private EventIds() {
+    }
+
+    /**
+     * 產生新的事件 ID。
+     *
+     * @return 事件 ID
+     */
+    public static String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    /**
+     * 取得事件 ID 的產生時間。
+     *
+     * @param eventId 事件 ID
+     * @return 產生時間（epoch 毫秒）
+     * @throws IllegalArgumentException 不是由 {@link #next()} 產生的 ID 時
+     */
+    public static long timestampOf(String eventId) {
+        UUID uuid = UUID.fromString(eventId);
+        if (uuid.version() != TIME_ORDERED_VERSION) {
+            throw new IllegalArgumentException("不是時間排序的事件 ID: " + eventId);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
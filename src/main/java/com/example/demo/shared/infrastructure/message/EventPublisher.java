@@ -1,38 +1,57 @@
 package com.example.demo.shared.infrastructure.message;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.demo.shared.application.dto.event.UserScopedEvent;
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.OutboxEventR2dbcRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.client.producer.SendCallback;
 import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * RocketMQ 的事件發布器
+ * 領域事件先寫入 outbox 資料表，與請求的其他寫入在同一個交易中提交，
+ * 再由 {@link OutboxRelay} 非同步發送到 RocketMQ，請求不需等待 broker 回應。
+ * 啟用順序發送時，屬於使用者的事件以使用者 ID 作為分片鍵發送，同一使用者的事件會進入同一個佇列並依序被消費。
+ * 分片鍵同時寫入訊息標頭，消費失敗的事件重新投遞時仍以同一個分片鍵選擇佇列。
+ * 每個事件在寫入 outbox 或直接發布時取得唯一的事件 ID，重送時沿用同一個 ID，供消費者判斷重複投遞。
  */
 @Slf4j
 @Service
 public class EventPublisher {
 
-    private static final String TOPIC_PREFIX = "task-center-";
+    public static final String TOPIC_PREFIX = "task-center-";
+    public static final String SHARDING_KEY_HEADER = "shardingKey";
     private static final int MAX_RETRY_ATTEMPTS = 3;
+    private static final long DELAYED_SEND_TIMEOUT_MILLIS = 3000;
     private static final Duration RETRY_BACKOFF = Duration.ofSeconds(1);
 
     private final RocketMQTemplate rocketMQTemplate;
-    private final ObjectMapper objectMapper;
+    private final OutboxEventR2dbcRepository outboxEventRepository;
+    private final BatchingMessageSender batchingMessageSender;
+    private final EventCodec eventCodec;
+    private final boolean orderly;
 
-    public EventPublisher(RocketMQTemplate rocketMQTemplate) {
+    public EventPublisher(RocketMQTemplate rocketMQTemplate, OutboxEventR2dbcRepository outboxEventRepository,
+                          BatchingMessageSender batchingMessageSender, EventCodec eventCodec,
+                          @Value("${app.producer.orderly:true}") boolean orderly) {
         this.rocketMQTemplate = rocketMQTemplate;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.outboxEventRepository = outboxEventRepository;
+        this.batchingMessageSender = batchingMessageSender;
+        this.eventCodec = eventCodec;
+        this.orderly = orderly;
     }
 
     /**
@@ -45,42 +64,125 @@ public class EventPublisher {
      */
     public <T> Mono<Void> publishEvent(String topic, T event) {
         try {
-            String message = objectMapper.writeValueAsString(event);
-            String fullTopic = TOPIC_PREFIX + topic;
-
-            CompletableFuture<SendResult> future = new CompletableFuture<>();
-
-            // 使用 RocketMQ 的 asyncSend 配合 SendCallback
-            rocketMQTemplate.asyncSend(
-                fullTopic,
-                MessageBuilder.withPayload(message).build(),
-                new SendCallback() {
-                    @Override
-                    public void onSuccess(SendResult sendResult) {
-                        future.complete(sendResult);
-                    }
-
-                    @Override
-                    public void onException(Throwable throwable) {
-                        future.completeExceptionally(throwable);
-                    }
-                }
-            );
-
-            return Mono.fromFuture(future)
-                .doOnSuccess(result ->
-                    log.debug("已發布事件到主題 {}: {}, SendResult: {}", fullTopic, event, result)
-                )
-                .doOnError(e ->
-                    log.error("發布事件失敗到主題 {}: {}", fullTopic, event, e)
-                )
-                .then();
-        } catch (JsonProcessingException e) {
+            return publishPayload(topic, shardingKey(event), EventIds.next(), eventCodec.format(), eventCodec.encode(event));
+        } catch (IllegalArgumentException e) {
             log.error("序列化事件失敗: {}", event, e);
             return Mono.error(new RuntimeException("發布事件失敗", e));
         }
     }
 
+    /**
+     * 發布已序列化的事件內容
+     * 啟用順序發送且有分片鍵時，以分片鍵選擇佇列發送，啟用批次發送時與同一佇列的其他事件合併為批次訊息；
+     * 否則在啟用批次發送時與同一主題的其他事件合併為批次訊息。
+     *
+     * @param topic       主題名稱（不含前綴）
+     * @param shardingKey 分片鍵，相同分片鍵的事件發送到同一個佇列，null 表示不限佇列
+     * @param eventId     事件 ID，寫入訊息標頭供消費者判斷重複投遞
+     * @param format      事件內容的編碼格式，寫入訊息標頭供消費者解碼
+     * @param payload     編碼後的事件內容
+     * @return 表示發布完成的 Mono<Void>
+     */
+    public Mono<Void> publishPayload(String topic, String shardingKey, String eventId, EventFormat format, byte[] payload) {
+        String fullTopic = TOPIC_PREFIX + topic;
+        MessageBuilder<byte[]> builder = MessageBuilder.withPayload(payload)
+            .setHeader(EventIds.HEADER, eventId)
+            .setHeader(EventCodec.FORMAT_HEADER, format.name());
+        if (shardingKey != null) {
+            builder.setHeader(SHARDING_KEY_HEADER, shardingKey);
+        }
+        Message<byte[]> message = builder.build();
+        Mono<SendResult> result;
+        if (orderly && shardingKey != null) {
+            result = batchingMessageSender.isEnabled()
+                ? batchingMessageSender.sendOrderly(fullTopic, message, shardingKey)
+                : send(fullTopic, message, shardingKey);
+        } else if (batchingMessageSender.isEnabled()) {
+            result = batchingMessageSender.send(fullTopic, message);
+        } else {
+            result = send(fullTopic, message, null);
+        }
+
+        return result
+            .doOnSuccess(sendResult ->
+                log.debug("已發布事件到主題 {}: {} bytes, SendResult: {}", fullTopic, payload.length, sendResult)
+            )
+            .doOnError(e ->
+                log.error("發布事件失敗到主題 {}: {} bytes", fullTopic, payload.length, e)
+            )
+            .then();
+    }
+
+    /**
+     * 以 broker 的延遲等級延遲發布已序列化的事件內容，用於將消費失敗的事件重新投遞或轉入死信主題。
+     * 延遲訊息不經過批次發送；啟用順序發送且有分片鍵時，與原事件一樣以分片鍵選擇佇列，
+     * 重新投遞的事件仍由處理同一使用者其他事件的佇列消費。
+     *
+     * @param topic       主題名稱（不含前綴）
+     * @param shardingKey 分片鍵，null 表示不限佇列
+     * @param headers     訊息標頭，包含事件 ID、編碼格式與分片鍵
+     * @param payload     編碼後的事件內容
+     * @param delayLevel  broker 的延遲等級，0 表示不延遲
+     * @return 表示發布完成的 Mono<Void>
+     */
+    public Mono<Void> publishDelayed(String topic, String shardingKey, Map<String, String> headers, byte[] payload, int delayLevel) {
+        String fullTopic = TOPIC_PREFIX + topic;
+        MessageBuilder<byte[]> builder = MessageBuilder.withPayload(payload);
+        headers.forEach(builder::setHeader);
+        return send(fullTopic, builder.build(), orderly ? shardingKey : null, delayLevel)
+            .doOnSuccess(sendResult ->
+                log.debug("已延遲發布事件到主題 {}: delayLevel={}, SendResult: {}", fullTopic, delayLevel, sendResult)
+            )
+            .doOnError(e ->
+                log.error("延遲發布事件失敗到主題 {}: delayLevel={}", fullTopic, delayLevel, e)
+            )
+            .then();
+    }
+
+    private Mono<SendResult> send(String fullTopic, Message<byte[]> message, String shardingKey) {
+        return send(fullTopic, message, shardingKey, 0);
+    }
+
+    /**
+     * 以單一訊息發送事件內容，有分片鍵時依分片鍵選擇佇列，有延遲等級時延遲投遞
+     */
+    private Mono<SendResult> send(String fullTopic, Message<byte[]> message, String shardingKey, int delayLevel) {
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        SendCallback callback = new SendCallback() {
+            @Override
+            public void onSuccess(SendResult sendResult) {
+                future.complete(sendResult);
+            }
+
+            @Override
+            public void onException(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        };
+
+        // 使用 RocketMQ 的 asyncSend / asyncSendOrderly 配合 SendCallback
+        if (shardingKey != null && delayLevel > 0) {
+            rocketMQTemplate.asyncSendOrderly(fullTopic, message, shardingKey, callback, DELAYED_SEND_TIMEOUT_MILLIS, delayLevel);
+        } else if (shardingKey != null) {
+            rocketMQTemplate.asyncSendOrderly(fullTopic, message, shardingKey, callback);
+        } else if (delayLevel > 0) {
+            rocketMQTemplate.asyncSend(fullTopic, message, callback, DELAYED_SEND_TIMEOUT_MILLIS, delayLevel);
+        } else {
+            rocketMQTemplate.asyncSend(fullTopic, message, callback);
+        }
+
+        return Mono.fromFuture(future);
+    }
+
+    /**
+     * 事件的分片鍵，屬於使用者的事件以使用者 ID 分片
+     */
+    private static String shardingKey(Object event) {
+        return event instanceof UserScopedEvent userEvent && userEvent.userId() != null
+            ? String.valueOf(userEvent.userId())
+            : null;
+    }
+
     /**
      * 發布事件
      * 使用指數退避策略重試，如果最終失敗會拋出異常
@@ -118,7 +220,7 @@ public class EventPublisher {
 
     /**
      * 事件發布異常
-     * 用於標識事件發布失敗，觸發事務回滾
+     * 用於標識事件發布失敗
      */
     public static class EventPublishException extends RuntimeException {
         public EventPublishException(String message, Throwable cause) {
@@ -127,46 +229,111 @@ public class EventPublisher {
     }
 
     /**
-     * 發布使用者登入事件（帶重試）
+     * 將事件寫入 outbox，由 {@link OutboxRelay} 非同步發送。
+     * 在交易中呼叫時會隨交易一起提交或回滾，不會等待 broker。
+     *
+     * @param topic 主題名稱（不含前綴）
+     * @param event 要發布的事件物件
+     * @param <T>   事件的類型
+     * @return 表示寫入完成的 Mono<Void>
+     */
+    public <T> Mono<Void> enqueueEvent(String topic, T event) {
+        return Mono.fromCallable(() -> toOutboxEvent(topic, event))
+            .onErrorMap(IllegalArgumentException.class, e -> {
+                log.error("序列化事件失敗: {}", event, e);
+                return new RuntimeException("發布事件失敗", e);
+            })
+            .flatMap(outboxEventRepository::save)
+            .doOnSuccess(saved -> log.debug("已將事件寫入 outbox: topic={}, id={}", topic, saved.getId()))
+            .then();
+    }
+
+    /**
+     * 將多個事件以多列 INSERT 寫入 outbox，由 {@link OutboxRelay} 非同步發送。
+     * 在交易中呼叫時會隨交易一起提交或回滾，用於與批次寫入的記錄在同一個交易中寫入事件。
+     *
+     * @param topic  主題名稱（不含前綴）
+     * @param events 要發布的事件物件
+     * @param <T>    事件的類型
+     * @return 表示寫入完成的 Mono<Void>
+     */
+    public <T> Mono<Void> enqueueEvents(String topic, List<T> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> events.stream().map(event -> toOutboxEvent(topic, event)).toList())
+            .onErrorMap(IllegalArgumentException.class, e -> {
+                log.error("序列化事件失敗: topic={}, {} 筆事件", topic, events.size(), e);
+                return new RuntimeException("發布事件失敗", e);
+            })
+            .flatMap(outboxEventRepository::insertAll)
+            .doOnSuccess(rows -> log.debug("已將 {} 筆事件寫入 outbox: topic={}", rows, topic))
+            .then();
+    }
+
+    private <T> OutboxEventData toOutboxEvent(String topic, T event) {
+        OutboxEventData outboxEvent = new OutboxEventData();
+        outboxEvent.setTopic(topic);
+        outboxEvent.setShardingKey(shardingKey(event));
+        outboxEvent.setEventId(EventIds.next());
+        outboxEvent.setFormat(eventCodec.format().name());
+        outboxEvent.setPayload(eventCodec.encode(event));
+        outboxEvent.setCreatedAt(LocalDateTime.now());
+        return outboxEvent;
+    }
+
+    /**
+     * 發布使用者登入事件（經由 outbox）
      *
      * @param event 登入事件物件
      * @param <T>   事件的類型
      * @return 表示發布完成的 Mono<Void>
      */
     public <T> Mono<Void> publishLoginEvent(T event) {
-        return publishEventWithRetry("user-login", event);
+        return enqueueEvent("user-login", event);
     }
 
     /**
-     * 發布遊戲啟動事件（帶重試）
+     * 發布遊戲啟動事件（經由 outbox）
      *
      * @param event 遊戲啟動事件物件
      * @param <T>   事件的類型
      * @return 表示發布完成的 Mono<Void>
      */
     public <T> Mono<Void> publishGameLaunchEvent(T event) {
-        return publishEventWithRetry("game-launch", event);
+        return enqueueEvent("game-launch", event);
     }
 
     /**
-     * 發布遊戲遊玩事件（帶重試）
+     * 發布遊戲遊玩事件（經由 outbox）
      *
      * @param event 遊戲遊玩事件物件
      * @param <T>   事件的類型
      * @return 表示發布完成的 Mono<Void>
      */
     public <T> Mono<Void> publishGamePlayEvent(T event) {
-        return publishEventWithRetry("game-play", event);
+        return enqueueEvent("game-play", event);
+    }
+
+    /**
+     * 批次發布遊戲遊玩事件（經由 outbox）
+     *
+     * @param events 遊戲遊玩事件物件
+     * @param <T>    事件的類型
+     * @return 表示發布完成的 Mono<Void>
+     */
+    public <T> Mono<Void> publishGamePlayEvents(List<T> events) {
+        return enqueueEvents("game-play", events);
     }
 
     /**
-     * 發布任務完成事件（帶重試）
+     * 發布任務完成事件（經由 outbox）
      *
      * @param event 任務完成事件物件
      * @param <T>   事件的類型
      * @return 表示發布完成的 Mono<Void>
      */
     public <T> Mono<Void> publishMissionCompletedEvent(T event) {
-        return publishEventWithRetry("mission-completed", event);
+        return enqueueEvent("mission-completed", event);
     }
 }
@@ -0,0 +1,207 @@
+package com.example.demo.shared.infrastructure.message;
+
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.OutboxEventR2dbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox 事件轉發器
+ * 定期依寫入順序取得 outbox 中的事件，以非同步方式並行發送到 RocketMQ，並以單一語句刪除已發送的事件。
+ * 多個節點同時轉發時，每個批次先以租約取得事件，同一筆事件只會由一個節點發送；節點中斷時租約到期後由其他節點接手。
+ * 相同分片鍵的事件依寫入順序逐筆發送，其中一筆失敗或被其他節點取得時同分片鍵的後續事件留待下次轉發，以維持同一使用者的事件順序。
+ * 發送失敗的事件會釋放租約並留在 outbox 中，於下次轉發時重試，因此事件至少會被發送一次。
+ * 租約時間以各節點的時鐘計算，需大於節點間的時鐘誤差與單一批次的發送時間。
+ */
+@Slf4j
+@Service
+public class OutboxRelay implements InitializingBean, DisposableBean {
+
+    private static final Duration SHUTDOWN_RELAY_TIMEOUT = Duration.ofSeconds(5);
+
+    private final OutboxEventR2dbcRepository outboxEventRepository;
+    private final EventPublisher eventPublisher;
+    private final Duration relayInterval;
+    private final int batchSize;
+    private final Duration claimTimeout;
+    private final Counter relayedCounter;
+    private final Counter failedCounter;
+    private Disposable relayTask;
+
+    public OutboxRelay(OutboxEventR2dbcRepository outboxEventRepository,
+                       EventPublisher eventPublisher,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.relay-interval-ms:100}") long relayIntervalMillis,
+                       @Value("${app.outbox.batch-size:200}") int batchSize,
+                       @Value("${app.outbox.claim-timeout-ms:30000}") long claimTimeoutMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.relayInterval = Duration.ofMillis(relayIntervalMillis);
+        this.batchSize = batchSize;
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMillis);
+        this.relayedCounter = Counter.builder("outbox.events")
+            .description("從 outbox 發送到 RocketMQ 的事件數")
+            .tag("result", "relayed")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.events")
+            .description("從 outbox 發送失敗、等待重試的事件數")
+            .tag("result", "failed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 在所有屬性設置完成後調用，啟動定期轉發。
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (relayInterval.isZero() || relayInterval.isNegative()) {
+            return;
+        }
+        relayTask = Flux.interval(relayInterval, relayInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> relayPending()
+                .onErrorResume(e -> {
+                    log.warn("轉發 outbox 事件失敗，下次重試", e);
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    /**
+     * 應用關閉時停止定期轉發，並再轉發一次 outbox 中的事件。
+     */
+    @Override
+    public void destroy() {
+        if (relayTask == null) {
+            return;
+        }
+        relayTask.dispose();
+        relayPending()
+            .onErrorResume(e -> {
+                log.warn("應用關閉時轉發 outbox 事件失敗，將於下次啟動時繼續", e);
+                return Mono.empty();
+            })
+            .block(SHUTDOWN_RELAY_TIMEOUT);
+    }
+
+    /**
+     * 轉發 outbox 中的事件，每次最多一個批次；整批發送成功且批次已滿時繼續轉發下一批。
+     *
+     * @return 包含發送成功事件數的 Mono<Integer>
+     */
+    public Mono<Integer> relayPending() {
+        return relayBatch()
+            .flatMap(result -> result.drained()
+                ? Mono.just(result.relayed())
+                : relayPending().map(more -> result.relayed() + more));
+    }
+
+    /**
+     * 取得並轉發一個批次的事件，刪除其中發送成功的事件，並釋放其餘取得的事件。
+     */
+    private Mono<BatchResult> relayBatch() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        String claimToken = UUID.randomUUID().toString();
+        return outboxEventRepository.findClaimable(now, batchSize)
+            .collectList()
+            .flatMap(events -> {
+                if (events.isEmpty()) {
+                    return Mono.just(new BatchResult(0, true));
+                }
+                List<Long> ids = events.stream().map(OutboxEventData::getId).toList();
+                return outboxEventRepository.claim(ids, claimToken, now, now.plus(claimTimeout))
+                    .thenMany(outboxEventRepository.findClaimedIds(claimToken))
+                    .collect(Collectors.toSet())
+                    .flatMap(claimedIds -> Flux.fromIterable(groupByShardingKey(events))
+                        .map(group -> claimedPrefix(group, claimedIds))
+                        .flatMap(this::relayInOrder)
+                        .collectList()
+                        .flatMap(relayedIds -> delete(relayedIds)
+                            .then(release(claimedIds, relayedIds, claimToken))
+                            .thenReturn(new BatchResult(relayedIds.size(),
+                                relayedIds.size() < events.size() || events.size() < batchSize))));
+            });
+    }
+
+    /**
+     * 同一分片鍵只發送從最早一筆開始連續取得的事件；前面的事件被其他節點取得時，後續事件留待下次轉發，以免順序顛倒。
+     */
+    private static List<OutboxEventData> claimedPrefix(List<OutboxEventData> group, Set<Long> claimedIds) {
+        int end = 0;
+        while (end < group.size() && claimedIds.contains(group.get(end).getId())) {
+            end++;
+        }
+        return group.subList(0, end);
+    }
+
+    /**
+     * 依分片鍵分組並保留寫入順序，沒有分片鍵的事件各自成組。
+     */
+    private static Iterable<List<OutboxEventData>> groupByShardingKey(List<OutboxEventData> events) {
+        return events.stream()
+            .collect(Collectors.groupingBy(
+                event -> event.getShardingKey() != null ? event.getShardingKey() : "#" + event.getId(),
+                LinkedHashMap::new,
+                Collectors.toList()))
+            .values();
+    }
+
+    /**
+     * 依序發送同一分片鍵的事件，遇到失敗即停止，返回發送成功的事件 ID。
+     */
+    private Flux<Long> relayInOrder(List<OutboxEventData> events) {
+        return Flux.fromIterable(events)
+            .concatMap(event -> Mono.defer(() -> eventPublisher.publishPayload(event.getTopic(), event.getShardingKey(),
+                    event.getEventId(), EventFormat.valueOf(event.getFormat()), event.getPayload()))
+                .thenReturn(event.getId()))
+            .onErrorResume(e -> {
+                failedCounter.increment();
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> delete(List<Long> relayedIds) {
+        if (relayedIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return outboxEventRepository.deleteAllById(relayedIds)
+            .doOnSuccess(v -> {
+                relayedCounter.increment(relayedIds.size());
+                log.debug("已從 outbox 發送 {} 筆事件", relayedIds.size());
+            });
+    }
+
+    /**
+     * 釋放取得但未發送成功的事件，讓下次轉發可以立即重試。
+     */
+    private Mono<Void> release(Set<Long> claimedIds, List<Long> relayedIds, String claimToken) {
+        List<Long> unsentIds = claimedIds.stream().filter(id -> !relayedIds.contains(id)).sorted().toList();
+        if (unsentIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return outboxEventRepository.release(unsentIds, claimToken).then();
+    }
+
+    /**
+     * 單一批次的轉發結果，drained 表示本次不需繼續轉發下一批。
+     */
+    private record BatchResult(int relayed, boolean drained) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerOrderly;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 事件消費者的流量控制
+ * 每則訊息在消費執行緒上等待其響應式處理流程完成後才返回，讓 broker 只在處理完成後確認消費；
+ * 處理失敗時拋出例外，由 RocketMQ 稍後重新處理該訊息。
+ * 事件處理流程以處理逾時時間為上限，逾時視為處理失敗；等待時另外保留移除冪等紀錄與重新發布所需的時間。
+ * 每個消費者的消費執行緒數即為同時處理中的訊息上限，資料庫變慢時會直接減緩從 broker 拉取訊息的速度。
+ * 啟用批次消費時，每次最多取得一個批次的訊息並整批處理。
+ */
+@Slf4j
+@Component
+public class ConsumerFlowControl {
+
+    /**
+     * 處理逾時後移除冪等紀錄與重新發布的時間上限，不超過處理逾時時間。
+     */
+    private static final Duration MAX_FAILURE_HANDLING_TIME = Duration.ofSeconds(5);
+
+    private final int maxInFlight;
+    private final Duration processingTimeout;
+    private final Duration awaitTimeout;
+    private final boolean batchEnabled;
+    private final int batchSize;
+
+    public ConsumerFlowControl(@Value("${app.consumer.max-in-flight:16}") int maxInFlight,
+                               @Value("${app.consumer.processing-timeout-ms:30000}") long processingTimeoutMillis,
+                               @Value("${app.consumer.batch.enabled:false}") boolean batchEnabled,
+                               @Value("${app.consumer.batch.max-size:32}") int batchSize) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("app.consumer.max-in-flight 必須大於 0: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.processingTimeout = Duration.ofMillis(processingTimeoutMillis);
+        Duration failureHandlingTime = processingTimeout.compareTo(MAX_FAILURE_HANDLING_TIME) < 0
+            ? processingTimeout
+            : MAX_FAILURE_HANDLING_TIME;
+        this.awaitTimeout = processingTimeout.plus(failureHandlingTime);
+        this.batchEnabled = batchEnabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 將消費者的消費執行緒數設為同時處理中的訊息上限。
+     *
+     * @param consumer 啟動前的 RocketMQ 推送消費者
+     */
+    public void applyTo(DefaultMQPushConsumer consumer) {
+        consumer.setConsumeThreadMax(maxInFlight);
+        consumer.setConsumeThreadMin(maxInFlight);
+    }
+
+    /**
+     * 設定消費執行緒數，並在啟用批次消費時改以順序模式整批處理訊息。
+     * 整批處理失敗時暫停該佇列，稍後重新處理整批訊息。
+     *
+     * @param consumer     啟動前的 RocketMQ 推送消費者
+     * @param batchHandler 整批訊息的響應式處理流程
+     */
+    public void applyTo(DefaultMQPushConsumer consumer, Function<List<MessageExt>, Mono<Void>> batchHandler) {
+        applyTo(consumer);
+        if (!batchEnabled) {
+            return;
+        }
+        consumer.setConsumeMessageBatchMaxSize(batchSize);
+        consumer.setPullBatchSize(Math.max(consumer.getPullBatchSize(), batchSize));
+        consumer.registerMessageListener((MessageListenerOrderly) (messages, context) -> {
+            try {
+                await(batchHandler.apply(messages));
+                return ConsumeOrderlyStatus.SUCCESS;
+            } catch (RuntimeException e) {
+                log.warn("批次處理 {} 則訊息失敗，稍後重新處理", messages.size(), e);
+                return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
+            }
+        });
+    }
+
+    /**
+     * 為事件處理流程加上處理逾時時間，逾時時以 {@link java.util.concurrent.TimeoutException} 結束，
+     * 讓呼叫端的錯誤處理（移除冪等紀錄、重新發布）照常執行。
+     *
+     * @param handling 事件處理流程
+     * @param <T>      結果類型
+     * @return 加上逾時的處理流程
+     */
+    public <T> Mono<T> withProcessingTimeout(Mono<T> handling) {
+        return handling.timeout(processingTimeout);
+    }
+
+    /**
+     * 等待訊息的處理流程完成。
+     * 等待時間為處理逾時時間加上失敗處理時間；仍未完成時取消處理流程並拋出例外。
+     *
+     * @param processing 訊息的響應式處理流程
+     * @throws RuntimeException 處理失敗或逾時時拋出，使訊息稍後重新投遞
+     */
+    public void await(Mono<?> processing) {
+        processing.block(awaitTimeout);
+    }
+}
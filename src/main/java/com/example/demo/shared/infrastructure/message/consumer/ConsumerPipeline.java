@@ -0,0 +1,271 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.consumer.IdempotencyStore.EventRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.common.message.MessageExt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 事件消費流程
+ * 每則訊息依序經過：解碼 → 去重 → 交給事件處理流程 → 在共用排程器上以同時執行上限執行 → 確認或重新投遞。
+ * 無法解碼的訊息記錄後確認消費；處理失敗或逾時時移除冪等紀錄，交由 {@link FailedEventRouter} 延遲重試或轉入死信主題後確認消費，
+ * 停用重試或重新發布失敗時拋出例外，由 broker 重新投遞。
+ * 批次模式下整批解碼後交給批次處理流程，去重與失敗時的冪等紀錄移除由批次處理流程負責；
+ * 批次失敗時整批重新發布，已成功處理的事件在重試時會因冪等紀錄而略過。
+ * 處理流程在等待逾時等情況下被取消時同樣移除冪等紀錄，避免重新投遞的事件被當成重複事件略過。
+ * 各階段的耗時記錄於 event.consumer.stage，各結果的事件數記錄於 event.consumer.events，以 consumer 標籤區分消費者。
+ * 由 {@link ConsumerPipelineFactory} 建立。
+ *
+ * @param <E> 事件類型
+ */
+@Slf4j
+public final class ConsumerPipeline<E> {
+
+    private final String name;
+    private final Class<E> eventType;
+    private final boolean idempotent;
+    private final Function<E, Mono<Void>> handler;
+    private final Function<List<DecodedEvent<E>>, Mono<Void>> batchHandler;
+    private final EventCodec eventCodec;
+    private final IdempotencyStore idempotencyStore;
+    private final ConsumerFlowControl consumerFlowControl;
+    private final FailedEventRouter failedEventRouter;
+    private final Semaphore executionPermits;
+    private final Duration acquireTimeout;
+    private final Scheduler scheduler;
+    private final Timer decodeTimer;
+    private final Timer dedupeTimer;
+    private final Timer executeTimer;
+    private final Counter processedCounter;
+    private final Counter duplicateCounter;
+    private final Counter invalidCounter;
+    private final Counter failedCounter;
+
+    ConsumerPipeline(String name,
+                     Class<E> eventType,
+                     boolean idempotent,
+                     Function<E, Mono<Void>> handler,
+                     Function<List<DecodedEvent<E>>, Mono<Void>> batchHandler,
+                     EventCodec eventCodec,
+                     IdempotencyStore idempotencyStore,
+                     ConsumerFlowControl consumerFlowControl,
+                     FailedEventRouter failedEventRouter,
+                     Semaphore executionPermits,
+                     Duration acquireTimeout,
+                     Scheduler scheduler,
+                     MeterRegistry meterRegistry) {
+        this.name = name;
+        this.eventType = eventType;
+        this.idempotent = idempotent;
+        this.handler = handler;
+        this.batchHandler = batchHandler;
+        this.eventCodec = eventCodec;
+        this.idempotencyStore = idempotencyStore;
+        this.consumerFlowControl = consumerFlowControl;
+        this.failedEventRouter = failedEventRouter;
+        this.executionPermits = executionPermits;
+        this.acquireTimeout = acquireTimeout;
+        this.scheduler = scheduler;
+        this.decodeTimer = stageTimer(meterRegistry, "decode");
+        this.dedupeTimer = stageTimer(meterRegistry, "dedupe");
+        this.executeTimer = stageTimer(meterRegistry, "execute");
+        this.processedCounter = resultCounter(meterRegistry, "processed");
+        this.duplicateCounter = resultCounter(meterRegistry, "duplicate");
+        this.invalidCounter = resultCounter(meterRegistry, "invalid");
+        this.failedCounter = resultCounter(meterRegistry, "failed");
+    }
+
+    /**
+     * 設定消費者的消費執行緒數，有批次處理流程時並註冊批次消費。
+     *
+     * @param consumer 啟動前的 RocketMQ 推送消費者
+     */
+    public void applyTo(DefaultMQPushConsumer consumer) {
+        if (batchHandler == null) {
+            consumerFlowControl.applyTo(consumer);
+        } else {
+            consumerFlowControl.applyTo(consumer, this::onMessages);
+        }
+    }
+
+    /**
+     * 處理一則訊息，處理完成後才返回。
+     *
+     * @param message 訊息
+     * @throws RuntimeException 處理逾時，或處理失敗且無法重新發布時拋出，使訊息稍後重新投遞
+     */
+    public void onMessage(MessageExt message) {
+        DecodedEvent<E> decoded = decode(message);
+        if (decoded == null) {
+            return;
+        }
+
+        Mono<Void> processing = markIfAbsent(decoded.ref())
+            .flatMap(isNew -> {
+                if (!Boolean.TRUE.equals(isNew)) {
+                    duplicateCounter.increment();
+                    log.warn("接收到重複的 {} 事件: eventId={}. 跳過處理.", name, decoded.ref().eventId());
+                    return Mono.empty();
+                }
+                return timed(executeTimer, consumerFlowControl.withProcessingTimeout(Mono.defer(() -> handler.apply(decoded.event()))))
+                    .doOnSuccess(v -> processedCounter.increment())
+                    .doOnCancel(() -> releaseOnCancel(List.of(decoded.ref())))
+                    .onErrorResume(e -> release(List.of(decoded.ref())).then(Mono.error(e)));
+            })
+            .onErrorResume(e -> {
+                failedCounter.increment();
+                log.error("處理 {} 事件失敗，稍後重新投遞: eventId={}", name, decoded.ref().eventId(), e);
+                return reroute(List.of(message), e);
+            });
+        consumerFlowControl.await(limited(processing));
+    }
+
+    /**
+     * 批次處理訊息，無法解碼的訊息記錄後略過。
+     */
+    private Mono<Void> onMessages(List<MessageExt> messages) {
+        List<DecodedEvent<E>> events = new ArrayList<>(messages.size());
+        List<MessageExt> decodedMessages = new ArrayList<>(messages.size());
+        for (MessageExt message : messages) {
+            DecodedEvent<E> decoded = decode(message);
+            if (decoded != null) {
+                events.add(decoded);
+                decodedMessages.add(message);
+            }
+        }
+        Mono<Void> processing = timed(executeTimer, consumerFlowControl.withProcessingTimeout(Mono.defer(() -> batchHandler.apply(events))))
+            .doOnSuccess(v -> processedCounter.increment(events.size()))
+            .onErrorResume(e -> {
+                failedCounter.increment(events.size());
+                return reroute(decodedMessages, e);
+            });
+        return limited(processing);
+    }
+
+    /**
+     * 解碼訊息並取得事件識別，失敗時記錄並返回 null。
+     */
+    private DecodedEvent<E> decode(MessageExt message) {
+        long start = System.nanoTime();
+        try {
+            E event = eventCodec.decode(message.getBody(), message.getUserProperty(EventCodec.FORMAT_HEADER), eventType);
+            return new DecodedEvent<>(EventRef.of(message), event);
+        } catch (Exception e) {
+            // 無法解碼的訊息重新投遞也不會成功，記錄後確認消費
+            invalidCounter.increment();
+            log.error("無法解碼 {} 事件，略過: msgId={}", name, message.getMsgId(), e);
+            return null;
+        } finally {
+            decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 重新發布處理失敗的訊息；停用重試時以原錯誤結束，由 broker 重新投遞。
+     */
+    private Mono<Void> reroute(List<MessageExt> messages, Throwable error) {
+        if (!failedEventRouter.isEnabled()) {
+            return Mono.error(error);
+        }
+        return Flux.fromIterable(messages)
+            .concatMap(message -> failedEventRouter.reroute(message, error))
+            .then();
+    }
+
+    private Mono<Boolean> markIfAbsent(EventRef ref) {
+        if (!idempotent) {
+            return Mono.just(true);
+        }
+        return timed(dedupeTimer, idempotencyStore.markIfAbsent(name, ref));
+    }
+
+    private Mono<Void> release(List<EventRef> refs) {
+        return idempotent ? idempotencyStore.release(name, refs) : Mono.empty();
+    }
+
+    /**
+     * 處理流程被取消時移除冪等紀錄；取消後不再有訂閱者等待結果，因此獨立執行並只記錄失敗。
+     */
+    private void releaseOnCancel(List<EventRef> refs) {
+        log.warn("{} 事件的處理流程已取消，移除冪等紀錄: eventId={}", name, refs.get(0).eventId());
+        release(refs).subscribe(null, e -> log.warn("移除 {} 事件的冪等紀錄失敗", name, e));
+    }
+
+    /**
+     * 取得執行名額後在共用排程器上執行，結束或取消時歸還名額。
+     * 名額在消費執行緒上等待取得，所有消費者同時執行的處理流程數因此不超過上限。
+     * 名額在結果傳給等待的消費執行緒之前歸還，消費執行緒返回時執行中的處理流程數已經更新。
+     */
+    private Mono<Void> limited(Mono<Void> processing) {
+        try {
+            if (!executionPermits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("等待 " + name + " 事件的執行名額逾時");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待 " + name + " 事件的執行名額時被中斷", e);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                executionPermits.release();
+            }
+        };
+        return processing
+            .subscribeOn(scheduler)
+            .doOnTerminate(release)
+            .doOnCancel(release);
+    }
+
+    /**
+     * 記錄階段耗時，在結果傳給下游之前記錄，處理完成返回時指標已經更新。
+     */
+    private <T> Mono<T> timed(Timer timer, Mono<T> mono) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Runnable record = () -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return mono.doOnTerminate(record).doOnCancel(record);
+        });
+    }
+
+    private Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("event.consumer.stage")
+            .description("事件消費各階段的耗時")
+            .tag("consumer", name)
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+
+    private Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("event.consumer.events")
+            .description("事件消費者依處理結果分類的事件數")
+            .tag("consumer", name)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 已解碼的事件
+     *
+     * @param ref   用於冪等判斷的事件識別
+     * @param event 事件
+     * @param <E>   事件類型
+     */
+    public record DecodedEvent<E>(EventRef ref, E event) {
+    }
+}
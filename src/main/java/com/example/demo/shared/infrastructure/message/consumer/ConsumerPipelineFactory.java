@@ -0,0 +1,96 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.consumer.ConsumerPipeline.DecodedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * 建立事件消費流程
+ * 所有消費流程共用同一個排程器與同一組執行名額，事件處理的並行度與監控指標因此集中在此調整。
+ * 目前執行中的處理流程數記錄於 event.consumer.executions.active。
+ */
+@Component
+public class ConsumerPipelineFactory implements DisposableBean {
+
+    private final EventCodec eventCodec;
+    private final IdempotencyStore idempotencyStore;
+    private final ConsumerFlowControl consumerFlowControl;
+    private final FailedEventRouter failedEventRouter;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore executionPermits;
+    private final Duration acquireTimeout;
+    private final Scheduler scheduler;
+
+    public ConsumerPipelineFactory(EventCodec eventCodec,
+                                   IdempotencyStore idempotencyStore,
+                                   ConsumerFlowControl consumerFlowControl,
+                                   FailedEventRouter failedEventRouter,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.consumer.pipeline.max-concurrency:64}") int maxConcurrency,
+                                   @Value("${app.consumer.processing-timeout-ms:30000}") long processingTimeoutMillis) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("app.consumer.pipeline.max-concurrency 必須大於 0: " + maxConcurrency);
+        }
+        this.eventCodec = eventCodec;
+        this.idempotencyStore = idempotencyStore;
+        this.consumerFlowControl = consumerFlowControl;
+        this.failedEventRouter = failedEventRouter;
+        this.meterRegistry = meterRegistry;
+        this.executionPermits = new Semaphore(maxConcurrency);
+        this.acquireTimeout = Duration.ofMillis(processingTimeoutMillis);
+        this.scheduler = Schedulers.newParallel("event-consumer");
+        Gauge.builder("event.consumer.executions.active", executionPermits, permits -> maxConcurrency - permits.availablePermits())
+            .description("所有事件消費者目前執行中的處理流程數")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 建立不去重的消費流程。
+     *
+     * @param name      消費流程名稱，作為監控指標的 consumer 標籤
+     * @param eventType 事件類型
+     * @param handler   單一事件的處理流程
+     * @return 消費流程
+     */
+    public <E> ConsumerPipeline<E> create(String name, Class<E> eventType, Function<E, Mono<Void>> handler) {
+        return new ConsumerPipeline<>(name, eventType, false, handler, null,
+            eventCodec, idempotencyStore, consumerFlowControl, failedEventRouter, executionPermits, acquireTimeout, scheduler, meterRegistry);
+    }
+
+    /**
+     * 建立以事件 ID 去重、並支援批次消費的消費流程。
+     *
+     * @param name         消費流程名稱，同時作為監控指標的 consumer 標籤與冪等紀錄的事件範圍
+     * @param eventType    事件類型
+     * @param handler      單一事件的處理流程
+     * @param batchHandler 批次消費時整批事件的處理流程，需自行去重
+     * @return 消費流程
+     */
+    public <E> ConsumerPipeline<E> createIdempotent(String name,
+                                                    Class<E> eventType,
+                                                    Function<E, Mono<Void>> handler,
+                                                    Function<List<DecodedEvent<E>>, Mono<Void>> batchHandler) {
+        return new ConsumerPipeline<>(name, eventType, true, handler, batchHandler,
+            eventCodec, idempotencyStore, consumerFlowControl, failedEventRouter, executionPermits, acquireTimeout, scheduler, meterRegistry);
+    }
+
+    /**
+     * 應用關閉時停止共用排程器。
+     */
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.message.EventPublisher;
+import com.example.demo.shared.infrastructure.repository.data.DeadLetterEventData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.DeadLetterEventR2dbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 死信事件消費者
+ * 監聽 task-center-dead-letter 主題的消息
+ * 將重試次數用完仍處理失敗的事件原樣保存到 event_dead_letter 資料表，待問題排除後由 {@link com.example.demo.shared.infrastructure.message.DeadLetterReplayService} 重新投遞。
+ * 事件內容不解碼，保存完成後才確認消費，失敗時由 broker 重新投遞
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@RocketMQMessageListener(
+    topic = "task-center-dead-letter",
+    consumerGroup = "task-center-dead-letter-consumer-group"
+)
+public class DeadLetterEventConsumer implements RocketMQListener<MessageExt>, RocketMQPushConsumerLifecycleListener {
+
+    private final DeadLetterEventR2dbcRepository deadLetterEventRepository;
+    private final ConsumerFlowControl consumerFlowControl;
+
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        consumerFlowControl.applyTo(consumer);
+    }
+
+    @Override
+    public void onMessage(MessageExt message) {
+        String topic = message.getUserProperty(FailedEventRouter.ORIGINAL_TOPIC_HEADER);
+        if (topic == null) {
+            // 沒有原主題的訊息無法重新投遞，記錄後確認消費
+            log.error("死信事件缺少原主題，略過: msgId={}", message.getMsgId());
+            return;
+        }
+
+        DeadLetterEventData deadLetter = new DeadLetterEventData();
+        deadLetter.setTopic(topic);
+        deadLetter.setShardingKey(message.getUserProperty(EventPublisher.SHARDING_KEY_HEADER));
+        deadLetter.setEventId(message.getUserProperty(EventIds.HEADER));
+        deadLetter.setFormat(message.getUserProperty(EventCodec.FORMAT_HEADER));
+        deadLetter.setPayload(message.getBody());
+        String attempts = message.getUserProperty(FailedEventRouter.RETRY_ATTEMPT_HEADER);
+        deadLetter.setRetryAttempts(attempts == null ? 0 : Integer.parseInt(attempts));
+        deadLetter.setFailureReason(message.getUserProperty(FailedEventRouter.FAILURE_HEADER));
+        deadLetter.setCreatedAt(LocalDateTime.now());
+
+        consumerFlowControl.await(deadLetterEventRepository.save(deadLetter)
+            .doOnSuccess(saved -> log.warn("已保存死信事件: id={}, topic={}, eventId={}, 原因: {}",
+                saved.getId(), topic, saved.getEventId(), saved.getFailureReason())));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.message.EventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 處理失敗事件的重新投遞
+ * 順序消費的訊息處理失敗時，broker 會暫停整個佇列並無限次重試，同一佇列中其他使用者的事件也會被擋住。
+ * 因此處理失敗的事件改以 broker 的延遲等級重新發布到原主題後確認原訊息，依序使用設定的延遲等級重試；
+ * 重試次數用完時發布到死信主題，由 {@link DeadLetterEventConsumer} 保存，待問題排除後以 API 重新投遞。
+ * 重新投遞沿用原事件 ID 與分片鍵，已成功處理該事件的消費者會視為重複而略過，
+ * 重試的事件仍進入同一使用者其他事件所在的佇列，由同一個順序消費者處理。
+ */
+@Slf4j
+@Component
+public class FailedEventRouter {
+
+    public static final String DEAD_LETTER_TOPIC = "dead-letter";
+    public static final String RETRY_ATTEMPT_HEADER = "retryAttempt";
+    public static final String ORIGINAL_TOPIC_HEADER = "originalTopic";
+    public static final String FAILURE_HEADER = "failureReason";
+
+    private static final int MAX_FAILURE_LENGTH = 500;
+
+    private final EventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int[] delayLevels;
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+
+    public FailedEventRouter(EventPublisher eventPublisher,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.consumer.retry.enabled:true}") boolean enabled,
+                             @Value("${app.consumer.retry.delay-levels:3,5,9}") int[] delayLevels) {
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.delayLevels = delayLevels.clone();
+        this.retriedCounter = Counter.builder("event.consumer.reroutes")
+            .description("處理失敗後延遲重新投遞的事件數")
+            .tag("outcome", "retry")
+            .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("event.consumer.reroutes")
+            .description("重試次數用完後轉入死信主題的事件數")
+            .tag("outcome", "dead_letter")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 是否以重新發布取代 broker 的重新投遞；停用時處理失敗的訊息由 broker 重新投遞。
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 將處理失敗的訊息延遲重新發布到原主題，重試次數用完時發布到死信主題。
+     *
+     * @param message 處理失敗的訊息
+     * @param error   失敗原因
+     * @return 發布完成時結束的 Mono<Void>，發布失敗時以錯誤結束，由 broker 重新投遞原訊息
+     */
+    public Mono<Void> reroute(MessageExt message, Throwable error) {
+        int attempt = attemptOf(message);
+        String topic = topicOf(message);
+        Map<String, String> headers = new HashMap<>();
+        copyHeader(message, EventIds.HEADER, headers);
+        copyHeader(message, EventCodec.FORMAT_HEADER, headers);
+        copyHeader(message, EventPublisher.SHARDING_KEY_HEADER, headers);
+        String shardingKey = headers.get(EventPublisher.SHARDING_KEY_HEADER);
+
+        if (attempt < delayLevels.length) {
+            headers.put(RETRY_ATTEMPT_HEADER, String.valueOf(attempt + 1));
+            return eventPublisher.publishDelayed(topic, shardingKey, headers, message.getBody(), delayLevels[attempt])
+                .doOnSuccess(v -> {
+                    retriedCounter.increment();
+                    log.warn("事件處理失敗，第 {} 次延遲重試: topic={}, msgId={}", attempt + 1, topic, message.getMsgId());
+                });
+        }
+
+        headers.put(RETRY_ATTEMPT_HEADER, String.valueOf(attempt));
+        headers.put(ORIGINAL_TOPIC_HEADER, topic);
+        headers.put(FAILURE_HEADER, failureOf(error));
+        return eventPublisher.publishDelayed(DEAD_LETTER_TOPIC, null, headers, message.getBody(), 0)
+            .doOnSuccess(v -> {
+                deadLetteredCounter.increment();
+                log.error("事件重試 {} 次仍失敗，已轉入死信主題: topic={}, msgId={}", attempt, topic, message.getMsgId());
+            });
+    }
+
+    private static int attemptOf(MessageExt message) {
+        String attempt = message.getUserProperty(RETRY_ATTEMPT_HEADER);
+        return attempt == null ? 0 : Integer.parseInt(attempt);
+    }
+
+    /**
+     * 訊息的主題名稱（不含前綴）
+     */
+    private static String topicOf(MessageExt message) {
+        String topic = message.getTopic();
+        return topic.startsWith(EventPublisher.TOPIC_PREFIX) ? topic.substring(EventPublisher.TOPIC_PREFIX.length()) : topic;
+    }
+
+    private static void copyHeader(MessageExt message, String name, Map<String, String> headers) {
+        String value = message.getUserProperty(name);
+        if (value != null) {
+            headers.put(name, value);
+        }
+    }
+
+    private static String failureOf(Throwable error) {
+        String failure = String.valueOf(error);
+        return failure.length() <= MAX_FAILURE_LENGTH ? failure : failure.substring(0, MAX_FAILURE_LENGTH);
+    }
+}
@@ -1,69 +1,81 @@
 package com.example.demo.shared.infrastructure.message.consumer;
 
-import com.example.demo.mission.application.service.MissionCommandService;
+import com.example.demo.mission.application.service.MissionProgressCoalescer;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
 import com.example.demo.shared.application.dto.event.GamePlayEvent;
-import com.example.demo.shared.infrastructure.redis.RedisService; // 導入 RedisService
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import lombok.RequiredArgsConstructor;
+import com.example.demo.shared.infrastructure.message.consumer.ConsumerPipeline.DecodedEvent;
+import com.example.demo.shared.infrastructure.message.consumer.MissionProgressBatchProcessor.ProgressEvent;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.annotation.ConsumeMode;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 遊戲遊玩事件消費者
  * 監聽 task-center-game-play 主題的消息
- * 處理遊戲遊玩事件並更新相關任務進度
+ * 處理遊戲遊玩事件並更新相關任務進度；解碼、去重、確認與重新投遞由 {@link ConsumerPipeline} 處理
+ * 以順序模式消費，同一使用者的事件位於同一個佇列並依序處理；啟用批次消費時整批去重並依使用者合併評估
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @RocketMQMessageListener(
     topic = "task-center-game-play",
-    consumerGroup = "task-center-game-play-consumer-group"
+    consumerGroup = "task-center-game-play-consumer-group",
+    consumeMode = ConsumeMode.ORDERLY
 )
-public class GamePlayEventConsumer implements RocketMQListener<String> {
+public class GamePlayEventConsumer implements RocketMQListener<MessageExt>, RocketMQPushConsumerLifecycleListener {
 
-    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
-    private final MissionCommandService missionCommandService;
-    private final RedisService redisService;
+    private static final String PIPELINE_NAME = "game_play";
 
-    private static final String IDEMPOTENCY_KEY_PREFIX = "game_play_event:idempotency:";
-    private static final Duration IDEMPOTENCY_KEY_TTL = Duration.ofDays(1);
+    private final MissionProgressCoalescer missionProgressCoalescer;
+    private final MissionProgressBatchProcessor batchProcessor;
+    private final ConsumerPipeline<GamePlayEvent> pipeline;
 
-    @Override
-    public void onMessage(String message) {
-        try {
-            GamePlayEvent event = objectMapper.readValue(message, GamePlayEvent.class);
+    public GamePlayEventConsumer(ConsumerPipelineFactory consumerPipelineFactory,
+                                 MissionProgressCoalescer missionProgressCoalescer,
+                                 MissionProgressBatchProcessor batchProcessor) {
+        this.missionProgressCoalescer = missionProgressCoalescer;
+        this.batchProcessor = batchProcessor;
+        this.pipeline = consumerPipelineFactory.createIdempotent(PIPELINE_NAME, GamePlayEvent.class, this::handle, this::handleBatch);
+    }
 
-            String idempotencyKey = IDEMPOTENCY_KEY_PREFIX + event.userId() + ":" + event.gameId() + ":" + event.score() + ":" + event.playTime().toEpochSecond(java.time.ZoneOffset.UTC);
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        pipeline.applyTo(consumer);
+    }
 
-            redisService.setIfAbsent(idempotencyKey, "processed", IDEMPOTENCY_KEY_TTL)
-                .flatMap(isNew -> {
-                    if (Boolean.TRUE.equals(isNew)) {
-                        log.info("接收到遊戲遊玩事件 (首次處理): userId={}, username={}, gameId={}, gameCode={}, score={}, playDuration={}秒, playTime={}",
-                            event.userId(), event.username(), event.gameId(), event.gameCode(),
-                            event.score(), event.playDuration(), event.playTime());
+    @Override
+    public void onMessage(MessageExt message) {
+        pipeline.onMessage(message);
+    }
 
-                        // 呼叫 MissionCommandService 更新任務進度
-                        return missionCommandService.updateMissionProgress(event.userId(), event.username())
-                            .doOnSuccess(v -> log.debug("成功觸發使用者 {} 的任務進度更新（遊戲遊玩事件）", event.userId()))
-                            .doOnError(e -> log.error("觸發使用者 {} 的任務進度更新失敗（遊戲遊玩事件）", event.userId(), e));
-                    } else {
-                        log.warn("接收到重複的遊戲遊玩事件: idempotencyKey={}, userId={}, gameId={}. 跳過處理.",
-                            idempotencyKey, event.userId(), event.gameId());
-                        return Mono.empty();
-                    }
-                })
-                .subscribe();
+    /**
+     * 在使用者信箱中更新任務進度（順序消費下每個佇列一次只處理一則訊息，逐筆提交）
+     */
+    private Mono<Void> handle(GamePlayEvent event) {
+        log.info("接收到遊戲遊玩事件 (首次處理): userId={}, username={}, gameId={}, gameCode={}, score={}, playDuration={}秒, playTime={}",
+            event.userId(), event.username(), event.gameId(), event.gameCode(),
+            event.score(), event.playDuration(), event.playTime());
+        MissionProgressDelta delta = MissionProgressDelta.ofGamePlay(event.score(), event.playTime());
+        return missionProgressCoalescer.submit(event.userId(), event.username(), delta)
+            .doOnSuccess(v -> log.debug("成功觸發使用者 {} 的任務進度更新（遊戲遊玩事件）", event.userId()));
+    }
 
-        } catch (Exception e) {
-            log.error("處理遊戲遊玩事件失敗: {}", message, e);
-        }
+    /**
+     * 整批去重並依使用者合併評估
+     */
+    private Mono<Void> handleBatch(List<DecodedEvent<GamePlayEvent>> events) {
+        List<ProgressEvent> progressEvents = events.stream()
+            .map(decoded -> new ProgressEvent(decoded.ref(), decoded.event().userId(), decoded.event().username(),
+                MissionProgressDelta.ofGamePlay(decoded.event().score(), decoded.event().playTime())))
+            .toList();
+        return batchProcessor.process(PIPELINE_NAME, progressEvents);
     }
 }
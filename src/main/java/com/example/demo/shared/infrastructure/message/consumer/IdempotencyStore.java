@@ -0,0 +1,227 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.redis.RedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.concurrent.Queues;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 已消費事件的冪等紀錄
+ * 以事件 ID 判斷重複投遞，分為兩層：
+ * 行程內有容量上限的近端快取記錄最近處理過的事件（超過容量時移除最早記錄的事件），重複投遞到同一節點時不需存取 Redis；
+ * Redis 中依事件產生時間分桶的集合則是跨節點的依據，每個時間桶一個集合並整體設定過期時間，
+ * 成員為事件 ID 的 16 位元組壓縮編碼，不需為每個事件各建一個帶 TTL 的鍵。
+ * 每次腳本呼叫只存取一個時間桶集合，批次中跨時間桶的事件依時間桶分成多次呼叫，在 Redis Cluster 中不會有跨 slot 的存取。
+ * 超過保留期間的事件不再判斷重複。
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private static final String KEY_PREFIX = "idempotency:";
+
+    /**
+     * KEYS[1]: 時間桶集合；ARGV[1]: 該時間桶的過期時間（epoch 秒）；ARGV[2..]: 事件的成員。
+     * 以一個字元 ('1' 或 '0') 依序表示每個事件是否為首次出現。
+     */
+    private static final RedisScript<String> MARK_SCRIPT = RedisScript.of("""
+        local result = {}
+        for i = 2, #ARGV do
+            result[i - 1] = tostring(redis.call('SADD', KEYS[1], ARGV[i]))
+        end
+        redis.call('EXPIREAT', KEYS[1], ARGV[1])
+        return table.concat(result)
+        """, String.class);
+
+    /**
+     * KEYS[1]: 時間桶集合；ARGV: 事件的成員。
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of("""
+        return redis.call('SREM', KEYS[1], unpack(ARGV))
+        """, Long.class);
+
+    private final RedisService redisService;
+    private final long bucketMillis;
+    private final long retentionMillis;
+    private final Set<String> nearCache;
+
+    public IdempotencyStore(RedisService redisService,
+                            @Value("${app.idempotency.bucket-minutes:60}") long bucketMinutes,
+                            @Value("${app.idempotency.retention-hours:24}") long retentionHours,
+                            @Value("${app.idempotency.near-cache-size:100000}") int nearCacheSize) {
+        this.redisService = redisService;
+        this.bucketMillis = Duration.ofMinutes(bucketMinutes).toMillis();
+        this.retentionMillis = Duration.ofHours(retentionHours).toMillis();
+        this.nearCache = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > nearCacheSize;
+            }
+        }));
+    }
+
+    /**
+     * 記錄事件為已處理。
+     *
+     * @param scope 事件範圍，通常為事件類型
+     * @param event 事件
+     * @return 事件首次出現時為 true，重複投遞時為 false
+     */
+    public Mono<Boolean> markIfAbsent(String scope, EventRef event) {
+        return markAllIfAbsent(scope, List.of(event)).map(results -> results.get(0));
+    }
+
+    /**
+     * 記錄多個事件為已處理，每個時間桶一次 Redis 往返，近端快取中已有的事件不會送往 Redis。
+     * 同一批中重複的事件只有第一個會被視為首次出現。
+     * 任一時間桶記錄失敗時，會移除其他時間桶已記錄的事件後以錯誤結束，讓重新投遞的事件能再次處理。
+     *
+     * @param scope  事件範圍，通常為事件類型
+     * @param events 事件
+     * @return 與 events 順序相同的結果，事件首次出現時為 true
+     */
+    public Mono<List<Boolean>> markAllIfAbsent(String scope, List<EventRef> events) {
+        List<Boolean> results = new ArrayList<>(Collections.nCopies(events.size(), Boolean.FALSE));
+        Map<Long, List<Integer>> missesByBucket = new LinkedHashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            EventRef event = events.get(i);
+            if (nearCache.contains(nearCacheKey(scope, event))) {
+                continue;
+            }
+            missesByBucket.computeIfAbsent(bucketOf(event), bucket -> new ArrayList<>()).add(i);
+        }
+        if (missesByBucket.isEmpty()) {
+            return Mono.just(results);
+        }
+
+        return Flux.fromIterable(missesByBucket.entrySet())
+            .flatMapDelayError(entry -> markBucket(scope, entry.getKey(), entry.getValue(), events, results),
+                Queues.SMALL_BUFFER_SIZE, Queues.XS_BUFFER_SIZE)
+            .then(Mono.just(results))
+            .onErrorResume(e -> {
+                List<EventRef> marked = new ArrayList<>();
+                for (int i = 0; i < events.size(); i++) {
+                    if (results.get(i)) {
+                        marked.add(events.get(i));
+                    }
+                }
+                return release(scope, marked)
+                    .onErrorResume(releaseError -> {
+                        log.warn("移除 {} 個 {} 事件的冪等紀錄失敗", marked.size(), scope, releaseError);
+                        return Mono.empty();
+                    })
+                    .then(Mono.error(e));
+            });
+    }
+
+    private Mono<Void> markBucket(String scope, long bucket, List<Integer> misses, List<EventRef> events,
+                                  List<Boolean> results) {
+        List<String> args = new ArrayList<>(misses.size() + 1);
+        args.add(String.valueOf(((bucket + 1) * bucketMillis + retentionMillis) / 1000));
+        for (int index : misses) {
+            args.add(member(events.get(index).eventId()));
+        }
+        return redisService.executeScriptWithStringArgs(MARK_SCRIPT, List.of(bucketKey(scope, bucket)), args)
+            .doOnNext(flags -> {
+                for (int j = 0; j < misses.size(); j++) {
+                    int index = misses.get(j);
+                    results.set(index, flags.charAt(j) == '1');
+                    nearCache.add(nearCacheKey(scope, events.get(index)));
+                }
+            })
+            .then();
+    }
+
+    /**
+     * 移除事件的已處理紀錄，讓處理失敗而重新投遞的事件能再次處理。
+     *
+     * @param scope  事件範圍，通常為事件類型
+     * @param events 事件
+     * @return 移除完成時結束的 Mono<Void>
+     */
+    public Mono<Void> release(String scope, List<EventRef> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<Long, List<String>> membersByBucket = new LinkedHashMap<>();
+        for (EventRef event : events) {
+            nearCache.remove(nearCacheKey(scope, event));
+            membersByBucket.computeIfAbsent(bucketOf(event), bucket -> new ArrayList<>()).add(member(event.eventId()));
+        }
+        return Flux.fromIterable(membersByBucket.entrySet())
+            .flatMap(entry -> redisService.executeScriptWithStringArgs(RELEASE_SCRIPT,
+                List.of(bucketKey(scope, entry.getKey())), entry.getValue()))
+            .reduce(0L, Long::sum)
+            .doOnNext(removed -> log.debug("已移除 {} 個 {} 事件的冪等紀錄", removed, scope))
+            .then();
+    }
+
+    private long bucketOf(EventRef event) {
+        return event.timestampMillis() / bucketMillis;
+    }
+
+    private String bucketKey(String scope, long bucket) {
+        return KEY_PREFIX + scope + ":" + bucket;
+    }
+
+    private String nearCacheKey(String scope, EventRef event) {
+        return scope + ":" + event.eventId();
+    }
+
+    /**
+     * 將 UUID 格式的事件 ID 壓縮為 16 位元組的 Base64 編碼，其他格式的 ID 保持原樣。
+     */
+    private static String member(String eventId) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(eventId);
+        } catch (IllegalArgumentException e) {
+            return eventId;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+    }
+
+    /**
+     * 用於冪等判斷的事件識別
+     *
+     * @param eventId         事件 ID
+     * @param timestampMillis 事件產生時間，決定所屬的時間桶
+     */
+    public record EventRef(String eventId, long timestampMillis) {
+
+        /**
+         * 由訊息取得事件識別。
+         * 沒有事件 ID 標頭的舊訊息改用 RocketMQ 的訊息 ID 與發送時間。
+         *
+         * @param message 訊息
+         * @return 事件識別
+         */
+        public static EventRef of(MessageExt message) {
+            String eventId = message.getUserProperty(EventIds.HEADER);
+            if (eventId == null) {
+                return new EventRef(message.getMsgId(), message.getBornTimestamp());
+            }
+            return new EventRef(eventId, EventIds.timestampOf(eventId));
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.demo.shared.infrastructure.message.consumer;
 
 import com.example.demo.shared.application.dto.event.MissionCompletedEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 /**
  * 任務完成事件消費者
@@ -22,28 +24,31 @@ import org.springframework.stereotype.Component;
     topic = "task-center-mission-completed",
     consumerGroup = "task-center-mission-completed-consumer-group"
 )
-public class MissionCompletedEventConsumer implements RocketMQListener<String> {
+public class MissionCompletedEventConsumer implements RocketMQListener<MessageExt>, RocketMQPushConsumerLifecycleListener {
 
-    private final ObjectMapper objectMapper;
+    private final ConsumerPipeline<MissionCompletedEvent> pipeline;
 
-    public MissionCompletedEventConsumer() {
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+    public MissionCompletedEventConsumer(ConsumerPipelineFactory consumerPipelineFactory) {
+        this.pipeline = consumerPipelineFactory.create("mission_completed", MissionCompletedEvent.class, this::handle);
     }
 
     @Override
-    public void onMessage(String message) {
-        try {
-            MissionCompletedEvent event = objectMapper.readValue(message, MissionCompletedEvent.class);
-            log.info("接收到任務完成事件: userId={}, username={}, missionId={}, missionType={}, rewardPoints={}, completedAt={}", 
-                event.userId(), event.username(), event.missionId(), event.missionType(), 
-                event.rewardPoints(), event.completedAt());
-            
-            // 在這裡處理業務邏輯
-            // 例如：發送通知、更新積分、記錄成就等
-            
-        } catch (Exception e) {
-            log.error("處理任務完成事件失敗: {}", message, e);
-        }
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        pipeline.applyTo(consumer);
+    }
+
+    @Override
+    public void onMessage(MessageExt message) {
+        pipeline.onMessage(message);
+    }
+
+    private Mono<Void> handle(MissionCompletedEvent event) {
+        log.info("接收到任務完成事件: userId={}, username={}, missionId={}, missionType={}, rewardPoints={}, completedAt={}", 
+            event.userId(), event.username(), event.missionId(), event.missionType(), 
+            event.rewardPoints(), event.completedAt());
+        
+        // 在這裡處理業務邏輯
+        // 例如：發送通知、更新積分、記錄成就等
+        return Mono.empty();
     }
 }
@@ -0,0 +1,93 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.mission.application.service.MissionProgressCoalescer;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
+import com.example.demo.shared.infrastructure.message.consumer.IdempotencyStore.EventRef;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.concurrent.Queues;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任務進度事件的批次處理器
+ * 以 {@link IdempotencyStore} 一次為整批事件去重，再依使用者合併進度增量，每位使用者每批只提交一次任務評估。
+ * 某位使用者的評估失敗或被取消（例如批次處理逾時）時移除其事件的冪等紀錄並回報錯誤，其他使用者的評估不受影響，
+ * 整批重新投遞時已成功的事件會因冪等紀錄而略過。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MissionProgressBatchProcessor {
+
+    private final IdempotencyStore idempotencyStore;
+    private final MissionProgressCoalescer missionProgressCoalescer;
+
+    /**
+     * 處理一批任務進度事件。
+     *
+     * @param scope  冪等紀錄的事件範圍
+     * @param events 已解碼的事件
+     * @return 所有使用者的評估完成時結束的 Mono<Void>，任一使用者失敗時以錯誤結束
+     */
+    public Mono<Void> process(String scope, List<ProgressEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        List<EventRef> refs = events.stream().map(ProgressEvent::event).toList();
+        return idempotencyStore.markAllIfAbsent(scope, refs)
+            .flatMapMany(isNew -> {
+                Map<Long, List<ProgressEvent>> eventsByUser = new LinkedHashMap<>();
+                for (int i = 0; i < events.size(); i++) {
+                    if (isNew.get(i)) {
+                        ProgressEvent event = events.get(i);
+                        eventsByUser.computeIfAbsent(event.userId(), userId -> new ArrayList<>()).add(event);
+                    }
+                }
+                log.debug("批次處理 {} 個進度事件，略過 {} 個重複事件，合併為 {} 位使用者的任務評估",
+                    events.size(), events.size() - eventsByUser.values().stream().mapToInt(List::size).sum(), eventsByUser.size());
+                return Flux.fromIterable(eventsByUser.values())
+                    .flatMapDelayError(userEvents -> submit(scope, userEvents), Queues.SMALL_BUFFER_SIZE, Queues.XS_BUFFER_SIZE);
+            })
+            .then();
+    }
+
+    /**
+     * 合併同一使用者的事件並提交一次任務評估，失敗或取消時移除這些事件的冪等紀錄。
+     */
+    private Mono<Void> submit(String scope, List<ProgressEvent> userEvents) {
+        Long userId = userEvents.get(0).userId();
+        String username = null;
+        MissionProgressDelta delta = null;
+        for (ProgressEvent event : userEvents) {
+            if (event.username() != null) {
+                username = event.username();
+            }
+            delta = delta == null ? event.delta() : delta.merge(event.delta());
+        }
+
+        List<EventRef> refs = userEvents.stream().map(ProgressEvent::event).toList();
+        return missionProgressCoalescer.submit(userId, username, delta)
+            .doOnError(e -> log.error("觸發使用者 {} 的任務進度更新失敗（批次 {} 個事件）", userId, userEvents.size(), e))
+            .doOnCancel(() -> idempotencyStore.release(scope, refs)
+                .subscribe(null, e -> log.warn("移除使用者 {} 已取消事件的冪等紀錄失敗", userId, e)))
+            .onErrorResume(e -> idempotencyStore.release(scope, refs).then(Mono.error(e)));
+    }
+
+    /**
+     * 已解碼並轉換為進度增量的事件
+     *
+     * @param event    用於冪等判斷的事件識別
+     * @param userId   使用者ID
+     * @param username 使用者名稱
+     * @param delta    事件帶來的進度增量
+     */
+    public record ProgressEvent(EventRef event, Long userId, String username, MissionProgressDelta delta) {
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.demo.shared.infrastructure.redis;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
 import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,6 +27,11 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class RedisService {
 
+    /**
+     * BITFIELD 單一 GET 子命令可讀取的最大無號位元數
+     */
+    private static final int MAX_BITFIELD_BITS = 63;
+
     private final ReactiveRedisOperations<String, Object> redisOperations;
 
     // Hash Operations
@@ -32,6 +47,10 @@ public class RedisService {
         return redisOperations.opsForHash().put(cacheKey, fieldKey, value);
     }
 
+    public <K, V> Mono<Boolean> putIfAbsent(String cacheKey, K fieldKey, V value) {
+        return redisOperations.opsForHash().putIfAbsent(cacheKey, fieldKey, value);
+    }
+
     public <K, V> Mono<Boolean> putAll(String cacheKey, Map<K, V> items) {
         return redisOperations.opsForHash().putAll(cacheKey, items);
     }
@@ -40,11 +59,20 @@ public class RedisService {
         return redisOperations.opsForHash().remove(cacheKey, fieldKeys);
     }
 
+    public Mono<Map<String, Object>> entries(String cacheKey) {
+        return redisOperations.opsForHash().entries(cacheKey)
+            .collectMap(entry -> entry.getKey().toString(), Map.Entry::getValue);
+    }
+
     // General Key Operations
     public Mono<Long> delete(String cacheKey) {
         return redisOperations.delete(cacheKey);
     }
 
+    public Mono<Boolean> hasKey(String key) {
+        return redisOperations.hasKey(key);
+    }
+
     /**
      * 嘗試設定一個鍵值對，只有當鍵不存在時才成功 (set if absent)。
      * 用於實現幂等性或分散式鎖。
@@ -57,4 +85,86 @@ public class RedisService {
     public Mono<Boolean> setIfAbsent(String key, String value, Duration ttl) {
         return redisOperations.opsForValue().setIfAbsent(key, value, ttl);
     }
+
+    // Bitmap Operations
+    public Mono<Boolean> setBit(String key, long offset, boolean value) {
+        return redisOperations.opsForValue().setBit(key, offset, value);
+    }
+
+    /**
+     * 以單一 BITFIELD 命令讀取 bitmap 中的一段連續位元。
+     * 超出字串長度或不存在的鍵值讀取結果皆為 0。
+     *
+     * @param key    鍵
+     * @param offset 起始位元偏移
+     * @param length 讀取的位元數
+     * @return 第 i 個位元對應 offset + i 的 BitSet
+     */
+    public Mono<BitSet> getBits(String key, long offset, int length) {
+        if (length <= 0) {
+            return Mono.just(new BitSet());
+        }
+        BitFieldSubCommands commands = BitFieldSubCommands.create();
+        for (int start = 0; start < length; start += MAX_BITFIELD_BITS) {
+            int width = Math.min(MAX_BITFIELD_BITS, length - start);
+            commands = commands.get(BitFieldSubCommands.BitFieldType.unsigned(width)).valueAt(offset + start);
+        }
+        return redisOperations.opsForValue().bitField(key, commands)
+            .map(values -> {
+                BitSet bits = new BitSet(length);
+                for (int chunk = 0; chunk < values.size(); chunk++) {
+                    int start = chunk * MAX_BITFIELD_BITS;
+                    int width = Math.min(MAX_BITFIELD_BITS, length - start);
+                    long value = values.get(chunk) == null ? 0L : values.get(chunk);
+                    // BITFIELD 以最高位表示最小的偏移
+                    for (int bit = 0; bit < width; bit++) {
+                        if ((value >>> (width - 1 - bit) & 1L) == 1L) {
+                            bits.set(start + bit);
+                        }
+                    }
+                }
+                return bits;
+            });
+    }
+
+    public Mono<Long> bitCount(String key) {
+        ByteBuffer rawKey = ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+        return redisOperations.execute(connection -> connection.stringCommands().bitCount(rawKey)).next();
+    }
+
+    // Set Operations
+    public Flux<Object> randomMembers(String key, long count) {
+        return redisOperations.opsForSet().distinctRandomMembers(key, count);
+    }
+
+    // Script Operations
+    /**
+     * 執行 Lua 腳本，腳本內的多個命令在 Redis 端原子性地執行，只需一次往返。
+     * 參數與值一樣以 JSON 序列化，數值參數會以數字字串傳入腳本。
+     *
+     * @param script 腳本
+     * @param keys   腳本使用的鍵
+     * @param args   腳本參數
+     * @return 腳本回傳值的 Mono
+     */
+    public <T> Mono<T> executeScript(RedisScript<T> script, List<String> keys, Object... args) {
+        return redisOperations.execute(script, keys, Arrays.asList(args)).next();
+    }
+
+    /**
+     * 執行 Lua 腳本，參數以原始字串傳入，不經過 JSON 序列化。
+     * 適合需要在腳本中比對字串參數或將參數直接寫入 hash 欄位的情境。
+     *
+     * @param script 腳本
+     * @param keys   腳本使用的鍵
+     * @param args   腳本參數
+     * @return 腳本回傳值的 Mono
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> executeScriptWithStringArgs(RedisScript<T> script, List<String> keys, List<String> args) {
+        return redisOperations.execute(script, keys, args,
+                RedisElementWriter.from(RedisSerializer.string()),
+                (RedisElementReader<T>) RedisElementReader.from(RedisSerializer.string()))
+            .next();
+    }
 }
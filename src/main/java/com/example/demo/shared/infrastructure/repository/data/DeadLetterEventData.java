@@ -0,0 +1,34 @@
+package com.example.demo.shared.infrastructure.repository.data;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 死信事件持久化物件
+ */
+@Data
+@Table("event_dead_letter")
+public class DeadLetterEventData {
+
+    @Id
+    private Long id;
+
+    private String topic;
+
+    private String shardingKey;
+
+    private String eventId;
+
+    private String format;
+
+    private byte[] payload;
+
+    private Integer retryAttempts;
+
+    private String failureReason;
+
+    private LocalDateTime createdAt;
+}
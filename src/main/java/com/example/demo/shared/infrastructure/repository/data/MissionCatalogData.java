@@ -0,0 +1,33 @@
+package com.example.demo.shared.infrastructure.repository.data;
+
+import com.example.demo.mission.domain.model.MissionType;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任務目錄持久化物件
+ */
+@Data
+@Table("mission_catalog")
+public class MissionCatalogData {
+
+    @Id
+    private Long id;
+
+    private MissionType missionType;
+
+    private Integer targetProgress;
+
+    private Integer minScore;
+
+    private Integer rewardPoints;
+
+    private Boolean enabled;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
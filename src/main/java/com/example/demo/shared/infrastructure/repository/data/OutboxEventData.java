@@ -0,0 +1,34 @@
+package com.example.demo.shared.infrastructure.repository.data;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待發布事件 (outbox) 持久化物件
+ */
+@Data
+@Table("event_outbox")
+public class OutboxEventData {
+
+    @Id
+    private Long id;
+
+    private String topic;
+
+    private String shardingKey;
+
+    private String eventId;
+
+    private String format;
+
+    private byte[] payload;
+
+    private LocalDateTime createdAt;
+
+    private String claimToken;
+
+    private LocalDateTime claimedUntil;
+}
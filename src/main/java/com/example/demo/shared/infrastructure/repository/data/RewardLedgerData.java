@@ -0,0 +1,27 @@
+package com.example.demo.shared.infrastructure.repository.data;
+
+import com.example.demo.mission.domain.model.RewardType;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 獎勵帳本持久化物件
+ */
+@Data
+@Table("reward_ledger")
+public class RewardLedgerData {
+
+    @Id
+    private Long id;
+
+    private Long userId;
+
+    private RewardType rewardType;
+
+    private Integer points;
+
+    private LocalDateTime createdAt;
+}
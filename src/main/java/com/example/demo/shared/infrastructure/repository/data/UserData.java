@@ -4,6 +4,7 @@ import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
@@ -22,6 +23,10 @@ public class UserData {
 
     private LocalDateTime registrationDate;
 
+    private LocalDate lastLoginDate;
+
+    private Integer currentStreak;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
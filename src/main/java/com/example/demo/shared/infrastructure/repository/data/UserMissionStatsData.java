@@ -0,0 +1,34 @@
+package com.example.demo.shared.infrastructure.repository.data;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 使用者任務統計持久化物件
+ */
+@Data
+@Table("user_mission_stats")
+public class UserMissionStatsData {
+
+    @Id
+    private Long id;
+
+    private Long userId;
+
+    private Integer launchedGamesCount;
+
+    private Integer playCount;
+
+    private Integer totalScore;
+
+    private LocalDateTime seededUntil;
+
+    private LocalDateTime lastEventAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
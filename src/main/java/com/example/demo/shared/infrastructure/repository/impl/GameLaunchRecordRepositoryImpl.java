@@ -6,8 +6,12 @@ import com.example.demo.shared.infrastructure.repository.mapper.GameLaunchRecord
 import com.example.demo.shared.infrastructure.repository.r2dbc.GameLaunchRecordR2dbcRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 @RequiredArgsConstructor
 public class GameLaunchRecordRepositoryImpl implements GameLaunchRecordRepository {
@@ -29,7 +33,23 @@ public class GameLaunchRecordRepositoryImpl implements GameLaunchRecordRepositor
     }
 
     @Override
-    public Mono<Boolean> existsByUserIdAndGameId(Long userId, Long gameId) {
-        return r2dbcRepository.existsByUserIdAndGameId(userId, gameId);
+    public Mono<Long> countDistinctGamesLaunchedByUserUntil(Long userId, LocalDateTime until) {
+        return r2dbcRepository.countDistinctGamesLaunchedByUserUntil(userId, until);
+    }
+
+    @Override
+    public Flux<Long> findLaunchedGameIds(Long userId) {
+        return r2dbcRepository.findLaunchedGameIds(userId);
+    }
+
+    @Override
+    public Mono<Boolean> insertIfAbsent(GameLaunchRecord gameLaunchRecord) {
+        return r2dbcRepository.insertIfAbsent(mapper.toData(gameLaunchRecord))
+            .map(inserted -> inserted > 0);
+    }
+
+    @Override
+    public Mono<Long> insertAllIfAbsent(List<GameLaunchRecord> gameLaunchRecords) {
+        return r2dbcRepository.insertAllIfAbsent(gameLaunchRecords.stream().map(mapper::toData).toList());
     }
 }
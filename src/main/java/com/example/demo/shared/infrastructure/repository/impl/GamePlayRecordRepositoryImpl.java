@@ -9,6 +9,9 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 @RequiredArgsConstructor
 public class GamePlayRecordRepositoryImpl implements GamePlayRecordRepository {
@@ -24,6 +27,11 @@ public class GamePlayRecordRepositoryImpl implements GamePlayRecordRepository {
             .map(mapper::toDomain);
     }
 
+    @Override
+    public Mono<Long> insertAll(List<GamePlayRecord> gamePlayRecords) {
+        return r2dbcRepository.insertAll(gamePlayRecords.stream().map(mapper::toData).toList());
+    }
+
     @Override
     public Mono<Long> countByUserId(Long userId) { // 修改
         return r2dbcRepository.countByUserId(userId);
@@ -33,4 +41,14 @@ public class GamePlayRecordRepositoryImpl implements GamePlayRecordRepository {
     public Mono<Integer> sumScoreByUserId(Long userId) {
         return r2dbcRepository.sumScoreByUserId(userId);
     }
+
+    @Override
+    public Mono<Long> countByUserIdUntil(Long userId, LocalDateTime until) {
+        return r2dbcRepository.countByUserIdAndPlayTimeLessThanEqual(userId, until);
+    }
+
+    @Override
+    public Mono<Integer> sumScoreByUserIdUntil(Long userId, LocalDateTime until) {
+        return r2dbcRepository.sumScoreByUserIdUntil(userId, until);
+    }
 }
@@ -9,7 +9,7 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDate;
+import java.util.List;
 
 @Repository
 @RequiredArgsConstructor
@@ -27,12 +27,18 @@ public class LoginRecordRepositoryImpl implements LoginRecordRepository {
     }
 
     @Override
-    public Mono<Boolean> existsByUserIdAndLoginDate(Long userId, LocalDate loginDate) {
-        return r2dbcRepository.existsByUserIdAndLoginDate(userId, loginDate);
+    public Mono<Boolean> insertIfAbsent(LoginRecord loginRecord) {
+        return r2dbcRepository.insertIfAbsent(mapper.toData(loginRecord))
+            .map(inserted -> inserted > 0);
     }
 
     @Override
     public Flux<LoginRecord> findRecentByUserId(Long userId, int limit) {
         return r2dbcRepository.findRecentByUserId(userId, limit).map(mapper::toDomain);
     }
+
+    @Override
+    public Mono<Long> insertAllIfAbsent(List<LoginRecord> loginRecords) {
+        return r2dbcRepository.insertAllIfAbsent(loginRecords.stream().map(mapper::toData).toList());
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.demo.shared.infrastructure.repository.impl;
+
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.repository.MissionCatalogRepository;
+import com.example.demo.shared.infrastructure.repository.mapper.MissionCatalogMapper;
+import com.example.demo.shared.infrastructure.repository.r2dbc.MissionCatalogR2dbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class MissionCatalogRepositoryImpl implements MissionCatalogRepository {
+
+    private final MissionCatalogR2dbcRepository r2dbcRepository;
+    private final MissionCatalogMapper mapper;
+
+    @Override
+    public Flux<MissionDefinition> findAllEnabled() {
+        return r2dbcRepository.findByEnabledTrue().map(mapper::toDomain);
+    }
+
+    @Override
+    public Mono<String> findVersion() {
+        return r2dbcRepository.findVersion();
+    }
+}
@@ -1,21 +1,62 @@
 package com.example.demo.shared.infrastructure.repository.impl;
 
+import com.example.demo.mission.domain.model.MissionDefinition;
 import com.example.demo.mission.domain.model.MissionType;
 import com.example.demo.shared.infrastructure.repository.mapper.MissionPersistenceMapper;
 import com.example.demo.shared.infrastructure.repository.r2dbc.MissionR2dbcRepository;
 import com.example.demo.mission.domain.model.Mission;
 import com.example.demo.mission.domain.repository.MissionRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
 @Repository
-@RequiredArgsConstructor
 public class MissionRepositoryImpl implements MissionRepository {
 
+    private static final Map<Mission.Field, String> FIELD_COLUMNS = new EnumMap<>(Map.of(
+        Mission.Field.CURRENT_PROGRESS, "current_progress",
+        Mission.Field.TARGET_PROGRESS, "target_progress",
+        Mission.Field.IS_COMPLETED, "is_completed",
+        Mission.Field.COMPLETED_AT, "completed_at",
+        Mission.Field.IS_REWARDED, "is_rewarded",
+        Mission.Field.REWARDED_AT, "rewarded_at",
+        Mission.Field.REWARD_POINTS, "reward_points"
+    ));
+
     private final MissionR2dbcRepository r2dbcRepository;
     private final MissionPersistenceMapper mapper;
+    private final Counter writtenCounter;
+    private final Counter skippedCounter;
+
+    public MissionRepositoryImpl(MissionR2dbcRepository r2dbcRepository,
+                                 MissionPersistenceMapper mapper,
+                                 MeterRegistry meterRegistry) {
+        this.r2dbcRepository = r2dbcRepository;
+        this.mapper = mapper;
+        this.writtenCounter = Counter.builder("mission.persistence.writes")
+            .description("批次儲存時實際寫入資料庫的任務數")
+            .tag("result", "written")
+            .register(meterRegistry);
+        this.skippedCounter = Counter.builder("mission.persistence.writes")
+            .description("批次儲存時因無變更而略過的任務數")
+            .tag("result", "skipped")
+            .register(meterRegistry);
+        Gauge.builder("mission.persistence.skipped.ratio", this, MissionRepositoryImpl::skippedRatio)
+            .description("因無變更而略過寫入的任務比例")
+            .register(meterRegistry);
+    }
 
     @Override
     public Mono<Mission> save(Mission mission) {
@@ -25,11 +66,67 @@ public class MissionRepositoryImpl implements MissionRepository {
             .map(mapper::toDomain);
     }
 
+    @Override
+    public Mono<Void> saveAll(List<Mission> missions) {
+        List<Mission> dirty = missions.stream()
+            .filter(mission -> mission.getId() == null || mission.hasChanges())
+            .toList();
+        int skipped = missions.size() - dirty.size();
+        if (skipped > 0) {
+            skippedCounter.increment(skipped);
+            log.debug("略過 {} 筆未變更的任務寫入", skipped);
+        }
+        if (dirty.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return r2dbcRepository.upsertAll(dirty.stream().map(mapper::toData).toList(), updateColumnsOf(dirty))
+            .doOnSuccess(rows -> {
+                writtenCounter.increment(dirty.size());
+                dirty.forEach(Mission::markClean);
+            })
+            .then();
+    }
+
+    /**
+     * 計算批次中需要更新的欄位；若批次包含新任務則更新所有欄位。
+     */
+    private Set<String> updateColumnsOf(List<Mission> missions) {
+        if (missions.stream().anyMatch(mission -> mission.getId() == null)) {
+            return Set.of();
+        }
+        return missions.stream()
+            .flatMap(mission -> mission.changedFields().stream())
+            .map(FIELD_COLUMNS::get)
+            .collect(Collectors.toSet());
+    }
+
+    private double skippedRatio() {
+        double total = writtenCounter.count() + skippedCounter.count();
+        return total == 0 ? 0.0 : skippedCounter.count() / total;
+    }
+
+    @Override
+    public Mono<Long> insertAllIfAbsent(List<Mission> missions) {
+        return r2dbcRepository.insertAllIfAbsent(missions.stream().map(mapper::toData).toList());
+    }
+
+    @Override
+    public Mono<Long> retargetIncomplete(MissionDefinition definition) {
+        return r2dbcRepository.retargetIncomplete(definition.missionType(), definition.targetProgress(),
+            definition.rewardPoints());
+    }
+
     @Override
     public Flux<Mission> findByUserId(Long userId) {
         return r2dbcRepository.findByUserId(userId).map(mapper::toDomain);
     }
 
+    @Override
+    public Flux<Mission> findByUserIdIn(Collection<Long> userIds) {
+        return r2dbcRepository.findByUserIdIn(userIds).map(mapper::toDomain);
+    }
+
     @Override
     public Mono<Mission> findByUserIdAndMissionType(Long userId, MissionType missionType) {
         return r2dbcRepository.findByUserIdAndMissionType(userId, missionType).map(mapper::toDomain);
@@ -46,7 +143,7 @@ public class MissionRepositoryImpl implements MissionRepository {
     }
 
     @Override
-    public Mono<Boolean> areAllMissionsCompleted(Long userId) {
-        return r2dbcRepository.areAllMissionsCompleted(userId);
+    public Mono<Boolean> areAllMissionsCompleted(Long userId, Set<MissionType> missionTypes) {
+        return r2dbcRepository.areAllMissionsCompleted(userId, missionTypes);
     }
 }
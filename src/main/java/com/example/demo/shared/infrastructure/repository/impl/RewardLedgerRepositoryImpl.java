@@ -0,0 +1,35 @@
+package com.example.demo.shared.infrastructure.repository.impl;
+
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.model.RewardType;
+import com.example.demo.mission.domain.repository.RewardLedgerRepository;
+import com.example.demo.shared.infrastructure.repository.r2dbc.MissionR2dbcRepository;
+import com.example.demo.shared.infrastructure.repository.r2dbc.RewardLedgerR2dbcRepository;
+import com.example.demo.shared.infrastructure.repository.r2dbc.UserR2DbcR2dbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class RewardLedgerRepositoryImpl implements RewardLedgerRepository {
+
+    private final RewardLedgerR2dbcRepository r2dbcRepository;
+    private final MissionR2dbcRepository missionR2dbcRepository;
+    private final UserR2DbcR2dbcRepository userR2dbcRepository;
+
+    @Override
+    public Mono<Boolean> claimMissionReward(Long userId, RewardType rewardType, Set<MissionType> missionTypes, int points) {
+        return r2dbcRepository.insertIfEligible(userId, rewardType, missionTypes, points)
+            .flatMap(inserted -> {
+                if (inserted == 0) {
+                    return Mono.just(false);
+                }
+                return missionR2dbcRepository.markCompletedAsRewarded(userId)
+                    .then(userR2dbcRepository.addPoints(userId, points))
+                    .thenReturn(true);
+            });
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.shared.infrastructure.repository.impl;
+
+import com.example.demo.mission.domain.model.MissionProgressDelta;
+import com.example.demo.mission.domain.model.UserMissionStats;
+import com.example.demo.mission.domain.repository.UserMissionStatsRepository;
+import com.example.demo.shared.infrastructure.repository.mapper.UserMissionStatsMapper;
+import com.example.demo.shared.infrastructure.repository.r2dbc.UserMissionStatsR2dbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class UserMissionStatsRepositoryImpl implements UserMissionStatsRepository {
+
+    private final UserMissionStatsR2dbcRepository r2dbcRepository;
+    private final UserMissionStatsMapper mapper;
+
+    @Override
+    public Mono<UserMissionStats> save(UserMissionStats stats) {
+        return Mono.just(stats)
+            .map(mapper::toData)
+            .flatMap(r2dbcRepository::save)
+            .map(mapper::toDomain);
+    }
+
+    @Override
+    public Mono<UserMissionStats> findByUserId(Long userId) {
+        return r2dbcRepository.findByUserId(userId).map(mapper::toDomain);
+    }
+
+    @Override
+    public Mono<Boolean> incrementAfterSeed(Long userId, MissionProgressDelta delta) {
+        return r2dbcRepository.incrementAfterSeed(userId, delta.launchedGames(), delta.plays(), delta.score(),
+                delta.firstEventAt(), delta.lastEventAt())
+            .map(updated -> updated > 0);
+    }
+
+    @Override
+    public Mono<Boolean> reseed(UserMissionStats stats) {
+        return r2dbcRepository.reseed(mapper.toData(stats))
+            .map(updated -> updated > 0);
+    }
+}
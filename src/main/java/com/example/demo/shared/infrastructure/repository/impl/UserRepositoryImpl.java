@@ -8,6 +8,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 /**
  * UserRepository 的基礎設施層實作。
  */
@@ -36,6 +38,23 @@ public class UserRepositoryImpl implements UserRepository {
             .map(mapper::toDomain);
     }
 
+    @Override
+    public Mono<User> createIfAbsent(User user) {
+        return r2dbcRepository.insertIfAbsent(mapper.toData(user))
+            .then(r2dbcRepository.findByUsernameForShare(user.getUsername()))
+            .map(mapper::toDomain);
+    }
+
+    @Override
+    public Mono<Void> recordLoginStreak(Long userId, LocalDate loginDate) {
+        return r2dbcRepository.recordLoginStreak(userId, loginDate).then();
+    }
+
+    @Override
+    public Mono<Void> initializeLoginStreak(Long userId, LocalDate lastLoginDate, int currentStreak) {
+        return r2dbcRepository.initializeLoginStreak(userId, lastLoginDate, currentStreak).then();
+    }
+
     @Override
     public Mono<Void> addPoints(Long userId, int pointsToAdd) {
         return r2dbcRepository.addPoints(userId, pointsToAdd).then();
@@ -0,0 +1,11 @@
+package com.example.demo.shared.infrastructure.repository.mapper;
+
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.shared.infrastructure.repository.data.MissionCatalogData;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface MissionCatalogMapper {
+
+    MissionDefinition toDomain(MissionCatalogData data);
+}
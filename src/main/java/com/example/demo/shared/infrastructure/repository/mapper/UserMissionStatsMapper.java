@@ -0,0 +1,13 @@
+package com.example.demo.shared.infrastructure.repository.mapper;
+
+import com.example.demo.mission.domain.model.UserMissionStats;
+import com.example.demo.shared.infrastructure.repository.data.UserMissionStatsData;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface UserMissionStatsMapper {
+
+    UserMissionStats toDomain(UserMissionStatsData data);
+
+    UserMissionStatsData toData(UserMissionStats domain);
+}
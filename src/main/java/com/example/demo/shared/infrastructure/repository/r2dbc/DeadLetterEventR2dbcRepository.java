@@ -0,0 +1,20 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc;
+
+import com.example.demo.shared.infrastructure.repository.data.DeadLetterEventData;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface DeadLetterEventR2dbcRepository extends R2dbcRepository<DeadLetterEventData, Long> {
+
+    /**
+     * 依寫入順序查詢最早的死信事件。
+     *
+     * @param limit 最多筆數
+     * @return 死信事件的 Flux<DeadLetterEventData>
+     */
+    @Query("SELECT * FROM event_dead_letter ORDER BY id LIMIT :limit")
+    Flux<DeadLetterEventData> findOldest(int limit);
+}
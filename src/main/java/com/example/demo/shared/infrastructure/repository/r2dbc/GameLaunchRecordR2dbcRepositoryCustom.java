@@ -1,7 +1,12 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc;
 
+import com.example.demo.shared.infrastructure.repository.data.GameLaunchRecordData;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface GameLaunchRecordR2dbcRepositoryCustom {
 
     /**
@@ -11,4 +16,37 @@ public interface GameLaunchRecordR2dbcRepositoryCustom {
      * @return 包含不同遊戲數量的 Mono<Long>
      */
     Mono<Long> countDistinctGamesLaunchedByUser(Long userId);
+
+    /**
+     * 計算使用者在指定時間（含）之前啟動過的不同遊戲的數量。
+     *
+     * @param userId 使用者ID
+     * @param until  啟動時間上限
+     * @return 包含不同遊戲數量的 Mono<Long>
+     */
+    Mono<Long> countDistinctGamesLaunchedByUserUntil(Long userId, LocalDateTime until);
+
+    /**
+     * 查詢使用者啟動過的所有遊戲ID。
+     *
+     * @param userId 使用者ID
+     * @return 不重複遊戲ID的 Flux<Long>
+     */
+    Flux<Long> findLaunchedGameIds(Long userId);
+
+    /**
+     * 新增遊戲啟動記錄，違反 uk_user_game 的重複啟動會被略過，其他寫入錯誤照常失敗。
+     *
+     * @param gameLaunchRecord 要新增的遊戲啟動記錄
+     * @return 包含實際新增行數的 Mono<Long>
+     */
+    Mono<Long> insertIfAbsent(GameLaunchRecordData gameLaunchRecord);
+
+    /**
+     * 以多列 INSERT ... ON DUPLICATE KEY UPDATE 語句分批新增多筆遊戲啟動記錄，依 uk_user_game 略過重複的啟動。
+     *
+     * @param gameLaunchRecords 要新增的遊戲啟動記錄
+     * @return 包含受影響行數的 Mono<Long>，略過的重複列也會計入
+     */
+    Mono<Long> insertAllIfAbsent(List<GameLaunchRecordData> gameLaunchRecords);
 }
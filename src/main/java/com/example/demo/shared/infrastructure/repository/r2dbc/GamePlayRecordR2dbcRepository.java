@@ -6,6 +6,8 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface GamePlayRecordR2dbcRepository extends R2dbcRepository<GamePlayRecordData, Long>, GamePlayRecordR2dbcRepositoryCustom {
 
@@ -19,4 +21,13 @@ public interface GamePlayRecordR2dbcRepository extends R2dbcRepository<GamePlayR
      */
     Mono<Long> countByUserId(Long userId);
 
+    /**
+     * 使用衍生查詢計算使用者在指定時間（含）之前的遊玩記錄總數。
+     *
+     * @param userId   使用者ID
+     * @param playTime 遊玩時間上限
+     * @return 包含遊玩記錄總數的 Mono<Long>
+     */
+    Mono<Long> countByUserIdAndPlayTimeLessThanEqual(Long userId, LocalDateTime playTime);
+
 }
@@ -1,7 +1,11 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc;
 
+import com.example.demo.shared.infrastructure.repository.data.GamePlayRecordData;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface GamePlayRecordR2dbcRepositoryCustom {
 
     /**
@@ -11,4 +15,21 @@ public interface GamePlayRecordR2dbcRepositoryCustom {
      * @return 包含總分數的 Mono<Integer>
      */
     Mono<Integer> sumScoreByUserId(Long userId);
+
+    /**
+     * 計算使用者在指定時間（含）之前的總分數。
+     *
+     * @param userId 使用者ID
+     * @param until  遊玩時間上限
+     * @return 包含總分數的 Mono<Integer>
+     */
+    Mono<Integer> sumScoreByUserIdUntil(Long userId, LocalDateTime until);
+
+    /**
+     * 以多列 INSERT 語句分批新增多筆遊戲遊玩記錄，每個語句的筆數上限由 app.persistence.batch-size 設定。
+     *
+     * @param gamePlayRecords 要新增的遊戲遊玩記錄
+     * @return 包含實際新增行數的 Mono<Long>
+     */
+    Mono<Long> insertAll(List<GamePlayRecordData> gamePlayRecords);
 }
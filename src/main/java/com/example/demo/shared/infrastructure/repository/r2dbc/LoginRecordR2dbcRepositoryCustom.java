@@ -2,6 +2,9 @@ package com.example.demo.shared.infrastructure.repository.r2dbc;
 
 import com.example.demo.shared.infrastructure.repository.data.LoginRecordData;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 public interface LoginRecordR2dbcRepositoryCustom {
 
@@ -13,4 +16,20 @@ public interface LoginRecordR2dbcRepositoryCustom {
      * @return 包含最近登入記錄的 Flux<LoginRecordData>
      */
     Flux<LoginRecordData> findRecentByUserId(Long userId, int limit);
+
+    /**
+     * 新增登入記錄，違反 uk_user_login_date 的同一天重複登入會被略過，其他寫入錯誤照常失敗。
+     *
+     * @param loginRecord 要新增的登入記錄
+     * @return 包含實際新增行數的 Mono<Long>
+     */
+    Mono<Long> insertIfAbsent(LoginRecordData loginRecord);
+
+    /**
+     * 以多列 INSERT ... ON DUPLICATE KEY UPDATE 語句分批新增多筆登入記錄，依 uk_user_login_date 略過同一天的重複登入。
+     *
+     * @param loginRecords 要新增的登入記錄
+     * @return 包含受影響行數的 Mono<Long>，略過的重複列也會計入
+     */
+    Mono<Long> insertAllIfAbsent(List<LoginRecordData> loginRecords);
 }
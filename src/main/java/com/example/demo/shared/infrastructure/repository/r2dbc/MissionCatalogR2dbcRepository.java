@@ -0,0 +1,17 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc;
+
+import com.example.demo.shared.infrastructure.repository.data.MissionCatalogData;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface MissionCatalogR2dbcRepository extends R2dbcRepository<MissionCatalogData, Long> {
+
+    Flux<MissionCatalogData> findByEnabledTrue();
+
+    @Query("SELECT CONCAT(COUNT(*), '@', COALESCE(MAX(updated_at), '')) FROM mission_catalog")
+    Mono<String> findVersion();
+}
@@ -7,11 +7,15 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @Repository
 public interface MissionR2dbcRepository extends R2dbcRepository<MissionData, Long>, MissionR2dbcRepositoryCustom {
 
     Flux<MissionData> findByUserId(Long userId);
 
+    Flux<MissionData> findByUserIdIn(Collection<Long> userIds);
+
     Mono<MissionData> findByUserIdAndMissionType(Long userId, MissionType missionType);
 
     Mono<Boolean> existsByUserIdAndMissionType(Long userId, MissionType missionType);
@@ -1,9 +1,13 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc;
 
+import com.example.demo.mission.domain.model.MissionType;
 import com.example.demo.shared.infrastructure.repository.data.MissionData;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Set;
+
 public interface MissionR2dbcRepositoryCustom {
 
     /**
@@ -15,10 +19,46 @@ public interface MissionR2dbcRepositoryCustom {
     Flux<MissionData> findUnrewardedCompletedMissions(Long userId);
 
     /**
-     * 檢查使用者是否已完成所有任務。
+     * 檢查使用者是否已完成所有指定類型的任務。
      *
-     * @param userId 使用者ID
+     * @param userId       使用者ID
+     * @param missionTypes 要檢查的任務類型
      * @return 如果所有任務都已完成，則返回 Mono<Boolean> of true
      */
-    Mono<Boolean> areAllMissionsCompleted(Long userId);
+    Mono<Boolean> areAllMissionsCompleted(Long userId, Set<MissionType> missionTypes);
+
+    /**
+     * 將使用者所有已完成但尚未領取獎勵的任務標記為已領取。
+     *
+     * @param userId 使用者ID
+     * @return 包含受影響行數的 Mono<Long>
+     */
+    Mono<Long> markCompletedAsRewarded(Long userId);
+
+    /**
+     * 將所有尚未完成的指定類型任務的目標進度與獎勵點數更新為新的值，值已相同的任務不會被更新。
+     *
+     * @param missionType    任務類型
+     * @param targetProgress 新的目標進度
+     * @param rewardPoints   新的獎勵點數
+     * @return 包含受影響行數的 Mono<Long>
+     */
+    Mono<Long> retargetIncomplete(MissionType missionType, int targetProgress, int rewardPoints);
+
+    /**
+     * 以單一多列 INSERT ... ON DUPLICATE KEY UPDATE 語句新增或更新多筆任務。
+     *
+     * @param missions      要寫入的任務持久化物件
+     * @param updateColumns 發生主鍵衝突時要更新的欄位，為空時更新所有可變欄位；updated_at 一律會被更新
+     * @return 包含受影響行數的 Mono<Long>
+     */
+    Mono<Long> upsertAll(List<MissionData> missions, Set<String> updateColumns);
+
+    /**
+     * 以單一多列 INSERT ... ON DUPLICATE KEY UPDATE 語句新增多筆任務，已存在的 (使用者ID, 任務類型) 會被略過。
+     *
+     * @param missions 要新增的任務持久化物件
+     * @return 包含受影響行數的 Mono<Long>，略過的重複列也會計入
+     */
+    Mono<Long> insertAllIfAbsent(List<MissionData> missions);
 }
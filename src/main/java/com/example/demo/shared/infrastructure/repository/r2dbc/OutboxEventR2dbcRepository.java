@@ -0,0 +1,29 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc;
+
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OutboxEventR2dbcRepository extends R2dbcRepository<OutboxEventData, Long>, OutboxEventR2dbcRepositoryCustom {
+
+    /**
+     * 依寫入順序查詢最早可取得的待發布事件。
+     * 租約未到期的事件不會被查出；分片鍵相同的事件中有任一筆租約未到期時，該分片鍵的事件都不會被查出，
+     * 避免其他節點在前面的事件發送完成前先發送後面的事件。
+     *
+     * @param now   目前時間
+     * @param limit 最多筆數
+     * @return 待發布事件的 Flux<OutboxEventData>
+     */
+    @Query("SELECT * FROM event_outbox "
+        + "WHERE (claimed_until IS NULL OR claimed_until < :now) "
+        + "AND (sharding_key IS NULL OR sharding_key NOT IN ("
+        + "SELECT sharding_key FROM event_outbox WHERE claimed_until >= :now AND sharding_key IS NOT NULL)) "
+        + "ORDER BY id LIMIT :limit")
+    Flux<OutboxEventData> findClaimable(LocalDateTime now, int limit);
+}
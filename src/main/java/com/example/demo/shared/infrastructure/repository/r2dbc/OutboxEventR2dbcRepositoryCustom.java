@@ -0,0 +1,49 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc;
+
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventR2dbcRepositoryCustom {
+
+    /**
+     * 以多列 INSERT 語句分批新增多筆待發布事件，每個語句的筆數上限由 app.persistence.batch-size 設定。
+     * 在交易中呼叫時會隨交易一起提交或回滾。
+     *
+     * @param outboxEvents 要新增的待發布事件
+     * @return 包含實際新增行數的 Mono<Long>
+     */
+    Mono<Long> insertAll(List<OutboxEventData> outboxEvents);
+
+    /**
+     * 以單一 UPDATE 語句取得尚未被取得或租約已到期的事件，並設定租約到期時間。
+     * 多個節點同時取得同一筆事件時只有一個節點會成功。
+     *
+     * @param ids          要取得的事件ID
+     * @param claimToken   本次轉發批次的識別碼
+     * @param now          目前時間
+     * @param claimedUntil 租約到期時間
+     * @return 包含實際取得筆數的 Mono<Long>
+     */
+    Mono<Long> claim(List<Long> ids, String claimToken, LocalDateTime now, LocalDateTime claimedUntil);
+
+    /**
+     * 查詢指定轉發批次取得的事件ID。
+     *
+     * @param claimToken 轉發批次的識別碼
+     * @return 事件ID的 Flux<Long>
+     */
+    Flux<Long> findClaimedIds(String claimToken);
+
+    /**
+     * 釋放指定轉發批次取得但未發送的事件，讓下次轉發可以立即重新取得。
+     *
+     * @param ids        要釋放的事件ID
+     * @param claimToken 轉發批次的識別碼
+     * @return 包含實際釋放筆數的 Mono<Long>
+     */
+    Mono<Long> release(List<Long> ids, String claimToken);
+}
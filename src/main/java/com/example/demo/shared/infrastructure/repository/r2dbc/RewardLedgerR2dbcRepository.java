@@ -0,0 +1,12 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc;
+
+import com.example.demo.shared.infrastructure.repository.data.RewardLedgerData;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface RewardLedgerR2dbcRepository extends R2dbcRepository<RewardLedgerData, Long>, RewardLedgerR2dbcRepositoryCustom {
+
+    Flux<RewardLedgerData> findByUserId(Long userId);
+}
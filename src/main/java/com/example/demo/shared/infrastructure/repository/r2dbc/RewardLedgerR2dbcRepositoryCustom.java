@@ -0,0 +1,22 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc;
+
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.model.RewardType;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+public interface RewardLedgerR2dbcRepositoryCustom {
+
+    /**
+     * 當使用者已完成所有指定任務時，寫入一筆獎勵帳本記錄。
+     * 以 INSERT ... SELECT ... HAVING 單一語句判斷資格，重複領取違反唯一鍵時視為未寫入，其他寫入錯誤照常失敗。
+     *
+     * @param userId       使用者ID
+     * @param rewardType   獎勵類型
+     * @param missionTypes 需全部完成的任務類型
+     * @param points       獎勵點數
+     * @return 包含受影響行數的 Mono<Long>，1 表示本次成功領取
+     */
+    Mono<Long> insertIfEligible(Long userId, RewardType rewardType, Set<MissionType> missionTypes, int points);
+}
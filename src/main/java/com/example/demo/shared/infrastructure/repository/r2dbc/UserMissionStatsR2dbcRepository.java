@@ -0,0 +1,12 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc;
+
+import com.example.demo.shared.infrastructure.repository.data.UserMissionStatsData;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface UserMissionStatsR2dbcRepository extends R2dbcRepository<UserMissionStatsData, Long>, UserMissionStatsR2dbcRepositoryCustom {
+
+    Mono<UserMissionStatsData> findByUserId(Long userId);
+}
@@ -0,0 +1,31 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc;
+
+import com.example.demo.shared.infrastructure.repository.data.UserMissionStatsData;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface UserMissionStatsR2dbcRepositoryCustom {
+
+    /**
+     * 以單一 UPDATE 語句原子性地累加計數器，只有增量中的記錄都晚於起始值的建立時間點時才更新。
+     *
+     * @param userId        使用者ID
+     * @param launchedGames 啟動遊戲數的增量
+     * @param plays         遊玩次數的增量
+     * @param score         遊玩分數的增量
+     * @param firstEventAt  增量中最早的記錄時間
+     * @param lastEventAt   增量中最晚的記錄時間
+     * @return 包含受影響行數的 Mono<Long>
+     */
+    Mono<Long> incrementAfterSeed(Long userId, int launchedGames, int plays, int score,
+                                  LocalDateTime firstEventAt, LocalDateTime lastEventAt);
+
+    /**
+     * 以新的起始值覆寫計數器，只有沒有晚於新建立時間點的增量已被套用時才更新。
+     *
+     * @param stats 以歷史記錄彙總出的統計資料，seededUntil 為新的建立時間點
+     * @return 包含受影響行數的 Mono<Long>
+     */
+    Mono<Long> reseed(UserMissionStatsData stats);
+}
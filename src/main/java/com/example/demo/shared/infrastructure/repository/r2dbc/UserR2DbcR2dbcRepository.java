@@ -1,6 +1,7 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc;
 
 import com.example.demo.shared.infrastructure.repository.data.UserData;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
@@ -9,4 +10,10 @@ import reactor.core.publisher.Mono;
 public interface UserR2DbcR2dbcRepository extends R2dbcRepository<UserData, Long>, UserR2dbcRepositoryCustom {
 
     Mono<UserData> findByUsername(String username);
+
+    /**
+     * 以鎖定讀取查詢使用者，可讀到其他交易剛提交的資料，不受目前交易快照影響。
+     */
+    @Query("SELECT * FROM users WHERE username = :username FOR SHARE")
+    Mono<UserData> findByUsernameForShare(String username);
 }
@@ -1,7 +1,10 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc;
 
+import com.example.demo.shared.infrastructure.repository.data.UserData;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 public interface UserR2dbcRepositoryCustom {
 
     /**
@@ -13,4 +16,31 @@ public interface UserR2dbcRepositoryCustom {
      */
     Mono<Long> addPoints(Long userId, int pointsToAdd);
 
+    /**
+     * 原子性地更新使用者的連續登入狀態。
+     *
+     * @param userId    使用者ID
+     * @param loginDate 登入日期
+     * @return 包含受影響行數的 Mono<Long>
+     */
+    Mono<Long> recordLoginStreak(Long userId, LocalDate loginDate);
+
+    /**
+     * 在使用者尚無最近登入日期時寫入初始的連續登入狀態。
+     *
+     * @param userId        使用者ID
+     * @param lastLoginDate 最近一次登入日期
+     * @param currentStreak 截至最近一次登入的連續登入天數
+     * @return 包含受影響行數的 Mono<Long>
+     */
+    Mono<Long> initializeLoginStreak(Long userId, LocalDate lastLoginDate, int currentStreak);
+
+    /**
+     * 新增使用者，使用者名稱已存在時略過，其他寫入錯誤照常失敗。
+     *
+     * @param user 要新增的使用者
+     * @return 包含實際新增行數的 Mono<Long>
+     */
+    Mono<Long> insertIfAbsent(UserData user);
+
 }
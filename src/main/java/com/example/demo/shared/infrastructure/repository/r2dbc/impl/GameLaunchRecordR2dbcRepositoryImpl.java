@@ -1,16 +1,29 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
 
+import com.example.demo.shared.infrastructure.repository.data.GameLaunchRecordData;
 import com.example.demo.shared.infrastructure.repository.r2dbc.GameLaunchRecordR2dbcRepositoryCustom;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 @RequiredArgsConstructor
 public class GameLaunchRecordR2dbcRepositoryImpl implements GameLaunchRecordR2dbcRepositoryCustom {
 
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO game_launch_record (user_id, game_id, launch_time, created_at) "
+        + "VALUES (:userId, :gameId, :launchTime, :createdAt)";
+
+    private static final String INSERT_CLAUSE = "INSERT INTO game_launch_record (user_id, game_id, launch_time, created_at)";
+    private static final List<String> INSERT_PARAMETERS = List.of("userId", "gameId", "launchTime", "createdAt");
+
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final MultiRowInsert multiRowInsert;
 
     @Override
     public Mono<Long> countDistinctGamesLaunchedByUser(Long userId) {
@@ -21,4 +34,48 @@ public class GameLaunchRecordR2dbcRepositoryImpl implements GameLaunchRecordR2db
             .one()
             .defaultIfEmpty(0L);
     }
+
+    @Override
+    public Mono<Long> countDistinctGamesLaunchedByUserUntil(Long userId, LocalDateTime until) {
+        return r2dbcEntityTemplate.getDatabaseClient()
+            .sql("SELECT COUNT(DISTINCT game_id) FROM game_launch_record WHERE user_id = :userId AND launch_time <= :until")
+            .bind("userId", userId)
+            .bind("until", until)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .defaultIfEmpty(0L);
+    }
+
+    @Override
+    public Flux<Long> findLaunchedGameIds(Long userId) {
+        return r2dbcEntityTemplate.getDatabaseClient()
+            .sql("SELECT DISTINCT game_id FROM game_launch_record WHERE user_id = :userId")
+            .bind("userId", userId)
+            .map(row -> row.get(0, Long.class))
+            .all();
+    }
+
+    @Override
+    public Mono<Long> insertIfAbsent(GameLaunchRecordData gameLaunchRecord) {
+        return r2dbcEntityTemplate.getDatabaseClient()
+            .sql(INSERT_IF_ABSENT_SQL)
+            .bind("userId", gameLaunchRecord.getUserId())
+            .bind("gameId", gameLaunchRecord.getGameId())
+            .bind("launchTime", gameLaunchRecord.getLaunchTime())
+            .bind("createdAt", gameLaunchRecord.getCreatedAt())
+            .fetch()
+            .rowsUpdated()
+            .onErrorResume(DuplicateKeyException.class, e -> Mono.just(0L));
+    }
+
+    @Override
+    public Mono<Long> insertAllIfAbsent(List<GameLaunchRecordData> gameLaunchRecords) {
+        return multiRowInsert.execute(r2dbcEntityTemplate.getDatabaseClient(), INSERT_CLAUSE, INSERT_PARAMETERS,
+            MultiRowInsert.SKIP_DUPLICATES,
+            gameLaunchRecords,
+            (spec, record) -> spec.bind("userId", record.getUserId(), Long.class)
+                .bind("gameId", record.getGameId(), Long.class)
+                .bind("launchTime", record.getLaunchTime(), LocalDateTime.class)
+                .bind("createdAt", record.getCreatedAt(), LocalDateTime.class));
+    }
 }
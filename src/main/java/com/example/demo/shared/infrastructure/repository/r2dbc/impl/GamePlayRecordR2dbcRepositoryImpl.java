@@ -1,16 +1,24 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
 
+import com.example.demo.shared.infrastructure.repository.data.GamePlayRecordData;
 import com.example.demo.shared.infrastructure.repository.r2dbc.GamePlayRecordR2dbcRepositoryCustom;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 @RequiredArgsConstructor
 public class GamePlayRecordR2dbcRepositoryImpl implements GamePlayRecordR2dbcRepositoryCustom {
 
+    private static final String INSERT_CLAUSE = "INSERT INTO games_play_record (user_id, game_id, score, play_duration, play_time, created_at)";
+    private static final List<String> INSERT_PARAMETERS = List.of("userId", "gameId", "score", "playDuration", "playTime", "createdAt");
+
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final MultiRowInsert multiRowInsert;
 
     @Override
     public Mono<Integer> sumScoreByUserId(Long userId) {
@@ -21,4 +29,27 @@ public class GamePlayRecordR2dbcRepositoryImpl implements GamePlayRecordR2dbcRep
             .one()
             .defaultIfEmpty(0);
     }
+
+    @Override
+    public Mono<Integer> sumScoreByUserIdUntil(Long userId, LocalDateTime until) {
+        return r2dbcEntityTemplate.getDatabaseClient()
+            .sql("SELECT COALESCE(SUM(score), 0) FROM games_play_record WHERE user_id = :userId AND play_time <= :until")
+            .bind("userId", userId)
+            .bind("until", until)
+            .map(row -> row.get(0, Integer.class))
+            .one()
+            .defaultIfEmpty(0);
+    }
+
+    @Override
+    public Mono<Long> insertAll(List<GamePlayRecordData> gamePlayRecords) {
+        return multiRowInsert.execute(r2dbcEntityTemplate.getDatabaseClient(), INSERT_CLAUSE, INSERT_PARAMETERS, "",
+            gamePlayRecords,
+            (spec, record) -> spec.bind("userId", record.getUserId(), Long.class)
+                .bind("gameId", record.getGameId(), Long.class)
+                .bind("score", record.getScore(), Integer.class)
+                .bind("playDuration", record.getPlayDuration(), Integer.class)
+                .bind("playTime", record.getPlayTime(), LocalDateTime.class)
+                .bind("createdAt", record.getCreatedAt(), LocalDateTime.class));
+    }
 }
@@ -3,11 +3,17 @@ package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
 import com.example.demo.shared.infrastructure.repository.data.LoginRecordData;
 import com.example.demo.shared.infrastructure.repository.r2dbc.LoginRecordR2dbcRepositoryCustom;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
 
@@ -15,7 +21,14 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 @RequiredArgsConstructor
 public class LoginRecordR2dbcRepositoryImpl implements LoginRecordR2dbcRepositoryCustom {
 
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO login_record (user_id, login_date, login_time, created_at) "
+        + "VALUES (:userId, :loginDate, :loginTime, :createdAt)";
+
+    private static final String INSERT_CLAUSE = "INSERT INTO login_record (user_id, login_date, login_time, created_at)";
+    private static final List<String> INSERT_PARAMETERS = List.of("userId", "loginDate", "loginTime", "createdAt");
+
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final MultiRowInsert multiRowInsert;
 
     @Override
     public Flux<LoginRecordData> findRecentByUserId(Long userId, int limit) {
@@ -27,4 +40,28 @@ public class LoginRecordR2dbcRepositoryImpl implements LoginRecordR2dbcRepositor
             .matching(query)
             .all();
     }
+
+    @Override
+    public Mono<Long> insertIfAbsent(LoginRecordData loginRecord) {
+        return r2dbcEntityTemplate.getDatabaseClient()
+            .sql(INSERT_IF_ABSENT_SQL)
+            .bind("userId", loginRecord.getUserId())
+            .bind("loginDate", loginRecord.getLoginDate())
+            .bind("loginTime", loginRecord.getLoginTime())
+            .bind("createdAt", loginRecord.getCreatedAt())
+            .fetch()
+            .rowsUpdated()
+            .onErrorResume(DuplicateKeyException.class, e -> Mono.just(0L));
+    }
+
+    @Override
+    public Mono<Long> insertAllIfAbsent(List<LoginRecordData> loginRecords) {
+        return multiRowInsert.execute(r2dbcEntityTemplate.getDatabaseClient(), INSERT_CLAUSE, INSERT_PARAMETERS,
+            MultiRowInsert.SKIP_DUPLICATES,
+            loginRecords,
+            (spec, record) -> spec.bind("userId", record.getUserId(), Long.class)
+                .bind("loginDate", record.getLoginDate(), LocalDate.class)
+                .bind("loginTime", record.getLoginTime(), LocalDateTime.class)
+                .bind("createdAt", record.getCreatedAt(), LocalDateTime.class));
+    }
 }
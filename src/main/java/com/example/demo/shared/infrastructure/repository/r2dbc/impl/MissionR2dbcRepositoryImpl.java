@@ -1,5 +1,6 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
 
+import com.example.demo.mission.domain.model.MissionType;
 import com.example.demo.shared.infrastructure.repository.data.MissionData;
 import com.example.demo.shared.infrastructure.repository.r2dbc.MissionR2dbcRepositoryCustom;
 import lombok.RequiredArgsConstructor;
@@ -9,13 +10,26 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
 import static org.springframework.data.relational.core.query.Criteria.where;
 
 @Repository
 @RequiredArgsConstructor
 public class MissionR2dbcRepositoryImpl implements MissionR2dbcRepositoryCustom {
 
+    private static final String UPSERT_COLUMNS = "id, user_id, mission_type, current_progress, target_progress, is_completed, "
+        + "completed_at, is_rewarded, rewarded_at, reward_points, created_at, updated_at";
+    private static final List<String> INSERT_PARAMETERS = List.of("id", "userId", "missionType", "currentProgress",
+        "targetProgress", "isCompleted", "completedAt", "isRewarded", "rewardedAt", "rewardPoints", "createdAt", "updatedAt");
+    private static final List<String> UPDATABLE_COLUMNS = List.of("current_progress", "target_progress",
+        "is_completed", "completed_at", "is_rewarded", "rewarded_at", "reward_points");
+
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final MultiRowInsert multiRowInsert;
 
     @Override
     public Flux<MissionData> findUnrewardedCompletedMissions(Long userId) {
@@ -30,12 +44,86 @@ public class MissionR2dbcRepositoryImpl implements MissionR2dbcRepositoryCustom
     }
 
     @Override
-    public Mono<Boolean> areAllMissionsCompleted(Long userId) {
+    public Mono<Boolean> areAllMissionsCompleted(Long userId, Set<MissionType> missionTypes) {
+        if (missionTypes.isEmpty()) {
+            return Mono.just(false);
+        }
         Query query = Query.query(
             where("user_id").is(userId)
                 .and("is_completed").is(true)
+                .and("mission_type").in(missionTypes.stream().map(Enum::name).toList())
         );
         return r2dbcEntityTemplate.count(query, MissionData.class)
-            .map(count -> count == 3);
+            .map(count -> count == missionTypes.size());
+    }
+
+    @Override
+    public Mono<Long> markCompletedAsRewarded(Long userId) {
+        return r2dbcEntityTemplate.getDatabaseClient()
+            .sql("UPDATE missions SET is_rewarded = TRUE, rewarded_at = NOW(), updated_at = NOW() "
+                + "WHERE user_id = :userId AND is_completed = TRUE AND is_rewarded = FALSE")
+            .bind("userId", userId)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Long> retargetIncomplete(MissionType missionType, int targetProgress, int rewardPoints) {
+        return r2dbcEntityTemplate.getDatabaseClient()
+            .sql("UPDATE missions SET target_progress = :targetProgress, reward_points = :rewardPoints, updated_at = NOW() "
+                + "WHERE mission_type = :missionType AND is_completed = FALSE "
+                + "AND (target_progress <> :targetProgress OR reward_points <> :rewardPoints)")
+            .bind("missionType", missionType.name())
+            .bind("targetProgress", targetProgress)
+            .bind("rewardPoints", rewardPoints)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Long> upsertAll(List<MissionData> missions, Set<String> updateColumns) {
+        if (missions.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        StringJoiner updates = new StringJoiner(", ", " ON DUPLICATE KEY UPDATE ", "");
+        UPDATABLE_COLUMNS.stream()
+            .filter(column -> updateColumns.isEmpty() || updateColumns.contains(column))
+            .forEach(column -> updates.add(column + " = VALUES(" + column + ")"));
+        updates.add("updated_at = VALUES(updated_at)");
+        return executeMultiRowInsert("INSERT INTO", missions, updates.toString());
+    }
+
+    @Override
+    public Mono<Long> insertAllIfAbsent(List<MissionData> missions) {
+        if (missions.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return executeMultiRowInsert("INSERT INTO", missions, MultiRowInsert.SKIP_DUPLICATES);
+    }
+
+    /**
+     * 以多列 INSERT 語句分批寫入多筆任務。
+     *
+     * @param insertClause INSERT 關鍵字 (例如 INSERT INTO)
+     * @param missions     要寫入的任務
+     * @param suffix       附加在 VALUES 之後的子句
+     * @return 包含受影響行數的 Mono<Long>
+     */
+    private Mono<Long> executeMultiRowInsert(String insertClause, List<MissionData> missions, String suffix) {
+        return multiRowInsert.execute(r2dbcEntityTemplate.getDatabaseClient(),
+            insertClause + " missions (" + UPSERT_COLUMNS + ")", INSERT_PARAMETERS, suffix, missions,
+            (spec, mission) -> spec.bind("id", mission.getId(), Long.class)
+                .bind("userId", mission.getUserId(), Long.class)
+                .bind("missionType", mission.getMissionType().name(), String.class)
+                .bind("currentProgress", mission.getCurrentProgress(), Integer.class)
+                .bind("targetProgress", mission.getTargetProgress(), Integer.class)
+                .bind("isCompleted", mission.getIsCompleted(), Boolean.class)
+                .bind("completedAt", mission.getCompletedAt(), LocalDateTime.class)
+                .bind("isRewarded", mission.getIsRewarded(), Boolean.class)
+                .bind("rewardedAt", mission.getRewardedAt(), LocalDateTime.class)
+                .bind("rewardPoints", mission.getRewardPoints(), Integer.class)
+                .bind("createdAt", mission.getCreatedAt(), LocalDateTime.class)
+                .bind("updatedAt", mission.getUpdatedAt(), LocalDateTime.class));
     }
 }
@@ -0,0 +1,72 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
+
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.OutboxEventR2dbcRepositoryCustom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class OutboxEventR2dbcRepositoryImpl implements OutboxEventR2dbcRepositoryCustom {
+
+    private static final String INSERT_CLAUSE = "INSERT INTO event_outbox (topic, sharding_key, event_id, format, payload, created_at)";
+    private static final List<String> INSERT_PARAMETERS = List.of("topic", "shardingKey", "eventId", "format", "payload", "createdAt");
+
+    private static final String CLAIM_SQL = "UPDATE event_outbox SET claim_token = :claimToken, claimed_until = :claimedUntil "
+        + "WHERE id IN (:ids) AND (claimed_until IS NULL OR claimed_until < :now)";
+
+    private static final String RELEASE_SQL = "UPDATE event_outbox SET claim_token = NULL, claimed_until = NULL "
+        + "WHERE id IN (:ids) AND claim_token = :claimToken";
+
+    private final DatabaseClient databaseClient;
+    private final MultiRowInsert multiRowInsert;
+
+    @Override
+    public Mono<Long> insertAll(List<OutboxEventData> outboxEvents) {
+        return multiRowInsert.execute(databaseClient, INSERT_CLAUSE, INSERT_PARAMETERS, "", outboxEvents,
+            (spec, event) -> spec.bind("topic", event.getTopic(), String.class)
+                .bind("shardingKey", event.getShardingKey(), String.class)
+                .bind("eventId", event.getEventId(), String.class)
+                .bind("format", event.getFormat(), String.class)
+                .bind("payload", event.getPayload(), byte[].class)
+                .bind("createdAt", event.getCreatedAt(), LocalDateTime.class));
+    }
+
+    @Override
+    public Mono<Long> claim(List<Long> ids, String claimToken, LocalDateTime now, LocalDateTime claimedUntil) {
+        return databaseClient.sql(CLAIM_SQL)
+            .bind("ids", ids)
+            .bind("claimToken", claimToken)
+            .bind("now", now)
+            .bind("claimedUntil", claimedUntil)
+            .fetch()
+            .rowsUpdated()
+            .doOnSuccess(count -> log.debug("轉發批次 {} 取得 {}/{} 筆 outbox 事件", claimToken, count, ids.size()));
+    }
+
+    @Override
+    public Flux<Long> findClaimedIds(String claimToken) {
+        return databaseClient.sql("SELECT id FROM event_outbox WHERE claim_token = :claimToken")
+            .bind("claimToken", claimToken)
+            .map(row -> row.get("id", Long.class))
+            .all();
+    }
+
+    @Override
+    public Mono<Long> release(List<Long> ids, String claimToken) {
+        return databaseClient.sql(RELEASE_SQL)
+            .bind("ids", ids)
+            .bind("claimToken", claimToken)
+            .fetch()
+            .rowsUpdated()
+            .doOnSuccess(count -> log.debug("轉發批次 {} 釋放 {} 筆未發送的 outbox 事件", claimToken, count));
+    }
+}
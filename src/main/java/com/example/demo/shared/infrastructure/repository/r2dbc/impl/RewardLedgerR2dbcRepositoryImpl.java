@@ -0,0 +1,44 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
+
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.model.RewardType;
+import com.example.demo.shared.infrastructure.repository.r2dbc.RewardLedgerR2dbcRepositoryCustom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class RewardLedgerR2dbcRepositoryImpl implements RewardLedgerR2dbcRepositoryCustom {
+
+    private static final String INSERT_IF_ELIGIBLE_SQL = "INSERT INTO reward_ledger (user_id, reward_type, points, created_at) "
+        + "SELECT user_id, :rewardType, :points, NOW() FROM missions "
+        + "WHERE user_id = :userId AND is_completed = TRUE AND mission_type IN (:missionTypes) "
+        + "GROUP BY user_id HAVING COUNT(*) = :missionCount";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Long> insertIfEligible(Long userId, RewardType rewardType, Set<MissionType> missionTypes, int points) {
+        if (missionTypes.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        return databaseClient.sql(INSERT_IF_ELIGIBLE_SQL)
+            .bind("rewardType", rewardType.name())
+            .bind("points", points)
+            .bind("userId", userId)
+            .bind("missionTypes", missionTypes.stream().map(Enum::name).toList())
+            .bind("missionCount", missionTypes.size())
+            .fetch()
+            .rowsUpdated()
+            .onErrorResume(DuplicateKeyException.class, e -> Mono.just(0L))
+            .doOnSuccess(count -> log.debug("使用者 {} 領取獎勵 {}，寫入帳本 {} 筆", userId, rewardType, count));
+    }
+}
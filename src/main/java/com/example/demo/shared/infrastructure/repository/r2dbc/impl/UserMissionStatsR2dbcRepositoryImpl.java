@@ -0,0 +1,59 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
+
+import com.example.demo.shared.infrastructure.repository.data.UserMissionStatsData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.UserMissionStatsR2dbcRepositoryCustom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class UserMissionStatsR2dbcRepositoryImpl implements UserMissionStatsR2dbcRepositoryCustom {
+
+    private static final String INCREMENT_AFTER_SEED_SQL = "UPDATE user_mission_stats SET "
+        + "launched_games_count = launched_games_count + :launchedGames, "
+        + "play_count = play_count + :plays, "
+        + "total_score = total_score + :score, "
+        + "last_event_at = GREATEST(last_event_at, :lastEventAt), updated_at = NOW() "
+        + "WHERE user_id = :userId AND seeded_until < :firstEventAt";
+
+    private static final String RESEED_SQL = "UPDATE user_mission_stats SET "
+        + "launched_games_count = :launchedGamesCount, play_count = :playCount, total_score = :totalScore, "
+        + "seeded_until = :seededUntil, last_event_at = :seededUntil, updated_at = NOW() "
+        + "WHERE user_id = :userId AND last_event_at <= :seededUntil";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Long> incrementAfterSeed(Long userId, int launchedGames, int plays, int score,
+                                         LocalDateTime firstEventAt, LocalDateTime lastEventAt) {
+        return databaseClient.sql(INCREMENT_AFTER_SEED_SQL)
+            .bind("userId", userId)
+            .bind("launchedGames", launchedGames)
+            .bind("plays", plays)
+            .bind("score", score)
+            .bind("firstEventAt", firstEventAt)
+            .bind("lastEventAt", lastEventAt)
+            .fetch()
+            .rowsUpdated()
+            .doOnSuccess(count -> log.debug("累加使用者 {} 的任務統計，更新了 {} 筆記錄", userId, count));
+    }
+
+    @Override
+    public Mono<Long> reseed(UserMissionStatsData stats) {
+        return databaseClient.sql(RESEED_SQL)
+            .bind("userId", stats.getUserId())
+            .bind("launchedGamesCount", stats.getLaunchedGamesCount())
+            .bind("playCount", stats.getPlayCount())
+            .bind("totalScore", stats.getTotalScore())
+            .bind("seededUntil", stats.getSeededUntil())
+            .fetch()
+            .rowsUpdated()
+            .doOnSuccess(count -> log.debug("重新建立使用者 {} 的任務統計，更新了 {} 筆記錄", stats.getUserId(), count));
+    }
+}
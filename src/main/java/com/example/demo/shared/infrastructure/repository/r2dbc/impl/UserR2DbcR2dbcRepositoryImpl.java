@@ -1,17 +1,34 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
 
+import com.example.demo.shared.infrastructure.repository.data.UserData;
 import com.example.demo.shared.infrastructure.repository.r2dbc.UserR2dbcRepositoryCustom;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class UserR2DbcR2dbcRepositoryImpl implements UserR2dbcRepositoryCustom {
 
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO users (username, points, registration_date, created_at, updated_at) "
+        + "VALUES (:username, :points, :registrationDate, :createdAt, :updatedAt)";
+
+    // current_streak 必須在 last_login_date 之前指定，才能讀到更新前的最近登入日期
+    private static final String RECORD_LOGIN_STREAK_SQL = "UPDATE users SET "
+        + "current_streak = CASE WHEN last_login_date = :previousDate THEN current_streak + 1 ELSE 1 END, "
+        + "last_login_date = :loginDate, updated_at = NOW() "
+        + "WHERE id = :userId AND (last_login_date IS NULL OR last_login_date < :loginDate)";
+
+    private static final String INITIALIZE_LOGIN_STREAK_SQL = "UPDATE users SET "
+        + "last_login_date = :lastLoginDate, current_streak = :currentStreak, updated_at = NOW() "
+        + "WHERE id = :userId AND last_login_date IS NULL";
+
     private final DatabaseClient databaseClient;
 
     @Override
@@ -27,4 +44,40 @@ public class UserR2DbcR2dbcRepositoryImpl implements UserR2dbcRepositoryCustom {
                 userId, pointsToAdd, count))
             .doOnError(e -> log.error("為使用者 {} 增加點數失敗", userId, e));
     }
+
+    @Override
+    public Mono<Long> recordLoginStreak(Long userId, LocalDate loginDate) {
+        return databaseClient.sql(RECORD_LOGIN_STREAK_SQL)
+            .bind("userId", userId)
+            .bind("loginDate", loginDate)
+            .bind("previousDate", loginDate.minusDays(1))
+            .fetch()
+            .rowsUpdated()
+            .doOnSuccess(count -> log.debug("更新使用者 {} 的連續登入狀態，更新了 {} 筆記錄", userId, count));
+    }
+
+    @Override
+    public Mono<Long> initializeLoginStreak(Long userId, LocalDate lastLoginDate, int currentStreak) {
+        return databaseClient.sql(INITIALIZE_LOGIN_STREAK_SQL)
+            .bind("userId", userId)
+            .bind("lastLoginDate", lastLoginDate)
+            .bind("currentStreak", currentStreak)
+            .fetch()
+            .rowsUpdated()
+            .doOnSuccess(count -> log.debug("初始化使用者 {} 的連續登入狀態，更新了 {} 筆記錄", userId, count));
+    }
+
+    @Override
+    public Mono<Long> insertIfAbsent(UserData user) {
+        return databaseClient.sql(INSERT_IF_ABSENT_SQL)
+            .bind("username", user.getUsername())
+            .bind("points", user.getPoints())
+            .bind("registrationDate", user.getRegistrationDate())
+            .bind("createdAt", user.getCreatedAt())
+            .bind("updatedAt", user.getUpdatedAt())
+            .fetch()
+            .rowsUpdated()
+            .onErrorResume(DuplicateKeyException.class, e -> Mono.just(0L))
+            .doOnSuccess(count -> log.debug("新增使用者 {}，寫入 {} 筆記錄", user.getUsername(), count));
+    }
 }
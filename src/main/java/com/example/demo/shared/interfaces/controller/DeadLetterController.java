@@ -0,0 +1,43 @@
+package com.example.demo.shared.interfaces.controller;
+
+import com.example.demo.shared.application.dto.ApiResponse;
+import com.example.demo.shared.infrastructure.message.DeadLetterReplayService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+@Validated
+@RequiredArgsConstructor
+public class DeadLetterController {
+
+    private final DeadLetterReplayService deadLetterReplayService;
+
+    /**
+     * 將死信事件重新投遞回原主題。
+     * 問題排除後呼叫，依寫入順序每次最多重新投遞 limit 筆。
+     *
+     * @param limit 最多筆數
+     * @return 包含重新投遞筆數的 API 回應
+     */
+    @PostMapping("/replay")
+    public Mono<ApiResponse<Integer>> replay(
+        @Min(value = 1, message = "筆數至少為 1") @Max(value = 5000, message = "筆數最多為 5000") @RequestParam(defaultValue = "500") int limit) {
+        log.info("重新投遞死信事件請求: limit={}", limit);
+        return deadLetterReplayService.replay(limit)
+            .map(count -> ApiResponse.success("死信事件重新投遞成功", count))
+            .onErrorResume(e -> {
+                log.error("重新投遞死信事件失敗", e);
+                return Mono.just(ApiResponse.error("重新投遞死信事件失敗: " + e.getMessage()));
+            });
+    }
+}
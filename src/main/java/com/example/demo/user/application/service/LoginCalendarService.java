@@ -0,0 +1,123 @@
+package com.example.demo.user.application.service;
+
+import com.example.demo.shared.infrastructure.redis.RedisService;
+import com.example.demo.user.domain.model.LoginCalendar;
+import com.example.demo.user.domain.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * 登入日曆服務
+ * 以 Redis bitmap 保存每位使用者自註冊日起每天是否登入（每天一個位元），
+ * 連續登入天數、區間登入天數與日曆查詢皆由 Redis 回答，不需查詢資料庫。
+ * 日曆只涵蓋開始記錄後的登入，無法由日曆確定的連續登入天數由資料庫中的連續登入狀態回答。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoginCalendarService {
+
+    private static final String CALENDAR_KEY_PREFIX = "user:login:calendar:";
+    private static final String CALENDAR_START_KEY = "user:login:calendar:start";
+    private static final String CALENDAR_RECORDED_FROM_KEY = "user:login:calendar:recorded-from";
+
+    /**
+     * 計算連續登入天數時讀取的最大天數，避免長期使用者每次都讀取自註冊日起的整個 bitmap。
+     * 連續登入延續到讀取範圍的第一天時無法確定天數，由使用者保存的連續登入狀態回答。
+     */
+    static final int STREAK_WINDOW_DAYS = 366;
+
+    private final RedisService redisService;
+
+    /**
+     * 將使用者在指定日期的登入寫入 bitmap，重複寫入同一天不會有影響。
+     * 同時記下第一次寫入的日期，在這之前的登入（例如開始使用登入日曆前）不在 bitmap 中。
+     *
+     * @param user      使用者
+     * @param loginDate 登入日期
+     * @return 表示操作完成的 Mono<Void>
+     */
+    public Mono<Void> recordLogin(User user, LocalDate loginDate) {
+        LocalDate startDate = user.getRegistrationDate() == null ? loginDate : user.getRegistrationDate().toLocalDate();
+        long offset = Math.max(0, ChronoUnit.DAYS.between(startDate, loginDate));
+        return redisService.put(CALENDAR_START_KEY, user.getId().toString(), startDate.toEpochDay())
+            .then(redisService.putIfAbsent(CALENDAR_RECORDED_FROM_KEY, user.getId().toString(), loginDate.toEpochDay()))
+            .then(redisService.setBit(calendarKey(user.getId()), offset, true))
+            .then();
+    }
+
+    /**
+     * 查詢使用者在指定區間內的登入日曆，區間會被限制在註冊日之後。
+     *
+     * @param userId 使用者ID
+     * @param from   區間的第一天
+     * @param to     區間的最後一天（包含）
+     * @return 包含登入日曆的 Mono，若使用者尚無登入日曆則為空
+     */
+    public Mono<LoginCalendar> findCalendar(Long userId, LocalDate from, LocalDate to) {
+        return findStartDate(userId)
+            .flatMap(startDate -> readCalendar(userId, startDate, from, to));
+    }
+
+    /**
+     * 從登入日曆計算使用者在指定日期的有效連續登入天數，最多只讀取最近 {@value #STREAK_WINDOW_DAYS} 天。
+     * 只讀取開始記錄登入之後的日期；連續登入延續到讀取範圍的第一天時，
+     * 除非該天就是註冊日，否則更早的登入可能不在讀取範圍內，此時無法確定天數而返回空。
+     *
+     * @param userId 使用者ID
+     * @param today  計算的日期
+     * @return 包含連續登入天數的 Mono，若使用者尚無登入日曆或日曆無法確定天數則為空
+     */
+    public Mono<Integer> getLoginStreak(Long userId, LocalDate today) {
+        return Mono.zip(findStartDate(userId), findRecordedFrom(userId))
+            .flatMap(dates -> {
+                LocalDate startDate = dates.getT1();
+                LocalDate windowStart = today.minusDays(STREAK_WINDOW_DAYS - 1);
+                LocalDate from = windowStart.isBefore(dates.getT2()) ? dates.getT2() : windowStart;
+                return readCalendar(userId, startDate, from, today)
+                    .filter(calendar -> calendar.startDate().equals(startDate) || !calendar.streakReachesStart(today))
+                    .map(calendar -> calendar.streakEndingAt(today));
+            });
+    }
+
+    /**
+     * 使用者自註冊以來登入過的總天數。
+     *
+     * @param userId 使用者ID
+     * @return 包含總登入天數的 Mono<Long>
+     */
+    public Mono<Long> countLoginDays(Long userId) {
+        return redisService.bitCount(calendarKey(userId));
+    }
+
+    private Mono<LocalDate> findStartDate(Long userId) {
+        return redisService.<String, Object>get(CALENDAR_START_KEY, userId.toString())
+            .map(epochDay -> LocalDate.ofEpochDay(((Number) epochDay).longValue()));
+    }
+
+    private Mono<LocalDate> findRecordedFrom(Long userId) {
+        return redisService.<String, Object>get(CALENDAR_RECORDED_FROM_KEY, userId.toString())
+            .map(epochDay -> LocalDate.ofEpochDay(((Number) epochDay).longValue()));
+    }
+
+    private Mono<LoginCalendar> readCalendar(Long userId, LocalDate startDate, LocalDate from, LocalDate to) {
+        LocalDate effectiveFrom = from.isBefore(startDate) ? startDate : from;
+        if (to.isBefore(effectiveFrom)) {
+            return Mono.just(new LoginCalendar(effectiveFrom, effectiveFrom.minusDays(1), new BitSet()));
+        }
+        long offset = ChronoUnit.DAYS.between(startDate, effectiveFrom);
+        int length = (int) ChronoUnit.DAYS.between(effectiveFrom, to) + 1;
+        return redisService.getBits(calendarKey(userId), offset, length)
+            .map(days -> new LoginCalendar(effectiveFrom, to, days));
+    }
+
+    private String calendarKey(Long userId) {
+        return CALENDAR_KEY_PREFIX + userId;
+    }
+}
@@ -2,11 +2,13 @@ package com.example.demo.user.application.service.impl;
 
 import com.example.demo.shared.application.dto.event.UserLoginEvent;
 import com.example.demo.shared.infrastructure.message.EventPublisher;
+import com.example.demo.user.application.service.LoginCalendarService;
 import com.example.demo.user.application.service.UserCommandService;
 import com.example.demo.user.domain.model.LoginRecord;
 import com.example.demo.user.domain.model.User;
 import com.example.demo.user.domain.repository.LoginRecordRepository;
 import com.example.demo.user.domain.repository.UserRepository;
+import com.example.demo.user.domain.service.UserDomainService;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +26,8 @@ public class UserCommandServiceImpl implements UserCommandService {
     private final UserRepository userRepository;
     private final LoginRecordRepository loginRecordRepository;
     private final EventPublisher eventPublisher;
+    private final UserDomainService userDomainService;
+    private final LoginCalendarService loginCalendarService;
 
     @Transactional
     @CachePut(value = "users", key = "#username")
@@ -31,36 +35,78 @@ public class UserCommandServiceImpl implements UserCommandService {
     public Mono<User> handleLogin(String username) {
         log.info("處理使用者登入: {}", username);
         return userRepository.findByUsername(username)
-            .switchIfEmpty(createNewUser(username))
-            .flatMap(user -> recordLogin(user).thenReturn(user))
-            .flatMap(this::publishLoginEvent)
+            .switchIfEmpty(Mono.defer(() -> createNewUser(username)))
+            .flatMap(user -> recordLogin(user)
+                .flatMap(firstLoginToday -> recordLoginCalendar(user)
+                    .then(Boolean.TRUE.equals(firstLoginToday)
+                        ? publishLoginEvent(user)
+                        : Mono.just(user))))
             .doOnError(e -> log.error("登入處理失敗，事務將回滾: username={}, 錯誤: {}", 
                 username, e.getMessage()));
     }
 
+    /**
+     * 建立新使用者。
+     * 同名使用者同時登入時不會因唯一鍵衝突而失敗，會取得已建立的使用者。
+     */
     private Mono<User> createNewUser(String username) {
         log.info("建立新使用者: {}", username);
         User newUser = User.create(username);
-        return userRepository.save(newUser);
+        return userRepository.createIfAbsent(newUser);
     }
 
-    private Mono<Void> recordLogin(User user) {
-        LocalDate today = LocalDate.now();
-        return loginRecordRepository.existsByUserIdAndLoginDate(user.getId(), today)
-            .flatMap(exists -> {
-                if (Boolean.TRUE.equals(exists)) {
-                    log.debug("使用者 {} 今日已登入過", user.getId());
-                    return Mono.empty();
+    /**
+     * 記錄今日登入，今日第一次登入時同時更新連續登入狀態。
+     * 尚未保存連續登入狀態的既有使用者會先從登入記錄初始化。
+     *
+     * @return 若為今日第一次登入則返回 true 的 Mono<Boolean>
+     */
+    private Mono<Boolean> recordLogin(User user) {
+        LoginRecord loginRecord = LoginRecord.createForToday(user.getId());
+        return loginRecordRepository.insertIfAbsent(loginRecord)
+            .flatMap(inserted -> {
+                if (Boolean.FALSE.equals(inserted)) {
+                    log.debug("使用者 {} 今日已登入過，跳過發布登入事件", user.getId());
+                    return Mono.just(false);
                 }
                 log.debug("記錄使用者 {} 的登入記錄", user.getId());
-                LoginRecord loginRecord = LoginRecord.createForToday(user.getId());
-                return loginRecordRepository.save(loginRecord).then();
+                LocalDate loginDate = loginRecord.getLoginDate();
+                return initializeLoginStreakIfAbsent(user)
+                    .then(userRepository.recordLoginStreak(user.getId(), loginDate))
+                    .doOnSuccess(v -> userDomainService.applyLogin(user, loginDate))
+                    .thenReturn(true);
+            });
+    }
+
+    /**
+     * 使用者尚無最近登入日期時，以最近的登入記錄（包含剛寫入的今日記錄）計算並保存連續登入狀態。
+     * 只有在連續登入狀態上線前登入過的使用者會需要初始化，之後由每次登入累加。
+     */
+    private Mono<Void> initializeLoginStreakIfAbsent(User user) {
+        if (user.getLastLoginDate() != null) {
+            return Mono.empty();
+        }
+        return loginRecordRepository.findRecentByUserId(user.getId(), UserDomainService.LOGIN_STREAK_HISTORY_LIMIT)
+            .collectList()
+            .filter(records -> userDomainService.initializeLoginStreak(user, records))
+            .flatMap(records -> userRepository.initializeLoginStreak(user.getId(), user.getLastLoginDate(), user.getCurrentStreak()));
+    }
+
+    /**
+     * 將今日登入寫入 Redis 登入日曆。
+     * 每次登入都會寫入，讓先前寫入失敗的日期能自動補上；寫入失敗不影響登入。
+     */
+    private Mono<Void> recordLoginCalendar(User user) {
+        return loginCalendarService.recordLogin(user, LocalDate.now())
+            .onErrorResume(e -> {
+                log.warn("寫入使用者 {} 的登入日曆失敗", user.getId(), e);
+                return Mono.empty();
             });
     }
 
     /**
      * 發布登入事件
-     * 如果使用者符合任務資格（註冊30天內），則發布事件。
+     * 如果使用者符合任務資格（註冊30天內），則將事件寫入 outbox，與登入記錄在同一個交易中提交。
      */
     private Mono<User> publishLoginEvent(User user) {
         if (user.isEligibleForMissions()) {
@@ -70,7 +116,7 @@ public class UserCommandServiceImpl implements UserCommandService {
             return eventPublisher.publishLoginEvent(event)
                 .doOnSuccess(v -> log.info("成功發布登入事件: userId={}, username={}", 
                     user.getId(), user.getUsername()))
-                .doOnError(e -> log.error("發布登入事件失敗，將觸發回滾: userId={}, username={}, 錯誤: {}",
+                .doOnError(e -> log.error("寫入登入事件失敗，將觸發回滾: userId={}, username={}, 錯誤: {}",
                     user.getId(), user.getUsername(), e.getMessage()))
                 .thenReturn(user);
         } else {
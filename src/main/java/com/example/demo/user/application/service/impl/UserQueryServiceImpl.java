@@ -1,15 +1,20 @@
 package com.example.demo.user.application.service.impl;
 
+import com.example.demo.user.application.service.LoginCalendarService;
 import com.example.demo.user.application.service.UserQueryService;
 import com.example.demo.user.domain.model.User;
 import com.example.demo.user.domain.repository.LoginRecordRepository;
 import com.example.demo.user.domain.repository.UserRepository;
 import com.example.demo.user.domain.service.UserDomainService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserQueryServiceImpl implements UserQueryService {
@@ -17,6 +22,7 @@ public class UserQueryServiceImpl implements UserQueryService {
     private final UserRepository userRepository;
     private final LoginRecordRepository loginRecordRepository;
     private final UserDomainService userDomainService;
+    private final LoginCalendarService loginCalendarService;
 
     @Cacheable(value = "users", key = "#username")
     @Override
@@ -31,10 +37,30 @@ public class UserQueryServiceImpl implements UserQueryService {
             .switchIfEmpty(Mono.error(new IllegalArgumentException("找不到使用者: " + userId)));
     }
 
+    /**
+     * 計算今天的有效連續登入天數，由 Redis 登入日曆回答。
+     * 只有日曆無法確定天數（連續登入延續到日曆開始記錄之前或超出讀取範圍）或 Redis 無法使用時，
+     * 才讀取使用者保存的連續登入狀態；使用者尚未保存連續登入狀態時從登入記錄計算。
+     */
     @Override
     public Mono<Integer> getConsecutiveLoginDays(Long userId) {
-        return loginRecordRepository.findRecentByUserId(userId, 10)
-            .collectList()
-            .map(userDomainService::calculateConsecutiveLoginDays);
+        LocalDate today = LocalDate.now();
+        return loginCalendarService.getLoginStreak(userId, today)
+            .onErrorResume(e -> {
+                log.warn("讀取使用者 {} 的登入日曆失敗，改用資料庫中的連續登入狀態", userId, e);
+                return Mono.empty();
+            })
+            .switchIfEmpty(Mono.defer(() -> getStoredLoginStreak(userId, today)));
+    }
+
+    private Mono<Integer> getStoredLoginStreak(Long userId, LocalDate today) {
+        return userRepository.findById(userId)
+            .flatMap(user -> user.getLastLoginDate() != null ? Mono.just(user)
+                : loginRecordRepository.findRecentByUserId(userId, UserDomainService.LOGIN_STREAK_HISTORY_LIMIT)
+                    .collectList()
+                    .doOnNext(records -> userDomainService.initializeLoginStreak(user, records))
+                    .thenReturn(user))
+            .map(user -> userDomainService.calculateLoginStreak(user, today))
+            .defaultIfEmpty(0);
     }
 }
@@ -0,0 +1,92 @@
+package com.example.demo.user.domain.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 登入日曆
+ * 表示使用者在一段日期區間內每天是否登入，第 i 個位元對應 startDate 之後的第 i 天。
+ *
+ * @param startDate 區間的第一天
+ * @param endDate   區間的最後一天（包含）
+ * @param days      每天是否登入
+ */
+public record LoginCalendar(LocalDate startDate, LocalDate endDate, BitSet days) {
+
+    public LoginCalendar {
+        if (startDate == null || endDate == null || days == null) {
+            throw new IllegalArgumentException("登入日曆的日期區間與資料不能為空");
+        }
+        days = (BitSet) days.clone();
+    }
+
+    /**
+     * 檢查使用者在指定日期是否登入過。
+     *
+     * @param date 日期
+     * @return 如果登入過則返回 true
+     */
+    public boolean isLoggedIn(LocalDate date) {
+        if (date.isBefore(startDate) || date.isAfter(endDate)) {
+            return false;
+        }
+        return days.get(indexOf(date));
+    }
+
+    /**
+     * 區間內登入過的天數。
+     *
+     * @return 登入天數
+     */
+    public int loggedInDays() {
+        return days.get(0, indexOf(endDate) + 1).cardinality();
+    }
+
+    /**
+     * 區間內所有登入過的日期，依日期升序排列。
+     *
+     * @return 登入日期列表
+     */
+    public List<LocalDate> loginDates() {
+        int length = indexOf(endDate) + 1;
+        return days.get(0, length).stream()
+            .mapToObj(startDate::plusDays)
+            .toList();
+    }
+
+    /**
+     * 計算指定日期的有效連續登入天數。
+     * 指定日期尚未登入時，只要前一天有登入，連續登入仍然有效。
+     *
+     * @param today 計算的日期
+     * @return 有效的連續登入天數
+     */
+    public int streakEndingAt(LocalDate today) {
+        LocalDate day = isLoggedIn(today) ? today : today.minusDays(1);
+        int streak = 0;
+        while (isLoggedIn(day)) {
+            streak++;
+            day = day.minusDays(1);
+        }
+        return streak;
+    }
+
+    /**
+     * 檢查指定日期的有效連續登入是否一直延續到區間的第一天。
+     * 此時區間之前的登入也可能屬於同一段連續登入，無法只從本區間得知完整的天數。
+     *
+     * @param today 計算的日期
+     * @return 如果連續登入延續到區間的第一天則返回 true
+     */
+    public boolean streakReachesStart(LocalDate today) {
+        int streak = streakEndingAt(today);
+        LocalDate lastDay = isLoggedIn(today) ? today : today.minusDays(1);
+        return streak > 0 && lastDay.minusDays(streak - 1).equals(startDate);
+    }
+
+    private int indexOf(LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(startDate, date);
+    }
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
@@ -26,6 +27,16 @@ public class User {
 
     private LocalDateTime registrationDate;
 
+    /**
+     * 最近一次登入的日期
+     */
+    private LocalDate lastLoginDate;
+
+    /**
+     * 截至最近一次登入的連續登入天數
+     */
+    private Integer currentStreak;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -45,6 +56,7 @@ public class User {
         user.username = username.trim();
         user.points = 0;
         user.registrationDate = LocalDateTime.now();
+        user.currentStreak = 0;
         user.createdAt = LocalDateTime.now();
         user.updatedAt = LocalDateTime.now();
         return user;
@@ -4,7 +4,7 @@ import com.example.demo.user.domain.model.LoginRecord;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 登入記錄的儲存庫介面
@@ -20,13 +20,12 @@ public interface LoginRecordRepository {
     Mono<LoginRecord> save(LoginRecord loginRecord);
 
     /**
-     * 檢查使用者是否在特定日期登入過。
+     * 以單一語句新增登入記錄，同一使用者同一天已有記錄時不做任何變更。
      *
-     * @param userId    使用者ID
-     * @param loginDate 登入日期
-     * @return 如果存在記錄，則返回 true 的 Mono<Boolean>
+     * @param loginRecord 要新增的登入記錄
+     * @return 若為當天的第一筆記錄則返回 true 的 Mono<Boolean>
      */
-    Mono<Boolean> existsByUserIdAndLoginDate(Long userId, LocalDate loginDate);
+    Mono<Boolean> insertIfAbsent(LoginRecord loginRecord);
 
     /**
      * 查詢使用者最近的登入記錄，用於計算連續登入。
@@ -36,4 +35,12 @@ public interface LoginRecordRepository {
      * @return 包含最近登入記錄的 Flux
      */
     Flux<LoginRecord> findRecentByUserId(Long userId, int limit);
+
+    /**
+     * 以批次語句新增多筆登入記錄，同一使用者同一天已有記錄者會被略過。
+     *
+     * @param loginRecords 要新增的登入記錄
+     * @return 包含受影響行數的 Mono<Long>，略過的重複記錄也會計入
+     */
+    Mono<Long> insertAllIfAbsent(List<LoginRecord> loginRecords);
 }
@@ -3,6 +3,8 @@ package com.example.demo.user.domain.repository;
 import com.example.demo.user.domain.model.User;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 /**
  * 使用者聚合根的儲存庫介面
  */
@@ -32,6 +34,35 @@ public interface UserRepository {
      */
     Mono<User> save(User user);
 
+    /**
+     * 若使用者名稱尚未存在則新增使用者，並返回資料庫中的使用者。
+     * 同時建立同名使用者時不會因唯一鍵衝突而失敗，雙方都會取得同一筆使用者。
+     *
+     * @param user 要新增的使用者
+     * @return 已存在或新增的使用者的 Mono<User>
+     */
+    Mono<User> createIfAbsent(User user);
+
+    /**
+     * 以單一語句原子性地更新使用者的連續登入狀態。
+     * 最近一次登入為前一天時連續天數加一，否則重新從 1 開始；同一天或較早的登入不會改變狀態。
+     *
+     * @param userId    使用者ID
+     * @param loginDate 登入日期
+     * @return 表示操作完成的 Mono<Void>
+     */
+    Mono<Void> recordLoginStreak(Long userId, LocalDate loginDate);
+
+    /**
+     * 為尚未保存連續登入狀態的使用者寫入初始的連續登入狀態，已有狀態時不會覆寫。
+     *
+     * @param userId        使用者ID
+     * @param lastLoginDate 最近一次登入日期
+     * @param currentStreak 截至最近一次登入的連續登入天數
+     * @return 表示操作完成的 Mono<Void>
+     */
+    Mono<Void> initializeLoginStreak(Long userId, LocalDate lastLoginDate, int currentStreak);
+
     /**
      * 為使用者增加點數。
      * 這是一個優化過的更新操作，無需先獲取完整的實體。
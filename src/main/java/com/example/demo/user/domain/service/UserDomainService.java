@@ -1,6 +1,7 @@
 package com.example.demo.user.domain.service;
 
 import com.example.demo.user.domain.model.LoginRecord;
+import com.example.demo.user.domain.model.User;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -12,6 +13,11 @@ import java.util.List;
 @Service
 public class UserDomainService {
 
+    /**
+     * 從登入記錄初始化連續登入狀態時讀取的最大記錄數（每天最多一筆），更長的連續登入以此為上限。
+     */
+    public static final int LOGIN_STREAK_HISTORY_LIMIT = 366;
+
     /**
      * 從登入記錄中計算連續登入天數。
      * 返回截至最近一次登入的連續天數。
@@ -49,4 +55,57 @@ public class UserDomainService {
 
         return consecutiveDays;
     }
+
+    /**
+     * 以登入記錄初始化尚未保存連續登入狀態的使用者，最近一次登入日期取最新的記錄，
+     * 連續登入天數為截至該日的連續天數。
+     *
+     * @param user         使用者
+     * @param loginRecords 使用者的登入記錄
+     * @return 若有登入記錄並已初始化則返回 true
+     */
+    public boolean initializeLoginStreak(User user, List<LoginRecord> loginRecords) {
+        if (loginRecords == null || loginRecords.isEmpty()) {
+            return false;
+        }
+        user.setLastLoginDate(loginRecords.stream()
+            .map(LoginRecord::getLoginDate)
+            .max(LocalDate::compareTo)
+            .orElseThrow());
+        user.setCurrentStreak(calculateConsecutiveLoginDays(loginRecords));
+        return true;
+    }
+
+    /**
+     * 從使用者保存的連續登入狀態計算指定日期的有效連續登入天數。
+     * 最近一次登入為當天或前一天時連續登入仍有效，否則連續登入已中斷，返回 0。
+     *
+     * @param user  使用者
+     * @param today 計算的日期
+     * @return 有效的連續登入天數
+     */
+    public int calculateLoginStreak(User user, LocalDate today) {
+        LocalDate lastLoginDate = user.getLastLoginDate();
+        if (lastLoginDate == null || user.getCurrentStreak() == null || lastLoginDate.isBefore(today.minusDays(1))) {
+            return 0;
+        }
+        return user.getCurrentStreak();
+    }
+
+    /**
+     * 將一次登入套用到使用者的連續登入狀態。
+     * 與前一天的登入相連時累加，同一天重複登入不變，其他情況重新從 1 開始。
+     *
+     * @param user      使用者
+     * @param loginDate 登入日期
+     */
+    public void applyLogin(User user, LocalDate loginDate) {
+        LocalDate lastLoginDate = user.getLastLoginDate();
+        if (lastLoginDate != null && !lastLoginDate.isBefore(loginDate)) {
+            return;
+        }
+        boolean continued = lastLoginDate != null && lastLoginDate.equals(loginDate.minusDays(1)) && user.getCurrentStreak() != null;
+        user.setCurrentStreak(continued ? user.getCurrentStreak() + 1 : 1);
+        user.setLastLoginDate(loginDate);
+    }
 }
@@ -1,19 +1,32 @@
 package com.example.demo.user.interfaces.controller;
 
 import com.example.demo.shared.application.dto.ApiResponse;
+import com.example.demo.shared.application.dto.LoginCalendarResponse;
 import com.example.demo.shared.application.dto.LoginRequest;
 import com.example.demo.mission.application.service.MissionCommandService;
+import com.example.demo.user.application.service.LoginCalendarService;
 import com.example.demo.user.application.service.UserCommandService;
+import com.example.demo.user.application.service.UserQueryService;
+import com.example.demo.user.domain.model.LoginCalendar;
+import com.example.demo.user.domain.model.User;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/users")
@@ -23,6 +36,8 @@ public class UserController {
 
     private final UserCommandService userCommandService;
     private final MissionCommandService missionCommandService;
+    private final UserQueryService userQueryService;
+    private final LoginCalendarService loginCalendarService;
 
     @PostMapping("/login")
     public Mono<ApiResponse<Void>> login(@Valid @RequestBody LoginRequest request) {
@@ -36,4 +51,44 @@ public class UserController {
                 return Mono.just(ApiResponse.error("登入失敗: " + e.getMessage()));
             });
     }
+
+    /**
+     * 獲取使用者最近一段期間的登入日曆。
+     * 日曆從 Redis 讀取，連續登入天數與其他查詢使用相同的計算方式。
+     *
+     * @param username 使用者名稱
+     * @param days     查詢的天數（包含今天）
+     * @return 包含登入日曆的 API 回應
+     */
+    @GetMapping("/login-calendar")
+    public Mono<ApiResponse<LoginCalendarResponse>> getLoginCalendar(
+        @NotBlank(message = "使用者名稱不能為空") @RequestParam String username,
+        @Min(value = 1, message = "天數至少為 1") @Max(value = 366, message = "天數最多為 366") @RequestParam(defaultValue = "30") int days) {
+        log.info("取得使用者登入日曆請求: {}, 天數: {}", username, days);
+        LocalDate today = LocalDate.now();
+        return userQueryService.getUserByUsername(username)
+            .flatMap(user -> loginCalendarService.findCalendar(user.getId(), today.minusDays(days - 1L), today)
+                .flatMap(calendar -> Mono.zip(
+                        userQueryService.getConsecutiveLoginDays(user.getId()),
+                        loginCalendarService.countLoginDays(user.getId()))
+                    .map(tuple -> toLoginCalendarResponse(user, calendar, tuple.getT1(), tuple.getT2())))
+                .defaultIfEmpty(new LoginCalendarResponse(user.getUsername(), today.minusDays(days - 1L), today, List.of(), 0, 0, 0L)))
+            .map(calendar -> ApiResponse.success("登入日曆取得成功", calendar))
+            .onErrorResume(e -> {
+                log.error("取得登入日曆失敗", e);
+                return Mono.just(ApiResponse.error("取得登入日曆失敗: " + e.getMessage()));
+            });
+    }
+
+    private LoginCalendarResponse toLoginCalendarResponse(User user, LoginCalendar calendar, int currentStreak, long totalLoginDays) {
+        return new LoginCalendarResponse(
+            user.getUsername(),
+            calendar.startDate(),
+            calendar.endDate(),
+            calendar.loginDates(),
+            calendar.loggedInDays(),
+            currentStreak,
+            totalLoginDays
+        );
+    }
 }
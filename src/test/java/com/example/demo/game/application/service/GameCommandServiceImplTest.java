@@ -5,7 +5,6 @@ import com.example.demo.game.domain.model.Game;
 import com.example.demo.game.domain.model.GameLaunchRecord;
 import com.example.demo.game.domain.model.GamePlayRecord;
 import com.example.demo.game.domain.repository.GameLaunchRecordRepository;
-import com.example.demo.game.domain.repository.GamePlayRecordRepository;
 import com.example.demo.shared.application.dto.event.GameLaunchEvent;
 import com.example.demo.shared.application.dto.event.GamePlayEvent;
 import com.example.demo.shared.infrastructure.message.EventPublisher;
@@ -14,6 +13,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -32,22 +32,24 @@ class GameCommandServiceImplTest {
     @Mock
     private GameLaunchRecordRepository gameLaunchRecordRepository;
 
-    @Mock
-    private GamePlayRecordRepository gamePlayRecordRepository;
-
     @Mock
     private EventPublisher eventPublisher;
 
     @Mock
     private GameQueryService gameQueryService;
 
+    @Mock
+    private LaunchedGamesService launchedGamesService;
+
+    @Mock
+    private GamePlayRecordBuffer gamePlayRecordBuffer;
+
     @InjectMocks
     private GameCommandServiceImpl gameCommandService;
 
     private User testUser;
     private Game testGame;
     private GameLaunchRecord testLaunchRecord;
-    private GamePlayRecord testPlayRecord;
 
     @BeforeEach
     void setUp() {
@@ -77,23 +79,16 @@ class GameCommandServiceImplTest {
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        testPlayRecord = GamePlayRecord.builder()
-                .id(1L)
-                .userId(1L)
-                .gameId(1L)
-                .score(1500)
-                .playDuration(300)
-                .playTime(LocalDateTime.now())
-                .createdAt(LocalDateTime.now())
-                .build();
+        lenient().when(launchedGamesService.isLaunched(anyLong(), anyLong())).thenReturn(Mono.just(false));
+        lenient().when(launchedGamesService.markLaunched(anyLong(), anyLong())).thenReturn(Mono.empty());
+        lenient().when(gamePlayRecordBuffer.submit(any(GamePlayRecord.class), any())).thenReturn(Mono.empty());
     }
 
     @Test
     void handleGameLaunch_shouldLaunchGame_whenUserAndGameExist() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gameLaunchRecordRepository.existsByUserIdAndGameId(1L, 1L)).thenReturn(Mono.just(false));
-        when(gameLaunchRecordRepository.save(any(GameLaunchRecord.class))).thenReturn(Mono.just(testLaunchRecord));
+        when(gameLaunchRecordRepository.insertIfAbsent(any(GameLaunchRecord.class))).thenReturn(Mono.just(true));
         when(eventPublisher.publishGameLaunchEvent(any(GameLaunchEvent.class))).thenReturn(Mono.empty());
 
         // When & Then
@@ -101,24 +96,40 @@ class GameCommandServiceImplTest {
                 .verifyComplete();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gameLaunchRecordRepository).existsByUserIdAndGameId(1L, 1L);
-        verify(gameLaunchRecordRepository).save(any(GameLaunchRecord.class));
-        verify(eventPublisher).publishGameLaunchEvent(any(GameLaunchEvent.class));
+        InOrder inOrder = inOrder(gameLaunchRecordRepository, launchedGamesService, eventPublisher);
+        inOrder.verify(gameLaunchRecordRepository).insertIfAbsent(any(GameLaunchRecord.class));
+        inOrder.verify(launchedGamesService).markLaunched(1L, 1L);
+        inOrder.verify(eventPublisher).publishGameLaunchEvent(any(GameLaunchEvent.class));
     }
 
     @Test
     void handleGameLaunch_shouldSkipLaunch_whenGameAlreadyLaunched() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gameLaunchRecordRepository.existsByUserIdAndGameId(1L, 1L)).thenReturn(Mono.just(true));
+        when(gameLaunchRecordRepository.insertIfAbsent(any(GameLaunchRecord.class))).thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGameLaunch(testUser, "GAME001"))
                 .verifyComplete();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gameLaunchRecordRepository).existsByUserIdAndGameId(1L, 1L);
-        verify(gameLaunchRecordRepository, never()).save(any(GameLaunchRecord.class));
+        verify(gameLaunchRecordRepository).insertIfAbsent(any(GameLaunchRecord.class));
+        verify(eventPublisher, never()).publishGameLaunchEvent(any(GameLaunchEvent.class));
+    }
+
+    @Test
+    void handleGameLaunch_shouldSkipDatabase_whenLaunchedGamesSetAlreadyContainsGame() {
+        // Given
+        when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
+        when(launchedGamesService.isLaunched(1L, 1L)).thenReturn(Mono.just(true));
+
+        // When & Then
+        StepVerifier.create(gameCommandService.handleGameLaunch(testUser, "GAME001"))
+                .verifyComplete();
+
+        verify(launchedGamesService).isLaunched(1L, 1L);
+        verify(launchedGamesService, never()).markLaunched(anyLong(), anyLong());
+        verify(gameLaunchRecordRepository, never()).insertIfAbsent(any(GameLaunchRecord.class));
         verify(eventPublisher, never()).publishGameLaunchEvent(any(GameLaunchEvent.class));
     }
 
@@ -135,7 +146,7 @@ class GameCommandServiceImplTest {
                 .verify();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gameLaunchRecordRepository, never()).save(any(GameLaunchRecord.class));
+        verify(gameLaunchRecordRepository, never()).insertIfAbsent(any(GameLaunchRecord.class));
     }
 
     @Test
@@ -143,7 +154,6 @@ class GameCommandServiceImplTest {
         // Given
         Game inactiveGame = testGame.toBuilder().isActive(false).build();
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(inactiveGame));
-        when(gameLaunchRecordRepository.existsByUserIdAndGameId(1L, 1L)).thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGameLaunch(testUser, "GAME001"))
@@ -153,15 +163,14 @@ class GameCommandServiceImplTest {
                 .verify();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gameLaunchRecordRepository, never()).save(any(GameLaunchRecord.class));
+        verify(gameLaunchRecordRepository, never()).insertIfAbsent(any(GameLaunchRecord.class));
     }
 
     @Test
     void handleGameLaunch_shouldPublishEvent_withCorrectData() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gameLaunchRecordRepository.existsByUserIdAndGameId(1L, 1L)).thenReturn(Mono.just(false));
-        when(gameLaunchRecordRepository.save(any(GameLaunchRecord.class))).thenReturn(Mono.just(testLaunchRecord));
+        when(gameLaunchRecordRepository.insertIfAbsent(any(GameLaunchRecord.class))).thenReturn(Mono.just(true));
         when(eventPublisher.publishGameLaunchEvent(any(GameLaunchEvent.class))).thenReturn(Mono.empty());
 
         // When
@@ -178,6 +187,11 @@ class GameCommandServiceImplTest {
         assertEquals(1L, publishedEvent.gameId());
         assertEquals("GAME001", publishedEvent.gameCode());
         assertNotNull(publishedEvent.launchTime());
+
+        ArgumentCaptor<GameLaunchRecord> recordCaptor = ArgumentCaptor.forClass(GameLaunchRecord.class);
+        verify(gameLaunchRecordRepository).insertIfAbsent(recordCaptor.capture());
+        assertEquals(recordCaptor.getValue().getLaunchTime(), publishedEvent.launchTime());
+        assertEquals(0, publishedEvent.launchTime().getNano() % 1000);
     }
 
     @Test
@@ -185,8 +199,7 @@ class GameCommandServiceImplTest {
         // Given
         RuntimeException publishError = new RuntimeException("Event publishing failed");
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gameLaunchRecordRepository.existsByUserIdAndGameId(1L, 1L)).thenReturn(Mono.just(false));
-        when(gameLaunchRecordRepository.save(any(GameLaunchRecord.class))).thenReturn(Mono.just(testLaunchRecord));
+        when(gameLaunchRecordRepository.insertIfAbsent(any(GameLaunchRecord.class))).thenReturn(Mono.just(true));
         when(eventPublisher.publishGameLaunchEvent(any(GameLaunchEvent.class))).thenReturn(Mono.error(publishError));
 
         // When & Then
@@ -212,16 +225,14 @@ class GameCommandServiceImplTest {
                 .build();
 
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gameLaunchRecordRepository.existsByUserIdAndGameId(5L, 1L)).thenReturn(Mono.just(false));
-        when(gameLaunchRecordRepository.save(any(GameLaunchRecord.class))).thenReturn(Mono.just(testLaunchRecord));
+        when(gameLaunchRecordRepository.insertIfAbsent(any(GameLaunchRecord.class))).thenReturn(Mono.just(true));
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGameLaunch(ineligibleUser, "GAME001"))
                 .verifyComplete();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gameLaunchRecordRepository).existsByUserIdAndGameId(5L, 1L);
-        verify(gameLaunchRecordRepository).save(any(GameLaunchRecord.class));
+        verify(gameLaunchRecordRepository).insertIfAbsent(any(GameLaunchRecord.class));
         // Event should NOT be published for ineligible users
         verify(eventPublisher, never()).publishGameLaunchEvent(any(GameLaunchEvent.class));
     }
@@ -230,16 +241,13 @@ class GameCommandServiceImplTest {
     void handleGamePlay_shouldRecordPlay_whenUserAndGameExist() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gamePlayRecordRepository.save(any(GamePlayRecord.class))).thenReturn(Mono.just(testPlayRecord));
-        when(eventPublisher.publishGamePlayEvent(any(GamePlayEvent.class))).thenReturn(Mono.empty());
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGamePlay(testUser, "GAME001", 1500, 300))
                 .verifyComplete();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gamePlayRecordRepository).save(any(GamePlayRecord.class));
-        verify(eventPublisher).publishGamePlayEvent(any(GamePlayEvent.class));
+        verify(gamePlayRecordBuffer).submit(any(GamePlayRecord.class), any(GamePlayEvent.class));
     }
 
     @Test
@@ -255,7 +263,7 @@ class GameCommandServiceImplTest {
                 .verify();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gamePlayRecordRepository, never()).save(any(GamePlayRecord.class));
+        verify(gamePlayRecordBuffer, never()).submit(any(GamePlayRecord.class), any());
     }
 
     @Test
@@ -272,23 +280,22 @@ class GameCommandServiceImplTest {
                 .verify();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gamePlayRecordRepository, never()).save(any(GamePlayRecord.class));
+        verify(gamePlayRecordBuffer, never()).submit(any(GamePlayRecord.class), any());
     }
 
     @Test
     void handleGamePlay_shouldPublishEvent_withCorrectData() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gamePlayRecordRepository.save(any(GamePlayRecord.class))).thenReturn(Mono.just(testPlayRecord));
-        when(eventPublisher.publishGamePlayEvent(any(GamePlayEvent.class))).thenReturn(Mono.empty());
 
         // When
         StepVerifier.create(gameCommandService.handleGamePlay(testUser, "GAME001", 1500, 300))
                 .verifyComplete();
 
         // Then
+        ArgumentCaptor<GamePlayRecord> recordCaptor = ArgumentCaptor.forClass(GamePlayRecord.class);
         ArgumentCaptor<GamePlayEvent> eventCaptor = ArgumentCaptor.forClass(GamePlayEvent.class);
-        verify(eventPublisher).publishGamePlayEvent(eventCaptor.capture());
+        verify(gamePlayRecordBuffer).submit(recordCaptor.capture(), eventCaptor.capture());
 
         GamePlayEvent publishedEvent = eventCaptor.getValue();
         assertEquals(1L, publishedEvent.userId());
@@ -297,7 +304,7 @@ class GameCommandServiceImplTest {
         assertEquals("GAME001", publishedEvent.gameCode());
         assertEquals(1500, publishedEvent.score());
         assertEquals(300, publishedEvent.playDuration());
-        assertNotNull(publishedEvent.playTime());
+        assertEquals(recordCaptor.getValue().getPlayTime(), publishedEvent.playTime());
     }
 
     @Test
@@ -305,8 +312,7 @@ class GameCommandServiceImplTest {
         // Given
         RuntimeException publishError = new RuntimeException("Event publishing failed");
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gamePlayRecordRepository.save(any(GamePlayRecord.class))).thenReturn(Mono.just(testPlayRecord));
-        when(eventPublisher.publishGamePlayEvent(any(GamePlayEvent.class))).thenReturn(Mono.error(publishError));
+        when(gamePlayRecordBuffer.submit(any(GamePlayRecord.class), any(GamePlayEvent.class))).thenReturn(Mono.error(publishError));
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGamePlay(testUser, "GAME001", 1500, 300))
@@ -315,7 +321,7 @@ class GameCommandServiceImplTest {
                     throwable.getMessage().equals("Event publishing failed"))
                 .verify();
 
-        verify(eventPublisher).publishGamePlayEvent(any(GamePlayEvent.class));
+        verify(gamePlayRecordBuffer).submit(any(GamePlayRecord.class), any(GamePlayEvent.class));
     }
 
     @Test
@@ -331,24 +337,21 @@ class GameCommandServiceImplTest {
                 .build();
 
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gamePlayRecordRepository.save(any(GamePlayRecord.class))).thenReturn(Mono.just(testPlayRecord));
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGamePlay(ineligibleUser, "GAME001", 1500, 300))
                 .verifyComplete();
 
         verify(gameQueryService).findGameByCodeOrThrow("GAME001");
-        verify(gamePlayRecordRepository).save(any(GamePlayRecord.class));
         // Event should NOT be published for ineligible users
-        verify(eventPublisher, never()).publishGamePlayEvent(any(GamePlayEvent.class));
+        verify(gamePlayRecordBuffer).submit(any(GamePlayRecord.class), isNull());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void handleGamePlay_shouldSavePlayRecord_withCorrectData() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gamePlayRecordRepository.save(any(GamePlayRecord.class))).thenReturn(Mono.just(testPlayRecord));
-        when(eventPublisher.publishGamePlayEvent(any(GamePlayEvent.class))).thenReturn(Mono.empty());
 
         // When
         StepVerifier.create(gameCommandService.handleGamePlay(testUser, "GAME001", 1500, 300))
@@ -356,7 +359,7 @@ class GameCommandServiceImplTest {
 
         // Then
         ArgumentCaptor<GamePlayRecord> recordCaptor = ArgumentCaptor.forClass(GamePlayRecord.class);
-        verify(gamePlayRecordRepository).save(recordCaptor.capture());
+        verify(gamePlayRecordBuffer).submit(recordCaptor.capture(), any());
 
         GamePlayRecord savedRecord = recordCaptor.getValue();
         assertEquals(1L, savedRecord.getUserId());
@@ -369,8 +372,7 @@ class GameCommandServiceImplTest {
     void handleGameLaunch_shouldSaveLaunchRecord_withCorrectData() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gameLaunchRecordRepository.existsByUserIdAndGameId(1L, 1L)).thenReturn(Mono.just(false));
-        when(gameLaunchRecordRepository.save(any(GameLaunchRecord.class))).thenReturn(Mono.just(testLaunchRecord));
+        when(gameLaunchRecordRepository.insertIfAbsent(any(GameLaunchRecord.class))).thenReturn(Mono.just(true));
         when(eventPublisher.publishGameLaunchEvent(any(GameLaunchEvent.class))).thenReturn(Mono.empty());
 
         // When
@@ -379,7 +381,7 @@ class GameCommandServiceImplTest {
 
         // Then
         ArgumentCaptor<GameLaunchRecord> recordCaptor = ArgumentCaptor.forClass(GameLaunchRecord.class);
-        verify(gameLaunchRecordRepository).save(recordCaptor.capture());
+        verify(gameLaunchRecordRepository).insertIfAbsent(recordCaptor.capture());
 
         GameLaunchRecord savedRecord = recordCaptor.getValue();
         assertEquals(1L, savedRecord.getUserId());
@@ -390,15 +392,13 @@ class GameCommandServiceImplTest {
     void handleGamePlay_shouldHandleNullPlayDuration() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gamePlayRecordRepository.save(any(GamePlayRecord.class))).thenReturn(Mono.just(testPlayRecord));
-        when(eventPublisher.publishGamePlayEvent(any(GamePlayEvent.class))).thenReturn(Mono.empty());
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGamePlay(testUser, "GAME001", 1500, null))
                 .verifyComplete();
 
         ArgumentCaptor<GamePlayRecord> recordCaptor = ArgumentCaptor.forClass(GamePlayRecord.class);
-        verify(gamePlayRecordRepository).save(recordCaptor.capture());
+        verify(gamePlayRecordBuffer).submit(recordCaptor.capture(), any());
 
         GamePlayRecord savedRecord = recordCaptor.getValue();
         assertNull(savedRecord.getPlayDuration());
@@ -408,15 +408,13 @@ class GameCommandServiceImplTest {
     void handleGamePlay_shouldHandleZeroScore() {
         // Given
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gamePlayRecordRepository.save(any(GamePlayRecord.class))).thenReturn(Mono.just(testPlayRecord));
-        when(eventPublisher.publishGamePlayEvent(any(GamePlayEvent.class))).thenReturn(Mono.empty());
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGamePlay(testUser, "GAME001", 0, 300))
                 .verifyComplete();
 
         ArgumentCaptor<GamePlayRecord> recordCaptor = ArgumentCaptor.forClass(GamePlayRecord.class);
-        verify(gamePlayRecordRepository).save(recordCaptor.capture());
+        verify(gamePlayRecordBuffer).submit(recordCaptor.capture(), any());
 
         GamePlayRecord savedRecord = recordCaptor.getValue();
         assertEquals(0, savedRecord.getScore());
@@ -427,8 +425,7 @@ class GameCommandServiceImplTest {
         // Given
         RuntimeException repositoryError = new RuntimeException("Database error");
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gameLaunchRecordRepository.existsByUserIdAndGameId(1L, 1L)).thenReturn(Mono.just(false));
-        when(gameLaunchRecordRepository.save(any(GameLaunchRecord.class))).thenReturn(Mono.error(repositoryError));
+        when(gameLaunchRecordRepository.insertIfAbsent(any(GameLaunchRecord.class))).thenReturn(Mono.error(repositoryError));
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGameLaunch(testUser, "GAME001"))
@@ -437,7 +434,8 @@ class GameCommandServiceImplTest {
                     throwable.getMessage().equals("Database error"))
                 .verify();
 
-        verify(gameLaunchRecordRepository).save(any(GameLaunchRecord.class));
+        verify(gameLaunchRecordRepository).insertIfAbsent(any(GameLaunchRecord.class));
+        verify(launchedGamesService, never()).markLaunched(anyLong(), anyLong());
         verify(eventPublisher, never()).publishGameLaunchEvent(any(GameLaunchEvent.class));
     }
 
@@ -446,7 +444,7 @@ class GameCommandServiceImplTest {
         // Given
         RuntimeException repositoryError = new RuntimeException("Database error");
         when(gameQueryService.findGameByCodeOrThrow("GAME001")).thenReturn(Mono.just(testGame));
-        when(gamePlayRecordRepository.save(any(GamePlayRecord.class))).thenReturn(Mono.error(repositoryError));
+        when(gamePlayRecordBuffer.submit(any(GamePlayRecord.class), any())).thenReturn(Mono.error(repositoryError));
 
         // When & Then
         StepVerifier.create(gameCommandService.handleGamePlay(testUser, "GAME001", 1500, 300))
@@ -455,7 +453,6 @@ class GameCommandServiceImplTest {
                     throwable.getMessage().equals("Database error"))
                 .verify();
 
-        verify(gamePlayRecordRepository).save(any(GamePlayRecord.class));
-        verify(eventPublisher, never()).publishGamePlayEvent(any(GamePlayEvent.class));
+        verify(gamePlayRecordBuffer).submit(any(GamePlayRecord.class), any(GamePlayEvent.class));
     }
 }
@@ -0,0 +1,255 @@
+package com.example.demo.game.application.service;
+
+import com.example.demo.game.domain.model.GamePlayRecord;
+import com.example.demo.game.domain.repository.GamePlayRecordRepository;
+import com.example.demo.shared.application.dto.event.GamePlayEvent;
+import com.example.demo.shared.infrastructure.message.EventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GamePlayRecordBufferTest {
+
+    @Mock
+    private GamePlayRecordRepository gamePlayRecordRepository;
+
+    @Mock
+    private EventPublisher eventPublisher;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GamePlayRecordBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(eventPublisher.publishGamePlayEvents(anyList())).thenReturn(Mono.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.destroy();
+        }
+    }
+
+    @Test
+    void submit_shouldSaveDirectly_whenBufferDisabled() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, false, 10, 5, 20, 1_000);
+        GamePlayRecord record = GamePlayRecord.create(1L, 1L, 100, 30);
+        when(gamePlayRecordRepository.save(record)).thenReturn(Mono.just(record));
+
+        // When & Then
+        StepVerifier.create(buffer.submit(record, null))
+                .verifyComplete();
+
+        verify(gamePlayRecordRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_shouldWriteOneMultiRowInsert_whenBatchIsFull() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, true, 10, 3, 60_000, 1_000);
+        buffer.afterPropertiesSet();
+        when(gamePlayRecordRepository.insertAll(anyList())).thenReturn(Mono.just(3L));
+
+        // When
+        Flux<Void> submissions = Flux.range(1, 3)
+                .flatMap(i -> buffer.submit(GamePlayRecord.create((long) i, 1L, 100 * i, 30), null));
+
+        // Then
+        StepVerifier.create(submissions)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        ArgumentCaptor<List<GamePlayRecord>> batch = ArgumentCaptor.forClass(List.class);
+        verify(gamePlayRecordRepository, times(1)).insertAll(batch.capture());
+        assertEquals(3, batch.getValue().size());
+        verify(gamePlayRecordRepository, never()).save(any());
+        assertEquals(1.0, meterRegistry.counter("game.play.buffer.batches").count());
+    }
+
+    @Test
+    void submit_shouldFlushPartialBatch_afterInterval() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, true, 10, 100, 20, 1_000);
+        buffer.afterPropertiesSet();
+        when(gamePlayRecordRepository.insertAll(anyList())).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(buffer.submit(GamePlayRecord.create(1L, 1L, 100, 30), null))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        verify(gamePlayRecordRepository).insertAll(anyList());
+    }
+
+    @Test
+    void submit_shouldWaitForSpace_whenBufferIsFull() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, true, 1, 100, 20, 1_000);
+        buffer.afterPropertiesSet();
+        GamePlayRecord queued = GamePlayRecord.create(1L, 1L, 100, 30);
+        GamePlayRecord waiting = GamePlayRecord.create(2L, 1L, 100, 30);
+        when(gamePlayRecordRepository.insertAll(anyList())).thenReturn(Mono.just(1L));
+
+        // When
+        Mono<Void> first = buffer.submit(queued, null);
+        Mono<Void> second = buffer.submit(waiting, null);
+
+        // Then
+        StepVerifier.create(first.then(second))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        verify(gamePlayRecordRepository).insertAll(List.of(queued));
+        verify(gamePlayRecordRepository).insertAll(List.of(waiting));
+        verify(gamePlayRecordRepository, never()).save(any());
+    }
+
+    @Test
+    void submit_shouldReject_whenBufferStaysFull() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, true, 1, 100, 60_000, 50);
+        GamePlayRecord inFlight = GamePlayRecord.create(1L, 1L, 100, 30);
+        GamePlayRecord queued = GamePlayRecord.create(2L, 1L, 100, 30);
+        GamePlayRecord rejected = GamePlayRecord.create(3L, 1L, 100, 30);
+        when(gamePlayRecordRepository.insertAll(anyList())).thenReturn(Mono.never(), Mono.just(1L));
+        buffer.submit(inFlight, null).subscribe();
+        StepVerifier.create(buffer.submit(queued, null))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify();
+
+        // When & Then
+        StepVerifier.create(buffer.submit(rejected, null))
+                .expectError(GamePlayRecordBuffer.BufferFullException.class)
+                .verify(Duration.ofSeconds(5));
+        verify(gamePlayRecordRepository, never()).save(any());
+        verify(gamePlayRecordRepository, never()).insertAll(List.of(rejected));
+        assertEquals(1.0, meterRegistry.counter("game.play.buffer.records", "result", "rejected").count());
+    }
+
+    @Test
+    void submit_shouldPropagateError_toEveryRecordInFailedBatch() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, true, 10, 2, 60_000, 1_000);
+        when(gamePlayRecordRepository.insertAll(anyList())).thenReturn(Mono.error(new RuntimeException("Database error")));
+
+        // When
+        Mono<Void> first = buffer.submit(GamePlayRecord.create(1L, 1L, 100, 30), null);
+        Mono<Void> second = buffer.submit(GamePlayRecord.create(2L, 1L, 100, 30), null);
+
+        // Then
+        StepVerifier.create(first)
+                .expectErrorMessage("Database error")
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(second)
+                .expectErrorMessage("Database error")
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_shouldWriteRecordsAndEvents_inOneTransaction() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, true, 10, 2, 60_000, 1_000);
+        when(gamePlayRecordRepository.insertAll(anyList())).thenReturn(Mono.just(2L));
+        GamePlayRecord eligible = GamePlayRecord.create(1L, 1L, 100, 30);
+        GamePlayEvent event = playEvent(eligible);
+
+        // When
+        Mono<Void> first = buffer.submit(eligible, event);
+        Mono<Void> second = buffer.submit(GamePlayRecord.create(2L, 1L, 100, 30), null);
+
+        // Then
+        StepVerifier.create(first.then(second))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        verify(transactionalOperator, times(1)).transactional(any(Mono.class));
+        verify(gamePlayRecordRepository, times(1)).insertAll(anyList());
+        verify(eventPublisher).publishGamePlayEvents(List.of(event));
+    }
+
+    @Test
+    void submit_shouldFailWholeBatch_whenOutboxWriteFails() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, true, 10, 1, 60_000, 1_000);
+        GamePlayRecord record = GamePlayRecord.create(1L, 1L, 100, 30);
+        when(gamePlayRecordRepository.insertAll(anyList())).thenReturn(Mono.just(1L));
+        when(eventPublisher.publishGamePlayEvents(anyList())).thenReturn(Mono.error(new RuntimeException("Outbox error")));
+
+        // When & Then
+        StepVerifier.create(buffer.submit(record, playEvent(record)))
+                .expectErrorMessage("Outbox error")
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0.0, meterRegistry.counter("game.play.buffer.batches").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_shouldSaveRecordAndEventInOneTransaction_whenBufferDisabled() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, false, 10, 5, 20, 1_000);
+        GamePlayRecord record = GamePlayRecord.create(1L, 1L, 100, 30);
+        GamePlayEvent event = playEvent(record);
+        when(gamePlayRecordRepository.save(record)).thenReturn(Mono.just(record));
+
+        // When & Then
+        StepVerifier.create(buffer.submit(record, event))
+                .verifyComplete();
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+        verify(eventPublisher).publishGamePlayEvents(List.of(event));
+    }
+
+    @Test
+    void destroy_shouldFlushRemainingRecords() {
+        // Given
+        buffer = new GamePlayRecordBuffer(gamePlayRecordRepository, eventPublisher, transactionalOperator, meterRegistry, true, 10, 100, 60_000, 1_000);
+        buffer.afterPropertiesSet();
+        when(gamePlayRecordRepository.insertAll(anyList())).thenReturn(Mono.just(2L));
+        Mono<Void> first = buffer.submit(GamePlayRecord.create(1L, 1L, 100, 30), null);
+        Mono<Void> second = buffer.submit(GamePlayRecord.create(2L, 1L, 100, 30), null);
+
+        // When
+        buffer.destroy();
+
+        // Then
+        StepVerifier.create(first.then(second))
+                .verifyComplete();
+        verify(gamePlayRecordRepository, times(1)).insertAll(anyList());
+    }
+
+    private GamePlayEvent playEvent(GamePlayRecord record) {
+        return new GamePlayEvent(record.getUserId(), "user" + record.getUserId(), record.getGameId(), "GAME001",
+                record.getScore(), record.getPlayDuration(), record.getPlayTime());
+    }
+}
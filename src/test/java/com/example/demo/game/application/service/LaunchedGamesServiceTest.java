@@ -0,0 +1,157 @@
+package com.example.demo.game.application.service;
+
+import com.example.demo.game.domain.repository.GameLaunchRecordRepository;
+import com.example.demo.shared.infrastructure.redis.RedisService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.reactive.TransactionContextManager;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LaunchedGamesServiceTest {
+
+    private static final String KEY = "user:launched:games:1";
+    private static final long TTL_SECONDS = 7 * 24 * 3600L;
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private GameLaunchRecordRepository gameLaunchRecordRepository;
+
+    @InjectMocks
+    private LaunchedGamesService launchedGamesService;
+
+    @Test
+    void isLaunched_shouldReturnTrue_whenGameInSet() {
+        // Given
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L)))
+            .thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(launchedGamesService.isLaunched(1L, 5L))
+            .expectNext(true)
+            .verifyComplete();
+
+        verifyNoInteractions(gameLaunchRecordRepository);
+    }
+
+    @Test
+    void isLaunched_shouldRebuildSetFromHistory_whenSetIsMissing() {
+        // Given
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L)))
+            .thenReturn(Mono.just(-1L));
+        when(gameLaunchRecordRepository.findLaunchedGameIds(1L)).thenReturn(Flux.just(2L));
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L), eq(0L), eq(2L)))
+            .thenReturn(Mono.just(0L));
+
+        // When & Then
+        StepVerifier.create(launchedGamesService.isLaunched(1L, 5L))
+            .expectNext(false)
+            .verifyComplete();
+    }
+
+    @Test
+    void isLaunched_shouldDeferToDatabase_whenRedisFails() {
+        // Given
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L)))
+            .thenReturn(Mono.error(new RuntimeException("Redis down")));
+
+        // When & Then
+        StepVerifier.create(launchedGamesService.isLaunched(1L, 5L))
+            .expectNext(false)
+            .verifyComplete();
+    }
+
+    @Test
+    void markLaunched_shouldAddImmediately_whenNotInTransaction() {
+        // Given
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L)))
+            .thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(launchedGamesService.markLaunched(1L, 5L))
+            .verifyComplete();
+
+        verify(redisService).executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L));
+    }
+
+    @Test
+    void markLaunched_shouldDeferUntilCommit_whenInTransaction() {
+        // Given
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L)))
+            .thenReturn(Mono.just(1L));
+        Mono<List<TransactionSynchronization>> registered = TransactionSynchronizationManager.forCurrentTransaction()
+            .flatMap(synchronizationManager -> {
+                synchronizationManager.initSynchronization();
+                return launchedGamesService.markLaunched(1L, 5L)
+                    .then(Mono.fromCallable(synchronizationManager::getSynchronizations));
+            })
+            .contextWrite(TransactionContextManager.createTransactionContext());
+
+        // When & Then
+        StepVerifier.create(registered)
+            .assertNext(synchronizations -> {
+                assertEquals(1, synchronizations.size());
+                verifyNoInteractions(redisService);
+                StepVerifier.create(synchronizations.get(0).afterCommit()).verifyComplete();
+            })
+            .verifyComplete();
+
+        verify(redisService).executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L));
+    }
+
+    @Test
+    void markLaunched_shouldIgnoreRedisErrors() {
+        // Given
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(5L)))
+            .thenReturn(Mono.error(new RuntimeException("Redis down")));
+
+        // When & Then
+        StepVerifier.create(launchedGamesService.markLaunched(1L, 5L))
+            .verifyComplete();
+    }
+
+    @Test
+    void countLaunchedGames_shouldRebuildWithPlaceholderOnly_whenUserHasNoHistory() {
+        // Given
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(0L)))
+            .thenReturn(Mono.just(-1L));
+        when(gameLaunchRecordRepository.findLaunchedGameIds(1L)).thenReturn(Flux.empty());
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(0L), eq(0L)))
+            .thenReturn(Mono.just(0L));
+
+        // When & Then
+        StepVerifier.create(launchedGamesService.countLaunchedGames(1L))
+            .expectNext(0L)
+            .verifyComplete();
+    }
+
+    @Test
+    void countLaunchedGames_shouldFallBackToDatabase_whenRedisFails() {
+        // Given
+        when(redisService.executeScript(any(RedisScript.class), eq(List.of(KEY)), eq(TTL_SECONDS), eq(0L)))
+            .thenReturn(Mono.error(new RuntimeException("Redis down")));
+        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(1L)).thenReturn(Mono.just(3L));
+
+        // When & Then
+        StepVerifier.create(launchedGamesService.countLaunchedGames(1L))
+            .expectNext(3L)
+            .verifyComplete();
+    }
+}
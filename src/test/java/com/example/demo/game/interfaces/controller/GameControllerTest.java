@@ -1,5 +1,6 @@
 package com.example.demo.game.interfaces.controller;
 
+import com.example.demo.game.application.service.GamePlayRecordBuffer;
 import com.example.demo.game.application.service.impl.GameCommandServiceImpl;
 import com.example.demo.shared.application.dto.LaunchGameRequest;
 import com.example.demo.shared.application.dto.PlayGameRequest;
@@ -11,9 +12,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -212,6 +216,23 @@ class GameControllerTest {
         verify(gameCommandService).handleGamePlay(testUser, "GAME001", 1500, 300);
     }
 
+    @Test
+    void playGame_shouldRespondServiceUnavailable_whenPlayRecordBufferIsFull() {
+        // Given
+        PlayGameRequest request = new PlayGameRequest("testuser", "GAME001", 1500, 300);
+        when(userQueryService.getUserByUsername("testuser")).thenReturn(Mono.just(testUser));
+        when(gameCommandService.handleGamePlay(testUser, "GAME001", 1500, 300))
+                .thenReturn(Mono.error(new GamePlayRecordBuffer.BufferFullException(Duration.ofSeconds(1))));
+
+        // When & Then
+        StepVerifier.create(gameController.playGame(request))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(ResponseStatusException.class, e);
+                    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseStatusException) e).getStatusCode());
+                })
+                .verify();
+    }
+
     @Test
     void playGame_shouldReturnError_whenUserQueryServiceFails() {
         // Given
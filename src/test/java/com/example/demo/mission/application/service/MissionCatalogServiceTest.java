@@ -0,0 +1,134 @@
+package com.example.demo.mission.application.service;
+
+import com.example.demo.mission.domain.model.MissionCatalog;
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.repository.MissionCatalogRepository;
+import com.example.demo.mission.domain.repository.MissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MissionCatalogServiceTest {
+
+    @Mock
+    private MissionCatalogRepository missionCatalogRepository;
+
+    @Mock
+    private MissionRepository missionRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache missionsCache;
+
+    private MissionCatalogService missionCatalogService;
+
+    @BeforeEach
+    void setUp() {
+        missionCatalogService = new MissionCatalogService(missionCatalogRepository, missionRepository, cacheManager, 3, 3, 3, 1000, 0);
+        lenient().when(missionRepository.retargetIncomplete(any(MissionDefinition.class))).thenReturn(Mono.just(0L));
+        lenient().when(cacheManager.getCache("missions")).thenReturn(missionsCache);
+    }
+
+    @Test
+    void current_shouldUseConfiguredDefaults_beforeCatalogIsLoaded() {
+        // When
+        MissionCatalog catalog = missionCatalogService.current();
+
+        // Then
+        assertEquals(EnumSet.allOf(MissionType.class), catalog.missionTypes());
+        assertEquals(3, catalog.evaluate(MissionType.PLAY_GAMES, 3, 1000));
+        assertEquals(2, catalog.evaluate(MissionType.PLAY_GAMES, 3, 999));
+        assertEquals(1, catalog.evaluate(MissionType.PLAY_GAMES, 1, 5000));
+        verifyNoInteractions(missionCatalogRepository);
+    }
+
+    @Test
+    void reloadIfChanged_shouldCompileAndSwapCatalog_whenVersionChanged() {
+        // Given
+        when(missionCatalogRepository.findVersion()).thenReturn(Mono.just("2@2025-11-01T10:00"));
+        when(missionCatalogRepository.findAllEnabled()).thenReturn(Flux.just(
+            new MissionDefinition(MissionType.CONSECUTIVE_LOGIN, 5, 0, 10),
+            new MissionDefinition(MissionType.PLAY_GAMES, 4, 2000, 20)));
+
+        // When & Then
+        StepVerifier.create(missionCatalogService.reloadIfChanged())
+            .expectNextCount(1)
+            .verifyComplete();
+
+        MissionCatalog catalog = missionCatalogService.current();
+        assertEquals("2@2025-11-01T10:00", catalog.version());
+        assertEquals(EnumSet.of(MissionType.CONSECUTIVE_LOGIN, MissionType.PLAY_GAMES), catalog.missionTypes());
+        assertEquals(5, catalog.definition(MissionType.CONSECUTIVE_LOGIN).targetProgress());
+        assertEquals(3, catalog.evaluate(MissionType.PLAY_GAMES, 4, 1999));
+        verify(missionRepository).retargetIncomplete(new MissionDefinition(MissionType.CONSECUTIVE_LOGIN, 5, 0, 10));
+        verify(missionRepository).retargetIncomplete(new MissionDefinition(MissionType.PLAY_GAMES, 4, 2000, 20));
+        verify(missionsCache).clear();
+    }
+
+    @Test
+    void reloadIfChanged_shouldKeepPreviousCatalog_whenRetargetingMissionsFails() {
+        // Given
+        when(missionCatalogRepository.findVersion()).thenReturn(Mono.just("2@2025-11-01T10:00"));
+        when(missionCatalogRepository.findAllEnabled()).thenReturn(Flux.just(
+            new MissionDefinition(MissionType.PLAY_GAMES, 4, 2000, 20)));
+        when(missionRepository.retargetIncomplete(any(MissionDefinition.class)))
+            .thenReturn(Mono.error(new RuntimeException("Database error")));
+        MissionCatalog before = missionCatalogService.current();
+
+        // When & Then
+        StepVerifier.create(missionCatalogService.reloadIfChanged())
+            .expectErrorMessage("Database error")
+            .verify();
+
+        assertSame(before, missionCatalogService.current());
+        verify(missionsCache, never()).clear();
+    }
+
+    @Test
+    void reloadIfChanged_shouldNotReloadDefinitions_whenVersionUnchanged() {
+        // Given
+        when(missionCatalogRepository.findVersion()).thenReturn(Mono.just("fallback"));
+        MissionCatalog before = missionCatalogService.current();
+
+        // When & Then
+        StepVerifier.create(missionCatalogService.reloadIfChanged())
+            .verifyComplete();
+
+        assertSame(before, missionCatalogService.current());
+        verify(missionCatalogRepository, never()).findAllEnabled();
+        verifyNoInteractions(missionRepository);
+    }
+
+    @Test
+    void reloadIfChanged_shouldFallBackToDefaults_whenCatalogIsEmpty() {
+        // Given
+        when(missionCatalogRepository.findVersion()).thenReturn(Mono.just("0@"));
+        when(missionCatalogRepository.findAllEnabled()).thenReturn(Flux.empty());
+
+        // When & Then
+        StepVerifier.create(missionCatalogService.reloadIfChanged())
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertEquals("0@", missionCatalogService.current().version());
+        assertEquals(3, missionCatalogService.current().size());
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.demo.mission.application.service;
 
-import com.example.demo.game.domain.repository.GameLaunchRecordRepository;
+import com.example.demo.game.application.service.LaunchedGamesService;
 import com.example.demo.game.domain.repository.GamePlayRecordRepository;
 import com.example.demo.mission.application.service.impl.MissionCommandServiceImpl;
 import com.example.demo.mission.domain.model.Mission;
+import com.example.demo.mission.domain.model.MissionCatalog;
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
 import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.model.RewardType;
+import com.example.demo.mission.domain.model.UserMissionStats;
 import com.example.demo.mission.domain.repository.MissionRepository;
+import com.example.demo.mission.domain.repository.RewardLedgerRepository;
+import com.example.demo.mission.domain.repository.UserMissionStatsRepository;
 import com.example.demo.shared.application.dto.event.MissionCompletedEvent;
 import com.example.demo.shared.infrastructure.message.EventPublisher;
+import com.example.demo.shared.infrastructure.redis.RedisService;
 import com.example.demo.user.application.service.UserQueryService;
 import com.example.demo.user.domain.model.User;
 import com.example.demo.user.domain.repository.UserRepository;
@@ -15,15 +23,25 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionContextManager;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,11 +53,17 @@ class MissionCommandServiceTest {
     @Mock
     private MissionRepository missionRepository;
 
+    @Mock
+    private UserMissionStatsRepository userMissionStatsRepository;
+
+    @Mock
+    private RewardLedgerRepository rewardLedgerRepository;
+
     @Mock
     private UserRepository userRepository;
 
     @Mock
-    private GameLaunchRecordRepository gameLaunchRecordRepository;
+    private LaunchedGamesService launchedGamesService;
 
     @Mock
     private GamePlayRecordRepository gamePlayRecordRepository;
@@ -50,9 +74,24 @@ class MissionCommandServiceTest {
     @Mock
     private EventPublisher eventPublisher;
 
+    @Mock
+    private MissionCatalogService missionCatalogService;
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private MissionStateStore missionStateStore;
+
+    @Mock
+    private MissionStateFlusher missionStateFlusher;
+
     @InjectMocks
     private MissionCommandServiceImpl missionCommandService;
 
+    private static final Set<MissionType> ALL_MISSION_TYPES = EnumSet.allOf(MissionType.class);
+    private static final LocalDateTime EVENT_TIME = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123456000);
+
     private User testUser;
     private Mission consecutiveLoginMission;
     private Mission launchGamesMission;
@@ -61,11 +100,11 @@ class MissionCommandServiceTest {
     @BeforeEach
     void setUp() {
         // Set configuration values
-        ReflectionTestUtils.setField(missionCommandService, "consecutiveLoginDays", 3);
-        ReflectionTestUtils.setField(missionCommandService, "launchGamesCount", 3);
-        ReflectionTestUtils.setField(missionCommandService, "playGamesCount", 3);
-        ReflectionTestUtils.setField(missionCommandService, "playGamesMinScore", 1000);
         ReflectionTestUtils.setField(missionCommandService, "completionRewardPoints", 777);
+        lenient().when(missionCatalogService.current()).thenReturn(MissionCatalog.compile("test", List.of(
+                new MissionDefinition(MissionType.CONSECUTIVE_LOGIN, 3, 0, 0),
+                new MissionDefinition(MissionType.LAUNCH_GAMES, 3, 0, 0),
+                new MissionDefinition(MissionType.PLAY_GAMES, 3, 1000, 0))));
 
         testUser = User.builder()
                 .id(1L)
@@ -120,32 +159,48 @@ class MissionCommandServiceTest {
     void initializeMissions_shouldCreateMissions_whenUserHasNoMissions() {
         // Given
         Long userId = 1L;
-        when(missionRepository.existsByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(false));
-        when(missionRepository.save(any(Mission.class)))
-                .thenReturn(Mono.just(consecutiveLoginMission));
+        when(redisService.hasKey("mission:initialized:1:test")).thenReturn(Mono.just(false));
+        when(missionRepository.insertAllIfAbsent(anyList())).thenReturn(Mono.just(3L));
+        when(redisService.setIfAbsent(eq("mission:initialized:1:test"), anyString(), any(Duration.class)))
+                .thenReturn(Mono.just(true));
 
         // When & Then
         StepVerifier.create(missionCommandService.initializeMissions(userId))
                 .verifyComplete();
 
-        verify(missionRepository).existsByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN);
-        verify(missionRepository, times(3)).save(any(Mission.class));
+        verify(missionRepository, times(1)).insertAllIfAbsent(anyList());
+        verify(missionRepository, never()).save(any(Mission.class));
+        verify(redisService).setIfAbsent(eq("mission:initialized:1:test"), anyString(), any(Duration.class));
     }
 
     @Test
-    void initializeMissions_shouldNotCreateMissions_whenUserAlreadyHasMissions() {
+    void initializeMissions_shouldNotQueryDatabase_whenInitializedMarkerExists() {
         // Given
         Long userId = 1L;
-        when(missionRepository.existsByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(true));
+        when(redisService.hasKey("mission:initialized:1:test")).thenReturn(Mono.just(true));
 
         // When & Then
         StepVerifier.create(missionCommandService.initializeMissions(userId))
                 .verifyComplete();
 
-        verify(missionRepository).existsByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN);
-        verify(missionRepository, never()).save(any(Mission.class));
+        verifyNoInteractions(missionRepository);
+        verify(redisService, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void initializeMissions_shouldStillInitialize_whenRedisIsUnavailable() {
+        // Given
+        Long userId = 1L;
+        when(redisService.hasKey("mission:initialized:1:test")).thenReturn(Mono.error(new RuntimeException("Redis down")));
+        when(missionRepository.insertAllIfAbsent(anyList())).thenReturn(Mono.just(0L));
+        when(redisService.setIfAbsent(eq("mission:initialized:1:test"), anyString(), any(Duration.class)))
+                .thenReturn(Mono.error(new RuntimeException("Redis down")));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.initializeMissions(userId))
+                .verifyComplete();
+
+        verify(missionRepository).insertAllIfAbsent(anyList());
     }
 
     @Test
@@ -154,59 +209,80 @@ class MissionCommandServiceTest {
         Long userId = 1L;
         String userName = "testuser";
 
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(consecutiveLoginMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES))
-                .thenReturn(Mono.just(launchGamesMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES))
-                .thenReturn(Mono.just(playGamesMission));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
 
         when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(2));
-        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)).thenReturn(Mono.just(2L));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(800));
 
-        when(missionRepository.save(any(Mission.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(false));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(missionCommandService.updateMissionProgress(userId, userName))
                 .verifyComplete();
 
         verify(userQueryService).getConsecutiveLoginDays(userId);
-        verify(gameLaunchRecordRepository).countDistinctGamesLaunchedByUser(userId);
+        verify(launchedGamesService).countLaunchedGames(userId);
         verify(gamePlayRecordRepository).countByUserId(userId);
         verify(gamePlayRecordRepository).sumScoreByUserId(userId);
-        verify(missionRepository, times(3)).save(any(Mission.class));
+        verify(missionRepository).saveAll(anyList());
     }
 
     @Test
     void updateConsecutiveLoginMission_shouldCompleteMission_whenTargetReached() {
         // Given
         Long userId = 1L;
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(consecutiveLoginMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES))
-                .thenReturn(Mono.just(launchGamesMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES))
-                .thenReturn(Mono.just(playGamesMission));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(3));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(2L));
+        when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(2L));
+        when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(800));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(userRepository.findById(userId)).thenReturn(Mono.just(testUser));
+        when(eventPublisher.publishMissionCompletedEvent(any(MissionCompletedEvent.class)))
+                .thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.updateMissionProgress(userId, "testuser"))
+                .verifyComplete();
+
+        verify(eventPublisher).publishMissionCompletedEvent(any(MissionCompletedEvent.class));
+    }
+
+    @Test
+    void updateMissionProgress_shouldRetargetIncompleteMission_whenCatalogTargetChanged() {
+        // Given
+        Long userId = 1L;
+        consecutiveLoginMission.setTargetProgress(5);
+        consecutiveLoginMission.setRewardPoints(50);
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
         when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(3));
-        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)).thenReturn(Mono.just(2L));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(800));
-        when(missionRepository.save(any(Mission.class))).thenAnswer(invocation -> {
-            Mission saved = invocation.getArgument(0);
-            return Mono.just(saved);
-        });
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
         when(userRepository.findById(userId)).thenReturn(Mono.just(testUser));
         when(eventPublisher.publishMissionCompletedEvent(any(MissionCompletedEvent.class)))
                 .thenReturn(Mono.empty());
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(false));
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(missionCommandService.updateMissionProgress(userId, "testuser"))
                 .verifyComplete();
 
+        assertEquals(3, consecutiveLoginMission.getTargetProgress());
+        assertEquals(0, consecutiveLoginMission.getRewardPoints());
+        assertTrue(consecutiveLoginMission.getIsCompleted());
+        assertTrue(consecutiveLoginMission.changedFields().contains(Mission.Field.TARGET_PROGRESS));
         verify(eventPublisher).publishMissionCompletedEvent(any(MissionCompletedEvent.class));
     }
 
@@ -214,24 +290,18 @@ class MissionCommandServiceTest {
     void updateLaunchGamesMission_shouldCompleteMission_whenTargetReached() {
         // Given
         Long userId = 1L;
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(consecutiveLoginMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES))
-                .thenReturn(Mono.just(launchGamesMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES))
-                .thenReturn(Mono.just(playGamesMission));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
         when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(2));
-        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)).thenReturn(Mono.just(3L));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(3L));
         when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(800));
-        when(missionRepository.save(any(Mission.class))).thenAnswer(invocation -> {
-            Mission saved = invocation.getArgument(0);
-            return Mono.just(saved);
-        });
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
         when(userRepository.findById(userId)).thenReturn(Mono.just(testUser));
         when(eventPublisher.publishMissionCompletedEvent(any(MissionCompletedEvent.class)))
                 .thenReturn(Mono.empty());
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(false));
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(missionCommandService.updateMissionProgress(userId, "testuser"))
@@ -244,24 +314,18 @@ class MissionCommandServiceTest {
     void updatePlayGamesMission_shouldCompleteMission_whenBothConditionsMet() {
         // Given
         Long userId = 1L;
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(consecutiveLoginMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES))
-                .thenReturn(Mono.just(launchGamesMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES))
-                .thenReturn(Mono.just(playGamesMission));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
         when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(2));
-        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)).thenReturn(Mono.just(2L));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(3L));
         when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(1500));
-        when(missionRepository.save(any(Mission.class))).thenAnswer(invocation -> {
-            Mission saved = invocation.getArgument(0);
-            return Mono.just(saved);
-        });
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
         when(userRepository.findById(userId)).thenReturn(Mono.just(testUser));
         when(eventPublisher.publishMissionCompletedEvent(any(MissionCompletedEvent.class)))
                 .thenReturn(Mono.empty());
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(false));
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(missionCommandService.updateMissionProgress(userId, "testuser"))
@@ -306,31 +370,17 @@ class MissionCommandServiceTest {
         Long userId = 1L;
         String userName = "testuser";
 
-        Mission completedMission1 = consecutiveLoginMission.toBuilder()
-                .isCompleted(true)
-                .completedAt(LocalDateTime.now())
-                .build();
-        Mission completedMission2 = launchGamesMission.toBuilder()
-                .isCompleted(true)
-                .completedAt(LocalDateTime.now())
-                .build();
-        Mission completedMission3 = playGamesMission.toBuilder()
-                .isCompleted(true)
-                .completedAt(LocalDateTime.now())
-                .build();
-
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(true));
-        when(userRepository.addPoints(userId, 777)).thenReturn(Mono.empty());
-        when(missionRepository.findByUserId(userId))
-                .thenReturn(Flux.just(completedMission1, completedMission2, completedMission3));
-        when(missionRepository.save(any(Mission.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(true));
 
         // When & Then
         StepVerifier.create(missionCommandService.checkAndDistributeRewards(userId, userName))
                 .verifyComplete();
 
-        verify(userRepository).addPoints(userId, 777);
-        verify(missionRepository, times(3)).save(any(Mission.class));
+        verify(rewardLedgerRepository).claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777);
+        verify(userRepository, never()).addPoints(anyLong(), anyInt());
+        verify(missionRepository, never()).findByUserId(anyLong());
+        verify(missionRepository, never()).saveAll(anyList());
     }
 
     @Test
@@ -338,14 +388,15 @@ class MissionCommandServiceTest {
         // Given
         Long userId = 1L;
         String userName = "testuser";
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(false));
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(missionCommandService.checkAndDistributeRewards(userId, userName))
                 .verifyComplete();
 
         verify(userRepository, never()).addPoints(anyLong(), anyInt());
-        verify(missionRepository, never()).save(any(Mission.class));
+        verify(missionRepository, never()).saveAll(anyList());
     }
 
     @Test
@@ -358,18 +409,15 @@ class MissionCommandServiceTest {
                 .thenReturn(Mono.empty());
 
         // When & Then - Testing through updateMissionProgress which calls publishMissionCompletedEvent
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(consecutiveLoginMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES))
-                .thenReturn(Mono.just(launchGamesMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES))
-                .thenReturn(Mono.just(playGamesMission));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
         when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(3));
-        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)).thenReturn(Mono.just(2L));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(800));
-        when(missionRepository.save(any(Mission.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(false));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
 
         StepVerifier.create(missionCommandService.updateMissionProgress(userId, "testuser"))
                 .verifyComplete();
@@ -391,18 +439,15 @@ class MissionCommandServiceTest {
         when(eventPublisher.publishMissionCompletedEvent(any(MissionCompletedEvent.class)))
                 .thenReturn(Mono.error(new RuntimeException("Event publishing failed")));
 
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(consecutiveLoginMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES))
-                .thenReturn(Mono.just(launchGamesMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES))
-                .thenReturn(Mono.just(playGamesMission));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
         when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(3));
-        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)).thenReturn(Mono.just(2L));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(800));
-        when(missionRepository.save(any(Mission.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(false));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
 
         // When & Then - Should complete successfully despite event error (onErrorResume)
         StepVerifier.create(missionCommandService.updateMissionProgress(userId, "testuser"))
@@ -418,14 +463,9 @@ class MissionCommandServiceTest {
         String userName = "testuser";
         RuntimeException repositoryError = new RuntimeException("Database error");
 
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.error(repositoryError));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES))
-                .thenReturn(Mono.just(launchGamesMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES))
-                .thenReturn(Mono.just(playGamesMission));
+        when(missionRepository.findByUserId(userId)).thenReturn(Flux.error(repositoryError));
         when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(3));
-        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)).thenReturn(Mono.just(2L));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(2L));
         when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(800));
 
@@ -436,19 +476,19 @@ class MissionCommandServiceTest {
                                 throwable.getMessage().equals("Database error"))
                 .verify();
 
-        verify(missionRepository).findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN);
+        verify(missionRepository).findByUserId(userId);
+        verify(missionRepository, never()).saveAll(anyList());
     }
 
     @Test
-    void checkAndDistributeRewards_shouldPropagateError_whenAddPointsFails() {
+    void checkAndDistributeRewards_shouldPropagateError_whenClaimFails() {
         // Given
         Long userId = 1L;
         String userName = "testuser";
-        RuntimeException addPointsError = new RuntimeException("Failed to add points");
+        RuntimeException claimError = new RuntimeException("Failed to add points");
 
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(true));
-        when(userRepository.addPoints(userId, 777)).thenReturn(Mono.error(addPointsError));
-        when(missionRepository.findByUserId(userId)).thenReturn(Flux.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.error(claimError));
 
         // When & Then
         StepVerifier.create(missionCommandService.checkAndDistributeRewards(userId, userName))
@@ -456,32 +496,30 @@ class MissionCommandServiceTest {
                         throwable instanceof RuntimeException &&
                                 throwable.getMessage().equals("Failed to add points"))
                 .verify();
-
-        verify(userRepository).addPoints(userId, 777);
     }
 
     @Test
     void initializeMissions_shouldCreateAllThreeMissionTypes() {
         // Given
         Long userId = 1L;
-        when(missionRepository.existsByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(false));
-        when(missionRepository.save(any(Mission.class)))
-                .thenReturn(Mono.just(consecutiveLoginMission));
+        when(redisService.hasKey("mission:initialized:1:test")).thenReturn(Mono.just(false));
+        when(missionRepository.insertAllIfAbsent(anyList())).thenReturn(Mono.just(3L));
+        when(redisService.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
 
         // When
         StepVerifier.create(missionCommandService.initializeMissions(userId))
                 .verifyComplete();
 
         // Then
-        ArgumentCaptor<Mission> missionCaptor = ArgumentCaptor.forClass(Mission.class);
-        verify(missionRepository, times(3)).save(missionCaptor.capture());
+        ArgumentCaptor<List<Mission>> missionCaptor = ArgumentCaptor.forClass(List.class);
+        verify(missionRepository).insertAllIfAbsent(missionCaptor.capture());
 
-        var savedMissions = missionCaptor.getAllValues();
+        var savedMissions = missionCaptor.getValue();
         assertEquals(3, savedMissions.size());
         assertTrue(savedMissions.stream().anyMatch(m -> m.getMissionType() == MissionType.CONSECUTIVE_LOGIN));
         assertTrue(savedMissions.stream().anyMatch(m -> m.getMissionType() == MissionType.LAUNCH_GAMES));
         assertTrue(savedMissions.stream().anyMatch(m -> m.getMissionType() == MissionType.PLAY_GAMES));
+        assertTrue(savedMissions.stream().allMatch(m -> m.getUserId().equals(userId) && m.getTargetProgress() == 3));
     }
 
     @Test
@@ -490,20 +528,17 @@ class MissionCommandServiceTest {
         Long userId = 1L;
         String userName = "testuser";
 
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
-                .thenReturn(Mono.just(consecutiveLoginMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.LAUNCH_GAMES))
-                .thenReturn(Mono.just(launchGamesMission));
-        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.PLAY_GAMES))
-                .thenReturn(Mono.just(playGamesMission));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
 
         when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(1));
-        when(gameLaunchRecordRepository.countDistinctGamesLaunchedByUser(userId)).thenReturn(Mono.just(1L));
+        when(launchedGamesService.countLaunchedGames(userId)).thenReturn(Mono.just(1L));
         when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(1L));
         when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(500));
 
-        when(missionRepository.save(any(Mission.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(missionRepository.areAllMissionsCompleted(userId)).thenReturn(Mono.just(false));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(missionCommandService.updateMissionProgress(userId, userName))
@@ -511,4 +546,400 @@ class MissionCommandServiceTest {
 
         verify(eventPublisher, never()).publishMissionCompletedEvent(any(MissionCompletedEvent.class));
     }
+
+    @Test
+    void applyProgress_shouldRecomputeFromHistory_whenModeIsRecompute() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.RECOMPUTE);
+
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(gamePlayRecordRepository.countByUserId(userId)).thenReturn(Mono.just(1L));
+        when(gamePlayRecordRepository.sumScoreByUserId(userId)).thenReturn(Mono.just(500));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", MissionProgressDelta.ofGamePlay(500, EVENT_TIME)))
+                .verifyComplete();
+
+        verify(userMissionStatsRepository, never()).findByUserId(anyLong());
+        verify(gamePlayRecordRepository).countByUserId(userId);
+        verify(userQueryService, never()).getConsecutiveLoginDays(anyLong());
+        verify(launchedGamesService, never()).countLaunchedGames(anyLong());
+        assertEquals(1, playGamesMission.getCurrentProgress());
+    }
+
+    @Test
+    void applyProgress_shouldIncrementStatsAtomically_whenDeltaIsAfterSeed() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.INCREMENTAL);
+        MissionProgressDelta delta = MissionProgressDelta.ofGamePlay(500, EVENT_TIME);
+        UserMissionStats stats = UserMissionStats.create(userId, 2, 2, 600, EVENT_TIME.minusMinutes(1));
+        UserMissionStats incremented = stats.toBuilder().playCount(3).totalScore(1100).lastEventAt(EVENT_TIME).build();
+
+        when(userMissionStatsRepository.findByUserId(userId)).thenReturn(Mono.just(stats), Mono.just(incremented));
+        when(userMissionStatsRepository.incrementAfterSeed(userId, delta)).thenReturn(Mono.just(true));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(userRepository.findById(userId)).thenReturn(Mono.just(testUser));
+        when(eventPublisher.publishMissionCompletedEvent(any(MissionCompletedEvent.class)))
+                .thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .verifyComplete();
+
+        assertEquals(3, playGamesMission.getCurrentProgress());
+        assertTrue(playGamesMission.getIsCompleted());
+        verify(userMissionStatsRepository, never()).save(any(UserMissionStats.class));
+        verify(userMissionStatsRepository, never()).reseed(any(UserMissionStats.class));
+        verify(gamePlayRecordRepository, never()).countByUserIdUntil(anyLong(), any(LocalDateTime.class));
+        verify(userQueryService, never()).getConsecutiveLoginDays(anyLong());
+        verify(eventPublisher).publishMissionCompletedEvent(any(MissionCompletedEvent.class));
+    }
+
+    @Test
+    void applyProgress_shouldNotCountDeltaTwice_whenDeltaIsIncludedInSeed() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.INCREMENTAL);
+        MissionProgressDelta delta = MissionProgressDelta.ofGamePlay(500, EVENT_TIME);
+        UserMissionStats stats = UserMissionStats.create(userId, 2, 3, 1100, EVENT_TIME.plusSeconds(1));
+
+        when(userMissionStatsRepository.findByUserId(userId)).thenReturn(Mono.just(stats));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(userRepository.findById(userId)).thenReturn(Mono.just(testUser));
+        when(eventPublisher.publishMissionCompletedEvent(any(MissionCompletedEvent.class)))
+                .thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .verifyComplete();
+
+        assertEquals(3, playGamesMission.getCurrentProgress());
+        verify(userMissionStatsRepository, never()).incrementAfterSeed(anyLong(), any(MissionProgressDelta.class));
+        verify(userMissionStatsRepository, never()).reseed(any(UserMissionStats.class));
+    }
+
+    @Test
+    void applyProgress_shouldReseedStats_whenMergedDeltaStraddlesSeed() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.INCREMENTAL);
+        MissionProgressDelta delta = MissionProgressDelta.ofGamePlay(200, EVENT_TIME.minusSeconds(10))
+                .merge(MissionProgressDelta.ofGamePlay(300, EVENT_TIME));
+        UserMissionStats stats = UserMissionStats.create(userId, 2, 1, 200, EVENT_TIME.minusSeconds(5));
+        UserMissionStats reseeded = UserMissionStats.create(userId, 2, 2, 500, EVENT_TIME);
+
+        when(userMissionStatsRepository.findByUserId(userId)).thenReturn(Mono.just(stats), Mono.just(reseeded));
+        when(launchedGamesService.countLaunchedGamesUntil(userId, EVENT_TIME)).thenReturn(Mono.just(2L));
+        when(gamePlayRecordRepository.countByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(2L));
+        when(gamePlayRecordRepository.sumScoreByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(500));
+        when(userMissionStatsRepository.reseed(any(UserMissionStats.class))).thenReturn(Mono.just(true));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .verifyComplete();
+
+        ArgumentCaptor<UserMissionStats> statsCaptor = ArgumentCaptor.forClass(UserMissionStats.class);
+        verify(userMissionStatsRepository).reseed(statsCaptor.capture());
+        assertEquals(EVENT_TIME, statsCaptor.getValue().getSeededUntil());
+        assertEquals(2, statsCaptor.getValue().getPlayCount());
+        verify(userMissionStatsRepository, never()).incrementAfterSeed(anyLong(), any(MissionProgressDelta.class));
+        assertEquals(2, playGamesMission.getCurrentProgress());
+    }
+
+    @Test
+    void applyProgress_shouldSeedStatsFromHistory_whenStatsMissing() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.INCREMENTAL);
+
+        when(userMissionStatsRepository.findByUserId(userId)).thenReturn(Mono.empty());
+        when(launchedGamesService.countLaunchedGamesUntil(userId, EVENT_TIME)).thenReturn(Mono.just(2L));
+        when(gamePlayRecordRepository.countByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(1L));
+        when(gamePlayRecordRepository.sumScoreByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(300));
+        when(userMissionStatsRepository.save(any(UserMissionStats.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser",
+                        MissionProgressDelta.ofGamePlay(300, EVENT_TIME)))
+                .verifyComplete();
+
+        ArgumentCaptor<UserMissionStats> statsCaptor = ArgumentCaptor.forClass(UserMissionStats.class);
+        verify(userMissionStatsRepository).save(statsCaptor.capture());
+        UserMissionStats seeded = statsCaptor.getValue();
+        assertEquals(2, seeded.getLaunchedGamesCount());
+        assertEquals(1, seeded.getPlayCount());
+        assertEquals(300, seeded.getTotalScore());
+        assertEquals(EVENT_TIME, seeded.getSeededUntil());
+        assertEquals(1, playGamesMission.getCurrentProgress());
+        verify(userMissionStatsRepository, never()).incrementAfterSeed(anyLong(), any(MissionProgressDelta.class));
+    }
+
+    @Test
+    void applyProgress_shouldSeedOnlyCommittedHistoryAndIncrement_whenStatsMissingAndEventIsRecent() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.INCREMENTAL);
+        LocalDateTime playTime = LocalDateTime.now();
+        MissionProgressDelta delta = MissionProgressDelta.ofGamePlay(300, playTime);
+        ArgumentCaptor<UserMissionStats> statsCaptor = ArgumentCaptor.forClass(UserMissionStats.class);
+
+        when(launchedGamesService.countLaunchedGamesUntil(eq(userId), any(LocalDateTime.class))).thenReturn(Mono.just(2L));
+        when(gamePlayRecordRepository.countByUserIdUntil(eq(userId), any(LocalDateTime.class))).thenReturn(Mono.just(0L));
+        when(gamePlayRecordRepository.sumScoreByUserIdUntil(eq(userId), any(LocalDateTime.class))).thenReturn(Mono.just(0));
+        when(userMissionStatsRepository.save(statsCaptor.capture()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(userMissionStatsRepository.findByUserId(userId)).thenReturn(Mono.empty())
+                .thenAnswer(invocation -> Mono.just(statsCaptor.getValue()))
+                .thenAnswer(invocation -> Mono.just(statsCaptor.getValue().toBuilder()
+                        .playCount(1).totalScore(300).lastEventAt(playTime).build()));
+        when(userMissionStatsRepository.incrementAfterSeed(userId, delta)).thenReturn(Mono.just(true));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .verifyComplete();
+
+        assertTrue(statsCaptor.getValue().getSeededUntil().isBefore(playTime.minusSeconds(1)));
+        verify(userMissionStatsRepository).incrementAfterSeed(userId, delta);
+        assertEquals(1, playGamesMission.getCurrentProgress());
+    }
+
+    @Test
+    void applyProgress_shouldRereadStats_whenAnotherEventSeededConcurrently() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.INCREMENTAL);
+        UserMissionStats existing = UserMissionStats.create(userId, 2, 1, 300, EVENT_TIME.plusSeconds(1));
+
+        when(userMissionStatsRepository.findByUserId(userId)).thenReturn(Mono.empty(), Mono.just(existing));
+        when(launchedGamesService.countLaunchedGamesUntil(userId, EVENT_TIME)).thenReturn(Mono.just(2L));
+        when(gamePlayRecordRepository.countByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(1L));
+        when(gamePlayRecordRepository.sumScoreByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(300));
+        when(userMissionStatsRepository.save(any(UserMissionStats.class)))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("Duplicate entry")));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser",
+                        MissionProgressDelta.ofGamePlay(300, EVENT_TIME)))
+                .verifyComplete();
+
+        verify(userMissionStatsRepository, times(2)).findByUserId(userId);
+        verify(userMissionStatsRepository, never()).incrementAfterSeed(anyLong(), any(MissionProgressDelta.class));
+        assertEquals(1, playGamesMission.getCurrentProgress());
+    }
+
+    @Test
+    void applyProgress_shouldOnlyTouchLoginMission_whenDeltaOnlyContainsLogin() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.INCREMENTAL);
+        when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(2));
+        when(missionRepository.findByUserId(userId))
+                .thenReturn(Flux.just(consecutiveLoginMission, launchGamesMission, playGamesMission));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", MissionProgressDelta.ofLogin()))
+                .verifyComplete();
+
+        verify(userMissionStatsRepository, never()).findByUserId(anyLong());
+        verify(userMissionStatsRepository, never()).save(any(UserMissionStats.class));
+        verify(launchedGamesService, never()).countLaunchedGames(anyLong());
+        verify(gamePlayRecordRepository, never()).countByUserId(anyLong());
+        assertEquals(2, consecutiveLoginMission.getCurrentProgress());
+    }
+
+    @Test
+    void applyProgress_shouldNotTouchDatabase_whenModeIsRedisAndNothingCompleted() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.REDIS);
+        MissionProgressDelta delta = MissionProgressDelta.ofGamePlay(500, EVENT_TIME);
+        when(missionStateStore.apply(eq(userId), eq(delta), eq(-1), any(MissionCatalog.class), eq(EnumSet.of(MissionType.PLAY_GAMES))))
+                .thenReturn(Mono.just(EnumSet.noneOf(MissionType.class)));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .verifyComplete();
+
+        verifyNoInteractions(missionRepository, userMissionStatsRepository, gamePlayRecordRepository,
+                rewardLedgerRepository, missionStateFlusher);
+    }
+
+    @Test
+    void applyProgress_shouldSeedStateUpToEventAndReapplyDelta_whenModeIsRedisAndStateMissing() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.REDIS);
+        MissionProgressDelta delta = MissionProgressDelta.ofGameLaunch(EVENT_TIME);
+        Set<MissionType> launchOnly = EnumSet.of(MissionType.LAUNCH_GAMES);
+        List<Mission> missions = List.of(consecutiveLoginMission, launchGamesMission, playGamesMission);
+        when(missionStateStore.apply(eq(userId), eq(delta), eq(-1), any(MissionCatalog.class), eq(launchOnly)))
+                .thenReturn(Mono.empty(), Mono.just(EnumSet.noneOf(MissionType.class)));
+        when(missionStateStore.findLastEventAt(userId)).thenReturn(Mono.empty());
+        when(launchedGamesService.countLaunchedGamesUntil(userId, EVENT_TIME)).thenReturn(Mono.just(1L));
+        when(gamePlayRecordRepository.countByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(0L));
+        when(gamePlayRecordRepository.sumScoreByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(0));
+        when(missionRepository.findByUserId(userId)).thenReturn(Flux.fromIterable(missions));
+        when(missionStateStore.seed(userId, EVENT_TIME, 1L, 0L, 0L, missions)).thenReturn(Mono.just(true));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .verifyComplete();
+
+        verify(missionStateStore).seed(userId, EVENT_TIME, 1L, 0L, 0L, missions);
+        verify(missionStateStore, times(2)).apply(eq(userId), eq(delta), eq(-1), any(MissionCatalog.class), eq(launchOnly));
+        verify(missionRepository, never()).saveAll(anyList());
+        verifyNoInteractions(missionStateFlusher);
+    }
+
+    @Test
+    void applyProgress_shouldReseedUpToLatestCountedEvent_whenModeIsRedisAndDeltaStraddlesSeed() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.REDIS);
+        MissionProgressDelta delta = MissionProgressDelta.ofGamePlay(200, EVENT_TIME.minusSeconds(10))
+                .merge(MissionProgressDelta.ofGamePlay(300, EVENT_TIME));
+        LocalDateTime lastCounted = EVENT_TIME.plusSeconds(5);
+        Set<MissionType> playOnly = EnumSet.of(MissionType.PLAY_GAMES);
+        List<Mission> missions = List.of(consecutiveLoginMission, launchGamesMission, playGamesMission);
+        when(missionStateStore.apply(eq(userId), eq(delta), eq(-1), any(MissionCatalog.class), eq(playOnly)))
+                .thenReturn(Mono.empty(), Mono.just(EnumSet.noneOf(MissionType.class)));
+        when(missionStateStore.findLastEventAt(userId)).thenReturn(Mono.just(lastCounted));
+        when(launchedGamesService.countLaunchedGamesUntil(userId, lastCounted)).thenReturn(Mono.just(1L));
+        when(gamePlayRecordRepository.countByUserIdUntil(userId, lastCounted)).thenReturn(Mono.just(3L));
+        when(gamePlayRecordRepository.sumScoreByUserIdUntil(userId, lastCounted)).thenReturn(Mono.just(900));
+        when(missionRepository.findByUserId(userId)).thenReturn(Flux.fromIterable(missions));
+        when(missionStateStore.seed(userId, lastCounted, 1L, 3L, 900L, missions)).thenReturn(Mono.just(true));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .verifyComplete();
+
+        verify(missionStateStore).seed(userId, lastCounted, 1L, 3L, 900L, missions);
+    }
+
+    @Test
+    void applyProgress_shouldFail_whenModeIsRedisAndStateCannotBeSeeded() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.REDIS);
+        MissionProgressDelta delta = MissionProgressDelta.ofGameLaunch(EVENT_TIME);
+        when(missionStateStore.apply(eq(userId), eq(delta), eq(-1), any(MissionCatalog.class), anySet()))
+                .thenReturn(Mono.empty());
+        when(missionStateStore.findLastEventAt(userId)).thenReturn(Mono.empty());
+        when(launchedGamesService.countLaunchedGamesUntil(userId, EVENT_TIME)).thenReturn(Mono.just(1L));
+        when(gamePlayRecordRepository.countByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(0L));
+        when(gamePlayRecordRepository.sumScoreByUserIdUntil(userId, EVENT_TIME)).thenReturn(Mono.just(0));
+        when(missionRepository.findByUserId(userId)).thenReturn(Flux.empty());
+        when(missionStateStore.seed(eq(userId), eq(EVENT_TIME), anyLong(), anyLong(), anyLong(), anyList()))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(missionStateStore, times(3)).seed(eq(userId), eq(EVENT_TIME), anyLong(), anyLong(), anyLong(), anyList());
+    }
+
+    @Test
+    void applyProgress_shouldFlushPublishAndClaimReward_whenModeIsRedisAndMissionCompleted() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.REDIS);
+        MissionProgressDelta delta = MissionProgressDelta.ofLogin();
+        when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(3));
+        when(missionStateStore.apply(eq(userId), eq(delta), eq(3), any(MissionCatalog.class),
+                eq(EnumSet.of(MissionType.CONSECUTIVE_LOGIN))))
+                .thenReturn(Mono.just(EnumSet.of(MissionType.CONSECUTIVE_LOGIN)));
+        when(missionStateFlusher.flush(List.of(userId))).thenReturn(Mono.just(1));
+        when(missionRepository.findByUserIdAndMissionType(userId, MissionType.CONSECUTIVE_LOGIN))
+                .thenReturn(Mono.just(consecutiveLoginMission));
+        when(userRepository.findById(userId)).thenReturn(Mono.just(testUser));
+        when(eventPublisher.publishMissionCompletedEvent(any(MissionCompletedEvent.class))).thenReturn(Mono.empty());
+        when(rewardLedgerRepository.claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777))
+                .thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(missionCommandService.applyProgress(userId, "testuser", delta))
+                .verifyComplete();
+
+        InOrder inOrder = inOrder(missionStateFlusher, eventPublisher, rewardLedgerRepository);
+        inOrder.verify(missionStateFlusher).flush(List.of(userId));
+        inOrder.verify(eventPublisher).publishMissionCompletedEvent(any(MissionCompletedEvent.class));
+        inOrder.verify(rewardLedgerRepository).claimMissionReward(userId, RewardType.MISSION_COMPLETION, ALL_MISSION_TYPES, 777);
+    }
+
+    @Test
+    void applyProgress_shouldClearCompletedFlags_whenModeIsRedisAndTransactionRollsBack() {
+        // Given
+        Long userId = 1L;
+        ReflectionTestUtils.setField(missionCommandService, "progressMode", MissionProgressMode.REDIS);
+        MissionProgressDelta delta = MissionProgressDelta.ofLogin();
+        Set<MissionType> completed = EnumSet.of(MissionType.CONSECUTIVE_LOGIN);
+        when(userQueryService.getConsecutiveLoginDays(userId)).thenReturn(Mono.just(3));
+        when(missionStateStore.apply(eq(userId), eq(delta), eq(3), any(MissionCatalog.class), eq(completed)))
+                .thenReturn(Mono.just(EnumSet.copyOf(completed)));
+        when(missionStateFlusher.flush(List.of(userId))).thenReturn(Mono.error(new RuntimeException("Database error")));
+        when(missionStateStore.clearCompleted(userId, completed)).thenReturn(Mono.empty());
+        List<TransactionSynchronization> registered = new ArrayList<>();
+        Mono<Void> applied = TransactionSynchronizationManager.forCurrentTransaction()
+                .flatMap(synchronizationManager -> {
+                    synchronizationManager.initSynchronization();
+                    return missionCommandService.applyProgress(userId, "testuser", delta)
+                            .doOnError(e -> registered.addAll(synchronizationManager.getSynchronizations()));
+                })
+                .contextWrite(TransactionContextManager.createTransactionContext());
+
+        // When
+        StepVerifier.create(applied)
+                .expectErrorMessage("Database error")
+                .verify();
+
+        // Then
+        assertEquals(1, registered.size());
+        StepVerifier.create(registered.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED))
+                .verifyComplete();
+        verify(missionStateStore, never()).clearCompleted(anyLong(), anySet());
+        StepVerifier.create(registered.get(0).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK))
+                .verifyComplete();
+        verify(missionStateStore).clearCompleted(userId, completed);
+    }
 }
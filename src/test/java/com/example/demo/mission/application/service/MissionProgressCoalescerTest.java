@@ -0,0 +1,103 @@
+package com.example.demo.mission.application.service;
+
+import com.example.demo.mission.domain.model.MissionProgressDelta;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MissionProgressCoalescerTest {
+
+    private static final LocalDateTime EVENT_TIME = LocalDateTime.of(2024, 1, 1, 10, 0, 0);
+
+    @Mock
+    private MissionCommandService missionCommandService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MissionProgressCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new MissionProgressCoalescer(missionCommandService, meterRegistry);
+    }
+
+    @Test
+    void submit_shouldApplyImmediately() {
+        // Given
+        when(missionCommandService.applyProgress(1L, "testuser", MissionProgressDelta.ofLogin())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(coalescer.submit(1L, "testuser", MissionProgressDelta.ofLogin()))
+            .expectComplete()
+            .verify(Duration.ofSeconds(2));
+
+        verify(missionCommandService).applyProgress(1L, "testuser", MissionProgressDelta.ofLogin());
+        assertEquals(1.0, meterRegistry.get("mission.coalescer.evaluations").counter().count());
+    }
+
+    @Test
+    void submit_shouldEvaluateSameUserSequentially() {
+        // Given
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(missionCommandService.applyProgress(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
+            .thenAnswer(invocation -> Mono.fromRunnable(() -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                .then(Mono.delay(Duration.ofMillis(20)))
+                .doOnTerminate(running::decrementAndGet)
+                .then());
+
+        // When & Then
+        StepVerifier.create(Mono.when(
+                coalescer.submit(1L, "testuser", MissionProgressDelta.ofGameLaunch(EVENT_TIME)),
+                coalescer.submit(1L, "testuser", MissionProgressDelta.ofGamePlay(1500, EVENT_TIME))))
+            .expectComplete()
+            .verify(Duration.ofSeconds(2));
+
+        verify(missionCommandService, times(2)).applyProgress(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void submit_shouldKeepUsersSeparate() {
+        // Given
+        when(missionCommandService.applyProgress(eq(1L), eq("user1"), any(MissionProgressDelta.class))).thenReturn(Mono.empty());
+        when(missionCommandService.applyProgress(eq(2L), eq("user2"), any(MissionProgressDelta.class))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(Mono.when(
+                coalescer.submit(1L, "user1", MissionProgressDelta.ofLogin()),
+                coalescer.submit(2L, "user2", MissionProgressDelta.ofLogin())))
+            .expectComplete()
+            .verify(Duration.ofSeconds(2));
+
+        verify(missionCommandService).applyProgress(1L, "user1", MissionProgressDelta.ofLogin());
+        verify(missionCommandService).applyProgress(2L, "user2", MissionProgressDelta.ofLogin());
+    }
+
+    @Test
+    void submit_shouldPropagateError() {
+        // Given
+        when(missionCommandService.applyProgress(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
+            .thenReturn(Mono.error(new RuntimeException("Database error")));
+
+        // When & Then
+        StepVerifier.create(coalescer.submit(1L, "testuser", MissionProgressDelta.ofGameLaunch(EVENT_TIME)))
+            .expectErrorMessage("Database error")
+            .verify(Duration.ofSeconds(2));
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo.mission.application.service;
+
+import com.example.demo.mission.domain.model.Mission;
+import com.example.demo.mission.domain.model.MissionCatalog;
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.model.MissionState;
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.repository.MissionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.reactive.TransactionContextManager;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MissionStateFlusherTest {
+
+    @Mock
+    private MissionStateStore missionStateStore;
+
+    @Mock
+    private MissionRepository missionRepository;
+
+    @Mock
+    private MissionCatalogService missionCatalogService;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache missionsCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MissionStateFlusher flusher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        flusher = new MissionStateFlusher(missionStateStore, missionRepository, missionCatalogService, cacheManager, meterRegistry,
+            MissionProgressMode.REDIS, 0, 100);
+        lenient().when(cacheManager.getCache("missions")).thenReturn(missionsCache);
+        lenient().when(missionCatalogService.current()).thenReturn(MissionCatalog.compile("test", List.of(
+            new MissionDefinition(MissionType.CONSECUTIVE_LOGIN, 3, 0, 0),
+            new MissionDefinition(MissionType.LAUNCH_GAMES, 3, 0, 0),
+            new MissionDefinition(MissionType.PLAY_GAMES, 3, 1000, 0))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushDirtyUsers_shouldSaveMissionsInOneBatch_andAcknowledgeFlushedVersions() {
+        // Given
+        Mission launch = Mission.builder().id(1L).userId(1L).missionType(MissionType.LAUNCH_GAMES)
+            .currentProgress(1).targetProgress(3).isCompleted(false).isRewarded(false).build();
+        Mission play = Mission.builder().id(2L).userId(2L).missionType(MissionType.PLAY_GAMES)
+            .currentProgress(2).targetProgress(3).isCompleted(false).isRewarded(false).build();
+        when(missionStateStore.findDirtyUsers(100)).thenReturn(Flux.just(1L, 2L));
+        when(missionStateStore.load(1L)).thenReturn(Mono.just(new MissionState(1L, 5, Map.of(MissionType.LAUNCH_GAMES, 2))));
+        when(missionStateStore.load(2L)).thenReturn(Mono.just(new MissionState(2L, 7, Map.of(MissionType.PLAY_GAMES, 3))));
+        when(missionRepository.findByUserIdIn(Set.of(1L, 2L))).thenReturn(Flux.just(launch, play));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(missionStateStore.acknowledge(1L, 5)).thenReturn(Mono.just(true));
+        when(missionStateStore.acknowledge(2L, 7)).thenReturn(Mono.just(true));
+
+        // When & Then
+        StepVerifier.create(flusher.flushDirtyUsers())
+            .expectNext(2)
+            .verifyComplete();
+
+        ArgumentCaptor<List<Mission>> saved = ArgumentCaptor.forClass(List.class);
+        verify(missionRepository, times(1)).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertEquals(2, launch.getCurrentProgress());
+        assertFalse(launch.getIsCompleted());
+        assertTrue(play.getIsCompleted());
+        verify(missionsCache).evict(1L);
+        verify(missionsCache).evict(2L);
+        assertEquals(2.0, meterRegistry.counter("mission.state.flushed").count());
+    }
+
+    @Test
+    void flush_shouldCompareProgressWithCatalogTarget_whenStoredTargetIsOutdated() {
+        // Given
+        Mission launch = Mission.builder().id(1L).userId(1L).missionType(MissionType.LAUNCH_GAMES)
+            .currentProgress(2).targetProgress(5).isCompleted(false).isRewarded(false).rewardPoints(10).build();
+        when(missionStateStore.load(1L)).thenReturn(Mono.just(new MissionState(1L, 3, Map.of(MissionType.LAUNCH_GAMES, 3))));
+        when(missionRepository.findByUserIdIn(Set.of(1L))).thenReturn(Flux.just(launch));
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(missionStateStore.acknowledge(1L, 3)).thenReturn(Mono.just(true));
+
+        // When & Then
+        StepVerifier.create(flusher.flush(List.of(1L)))
+            .expectNext(1)
+            .verifyComplete();
+
+        assertEquals(3, launch.getTargetProgress());
+        assertEquals(0, launch.getRewardPoints());
+        assertTrue(launch.getIsCompleted());
+    }
+
+    @Test
+    void flush_shouldAcknowledgeWithoutQuerying_whenStateExpired() {
+        // Given
+        when(missionStateStore.load(1L)).thenReturn(Mono.empty());
+        when(missionStateStore.acknowledge(1L, -1)).thenReturn(Mono.just(true));
+
+        // When & Then
+        StepVerifier.create(flusher.flush(List.of(1L)))
+            .expectNext(0)
+            .verifyComplete();
+
+        verifyNoInteractions(missionRepository);
+    }
+
+    @Test
+    void flush_shouldAcknowledgeAfterCommit_whenInTransaction() {
+        // Given
+        when(missionStateStore.load(1L)).thenReturn(Mono.just(new MissionState(1L, 2, Map.of(MissionType.LAUNCH_GAMES, 1))));
+        when(missionRepository.findByUserIdIn(Set.of(1L))).thenReturn(Flux.empty());
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.empty());
+        when(missionStateStore.acknowledge(1L, 2)).thenReturn(Mono.just(true));
+        Mono<List<TransactionSynchronization>> registered = TransactionSynchronizationManager.forCurrentTransaction()
+            .flatMap(synchronizationManager -> {
+                synchronizationManager.initSynchronization();
+                return flusher.flush(List.of(1L))
+                    .then(Mono.fromCallable(synchronizationManager::getSynchronizations));
+            })
+            .contextWrite(TransactionContextManager.createTransactionContext());
+
+        // When & Then
+        StepVerifier.create(registered)
+            .assertNext(synchronizations -> {
+                assertEquals(1, synchronizations.size());
+                verify(missionStateStore, never()).acknowledge(any(), anyLong());
+                StepVerifier.create(synchronizations.get(0).afterCommit()).verifyComplete();
+            })
+            .verifyComplete();
+
+        verify(missionStateStore).acknowledge(1L, 2);
+    }
+
+    @Test
+    void flush_shouldKeepUsersDirty_whenSavingFails() {
+        // Given
+        when(missionStateStore.load(1L)).thenReturn(Mono.just(new MissionState(1L, 1, Map.of(MissionType.LAUNCH_GAMES, 1))));
+        when(missionRepository.findByUserIdIn(Set.of(1L))).thenReturn(Flux.empty());
+        when(missionRepository.saveAll(anyList())).thenReturn(Mono.error(new RuntimeException("Database error")));
+
+        // When & Then
+        StepVerifier.create(flusher.flush(List.of(1L)))
+            .expectErrorMessage("Database error")
+            .verify();
+
+        verify(missionStateStore, never()).acknowledge(any(), anyLong());
+    }
+
+    @Test
+    void flushDirtyUsers_shouldDoNothing_whenNoUserIsDirty() {
+        // Given
+        when(missionStateStore.findDirtyUsers(100)).thenReturn(Flux.empty());
+
+        // When & Then
+        StepVerifier.create(flusher.flushDirtyUsers())
+            .expectNext(0)
+            .verifyComplete();
+
+        verifyNoInteractions(missionRepository);
+    }
+}
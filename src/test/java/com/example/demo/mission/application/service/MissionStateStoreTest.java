@@ -0,0 +1,226 @@
+package com.example.demo.mission.application.service;
+
+import com.example.demo.mission.domain.model.Mission;
+import com.example.demo.mission.domain.model.MissionCatalog;
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.shared.infrastructure.redis.RedisService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MissionStateStoreTest {
+
+    private static final List<String> APPLY_KEYS = List.of("mission:state:{1}:1", "mission:state:dirty:{1}",
+        "mission:state:applied:{1}:1");
+    private static final List<String> SEED_KEYS = List.of("mission:state:{1}:1", "mission:state:applied:{1}:1");
+    private static final List<String> ACKNOWLEDGE_KEYS = List.of("mission:state:{1}:1", "mission:state:dirty:{1}");
+    private static final LocalDateTime EVENT_TIME = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123456000);
+    private static final String EVENT_MICROS = "1767268800123456";
+
+    private final MissionCatalog catalog = MissionCatalog.compile("test", List.of(
+        new MissionDefinition(MissionType.CONSECUTIVE_LOGIN, 3, 0, 0),
+        new MissionDefinition(MissionType.LAUNCH_GAMES, 3, 0, 0),
+        new MissionDefinition(MissionType.PLAY_GAMES, 3, 1000, 0)));
+
+    @Mock
+    private RedisService redisService;
+
+    @InjectMocks
+    private MissionStateStore missionStateStore;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void apply_shouldPassIncrementsAndMissionRules_andDecodeCompletedMask() {
+        // Given
+        LinkedHashSet<MissionType> affected = new LinkedHashSet<>(List.of(MissionType.LAUNCH_GAMES, MissionType.PLAY_GAMES));
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(APPLY_KEYS), anyList()))
+            .thenReturn(Mono.just(0b10L));
+
+        // When & Then
+        MissionProgressDelta delta = MissionProgressDelta.ofGameLaunch(EVENT_TIME)
+            .merge(MissionProgressDelta.ofGamePlay(800, EVENT_TIME.plusSeconds(1)));
+        StepVerifier.create(missionStateStore.apply(1L, delta, -1, catalog, affected))
+            .expectNext(EnumSet.of(MissionType.PLAY_GAMES))
+            .verifyComplete();
+
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class), eq(APPLY_KEYS), args.capture());
+        assertEquals(List.of("1", "604800", "1", "1", "800", "-1", EVENT_MICROS, "1767268801123456",
+            "2", "launch:2026-01-01T12:00:00.123456", "play:2026-01-01T12:00:01.123456",
+            "LAUNCH_GAMES", "3", "0",
+            "PLAY_GAMES", "3", "1000"), args.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void apply_shouldReturnEmpty_whenStateIsMissing() {
+        // Given
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(APPLY_KEYS), anyList()))
+            .thenReturn(Mono.just(-1L));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.apply(1L, MissionProgressDelta.ofLogin(), 2, catalog,
+                EnumSet.of(MissionType.CONSECUTIVE_LOGIN)))
+            .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void apply_shouldPassNoEventTime_whenDeltaHasNoCounterChanges() {
+        // Given
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(APPLY_KEYS), anyList()))
+            .thenReturn(Mono.just(0L));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.apply(1L, MissionProgressDelta.ofLogin(), 2, catalog,
+                EnumSet.of(MissionType.CONSECUTIVE_LOGIN)))
+            .expectNext(EnumSet.noneOf(MissionType.class))
+            .verifyComplete();
+
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class), eq(APPLY_KEYS), args.capture());
+        assertEquals(List.of("1", "604800", "0", "0", "0", "2", "-1", "-1", "0", "CONSECUTIVE_LOGIN", "3", "0"),
+            args.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void seed_shouldWriteCountersAndMissionProgress() {
+        // Given
+        Mission login = Mission.create(1L, MissionType.CONSECUTIVE_LOGIN, 3, 0);
+        login.updateProgress(3);
+        Mission launch = Mission.create(1L, MissionType.LAUNCH_GAMES, 3, 0);
+        launch.updateProgress(1);
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(SEED_KEYS), anyList()))
+            .thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.seed(1L, EVENT_TIME, 1, 2, 1500, List.of(login, launch)))
+            .expectNext(true)
+            .verifyComplete();
+
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class), eq(SEED_KEYS), args.capture());
+        assertEquals(List.of("604800", EVENT_MICROS, "1", "2", "1500", "version", "0", "streak", "0",
+            "progress:CONSECUTIVE_LOGIN", "3", "completed:CONSECUTIVE_LOGIN", "1",
+            "progress:LAUNCH_GAMES", "1"), args.getValue());
+    }
+
+    @Test
+    void clearCompleted_shouldRemoveCompletedFlags() {
+        // Given
+        when(redisService.remove(eq("mission:state:{1}:1"), any(Object[].class))).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.clearCompleted(1L, EnumSet.of(MissionType.PLAY_GAMES)))
+            .verifyComplete();
+
+        verify(redisService).remove("mission:state:{1}:1", "completed:PLAY_GAMES");
+    }
+
+    @Test
+    void findLastEventAt_shouldConvertEpochMicros() {
+        // Given
+        when(redisService.get("mission:state:{1}:1", "lastEventAt")).thenReturn(Mono.just(Long.parseLong(EVENT_MICROS)));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.findLastEventAt(1L))
+            .expectNext(EVENT_TIME)
+            .verifyComplete();
+    }
+
+    @Test
+    void load_shouldReadVersionAndProgressFields() {
+        // Given
+        when(redisService.entries("mission:state:{1}:1")).thenReturn(Mono.just(Map.of(
+            "version", 4, "launched", 2, "progress:LAUNCH_GAMES", 2, "progress:PLAY_GAMES", 1, "completed:PLAY_GAMES", 1)));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.load(1L))
+            .assertNext(state -> {
+                assertEquals(4L, state.version());
+                assertEquals(Map.of(MissionType.LAUNCH_GAMES, 2, MissionType.PLAY_GAMES, 1), state.progress());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void load_shouldReturnEmpty_whenStateIsMissing() {
+        // Given
+        when(redisService.entries("mission:state:{1}:1")).thenReturn(Mono.just(Map.of()));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.load(1L))
+            .verifyComplete();
+    }
+
+    @Test
+    void findDirtyUsers_shouldParseMembersAcrossShards_andRotateStartingShard() {
+        // Given
+        when(redisService.randomMembers(anyString(), eq(2L))).thenReturn(Flux.empty());
+        when(redisService.randomMembers("mission:state:dirty:{0}", 2L)).thenReturn(Flux.just(256, 512L));
+        when(redisService.randomMembers("mission:state:dirty:{1}", 2L)).thenReturn(Flux.just(1L));
+
+        // When & Then - 第一次從分片 0 開始，取滿數量後不再取其他分片的使用者
+        StepVerifier.create(missionStateStore.findDirtyUsers(2))
+            .expectNext(256L, 512L)
+            .verifyComplete();
+
+        // 第二次從分片 1 開始，最後繞回分片 0
+        StepVerifier.create(missionStateStore.findDirtyUsers(2))
+            .expectNext(1L, 256L)
+            .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void apply_shouldUseStateAndDirtyKeysWithSameHashTag() {
+        // Given
+        List<String> keys = List.of("mission:state:{2}:258", "mission:state:dirty:{2}", "mission:state:applied:{2}:258");
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(keys), anyList()))
+            .thenReturn(Mono.just(0L));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.apply(258L, MissionProgressDelta.ofLogin(), 1, catalog,
+                EnumSet.of(MissionType.CONSECUTIVE_LOGIN)))
+            .expectNext(EnumSet.noneOf(MissionType.class))
+            .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acknowledge_shouldPassFlushedVersion() {
+        // Given
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(ACKNOWLEDGE_KEYS), eq(List.of("1", "4"))))
+            .thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(missionStateStore.acknowledge(1L, 4))
+            .assertNext(removed -> assertTrue(removed))
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.shared.infrastructure.concurrent;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedSerialExecutorTest {
+
+    private final KeyedSerialExecutor<Long> executor = new KeyedSerialExecutor<>();
+
+    @Test
+    void submit_shouldRunTasksOfSameKeyInOrder_withoutOverlap() {
+        // Given
+        List<Integer> completed = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // When
+        Flux<Integer> results = Flux.range(0, 20)
+            .flatMap(i -> executor.submit(1L, () -> Mono.fromCallable(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    return i;
+                })
+                .delayElement(Duration.ofMillis(2))
+                .doOnNext(value -> {
+                    completed.add(value);
+                    running.decrementAndGet();
+                })));
+
+        // Then
+        StepVerifier.create(results)
+            .expectNextCount(20)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(Flux.range(0, 20).collectList().block(), completed);
+    }
+
+    @Test
+    void submit_shouldRunDifferentKeysInParallel() {
+        // Given
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // When
+        Flux<Long> results = Flux.range(1, 4)
+            .flatMap(key -> executor.submit((long) key, () -> Mono.fromCallable(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    return (long) key;
+                })
+                .delayElement(Duration.ofMillis(50))
+                .doOnNext(value -> running.decrementAndGet())));
+
+        // Then
+        StepVerifier.create(results)
+            .expectNextCount(4)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertEquals(4, maxRunning.get());
+    }
+
+    @Test
+    void submit_shouldContinueWithNextTask_whenPreviousTaskFails() {
+        // When
+        Mono<String> failed = executor.submit(1L, () -> Mono.error(new RuntimeException("Database error")));
+        Mono<String> next = executor.submit(1L, () -> Mono.just("ok"));
+
+        // Then
+        StepVerifier.create(failed)
+            .expectErrorMessage("Database error")
+            .verify(Duration.ofSeconds(5));
+        StepVerifier.create(next)
+            .expectNext("ok")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void submit_shouldCancelRunningTask_andContinueWithNextTask_whenCallerCancels() throws InterruptedException {
+        // Given
+        CountDownLatch taskStarted = new CountDownLatch(1);
+        AtomicBoolean taskCancelled = new AtomicBoolean();
+        Disposable caller = executor.submit(1L, () -> Mono.never()
+                .doOnSubscribe(subscription -> taskStarted.countDown())
+                .doOnCancel(() -> taskCancelled.set(true)))
+            .subscribe();
+        assertTrue(taskStarted.await(5, TimeUnit.SECONDS));
+
+        // When
+        caller.dispose();
+
+        // Then - 取消會傳到執行中的任務，下一個任務照常執行
+        StepVerifier.create(executor.submit(1L, () -> Mono.just("ok")))
+            .expectNext("ok")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+        assertTrue(taskCancelled.get());
+    }
+
+    @Test
+    void submit_shouldSkipQueuedTask_whenCallerCancelsBeforeItRuns() {
+        // Given
+        AtomicBoolean skippedTaskStarted = new AtomicBoolean();
+        Mono<String> first = executor.submit(1L, () -> Mono.just("first").delayElement(Duration.ofMillis(100)));
+        Mono<String> skipped = executor.submit(1L, () -> Mono.fromCallable(() -> {
+            skippedTaskStarted.set(true);
+            return "skipped";
+        }));
+        Mono<String> last = executor.submit(1L, () -> Mono.just("last"));
+
+        // When
+        Disposable firstCaller = first.subscribe();
+        skipped.subscribe().dispose();
+
+        // Then
+        StepVerifier.create(last)
+            .expectNext("last")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+        assertFalse(skippedTaskStarted.get());
+        firstCaller.dispose();
+    }
+}
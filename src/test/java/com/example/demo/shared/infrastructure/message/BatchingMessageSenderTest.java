@@ -0,0 +1,172 @@
+package com.example.demo.shared.infrastructure.message;
+
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.selector.SelectMessageQueueByHash;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingMessageSenderTest {
+
+    @Mock
+    private RocketMQTemplate rocketMQTemplate;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void send_shouldSendOneBatchMessage_whenBatchIsFull() {
+        // Given
+        BatchingMessageSender sender = new BatchingMessageSender(rocketMQTemplate, true, 0, 2);
+        SendResult sendResult = mock(SendResult.class);
+        doAnswer(invocation -> {
+            SendCallback callback = invocation.getArgument(2);
+            callback.onSuccess(sendResult);
+            return null;
+        }).when(rocketMQTemplate).asyncSend(anyString(), any(Collection.class), any(SendCallback.class));
+
+        // When
+        Mono<SendResult> first = sender.send("task-center-game-play", message("payload-1"));
+        Mono<SendResult> second = sender.send("task-center-game-play", message("payload-2"));
+
+        // Then
+        StepVerifier.create(first).expectNext(sendResult).verifyComplete();
+        StepVerifier.create(second).expectNext(sendResult).verifyComplete();
+
+        ArgumentCaptor<Collection<Message<?>>> messagesCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(rocketMQTemplate, times(1)).asyncSend(eq("task-center-game-play"), messagesCaptor.capture(), any(SendCallback.class));
+        assertEquals(List.of("payload-1", "payload-2"),
+            messagesCaptor.getValue().stream().map(message -> new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void destroy_shouldSendPendingMessagesPerTopic() {
+        // Given
+        BatchingMessageSender sender = new BatchingMessageSender(rocketMQTemplate, true, 0, 10);
+        doAnswer(invocation -> {
+            SendCallback callback = invocation.getArgument(2);
+            callback.onSuccess(mock(SendResult.class));
+            return null;
+        }).when(rocketMQTemplate).asyncSend(anyString(), any(Collection.class), any(SendCallback.class));
+        Mono<SendResult> login = sender.send("task-center-user-login", message("payload-1"));
+        Mono<SendResult> launch = sender.send("task-center-game-launch", message("payload-2"));
+        verifyNoInteractions(rocketMQTemplate);
+
+        // When
+        sender.destroy();
+
+        // Then
+        StepVerifier.create(login).expectNextCount(1).verifyComplete();
+        StepVerifier.create(launch).expectNextCount(1).verifyComplete();
+        verify(rocketMQTemplate).asyncSend(eq("task-center-user-login"), any(Collection.class), any(SendCallback.class));
+        verify(rocketMQTemplate).asyncSend(eq("task-center-game-launch"), any(Collection.class), any(SendCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void send_shouldFailEveryCallerInBatch_whenBatchSendFails() {
+        // Given
+        BatchingMessageSender sender = new BatchingMessageSender(rocketMQTemplate, true, 0, 2);
+        RuntimeException brokerError = new RuntimeException("broker down");
+        doAnswer(invocation -> {
+            SendCallback callback = invocation.getArgument(2);
+            callback.onException(brokerError);
+            return null;
+        }).when(rocketMQTemplate).asyncSend(anyString(), any(Collection.class), any(SendCallback.class));
+
+        // When
+        Mono<SendResult> first = sender.send("task-center-game-play", message("payload-1"));
+        Mono<SendResult> second = sender.send("task-center-game-play", message("payload-2"));
+
+        // Then
+        StepVerifier.create(first).expectErrorMatches(e -> e == brokerError).verify();
+        StepVerifier.create(second).expectErrorMatches(e -> e == brokerError).verify();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendOrderly_shouldBatchMessagesThatShareAQueue() throws Exception {
+        // Given - 兩個佇列，分片鍵 "1" 與 "3" 對應到同一個佇列，"2" 對應到另一個佇列
+        BatchingMessageSender sender = new BatchingMessageSender(rocketMQTemplate, true, 0, 3);
+        stubQueues("task-center-game-play", 2);
+        SendResult sendResult = mock(SendResult.class);
+        when(rocketMQTemplate.syncSendOrderly(anyString(), any(Collection.class), anyString())).thenReturn(sendResult);
+
+        // When
+        Mono<SendResult> first = sender.sendOrderly("task-center-game-play", message("payload-1"), "1");
+        Mono<SendResult> second = sender.sendOrderly("task-center-game-play", message("payload-2"), "2");
+        Mono<SendResult> third = sender.sendOrderly("task-center-game-play", message("payload-3"), "3");
+
+        // Then
+        StepVerifier.create(first).expectNext(sendResult).verifyComplete();
+        StepVerifier.create(second).expectNext(sendResult).verifyComplete();
+        StepVerifier.create(third).expectNext(sendResult).verifyComplete();
+
+        ArgumentCaptor<Collection<Message<?>>> sameQueueCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(rocketMQTemplate).syncSendOrderly(eq("task-center-game-play"), sameQueueCaptor.capture(), eq("1"));
+        assertEquals(List.of("payload-1", "payload-3"), payloads(sameQueueCaptor.getValue()));
+        ArgumentCaptor<Collection<Message<?>>> otherQueueCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(rocketMQTemplate).syncSendOrderly(eq("task-center-game-play"), otherQueueCaptor.capture(), eq("2"));
+        assertEquals(List.of("payload-2"), payloads(otherQueueCaptor.getValue()));
+        verify(rocketMQTemplate, never()).asyncSend(anyString(), any(Collection.class), any(SendCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendOrderly_shouldFailEveryCaller_whenQueuesCannotBeFetched() throws Exception {
+        // Given
+        BatchingMessageSender sender = new BatchingMessageSender(rocketMQTemplate, true, 0, 2);
+        DefaultMQProducer producer = mock(DefaultMQProducer.class);
+        when(rocketMQTemplate.getProducer()).thenReturn(producer);
+        when(producer.fetchPublishMessageQueues("task-center-game-play")).thenThrow(new MQClientException("no route", null));
+
+        // When
+        Mono<SendResult> first = sender.sendOrderly("task-center-game-play", message("payload-1"), "1");
+        Mono<SendResult> second = sender.sendOrderly("task-center-game-play", message("payload-2"), "2");
+
+        // Then
+        StepVerifier.create(first).expectError(MQClientException.class).verify();
+        StepVerifier.create(second).expectError(MQClientException.class).verify();
+        verify(rocketMQTemplate, never()).syncSendOrderly(anyString(), any(Collection.class), anyString());
+    }
+
+    private void stubQueues(String fullTopic, int queueCount) throws MQClientException {
+        DefaultMQProducer producer = mock(DefaultMQProducer.class);
+        List<MessageQueue> queues = IntStream.range(0, queueCount)
+            .mapToObj(queueId -> new MessageQueue(fullTopic, "broker-a", queueId))
+            .toList();
+        when(rocketMQTemplate.getProducer()).thenReturn(producer);
+        when(producer.fetchPublishMessageQueues(fullTopic)).thenReturn(queues);
+        when(rocketMQTemplate.getMessageQueueSelector()).thenReturn(new SelectMessageQueueByHash());
+    }
+
+    private static List<String> payloads(Collection<Message<?>> messages) {
+        return messages.stream().map(message -> new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private Message<byte[]> message(String payload) {
+        return MessageBuilder.withPayload(payload.getBytes(StandardCharsets.UTF_8)).build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.shared.infrastructure.message;
+
+import com.example.demo.shared.infrastructure.repository.data.DeadLetterEventData;
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.DeadLetterEventR2dbcRepository;
+import com.example.demo.shared.infrastructure.repository.r2dbc.OutboxEventR2dbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterReplayServiceTest {
+
+    @Mock
+    private DeadLetterEventR2dbcRepository deadLetterEventRepository;
+
+    @Mock
+    private OutboxEventR2dbcRepository outboxEventRepository;
+
+    private DeadLetterReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        replayService = new DeadLetterReplayService(deadLetterEventRepository, outboxEventRepository);
+    }
+
+    @Test
+    void replay_shouldMoveDeadLettersToOutboxAndDeleteThem() {
+        // Given
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<OutboxEventData>> outboxCaptor = ArgumentCaptor.forClass(Iterable.class);
+        when(deadLetterEventRepository.findOldest(10))
+            .thenReturn(Flux.just(deadLetter(1L, "user-login", "1", "event-1", "BINARY"), deadLetter(2L, "game-play", null, null, null)));
+        when(outboxEventRepository.saveAll(any(Iterable.class))).thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<OutboxEventData>>getArgument(0)));
+        when(deadLetterEventRepository.deleteAllById(anyList())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(replayService.replay(10))
+            .expectNext(2)
+            .verifyComplete();
+
+        verify(outboxEventRepository).saveAll(outboxCaptor.capture());
+        List<OutboxEventData> outboxEvents = new ArrayList<>();
+        outboxCaptor.getValue().forEach(outboxEvents::add);
+        assertEquals(2, outboxEvents.size());
+        assertEquals("user-login", outboxEvents.get(0).getTopic());
+        assertEquals("event-1", outboxEvents.get(0).getEventId());
+        assertEquals("BINARY", outboxEvents.get(0).getFormat());
+        assertEquals("1", outboxEvents.get(0).getShardingKey());
+        assertNull(outboxEvents.get(1).getShardingKey());
+        assertNotNull(outboxEvents.get(1).getEventId());
+        assertEquals("JSON", outboxEvents.get(1).getFormat());
+        verify(deadLetterEventRepository).deleteAllById(List.of(1L, 2L));
+    }
+
+    @Test
+    void replay_shouldReturnZero_whenNoDeadLetters() {
+        // Given
+        when(deadLetterEventRepository.findOldest(10)).thenReturn(Flux.empty());
+
+        // When & Then
+        StepVerifier.create(replayService.replay(10))
+            .expectNext(0)
+            .verifyComplete();
+
+        verifyNoInteractions(outboxEventRepository);
+        verify(deadLetterEventRepository, never()).deleteAllById(anyList());
+    }
+
+    @Test
+    void replay_shouldFail_whenLimitIsNotPositive() {
+        StepVerifier.create(replayService.replay(0))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+
+        verifyNoInteractions(deadLetterEventRepository, outboxEventRepository);
+    }
+
+    private static DeadLetterEventData deadLetter(Long id, String topic, String shardingKey, String eventId, String format) {
+        DeadLetterEventData deadLetter = new DeadLetterEventData();
+        deadLetter.setId(id);
+        deadLetter.setTopic(topic);
+        deadLetter.setShardingKey(shardingKey);
+        deadLetter.setEventId(eventId);
+        deadLetter.setFormat(format);
+        deadLetter.setPayload(new byte[]{1, 2, 3});
+        return deadLetter;
+    }
+}
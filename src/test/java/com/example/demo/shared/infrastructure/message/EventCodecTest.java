@@ -0,0 +1,118 @@
+package com.example.demo.shared.infrastructure.message;
+
+import com.example.demo.shared.application.dto.event.GameLaunchEvent;
+import com.example.demo.shared.application.dto.event.GamePlayEvent;
+import com.example.demo.shared.application.dto.event.MissionCompletedEvent;
+import com.example.demo.shared.application.dto.event.UserLoginEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCodecTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_456_789);
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURE_ITERATIONS = 20_000;
+    private static final int MEASURE_ROUNDS = 5;
+
+    private final EventCodec binaryCodec = new EventCodec(EventFormat.BINARY);
+    private final EventCodec jsonCodec = new EventCodec(EventFormat.JSON);
+
+    @Test
+    void binary_shouldRoundTripEveryEventType() {
+        UserLoginEvent login = new UserLoginEvent(1L, "testuser", TIME);
+        GameLaunchEvent launch = new GameLaunchEvent(1L, "testuser", 100L, "GAME001", TIME);
+        GamePlayEvent play = new GamePlayEvent(1L, "testuser", 100L, "GAME001", 1500, 300, TIME);
+        MissionCompletedEvent completed = new MissionCompletedEvent(1L, "testuser", 7L, "PLAY_GAMES", 777, TIME);
+
+        assertEquals(login, binaryCodec.decode(binaryCodec.encode(login), "BINARY", UserLoginEvent.class));
+        assertEquals(launch, binaryCodec.decode(binaryCodec.encode(launch), "BINARY", GameLaunchEvent.class));
+        assertEquals(play, binaryCodec.decode(binaryCodec.encode(play), "BINARY", GamePlayEvent.class));
+        assertEquals(completed, binaryCodec.decode(binaryCodec.encode(completed), "BINARY", MissionCompletedEvent.class));
+    }
+
+    @Test
+    void binary_shouldPreserveNullsAndNegativeValues() {
+        GamePlayEvent play = new GamePlayEvent(1L, null, 100L, "遊戲一", -20, null, null);
+
+        assertEquals(play, binaryCodec.decode(binaryCodec.encode(play), "BINARY", GamePlayEvent.class));
+    }
+
+    @Test
+    void binary_shouldBeSmallerThanJson() {
+        GamePlayEvent play = new GamePlayEvent(123456L, "testuser", 100L, "GAME001", 1500, 300, TIME);
+
+        int binarySize = binaryCodec.encode(play).length;
+        int jsonSize = jsonCodec.encode(play).length;
+
+        assertTrue(binarySize * 3 < jsonSize, "binary=" + binarySize + " bytes, json=" + jsonSize + " bytes");
+    }
+
+    @Test
+    void binary_shouldEncodeAndDecodeFasterThanJson() {
+        GamePlayEvent play = new GamePlayEvent(123456L, "testuser", 100L, "GAME001", 1500, 300, TIME);
+
+        // 先暖機讓 JIT 編譯兩種編解碼路徑，再取多輪中最快的一輪，降低 GC 與排程造成的誤差
+        roundTripNanos(binaryCodec, "BINARY", play, WARMUP_ITERATIONS);
+        roundTripNanos(jsonCodec, "JSON", play, WARMUP_ITERATIONS);
+        long binaryNanos = Long.MAX_VALUE;
+        long jsonNanos = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            binaryNanos = Math.min(binaryNanos, roundTripNanos(binaryCodec, "BINARY", play, MEASURE_ITERATIONS));
+            jsonNanos = Math.min(jsonNanos, roundTripNanos(jsonCodec, "JSON", play, MEASURE_ITERATIONS));
+        }
+
+        assertTrue(binaryNanos < jsonNanos, "每次編解碼 binary=" + binaryNanos / MEASURE_ITERATIONS
+            + " ns, json=" + jsonNanos / MEASURE_ITERATIONS + " ns");
+    }
+
+    @Test
+    void format_shouldReturnConfiguredFormat() {
+        assertEquals(EventFormat.JSON, jsonCodec.format());
+        assertEquals(EventFormat.BINARY, binaryCodec.format());
+    }
+
+    @Test
+    void decode_shouldTreatMissingHeaderAsJson() {
+        UserLoginEvent login = new UserLoginEvent(1L, "testuser", TIME);
+
+        assertEquals(login, binaryCodec.decode(jsonCodec.encode(login), null, UserLoginEvent.class));
+    }
+
+    @Test
+    void decode_shouldRejectUnknownVersionAndMismatchedType() {
+        byte[] body = binaryCodec.encode(new UserLoginEvent(1L, "testuser", TIME));
+
+        assertThrows(IllegalArgumentException.class, () -> binaryCodec.decode(body, "BINARY", GamePlayEvent.class));
+
+        body[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> binaryCodec.decode(body, "BINARY", UserLoginEvent.class));
+    }
+
+    @Test
+    void decode_shouldRejectTruncatedBody() {
+        byte[] body = binaryCodec.encode(new UserLoginEvent(1L, "testuser", TIME));
+        byte[] truncated = Arrays.copyOf(body, body.length - 3);
+
+        assertThrows(IllegalArgumentException.class, () -> binaryCodec.decode(truncated, "BINARY", UserLoginEvent.class));
+    }
+
+    @Test
+    void encode_shouldRejectUnsupportedEventInBinaryFormat() {
+        assertThrows(IllegalArgumentException.class, () -> binaryCodec.encode(new Object()));
+    }
+
+    private static long roundTripNanos(EventCodec codec, String formatHeader, GamePlayEvent event, int iterations) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += codec.decode(codec.encode(event), formatHeader, GamePlayEvent.class).score();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals((long) event.score() * iterations, checksum);
+        return elapsed;
+    }
+}
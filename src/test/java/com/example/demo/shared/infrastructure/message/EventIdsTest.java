@@ -0,0 +1,42 @@
+package com.example.demo.shared.infrastructure.message;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventIdsTest {
+
+    @Test
+    void next_shouldEmbedCreationTime() {
+        long before = System.currentTimeMillis();
+        String eventId = EventIds.next();
+        long after = System.currentTimeMillis();
+
+        long timestamp = EventIds.timestampOf(eventId);
+        assertTrue(timestamp >= before && timestamp <= after, "timestamp=" + timestamp);
+    }
+
+    @Test
+    void next_shouldProduceVersion7UuidsWithoutCollisions() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            String eventId = EventIds.next();
+            UUID uuid = UUID.fromString(eventId);
+            assertEquals(7, uuid.version());
+            assertEquals(2, uuid.variant());
+            ids.add(eventId);
+        }
+
+        assertEquals(10_000, ids.size());
+    }
+
+    @Test
+    void timestampOf_shouldRejectIdsNotCreatedByNext() {
+        assertThrows(IllegalArgumentException.class, () -> EventIds.timestampOf(UUID.randomUUID().toString()));
+        assertThrows(IllegalArgumentException.class, () -> EventIds.timestampOf("not-an-event-id"));
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.demo.shared.infrastructure.message;
 
 import com.example.demo.shared.application.dto.event.UserLoginEvent;
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.OutboxEventR2dbcRepository;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.client.producer.SendCallback;
 import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.selector.SelectMessageQueueByHash;
+import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +16,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.Message;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -25,13 +35,16 @@ class EventPublisherTest {
     @Mock
     private RocketMQTemplate rocketMQTemplate;
 
+    @Mock
+    private OutboxEventR2dbcRepository outboxEventRepository;
+
     private EventPublisher eventPublisher;
 
     private UserLoginEvent testEvent;
 
     @BeforeEach
     void setUp() {
-        eventPublisher = new EventPublisher(rocketMQTemplate);
+        eventPublisher = newEventPublisher(false);
         testEvent = new UserLoginEvent(1L, "testuser", LocalDateTime.now());
     }
 
@@ -135,51 +148,121 @@ class EventPublisherTest {
 
 
     @Test
-    void publishLoginEvent_shouldUseCorrectTopic() {
+    void publishLoginEvent_shouldWriteToOutboxWithoutSending() {
         // Given
-        ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
-
-        doAnswer(invocation -> {
-            SendCallback callback = invocation.getArgument(2);
-            callback.onSuccess(mock(SendResult.class));
-            return null;
-        }).when(rocketMQTemplate).asyncSend(anyString(), any(Message.class), any(SendCallback.class));
+        ArgumentCaptor<OutboxEventData> outboxCaptor = ArgumentCaptor.forClass(OutboxEventData.class);
+        when(outboxEventRepository.save(any(OutboxEventData.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
         // When
         StepVerifier.create(eventPublisher.publishLoginEvent(testEvent))
                 .verifyComplete();
 
         // Then
-        verify(rocketMQTemplate).asyncSend(topicCaptor.capture(), any(Message.class), any(SendCallback.class));
-        assertEquals("task-center-user-login", topicCaptor.getValue());
+        verify(outboxEventRepository).save(outboxCaptor.capture());
+        assertEquals("user-login", outboxCaptor.getValue().getTopic());
+        assertEquals("1", outboxCaptor.getValue().getShardingKey());
+        assertNotNull(outboxCaptor.getValue().getEventId());
+        assertEquals("JSON", outboxCaptor.getValue().getFormat());
+        assertTrue(new String(outboxCaptor.getValue().getPayload(), StandardCharsets.UTF_8).contains("testuser"));
+        assertNotNull(outboxCaptor.getValue().getCreatedAt());
+        verifyNoInteractions(rocketMQTemplate);
     }
 
     @Test
     void publishGameLaunchEvent_shouldUseCorrectTopic() {
         // Given
         UserLoginEvent gameLaunchEvent = testEvent; // Use serializable event
-        ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
-
-        doAnswer(invocation -> {
-            SendCallback callback = invocation.getArgument(2);
-            callback.onSuccess(mock(SendResult.class));
-            return null;
-        }).when(rocketMQTemplate).asyncSend(anyString(), any(Message.class), any(SendCallback.class));
+        ArgumentCaptor<OutboxEventData> outboxCaptor = ArgumentCaptor.forClass(OutboxEventData.class);
+        when(outboxEventRepository.save(any(OutboxEventData.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
         // When
         StepVerifier.create(eventPublisher.publishGameLaunchEvent(gameLaunchEvent))
                 .verifyComplete();
 
         // Then
-        verify(rocketMQTemplate).asyncSend(topicCaptor.capture(), any(Message.class), any(SendCallback.class));
-        assertEquals("task-center-game-launch", topicCaptor.getValue());
+        verify(outboxEventRepository).save(outboxCaptor.capture());
+        assertEquals("game-launch", outboxCaptor.getValue().getTopic());
     }
 
     @Test
     void publishGamePlayEvent_shouldUseCorrectTopic() {
         // Given
         UserLoginEvent gamePlayEvent = testEvent; // Use serializable event
-        ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<OutboxEventData> outboxCaptor = ArgumentCaptor.forClass(OutboxEventData.class);
+        when(outboxEventRepository.save(any(OutboxEventData.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When
+        StepVerifier.create(eventPublisher.publishGamePlayEvent(gamePlayEvent))
+                .verifyComplete();
+
+        // Then
+        verify(outboxEventRepository).save(outboxCaptor.capture());
+        assertEquals("game-play", outboxCaptor.getValue().getTopic());
+    }
+
+    @Test
+    void publishMissionCompletedEvent_shouldUseCorrectTopic() {
+        // Given
+        UserLoginEvent missionCompletedEvent = testEvent; // Use serializable event
+        ArgumentCaptor<OutboxEventData> outboxCaptor = ArgumentCaptor.forClass(OutboxEventData.class);
+        when(outboxEventRepository.save(any(OutboxEventData.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When
+        StepVerifier.create(eventPublisher.publishMissionCompletedEvent(missionCompletedEvent))
+                .verifyComplete();
+
+        // Then
+        verify(outboxEventRepository).save(outboxCaptor.capture());
+        assertEquals("mission-completed", outboxCaptor.getValue().getTopic());
+    }
+
+    @Test
+    void enqueueEvent_shouldFail_whenSerializationFails() {
+        // When & Then
+        StepVerifier.create(eventPublisher.enqueueEvent("test-topic", new Object() {
+                }))
+                .expectErrorMatches(throwable -> throwable.getMessage().contains("發布事件失敗"))
+                .verify();
+
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishGamePlayEvents_shouldInsertAllEventsWithOneCall() {
+        // Given
+        UserLoginEvent secondEvent = new UserLoginEvent(2L, "otheruser", LocalDateTime.now());
+        ArgumentCaptor<List<OutboxEventData>> outboxCaptor = ArgumentCaptor.forClass(List.class);
+        when(outboxEventRepository.insertAll(anyList())).thenReturn(Mono.just(2L));
+
+        // When
+        StepVerifier.create(eventPublisher.publishGamePlayEvents(List.of(testEvent, secondEvent)))
+                .verifyComplete();
+
+        // Then
+        verify(outboxEventRepository).insertAll(outboxCaptor.capture());
+        List<OutboxEventData> outboxEvents = outboxCaptor.getValue();
+        assertEquals(2, outboxEvents.size());
+        assertEquals("game-play", outboxEvents.get(0).getTopic());
+        assertEquals("1", outboxEvents.get(0).getShardingKey());
+        assertEquals("2", outboxEvents.get(1).getShardingKey());
+        assertNotEquals(outboxEvents.get(0).getEventId(), outboxEvents.get(1).getEventId());
+        verify(outboxEventRepository, never()).save(any(OutboxEventData.class));
+    }
+
+    @Test
+    void enqueueEvents_shouldNotWrite_whenListIsEmpty() {
+        // When & Then
+        StepVerifier.create(eventPublisher.enqueueEvents("game-play", List.of()))
+                .verifyComplete();
+
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    void publishPayload_shouldSendPayloadAsIs() {
+        // Given
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
 
         doAnswer(invocation -> {
             SendCallback callback = invocation.getArgument(2);
@@ -188,35 +271,65 @@ class EventPublisherTest {
         }).when(rocketMQTemplate).asyncSend(anyString(), any(Message.class), any(SendCallback.class));
 
         // When
-        StepVerifier.create(eventPublisher.publishGamePlayEvent(gamePlayEvent))
+        byte[] payload = "{\"userId\":1}".getBytes(StandardCharsets.UTF_8);
+        StepVerifier.create(eventPublisher.publishPayload("user-login", null, "event-1", EventFormat.JSON, payload))
                 .verifyComplete();
 
         // Then
-        verify(rocketMQTemplate).asyncSend(topicCaptor.capture(), any(Message.class), any(SendCallback.class));
-        assertEquals("task-center-game-play", topicCaptor.getValue());
+        verify(rocketMQTemplate).asyncSend(eq("task-center-user-login"), messageCaptor.capture(), any(SendCallback.class));
+        assertSame(payload, messageCaptor.getValue().getPayload());
+        assertEquals("JSON", messageCaptor.getValue().getHeaders().get(EventCodec.FORMAT_HEADER));
+        assertEquals("event-1", messageCaptor.getValue().getHeaders().get(EventIds.HEADER));
     }
 
+
     @Test
-    void publishMissionCompletedEvent_shouldUseCorrectTopic() {
+    void publishDelayed_shouldSendWithDelayLevelAndHeaders() {
         // Given
-        UserLoginEvent missionCompletedEvent = testEvent; // Use serializable event
-        ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
 
         doAnswer(invocation -> {
             SendCallback callback = invocation.getArgument(2);
             callback.onSuccess(mock(SendResult.class));
             return null;
-        }).when(rocketMQTemplate).asyncSend(anyString(), any(Message.class), any(SendCallback.class));
+        }).when(rocketMQTemplate).asyncSend(anyString(), any(Message.class), any(SendCallback.class), anyLong(), anyInt());
 
         // When
-        StepVerifier.create(eventPublisher.publishMissionCompletedEvent(missionCompletedEvent))
+        byte[] payload = "{\"userId\":1}".getBytes(StandardCharsets.UTF_8);
+        StepVerifier.create(eventPublisher.publishDelayed("user-login", "1", Map.of(EventIds.HEADER, "event-1"), payload, 5))
                 .verifyComplete();
 
         // Then
-        verify(rocketMQTemplate).asyncSend(topicCaptor.capture(), any(Message.class), any(SendCallback.class));
-        assertEquals("task-center-mission-completed", topicCaptor.getValue());
+        verify(rocketMQTemplate).asyncSend(eq("task-center-user-login"), messageCaptor.capture(), any(SendCallback.class), anyLong(), eq(5));
+        verify(rocketMQTemplate, never()).asyncSend(anyString(), any(Message.class), any(SendCallback.class));
+        assertSame(payload, messageCaptor.getValue().getPayload());
+        assertEquals("event-1", messageCaptor.getValue().getHeaders().get(EventIds.HEADER));
     }
 
+    @Test
+    void publishDelayed_shouldSendOrderlyWithDelayLevel_whenOrderlyEnabled() {
+        // Given
+        EventPublisher orderlyPublisher = newEventPublisher(true);
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+
+        doAnswer(invocation -> {
+            SendCallback callback = invocation.getArgument(3);
+            callback.onSuccess(mock(SendResult.class));
+            return null;
+        }).when(rocketMQTemplate).asyncSendOrderly(anyString(), any(Message.class), anyString(), any(SendCallback.class), anyLong(), anyInt());
+
+        // When
+        byte[] payload = "{\"userId\":1}".getBytes(StandardCharsets.UTF_8);
+        Map<String, String> headers = Map.of(EventIds.HEADER, "event-1", EventPublisher.SHARDING_KEY_HEADER, "1");
+        StepVerifier.create(orderlyPublisher.publishDelayed("user-login", "1", headers, payload, 5))
+                .verifyComplete();
+
+        // Then
+        verify(rocketMQTemplate).asyncSendOrderly(eq("task-center-user-login"), messageCaptor.capture(), eq("1"),
+                any(SendCallback.class), anyLong(), eq(5));
+        verify(rocketMQTemplate, never()).asyncSend(anyString(), any(Message.class), any(SendCallback.class), anyLong(), anyInt());
+        assertEquals("1", messageCaptor.getValue().getHeaders().get(EventPublisher.SHARDING_KEY_HEADER));
+    }
 
     @Test
     void publishEvent_shouldSerializeEventCorrectly() {
@@ -239,11 +352,79 @@ class EventPublisherTest {
         Message capturedMessage = messageCaptor.getValue();
         assertNotNull(capturedMessage);
         assertNotNull(capturedMessage.getPayload());
-        assertInstanceOf(String.class, capturedMessage.getPayload());
-        String payload = (String) capturedMessage.getPayload();
+        assertInstanceOf(byte[].class, capturedMessage.getPayload());
+        assertEquals("JSON", capturedMessage.getHeaders().get(EventCodec.FORMAT_HEADER));
+        assertDoesNotThrow(() -> EventIds.timestampOf((String) capturedMessage.getHeaders().get(EventIds.HEADER)));
+        String payload = new String((byte[]) capturedMessage.getPayload(), StandardCharsets.UTF_8);
         assertTrue(payload.contains("testuser"));
     }
 
+    @Test
+    void publishEvent_shouldSendOrderlyByUserId_whenOrderlyEnabled() {
+        // Given
+        EventPublisher orderlyPublisher = newEventPublisher(true);
+
+        doAnswer(invocation -> {
+            SendCallback callback = invocation.getArgument(3);
+            callback.onSuccess(mock(SendResult.class));
+            return null;
+        }).when(rocketMQTemplate).asyncSendOrderly(anyString(), any(Message.class), anyString(), any(SendCallback.class));
+
+        // When
+        StepVerifier.create(orderlyPublisher.publishEvent("user-login", testEvent))
+                .verifyComplete();
+
+        // Then
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(rocketMQTemplate).asyncSendOrderly(eq("task-center-user-login"), messageCaptor.capture(), eq("1"), any(SendCallback.class));
+        verify(rocketMQTemplate, never()).asyncSend(anyString(), any(Message.class), any(SendCallback.class));
+        assertEquals("1", messageCaptor.getValue().getHeaders().get(EventPublisher.SHARDING_KEY_HEADER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishEvent_shouldBatchPerQueue_whenOrderlyAndBatchingEnabled() throws Exception {
+        // Given
+        EventPublisher batchingPublisher = new EventPublisher(rocketMQTemplate, outboxEventRepository,
+                new BatchingMessageSender(rocketMQTemplate, true, 0, 1), new EventCodec(EventFormat.JSON), true);
+        DefaultMQProducer producer = mock(DefaultMQProducer.class);
+        when(rocketMQTemplate.getProducer()).thenReturn(producer);
+        when(producer.fetchPublishMessageQueues("task-center-user-login"))
+                .thenReturn(List.of(new MessageQueue("task-center-user-login", "broker-a", 0)));
+        when(rocketMQTemplate.getMessageQueueSelector()).thenReturn(new SelectMessageQueueByHash());
+        when(rocketMQTemplate.syncSendOrderly(anyString(), any(Collection.class), anyString())).thenReturn(mock(SendResult.class));
+
+        // When
+        StepVerifier.create(batchingPublisher.publishEvent("user-login", testEvent))
+                .verifyComplete();
+
+        // Then
+        verify(rocketMQTemplate).syncSendOrderly(eq("task-center-user-login"), any(Collection.class), eq("1"));
+        verify(rocketMQTemplate, never()).asyncSendOrderly(anyString(), any(Message.class), anyString(), any(SendCallback.class));
+        verify(rocketMQTemplate, never()).asyncSend(anyString(), any(Collection.class), any(SendCallback.class));
+    }
+
+    @Test
+    void publishPayload_shouldSendWithoutShardingKey_whenKeyIsMissing() {
+        // Given
+        EventPublisher orderlyPublisher = newEventPublisher(true);
+
+        doAnswer(invocation -> {
+            SendCallback callback = invocation.getArgument(2);
+            callback.onSuccess(mock(SendResult.class));
+            return null;
+        }).when(rocketMQTemplate).asyncSend(anyString(), any(Message.class), any(SendCallback.class));
+
+        // When
+        byte[] payload = "{\"userId\":1}".getBytes(StandardCharsets.UTF_8);
+        StepVerifier.create(orderlyPublisher.publishPayload("user-login", null, "event-1", EventFormat.JSON, payload))
+                .verifyComplete();
+
+        // Then
+        verify(rocketMQTemplate).asyncSend(eq("task-center-user-login"), any(Message.class), any(SendCallback.class));
+        verify(rocketMQTemplate, never()).asyncSendOrderly(anyString(), any(Message.class), anyString(), any(SendCallback.class));
+    }
+
     @Test
     void eventPublishException_shouldContainCause() {
         // Given
@@ -259,4 +440,9 @@ class EventPublisherTest {
         assertEquals(cause, exception.getCause());
     }
 
+    private EventPublisher newEventPublisher(boolean orderly) {
+        return new EventPublisher(rocketMQTemplate, outboxEventRepository,
+                new BatchingMessageSender(rocketMQTemplate, false, 5, 64), new EventCodec(EventFormat.JSON), orderly);
+    }
+
 }
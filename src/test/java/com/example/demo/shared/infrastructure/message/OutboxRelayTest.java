@@ -0,0 +1,221 @@
+package com.example.demo.shared.infrastructure.message;
+
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import com.example.demo.shared.infrastructure.repository.r2dbc.OutboxEventR2dbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventR2dbcRepository outboxEventRepository;
+
+    @Mock
+    private EventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboxRelay relay;
+
+    private final List<Long> claimedIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxEventRepository, eventPublisher, meterRegistry, 0, 2, 30_000);
+        // 預設本節點取得所有查出的事件
+        lenient().when(outboxEventRepository.claim(anyList(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenAnswer(invocation -> {
+                List<Long> ids = invocation.getArgument(0);
+                claimedIds.clear();
+                claimedIds.addAll(ids);
+                return Mono.just((long) ids.size());
+            });
+        lenient().when(outboxEventRepository.findClaimedIds(anyString()))
+            .thenAnswer(invocation -> Flux.fromIterable(List.copyOf(claimedIds)));
+        lenient().when(outboxEventRepository.release(anyList(), anyString())).thenAnswer(invocation ->
+            Mono.just((long) invocation.<List<Long>>getArgument(0).size()));
+    }
+
+    @Test
+    void relayPending_shouldSendEventsAndDeleteThemInOneStatement() {
+        // Given
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), eq(2))).thenReturn(Flux.just(event(1L, "user-login")));
+        when(eventPublisher.publishPayload(eq("user-login"), any(), any(), eq(EventFormat.BINARY), any(byte[].class))).thenReturn(Mono.empty());
+        when(outboxEventRepository.deleteAllById(List.of(1L))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(relay.relayPending())
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(outboxEventRepository, times(1)).findClaimable(any(LocalDateTime.class), eq(2));
+        assertEquals(1.0, meterRegistry.get("outbox.events").tag("result", "relayed").counter().count());
+    }
+
+    @Test
+    void relayPending_shouldContinueWithNextBatch_whenBatchWasFull() {
+        // Given
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), eq(2)))
+            .thenReturn(Flux.just(event(1L, "game-play"), event(2L, "game-play")))
+            .thenReturn(Flux.just(event(3L, "game-play")));
+        when(eventPublisher.publishPayload(eq("game-play"), any(), any(), eq(EventFormat.BINARY), any(byte[].class))).thenReturn(Mono.empty());
+        when(outboxEventRepository.deleteAllById(anyList())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(relay.relayPending())
+            .expectNext(3)
+            .verifyComplete();
+
+        verify(outboxEventRepository, times(2)).findClaimable(any(LocalDateTime.class), eq(2));
+        verify(outboxEventRepository).deleteAllById(List.of(1L, 2L));
+        verify(outboxEventRepository).deleteAllById(List.of(3L));
+    }
+
+    @Test
+    void relayPending_shouldKeepFailedEventsInOutbox() {
+        // Given
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), eq(2)))
+            .thenReturn(Flux.just(event(1L, "user-login"), event(2L, "game-launch")));
+        when(eventPublisher.publishPayload(eq("user-login"), any(), any(), eq(EventFormat.BINARY), any(byte[].class))).thenReturn(Mono.empty());
+        when(eventPublisher.publishPayload(eq("game-launch"), any(), any(), eq(EventFormat.BINARY), any(byte[].class))).thenReturn(Mono.error(new RuntimeException("broker down")));
+        when(outboxEventRepository.deleteAllById(List.of(1L))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(relay.relayPending())
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(outboxEventRepository, times(1)).findClaimable(any(LocalDateTime.class), eq(2));
+        verify(outboxEventRepository).release(eq(List.of(2L)), anyString());
+        assertEquals(1.0, meterRegistry.get("outbox.events").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void relayPending_shouldResendWithStoredEventId() {
+        // Given
+        OutboxEventData event = event(1L, "user-login");
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), eq(2))).thenReturn(Flux.just(event));
+        when(eventPublisher.publishPayload("user-login", null, event.getEventId(), EventFormat.BINARY, event.getPayload()))
+            .thenReturn(Mono.empty());
+        when(outboxEventRepository.deleteAllById(List.of(1L))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(relay.relayPending())
+            .expectNext(1)
+            .verifyComplete();
+    }
+
+    @Test
+    void relayPending_shouldStopSameUserEventsAfterFailure_andRelayOtherUsers() {
+        // Given
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), eq(4))).thenReturn(Flux.just(
+            event(1L, "game-launch", "1"), event(2L, "game-play", "2"), event(3L, "game-play", "1"), event(4L, "game-play", "2")));
+        when(eventPublisher.publishPayload(eq("game-launch"), eq("1"), any(), eq(EventFormat.BINARY), any(byte[].class)))
+            .thenReturn(Mono.error(new RuntimeException("broker down")));
+        when(eventPublisher.publishPayload(eq("game-play"), eq("2"), any(), eq(EventFormat.BINARY), any(byte[].class))).thenReturn(Mono.empty());
+        when(outboxEventRepository.deleteAllById(List.of(2L, 4L))).thenReturn(Mono.empty());
+        OutboxRelay orderedRelay = new OutboxRelay(outboxEventRepository, eventPublisher, meterRegistry, 0, 4, 30_000);
+
+        // When & Then
+        StepVerifier.create(orderedRelay.relayPending())
+            .expectNext(2)
+            .verifyComplete();
+
+        verify(eventPublisher, never()).publishPayload(eq("game-play"), eq("1"), any(), any(), any());
+        verify(outboxEventRepository).release(eq(List.of(1L, 3L)), anyString());
+    }
+
+    @Test
+    void relayPending_shouldSkipEvents_claimedByAnotherNode() {
+        // Given - event 2 was claimed by another node between the query and the claim
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), eq(4))).thenReturn(Flux.just(
+            event(1L, "user-login"), event(2L, "game-launch", "1"), event(3L, "game-play", "1"), event(4L, "game-play")));
+        when(outboxEventRepository.findClaimedIds(anyString())).thenReturn(Flux.just(1L, 3L, 4L));
+        when(eventPublisher.publishPayload(any(), any(), any(), eq(EventFormat.BINARY), any(byte[].class))).thenReturn(Mono.empty());
+        when(outboxEventRepository.deleteAllById(anyList())).thenReturn(Mono.empty());
+        OutboxRelay claimingRelay = new OutboxRelay(outboxEventRepository, eventPublisher, meterRegistry, 0, 4, 30_000);
+
+        // When & Then
+        StepVerifier.create(claimingRelay.relayPending())
+            .expectNext(2)
+            .verifyComplete();
+
+        verify(eventPublisher, never()).publishPayload(eq("game-launch"), any(), any(), any(), any());
+        // Event 3 must wait for event 2 of the same user, so it is released instead of sent
+        verify(eventPublisher, never()).publishPayload(eq("game-play"), eq("1"), any(), any(), any());
+        verify(outboxEventRepository).release(eq(List.of(3L)), anyString());
+    }
+
+    @Test
+    void relayPending_shouldClaimWithLease_beforeSending() {
+        // Given
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), eq(2))).thenReturn(Flux.just(event(1L, "user-login")));
+        when(eventPublisher.publishPayload(eq("user-login"), any(), any(), eq(EventFormat.BINARY), any(byte[].class))).thenReturn(Mono.empty());
+        when(outboxEventRepository.deleteAllById(List.of(1L))).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(relay.relayPending())
+            .expectNext(1)
+            .verifyComplete();
+
+        // Then
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> claimedUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        InOrder inOrder = inOrder(outboxEventRepository, eventPublisher);
+        inOrder.verify(outboxEventRepository).claim(eq(List.of(1L)), anyString(), now.capture(), claimedUntil.capture());
+        inOrder.verify(eventPublisher).publishPayload(any(), any(), any(), any(), any());
+        inOrder.verify(outboxEventRepository).deleteAllById(List.of(1L));
+        assertEquals(now.getValue().plusSeconds(30), claimedUntil.getValue());
+        verify(outboxEventRepository, never()).release(anyList(), anyString());
+    }
+
+    @Test
+    void relayPending_shouldNotDelete_whenOutboxIsEmpty() {
+        // Given
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), eq(2))).thenReturn(Flux.empty());
+
+        // When & Then
+        StepVerifier.create(relay.relayPending())
+            .expectNext(0)
+            .verifyComplete();
+
+        verify(outboxEventRepository, never()).deleteAllById(anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private OutboxEventData event(Long id, String topic) {
+        return event(id, topic, null);
+    }
+
+    private OutboxEventData event(Long id, String topic, String shardingKey) {
+        OutboxEventData event = new OutboxEventData();
+        event.setId(id);
+        event.setTopic(topic);
+        event.setShardingKey(shardingKey);
+        event.setEventId(EventIds.next());
+        event.setFormat(EventFormat.BINARY.name());
+        event.setPayload(new byte[]{1, id.byteValue()});
+        return event;
+    }
+}
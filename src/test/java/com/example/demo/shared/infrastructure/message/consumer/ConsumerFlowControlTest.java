@@ -0,0 +1,116 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerOrderly;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumerFlowControlTest {
+
+    private final ConsumerFlowControl flowControl = new ConsumerFlowControl(4, 200, false, 32);
+
+    @Test
+    void applyTo_shouldLimitConsumeThreadsToMaxInFlight() {
+        DefaultMQPushConsumer consumer = new DefaultMQPushConsumer("test-group");
+
+        flowControl.applyTo(consumer);
+
+        assertEquals(4, consumer.getConsumeThreadMin());
+        assertEquals(4, consumer.getConsumeThreadMax());
+    }
+
+    @Test
+    void applyTo_shouldKeepDefaultListener_whenBatchDisabled() {
+        DefaultMQPushConsumer consumer = new DefaultMQPushConsumer("test-group");
+
+        flowControl.applyTo(consumer, messages -> Mono.empty());
+
+        assertNull(consumer.getMessageListener());
+        assertEquals(1, consumer.getConsumeMessageBatchMaxSize());
+        assertEquals(4, consumer.getConsumeThreadMax());
+    }
+
+    @Test
+    void applyTo_shouldHandleWholeBatch_whenBatchEnabled() {
+        ConsumerFlowControl batching = new ConsumerFlowControl(4, 200, true, 32);
+        DefaultMQPushConsumer consumer = new DefaultMQPushConsumer("test-group");
+        List<List<MessageExt>> handled = new ArrayList<>();
+
+        batching.applyTo(consumer, messages -> Mono.fromRunnable(() -> handled.add(messages)));
+
+        assertEquals(32, consumer.getConsumeMessageBatchMaxSize());
+        assertTrue(consumer.getPullBatchSize() >= 32);
+        MessageListenerOrderly listener = assertInstanceOf(MessageListenerOrderly.class, consumer.getMessageListener());
+        List<MessageExt> batch = List.of(new MessageExt(), new MessageExt());
+        assertEquals(ConsumeOrderlyStatus.SUCCESS, listener.consumeMessage(batch, null));
+        assertEquals(List.of(batch), handled);
+    }
+
+    @Test
+    void batchListener_shouldSuspendQueue_whenBatchFails() {
+        ConsumerFlowControl batching = new ConsumerFlowControl(4, 200, true, 32);
+        DefaultMQPushConsumer consumer = new DefaultMQPushConsumer("test-group");
+
+        batching.applyTo(consumer, messages -> Mono.error(new RuntimeException("db down")));
+
+        MessageListenerOrderly listener = (MessageListenerOrderly) consumer.getMessageListener();
+        assertEquals(ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT, listener.consumeMessage(List.of(new MessageExt()), null));
+    }
+
+    @Test
+    void await_shouldReturnOnlyAfterProcessingCompletes() {
+        AtomicBoolean completed = new AtomicBoolean();
+
+        flowControl.await(Mono.delay(Duration.ofMillis(50)).doOnNext(tick -> completed.set(true)));
+
+        assertTrue(completed.get());
+    }
+
+    @Test
+    void await_shouldThrow_whenProcessingFails() {
+        RuntimeException error = new RuntimeException("db down");
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> flowControl.await(Mono.error(error)));
+
+        assertSame(error, thrown);
+    }
+
+    @Test
+    void await_shouldThrow_whenProcessingTimesOut() {
+        assertThrows(IllegalStateException.class, () -> flowControl.await(Mono.never()));
+    }
+
+    @Test
+    void withProcessingTimeout_shouldFailWithTimeout_soCallersCanHandleIt() {
+        StepVerifier.create(flowControl.withProcessingTimeout(Mono.never()))
+            .expectError(TimeoutException.class)
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void await_shouldLeaveTimeForFailureHandling_afterProcessingTimeout() {
+        // 處理流程逾時後的錯誤處理需 100 毫秒，仍在等待時間內完成
+        AtomicBoolean handled = new AtomicBoolean();
+
+        flowControl.await(flowControl.withProcessingTimeout(Mono.never())
+            .onErrorResume(TimeoutException.class, e -> Mono.delay(Duration.ofMillis(100)).doOnNext(tick -> handled.set(true)).then()));
+
+        assertTrue(handled.get());
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsumerFlowControl(0, 200, false, 32));
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.shared.application.dto.event.UserLoginEvent;
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.EventFormat;
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.message.consumer.ConsumerPipeline.DecodedEvent;
+import com.example.demo.shared.infrastructure.message.consumer.IdempotencyStore.EventRef;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerOrderly;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConsumerPipelineTest {
+
+    private static final UserLoginEvent EVENT = new UserLoginEvent(1L, "testuser", LocalDateTime.of(2024, 1, 1, 10, 0, 0));
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private FailedEventRouter failedEventRouter;
+
+    private final EventCodec eventCodec = new EventCodec(EventFormat.BINARY);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConsumerPipelineFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new ConsumerPipelineFactory(eventCodec, idempotencyStore,
+            new ConsumerFlowControl(4, 1000, true, 32), failedEventRouter, meterRegistry, 1, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.destroy();
+    }
+
+    @Test
+    void onMessage_shouldRunHandlerOnSharedScheduler_andRecordEveryStage() {
+        // Given
+        when(idempotencyStore.markIfAbsent(eq("user_login"), any(EventRef.class))).thenReturn(Mono.just(true));
+        AtomicReference<String> handlerThread = new AtomicReference<>();
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.createIdempotent("user_login", UserLoginEvent.class,
+            event -> Mono.fromRunnable(() -> handlerThread.set(Thread.currentThread().getName())), events -> Mono.empty());
+
+        // When
+        pipeline.onMessage(message(eventCodec.encode(EVENT)));
+
+        // Then
+        assertTrue(handlerThread.get().startsWith("event-consumer"), handlerThread.get());
+        for (String stage : List.of("decode", "dedupe", "execute")) {
+            assertEquals(1, meterRegistry.get("event.consumer.stage").tag("consumer", "user_login").tag("stage", stage).timer().count());
+        }
+        assertEquals(1.0, resultCount("user_login", "processed"));
+        assertEquals(0.0, meterRegistry.get("event.consumer.executions.active").gauge().value());
+    }
+
+    @Test
+    void onMessage_shouldCountDuplicateAndInvalidMessages_withoutCallingHandler() {
+        // Given
+        when(idempotencyStore.markIfAbsent(eq("user_login"), any(EventRef.class))).thenReturn(Mono.just(false));
+        List<UserLoginEvent> handled = new ArrayList<>();
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.createIdempotent("user_login", UserLoginEvent.class,
+            event -> Mono.fromRunnable(() -> handled.add(event)), events -> Mono.empty());
+
+        // When
+        pipeline.onMessage(message(eventCodec.encode(EVENT)));
+        pipeline.onMessage(message("{invalid json}".getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertTrue(handled.isEmpty());
+        assertEquals(1.0, resultCount("user_login", "duplicate"));
+        assertEquals(1.0, resultCount("user_login", "invalid"));
+        verify(idempotencyStore, times(1)).markIfAbsent(eq("user_login"), any(EventRef.class));
+    }
+
+    @Test
+    void onMessage_shouldReleaseAndThrow_whenHandlerFails() {
+        // Given
+        when(idempotencyStore.markIfAbsent(eq("user_login"), any(EventRef.class))).thenReturn(Mono.just(true));
+        when(idempotencyStore.release(eq("user_login"), anyList())).thenReturn(Mono.empty());
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.createIdempotent("user_login", UserLoginEvent.class,
+            event -> Mono.error(new RuntimeException("db down")), events -> Mono.empty());
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> pipeline.onMessage(message(eventCodec.encode(EVENT))));
+
+        verify(idempotencyStore).release(eq("user_login"), anyList());
+        assertEquals(1.0, resultCount("user_login", "failed"));
+    }
+
+    @Test
+    void onMessage_shouldRerouteAndAck_whenHandlerFailsAndRetryIsEnabled() {
+        // Given
+        RuntimeException failure = new RuntimeException("db down");
+        when(idempotencyStore.markIfAbsent(eq("user_login"), any(EventRef.class))).thenReturn(Mono.just(true));
+        when(idempotencyStore.release(eq("user_login"), anyList())).thenReturn(Mono.empty());
+        when(failedEventRouter.isEnabled()).thenReturn(true);
+        when(failedEventRouter.reroute(any(MessageExt.class), any(Throwable.class))).thenReturn(Mono.empty());
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.createIdempotent("user_login", UserLoginEvent.class,
+            event -> Mono.error(failure), events -> Mono.empty());
+        MessageExt message = message(eventCodec.encode(EVENT));
+
+        // When
+        assertDoesNotThrow(() -> pipeline.onMessage(message));
+
+        // Then
+        verify(idempotencyStore).release(eq("user_login"), anyList());
+        verify(failedEventRouter).reroute(message, failure);
+        assertEquals(1.0, resultCount("user_login", "failed"));
+    }
+
+    @Test
+    void onMessage_shouldReleaseAndReroute_whenHandlerTimesOut() {
+        // Given
+        ConsumerPipelineFactory timingOut = new ConsumerPipelineFactory(eventCodec, idempotencyStore,
+            new ConsumerFlowControl(4, 100, true, 32), failedEventRouter, meterRegistry, 1, 100);
+        when(idempotencyStore.markIfAbsent(eq("user_login"), any(EventRef.class))).thenReturn(Mono.just(true));
+        when(idempotencyStore.release(eq("user_login"), anyList())).thenReturn(Mono.empty());
+        when(failedEventRouter.isEnabled()).thenReturn(true);
+        when(failedEventRouter.reroute(any(MessageExt.class), any(Throwable.class))).thenReturn(Mono.empty());
+        ConsumerPipeline<UserLoginEvent> pipeline = timingOut.createIdempotent("user_login", UserLoginEvent.class,
+            event -> Mono.never(), events -> Mono.empty());
+        MessageExt message = message(eventCodec.encode(EVENT));
+
+        // When
+        try {
+            assertDoesNotThrow(() -> pipeline.onMessage(message));
+        } finally {
+            timingOut.destroy();
+        }
+
+        // Then
+        verify(idempotencyStore).release(eq("user_login"), anyList());
+        verify(failedEventRouter).reroute(eq(message), any(TimeoutException.class));
+        assertEquals(1.0, resultCount("user_login", "failed"));
+    }
+
+    @Test
+    void onMessage_shouldRelease_whenProcessingIsCancelled() {
+        // Given - 去重耗時讓等待時間（處理逾時 1 秒加上 1 秒）在處理流程逾時前用完，處理流程因此被取消
+        ConsumerPipelineFactory timingOut = new ConsumerPipelineFactory(eventCodec, idempotencyStore,
+            new ConsumerFlowControl(4, 1000, true, 32), failedEventRouter, meterRegistry, 1, 100);
+        when(idempotencyStore.markIfAbsent(eq("user_login"), any(EventRef.class)))
+            .thenReturn(Mono.delay(Duration.ofMillis(1500)).thenReturn(true));
+        when(idempotencyStore.release(eq("user_login"), anyList())).thenReturn(Mono.empty());
+        ConsumerPipeline<UserLoginEvent> pipeline = timingOut.createIdempotent("user_login", UserLoginEvent.class,
+            event -> Mono.never(), events -> Mono.empty());
+
+        // When
+        try {
+            assertThrows(IllegalStateException.class, () -> pipeline.onMessage(message(eventCodec.encode(EVENT))));
+        } finally {
+            timingOut.destroy();
+        }
+
+        // Then
+        verify(idempotencyStore, timeout(1000)).release(eq("user_login"), anyList());
+        verifyNoInteractions(failedEventRouter);
+    }
+
+    @Test
+    void onMessage_shouldThrow_whenRerouteFails() {
+        // Given
+        when(failedEventRouter.isEnabled()).thenReturn(true);
+        when(failedEventRouter.reroute(any(MessageExt.class), any(Throwable.class)))
+            .thenReturn(Mono.error(new RuntimeException("broker down")));
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.create("audit", UserLoginEvent.class,
+            event -> Mono.error(new RuntimeException("db down")));
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> pipeline.onMessage(message(eventCodec.encode(EVENT))));
+    }
+
+    @Test
+    void onMessage_shouldSkipIdempotencyStore_whenPipelineIsNotIdempotent() {
+        // Given
+        List<UserLoginEvent> handled = new ArrayList<>();
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.create("audit", UserLoginEvent.class,
+            event -> Mono.fromRunnable(() -> handled.add(event)));
+
+        // When
+        pipeline.onMessage(message(eventCodec.encode(EVENT)));
+
+        // Then
+        assertEquals(List.of(EVENT), handled);
+        verifyNoInteractions(idempotencyStore);
+    }
+
+    @Test
+    void onMessage_shouldThrow_whenAllExecutionPermitsAreInUse() throws Exception {
+        // Given - 同時執行上限為 1，第一則訊息佔用名額直到 release 完成
+        Sinks.Empty<Void> release = Sinks.empty();
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.create("audit", UserLoginEvent.class, event -> release.asMono());
+        Thread first = new Thread(() -> pipeline.onMessage(message(eventCodec.encode(EVENT))));
+        first.start();
+        while (meterRegistry.get("event.consumer.executions.active").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> pipeline.onMessage(message(eventCodec.encode(EVENT))));
+
+        release.tryEmitEmpty();
+        first.join();
+        assertEquals(0.0, meterRegistry.get("event.consumer.executions.active").gauge().value());
+    }
+
+    @Test
+    void applyTo_shouldHandOnlyDecodedEventsToBatchHandler() {
+        // Given
+        List<List<DecodedEvent<UserLoginEvent>>> batches = new ArrayList<>();
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.createIdempotent("user_login", UserLoginEvent.class,
+            event -> Mono.empty(), events -> Mono.fromRunnable(() -> batches.add(events)));
+        DefaultMQPushConsumer consumer = new DefaultMQPushConsumer("test-group");
+        MessageExt valid = message(eventCodec.encode(EVENT));
+
+        // When
+        pipeline.applyTo(consumer);
+        MessageListenerOrderly listener = (MessageListenerOrderly) consumer.getMessageListener();
+        ConsumeOrderlyStatus status = listener.consumeMessage(
+            List.of(valid, message("{invalid json}".getBytes(StandardCharsets.UTF_8))), null);
+
+        // Then
+        assertEquals(ConsumeOrderlyStatus.SUCCESS, status);
+        assertEquals(1, batches.size());
+        assertEquals(List.of(new DecodedEvent<>(EventRef.of(valid), EVENT)), batches.get(0));
+        assertEquals(1.0, resultCount("user_login", "processed"));
+        assertEquals(1.0, resultCount("user_login", "invalid"));
+    }
+
+    @Test
+    void applyTo_shouldRerouteOnlyDecodedMessages_whenBatchHandlerFails() {
+        // Given
+        when(failedEventRouter.isEnabled()).thenReturn(true);
+        when(failedEventRouter.reroute(any(MessageExt.class), any(Throwable.class))).thenReturn(Mono.empty());
+        ConsumerPipeline<UserLoginEvent> pipeline = factory.createIdempotent("user_login", UserLoginEvent.class,
+            event -> Mono.empty(), events -> Mono.error(new RuntimeException("db down")));
+        DefaultMQPushConsumer consumer = new DefaultMQPushConsumer("test-group");
+        MessageExt first = message(eventCodec.encode(EVENT));
+        MessageExt second = message(eventCodec.encode(EVENT));
+
+        // When
+        pipeline.applyTo(consumer);
+        MessageListenerOrderly listener = (MessageListenerOrderly) consumer.getMessageListener();
+        ConsumeOrderlyStatus status = listener.consumeMessage(
+            List.of(first, message("{invalid json}".getBytes(StandardCharsets.UTF_8)), second), null);
+
+        // Then
+        assertEquals(ConsumeOrderlyStatus.SUCCESS, status);
+        verify(failedEventRouter).reroute(eq(first), any(Throwable.class));
+        verify(failedEventRouter).reroute(eq(second), any(Throwable.class));
+        verify(failedEventRouter, times(2)).reroute(any(MessageExt.class), any(Throwable.class));
+        assertEquals(2.0, resultCount("user_login", "failed"));
+    }
+
+    private double resultCount(String consumer, String result) {
+        return meterRegistry.get("event.consumer.events").tag("consumer", consumer).tag("result", result).counter().count();
+    }
+
+    private MessageExt message(byte[] body) {
+        MessageExt message = new MessageExt();
+        message.setBody(body);
+        message.putUserProperty(EventCodec.FORMAT_HEADER, EventFormat.BINARY.name());
+        message.putUserProperty(EventIds.HEADER, EventIds.next());
+        return message;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.EventFormat;
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.message.EventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FailedEventRouterTest {
+
+    private static final byte[] PAYLOAD = "{\"userId\":1}".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private EventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private FailedEventRouter router;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        router = new FailedEventRouter(eventPublisher, meterRegistry, true, new int[]{3, 5});
+    }
+
+    @Test
+    void reroute_shouldRepublishToOriginalTopicWithFirstDelayLevel() {
+        // Given
+        ArgumentCaptor<Map<String, String>> headersCaptor = headersCaptor();
+        when(eventPublisher.publishDelayed(eq("user-login"), eq("1"), anyMap(), any(byte[].class), anyInt())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(router.reroute(message("task-center-user-login", null), new RuntimeException("db down")))
+            .verifyComplete();
+
+        verify(eventPublisher).publishDelayed(eq("user-login"), eq("1"), headersCaptor.capture(), same(PAYLOAD), eq(3));
+        assertEquals("1", headersCaptor.getValue().get(FailedEventRouter.RETRY_ATTEMPT_HEADER));
+        assertEquals("event-1", headersCaptor.getValue().get(EventIds.HEADER));
+        assertEquals("JSON", headersCaptor.getValue().get(EventCodec.FORMAT_HEADER));
+        assertEquals("1", headersCaptor.getValue().get(EventPublisher.SHARDING_KEY_HEADER));
+        assertEquals(1.0, rerouteCount("retry"));
+    }
+
+    @Test
+    void reroute_shouldUseNextDelayLevel_forRetriedMessage() {
+        // Given
+        ArgumentCaptor<Map<String, String>> headersCaptor = headersCaptor();
+        when(eventPublisher.publishDelayed(eq("user-login"), eq("1"), anyMap(), any(byte[].class), anyInt())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(router.reroute(message("task-center-user-login", "1"), new RuntimeException("db down")))
+            .verifyComplete();
+
+        verify(eventPublisher).publishDelayed(eq("user-login"), eq("1"), headersCaptor.capture(), same(PAYLOAD), eq(5));
+        assertEquals("2", headersCaptor.getValue().get(FailedEventRouter.RETRY_ATTEMPT_HEADER));
+    }
+
+    @Test
+    void reroute_shouldPublishToDeadLetterTopic_whenRetriesAreExhausted() {
+        // Given
+        ArgumentCaptor<Map<String, String>> headersCaptor = headersCaptor();
+        when(eventPublisher.publishDelayed(eq(FailedEventRouter.DEAD_LETTER_TOPIC), isNull(), anyMap(), any(byte[].class), anyInt()))
+            .thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(router.reroute(message("task-center-user-login", "2"), new RuntimeException("db down")))
+            .verifyComplete();
+
+        verify(eventPublisher).publishDelayed(eq(FailedEventRouter.DEAD_LETTER_TOPIC), isNull(), headersCaptor.capture(), same(PAYLOAD), eq(0));
+        Map<String, String> headers = headersCaptor.getValue();
+        assertEquals("user-login", headers.get(FailedEventRouter.ORIGINAL_TOPIC_HEADER));
+        assertEquals("2", headers.get(FailedEventRouter.RETRY_ATTEMPT_HEADER));
+        assertTrue(headers.get(FailedEventRouter.FAILURE_HEADER).contains("db down"));
+        assertEquals("event-1", headers.get(EventIds.HEADER));
+        assertEquals("1", headers.get(EventPublisher.SHARDING_KEY_HEADER));
+        assertEquals(1.0, rerouteCount("dead_letter"));
+    }
+
+    @Test
+    void reroute_shouldPropagateError_whenPublishFails() {
+        // Given
+        when(eventPublisher.publishDelayed(anyString(), any(), anyMap(), any(byte[].class), anyInt()))
+            .thenReturn(Mono.error(new RuntimeException("broker down")));
+
+        // When & Then
+        StepVerifier.create(router.reroute(message("task-center-user-login", null), new RuntimeException("db down")))
+            .expectErrorMessage("broker down")
+            .verify();
+
+        assertEquals(0.0, rerouteCount("retry"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Map<String, String>> headersCaptor() {
+        return ArgumentCaptor.forClass(Map.class);
+    }
+
+    private double rerouteCount(String outcome) {
+        return meterRegistry.get("event.consumer.reroutes").tag("outcome", outcome).counter().count();
+    }
+
+    private static MessageExt message(String topic, String retryAttempt) {
+        MessageExt message = new MessageExt();
+        message.setTopic(topic);
+        message.setBody(PAYLOAD);
+        message.putUserProperty(EventIds.HEADER, "event-1");
+        message.putUserProperty(EventCodec.FORMAT_HEADER, EventFormat.JSON.name());
+        message.putUserProperty(EventPublisher.SHARDING_KEY_HEADER, "1");
+        if (retryAttempt != null) {
+            message.putUserProperty(FailedEventRouter.RETRY_ATTEMPT_HEADER, retryAttempt);
+        }
+        return message;
+    }
+}
@@ -1,38 +1,55 @@
 package com.example.demo.shared.infrastructure.message.consumer;
 
-import com.example.demo.mission.application.service.MissionCommandService;
+import com.example.demo.mission.application.service.MissionProgressCoalescer;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
 import com.example.demo.shared.application.dto.event.GameLaunchEvent;
-import com.example.demo.shared.infrastructure.redis.RedisService;
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.EventFormat;
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.message.consumer.IdempotencyStore.EventRef;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class GameLaunchEventConsumerTest {
 
+    private static final String SCOPE = "game_launch";
+
+    @Mock
+    private MissionProgressCoalescer missionProgressCoalescer;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
     @Mock
-    private MissionCommandService missionCommandService;
+    private FailedEventRouter failedEventRouter;
 
     @Mock
-    private RedisService redisService;
+    private MissionProgressBatchProcessor batchProcessor;
 
-    @Spy
-    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final EventCodec eventCodec = new EventCodec(EventFormat.BINARY);
+
+    private ConsumerPipelineFactory consumerPipelineFactory;
 
-    @InjectMocks
     private GameLaunchEventConsumer gameLaunchEventConsumer;
 
     private GameLaunchEvent testEvent;
@@ -40,6 +57,9 @@ class GameLaunchEventConsumerTest {
 
     @BeforeEach
     void setUp() throws Exception {
+        consumerPipelineFactory = new ConsumerPipelineFactory(eventCodec, idempotencyStore,
+                new ConsumerFlowControl(16, 1000, false, 32), failedEventRouter, new SimpleMeterRegistry(), 4, 1000);
+        gameLaunchEventConsumer = new GameLaunchEventConsumer(consumerPipelineFactory, missionProgressCoalescer, batchProcessor);
         testEvent = new GameLaunchEvent(
                 1L,
                 "testuser",
@@ -50,48 +70,39 @@ class GameLaunchEventConsumerTest {
         testEventJson = objectMapper.writeValueAsString(testEvent);
     }
 
+    @AfterEach
+    void tearDown() {
+        consumerPipelineFactory.destroy();
+    }
+
     @Test
     void onMessage_shouldProcessEvent_whenFirstTimeReceived() {
         // Given
-        String idempotencyKey = "game_launch_event:idempotency:1:100";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gameLaunchEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        gameLaunchEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
     }
 
     @Test
     void onMessage_shouldSkipProcessing_whenDuplicateEvent() {
         // Given
-        String idempotencyKey = "game_launch_event:idempotency:1:100";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(false));
 
         // When
-        gameLaunchEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        gameLaunchEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -100,77 +111,61 @@ class GameLaunchEventConsumerTest {
         String invalidJson = "{invalid json}";
 
         // When
-        gameLaunchEventConsumer.onMessage(invalidJson);
+        gameLaunchEventConsumer.onMessage(jsonMessage(invalidJson));
 
         // Then
-        verify(redisService, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        verify(idempotencyStore, never()).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
     void onMessage_shouldHandleMissionUpdateFailure() {
         // Given
-        String idempotencyKey = "game_launch_event:idempotency:1:100";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.error(new RuntimeException("Mission update failed")));
+        when(idempotencyStore.release(eq(SCOPE), anyList())).thenReturn(Mono.empty());
 
-        // When
-        gameLaunchEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // When & Then - 拋出例外讓 broker 重新投遞
+        assertThrows(RuntimeException.class, () -> gameLaunchEventConsumer.onMessage(jsonMessage(testEventJson)));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
+        verify(idempotencyStore).release(eq(SCOPE), anyList());
     }
 
     @Test
     void onMessage_shouldHandleRedisFailure() {
         // Given
-        String idempotencyKey = "game_launch_event:idempotency:1:100";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.error(new RuntimeException("Redis connection failed")));
 
-        // When
-        gameLaunchEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // When & Then
+        assertThrows(RuntimeException.class, () -> gameLaunchEventConsumer.onMessage(jsonMessage(testEventJson)));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
-    void onMessage_shouldUseCorrectIdempotencyKey() {
+    void onMessage_shouldIdentifyEventByEventIdHeader() {
         // Given
-        String expectedKey = "game_launch_event:idempotency:1:100";
-        when(redisService.setIfAbsent(eq(expectedKey), eq("processed"), any(Duration.class)))
+        MessageExt message = jsonMessage(testEventJson);
+        String eventId = message.getUserProperty(EventIds.HEADER);
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gameLaunchEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        gameLaunchEventConsumer.onMessage(message);
 
-        verify(redisService).setIfAbsent(eq(expectedKey), eq("processed"), eq(Duration.ofDays(1)));
+        // Then
+        ArgumentCaptor<EventRef> refCaptor = ArgumentCaptor.forClass(EventRef.class);
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), refCaptor.capture());
+        assertEquals(eventId, refCaptor.getValue().eventId());
+        assertEquals(EventIds.timestampOf(eventId), refCaptor.getValue().timestampMillis());
     }
 
     @Test
@@ -184,25 +179,18 @@ class GameLaunchEventConsumerTest {
                 LocalDateTime.of(2024, 1, 1, 10, 0, 0)
         );
         String event2Json = objectMapper.writeValueAsString(event2);
-        String idempotencyKey2 = "game_launch_event:idempotency:2:100";
 
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(2L, "user2"))
+        when(missionProgressCoalescer.submit(eq(2L), eq("user2"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gameLaunchEventConsumer.onMessage(event2Json);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        gameLaunchEventConsumer.onMessage(jsonMessage(event2Json));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(2L, "user2");
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(2L), eq("user2"), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -216,48 +204,34 @@ class GameLaunchEventConsumerTest {
                 LocalDateTime.of(2024, 1, 1, 10, 0, 0)
         );
         String event2Json = objectMapper.writeValueAsString(event2);
-        String idempotencyKey2 = "game_launch_event:idempotency:1:200";
 
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gameLaunchEventConsumer.onMessage(event2Json);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        gameLaunchEventConsumer.onMessage(jsonMessage(event2Json));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
     }
 
     @Test
     void onMessage_shouldCallUpdateMissionProgressWithCorrectParams() {
         // Given
-        String idempotencyKey = "game_launch_event:idempotency:1:100";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gameLaunchEventConsumer.onMessage(testEventJson);
+        gameLaunchEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(missionCommandService).updateMissionProgress(eq(1L), eq("testuser"));
-        verify(missionCommandService, never()).updateMissionProgress(argThat(id -> !id.equals(1L)), anyString());
+        // Then
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), eq(MissionProgressDelta.ofGameLaunch(LocalDateTime.of(2024, 1, 1, 10, 0, 0))));
+        verify(missionProgressCoalescer, never()).submit(argThat(id -> !id.equals(1L)), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -265,40 +239,15 @@ class GameLaunchEventConsumerTest {
         // Given - create event with minimal fields (some nulls)
         String jsonWithNulls = "{\"userId\":1,\"username\":\"testuser\",\"gameId\":100,\"gameCode\":null,\"launchTime\":\"2024-01-01T10:00:00\"}";
 
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
+                .thenReturn(Mono.just(false));
+
         // When
-        gameLaunchEventConsumer.onMessage(jsonWithNulls);
+        gameLaunchEventConsumer.onMessage(jsonMessage(jsonWithNulls));
 
         // Then - should still process or handle gracefully
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
         // Verify at least deserialization was attempted
-        verify(redisService, atMost(1)).setIfAbsent(anyString(), anyString(), any(Duration.class));
-    }
-
-    @Test
-    void onMessage_shouldSetCorrectTTLForIdempotencyKey() {
-        // Given
-        String idempotencyKey = "game_launch_event:idempotency:1:100";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1))))
-                .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
-                .thenReturn(Mono.empty());
-
-        // When
-        gameLaunchEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(anyString(), anyString(), eq(Duration.ofDays(1)));
+        verify(idempotencyStore, atMost(1)).markIfAbsent(eq(SCOPE), any(EventRef.class));
     }
 
     @Test
@@ -307,10 +256,17 @@ class GameLaunchEventConsumerTest {
         String emptyMessage = "";
 
         // When
-        gameLaunchEventConsumer.onMessage(emptyMessage);
+        gameLaunchEventConsumer.onMessage(jsonMessage(emptyMessage));
 
         // Then
-        verify(redisService, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        verify(idempotencyStore, never()).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
+    }
+
+    private MessageExt jsonMessage(String json) {
+        MessageExt message = new MessageExt();
+        message.setBody(json.getBytes(StandardCharsets.UTF_8));
+        message.putUserProperty(EventIds.HEADER, EventIds.next());
+        return message;
     }
 }
@@ -1,39 +1,55 @@
 package com.example.demo.shared.infrastructure.message.consumer;
 
-import com.example.demo.mission.application.service.MissionCommandService;
+import com.example.demo.mission.application.service.MissionProgressCoalescer;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
 import com.example.demo.shared.application.dto.event.GamePlayEvent;
-import com.example.demo.shared.infrastructure.redis.RedisService;
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.EventFormat;
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.message.consumer.IdempotencyStore.EventRef;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class GamePlayEventConsumerTest {
 
+    private static final String SCOPE = "game_play";
+
+    @Mock
+    private MissionProgressCoalescer missionProgressCoalescer;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
     @Mock
-    private MissionCommandService missionCommandService;
+    private FailedEventRouter failedEventRouter;
 
     @Mock
-    private RedisService redisService;
+    private MissionProgressBatchProcessor batchProcessor;
 
-    @Spy
-    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final EventCodec eventCodec = new EventCodec(EventFormat.BINARY);
+
+    private ConsumerPipelineFactory consumerPipelineFactory;
 
-    @InjectMocks
     private GamePlayEventConsumer gamePlayEventConsumer;
 
     private GamePlayEvent testEvent;
@@ -42,6 +58,9 @@ class GamePlayEventConsumerTest {
 
     @BeforeEach
     void setUp() throws Exception {
+        consumerPipelineFactory = new ConsumerPipelineFactory(eventCodec, idempotencyStore,
+                new ConsumerFlowControl(16, 1000, false, 32), failedEventRouter, new SimpleMeterRegistry(), 4, 1000);
+        gamePlayEventConsumer = new GamePlayEventConsumer(consumerPipelineFactory, missionProgressCoalescer, batchProcessor);
         testPlayTime = LocalDateTime.of(2024, 1, 1, 10, 0, 0);
         testEvent = new GamePlayEvent(
                 1L,
@@ -55,50 +74,58 @@ class GamePlayEventConsumerTest {
         testEventJson = objectMapper.writeValueAsString(testEvent);
     }
 
+    @AfterEach
+    void tearDown() {
+        consumerPipelineFactory.destroy();
+    }
+
     @Test
     void onMessage_shouldProcessEvent_whenFirstTimeReceived() {
         // Given
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey = "game_play_event:idempotency:1:100:1500:" + epochSecond;
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gamePlayEventConsumer.onMessage(testEventJson);
+        gamePlayEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
+    }
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+    @Test
+    void onMessage_shouldDecodeBinaryMessage_whenFormatHeaderIsBinary() {
+        // Given
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
+                .thenReturn(Mono.just(true));
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
+                .thenReturn(Mono.empty());
+        MessageExt message = new MessageExt();
+        message.setBody(eventCodec.encode(testEvent));
+        message.putUserProperty(EventCodec.FORMAT_HEADER, EventFormat.BINARY.name());
+        message.putUserProperty(EventIds.HEADER, EventIds.next());
+
+        // When
+        gamePlayEventConsumer.onMessage(message);
+
+        // Then
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
     }
 
     @Test
     void onMessage_shouldSkipProcessing_whenDuplicateEvent() {
         // Given
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey = "game_play_event:idempotency:1:100:1500:" + epochSecond;
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(false));
 
         // When
-        gamePlayEventConsumer.onMessage(testEventJson);
+        gamePlayEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -107,57 +134,41 @@ class GamePlayEventConsumerTest {
         String invalidJson = "{invalid json}";
 
         // When
-        gamePlayEventConsumer.onMessage(invalidJson);
+        gamePlayEventConsumer.onMessage(jsonMessage(invalidJson));
 
         // Then
-        verify(redisService, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        verify(idempotencyStore, never()).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
     void onMessage_shouldHandleMissionUpdateFailure() {
         // Given
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey = "game_play_event:idempotency:1:100:1500:" + epochSecond;
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.error(new RuntimeException("Mission update failed")));
+        when(idempotencyStore.release(eq(SCOPE), anyList())).thenReturn(Mono.empty());
 
-        // When
-        gamePlayEventConsumer.onMessage(testEventJson);
+        // When & Then - 拋出例外讓 broker 重新投遞
+        assertThrows(RuntimeException.class, () -> gamePlayEventConsumer.onMessage(jsonMessage(testEventJson)));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
+        verify(idempotencyStore).release(eq(SCOPE), anyList());
     }
 
     @Test
     void onMessage_shouldHandleRedisFailure() {
         // Given
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey = "game_play_event:idempotency:1:100:1500:" + epochSecond;
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.error(new RuntimeException("Redis connection failed")));
 
-        // When
-        gamePlayEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // When & Then
+        assertThrows(RuntimeException.class, () -> gamePlayEventConsumer.onMessage(jsonMessage(testEventJson)));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -173,26 +184,18 @@ class GamePlayEventConsumerTest {
                 testPlayTime
         );
         String event2Json = objectMapper.writeValueAsString(event2);
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey2 = "game_play_event:idempotency:1:100:2000:" + epochSecond;
 
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gamePlayEventConsumer.onMessage(event2Json);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        gamePlayEventConsumer.onMessage(jsonMessage(event2Json));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -208,26 +211,18 @@ class GamePlayEventConsumerTest {
                 testPlayTime
         );
         String event2Json = objectMapper.writeValueAsString(event2);
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey2 = "game_play_event:idempotency:1:100:0:" + epochSecond;
 
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gamePlayEventConsumer.onMessage(event2Json);
+        gamePlayEventConsumer.onMessage(jsonMessage(event2Json));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -243,26 +238,37 @@ class GamePlayEventConsumerTest {
                 testPlayTime
         );
         String event2Json = objectMapper.writeValueAsString(event2);
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey2 = "game_play_event:idempotency:1:100:1500:" + epochSecond;
 
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gamePlayEventConsumer.onMessage(event2Json);
+        gamePlayEventConsumer.onMessage(jsonMessage(event2Json));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
+    }
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+    @Test
+    void onMessage_shouldProcessIdenticalPlays_whenEventIdsDiffer() {
+        // Given - 同一秒內分數相同的兩場遊戲，內容完全一樣但是不同的事件
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
+                .thenReturn(Mono.just(true));
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
+                .thenReturn(Mono.empty());
+
+        // When
+        gamePlayEventConsumer.onMessage(jsonMessage(testEventJson));
+        gamePlayEventConsumer.onMessage(jsonMessage(testEventJson));
+
+        // Then
+        ArgumentCaptor<EventRef> refCaptor = ArgumentCaptor.forClass(EventRef.class);
+        verify(idempotencyStore, times(2)).markIfAbsent(eq(SCOPE), refCaptor.capture());
+        assertNotEquals(refCaptor.getAllValues().get(0), refCaptor.getAllValues().get(1));
+        verify(missionProgressCoalescer, times(2)).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -278,26 +284,18 @@ class GamePlayEventConsumerTest {
                 testPlayTime
         );
         String event2Json = objectMapper.writeValueAsString(event2);
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey2 = "game_play_event:idempotency:2:100:1500:" + epochSecond;
 
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(2L, "user2"))
+        when(missionProgressCoalescer.submit(eq(2L), eq("user2"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gamePlayEventConsumer.onMessage(event2Json);
+        gamePlayEventConsumer.onMessage(jsonMessage(event2Json));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(2L, "user2");
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(2L), eq("user2"), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -313,73 +311,34 @@ class GamePlayEventConsumerTest {
                 testPlayTime
         );
         String event2Json = objectMapper.writeValueAsString(event2);
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey2 = "game_play_event:idempotency:1:200:1500:" + epochSecond;
 
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gamePlayEventConsumer.onMessage(event2Json);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        gamePlayEventConsumer.onMessage(jsonMessage(event2Json));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
     }
 
     @Test
     void onMessage_shouldCallUpdateMissionProgressWithCorrectParams() {
         // Given
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey = "game_play_event:idempotency:1:100:1500:" + epochSecond;
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gamePlayEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        gamePlayEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        verify(missionCommandService).updateMissionProgress(eq(1L), eq("testuser"));
-        verify(missionCommandService, never()).updateMissionProgress(argThat(id -> !id.equals(1L)), anyString());
-    }
-
-    @Test
-    void onMessage_shouldSetCorrectTTLForIdempotencyKey() {
-        // Given
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey = "game_play_event:idempotency:1:100:1500:" + epochSecond;
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1))))
-                .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
-                .thenReturn(Mono.empty());
-
-        // When
-        gamePlayEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(anyString(), anyString(), eq(Duration.ofDays(1)));
+        // Then
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), eq(MissionProgressDelta.ofGamePlay(1500, testPlayTime)));
+        verify(missionProgressCoalescer, never()).submit(argThat(id -> !id.equals(1L)), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -388,47 +347,11 @@ class GamePlayEventConsumerTest {
         String emptyMessage = "";
 
         // When
-        gamePlayEventConsumer.onMessage(emptyMessage);
+        gamePlayEventConsumer.onMessage(jsonMessage(emptyMessage));
 
         // Then
-        verify(redisService, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
-    }
-
-    @Test
-    void onMessage_shouldDistinguishEventsByPlayTime() throws Exception {
-        // Given - same user, game, score but different play time
-        LocalDateTime laterTime = testPlayTime.plusHours(1);
-        GamePlayEvent event2 = new GamePlayEvent(
-                1L,
-                "testuser",
-                100L,
-                "GAME001",
-                1500,
-                300,
-                laterTime
-        );
-        String event2Json = objectMapper.writeValueAsString(event2);
-        long epochSecond2 = laterTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey2 = "game_play_event:idempotency:1:100:1500:" + epochSecond2;
-
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
-                .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
-                .thenReturn(Mono.empty());
-
-        // When
-        gamePlayEventConsumer.onMessage(event2Json);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        verify(idempotencyStore, never()).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -444,25 +367,24 @@ class GamePlayEventConsumerTest {
                 testPlayTime
         );
         String highScoreJson = objectMapper.writeValueAsString(highScoreEvent);
-        long epochSecond = testPlayTime.toEpochSecond(ZoneOffset.UTC);
-        String idempotencyKey = "game_play_event:idempotency:1:100:999999:" + epochSecond;
 
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        gamePlayEventConsumer.onMessage(highScoreJson);
+        gamePlayEventConsumer.onMessage(jsonMessage(highScoreJson));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
+    }
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+    private MessageExt jsonMessage(String json) {
+        MessageExt message = new MessageExt();
+        message.setBody(json.getBytes(StandardCharsets.UTF_8));
+        message.putUserProperty(EventIds.HEADER, EventIds.next());
+        return message;
     }
 }
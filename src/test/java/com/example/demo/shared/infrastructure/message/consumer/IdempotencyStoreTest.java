@@ -0,0 +1,172 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.message.consumer.IdempotencyStore.EventRef;
+import com.example.demo.shared.infrastructure.redis.RedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    private static final String SCOPE = "game_play";
+    // 2024-01-01T10:00:00Z，恰好是第 473362 個一小時時間桶的開始
+    private static final long TIME = 1_704_103_200_000L;
+
+    @Mock
+    private RedisService redisService;
+
+    private IdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = new IdempotencyStore(redisService, 60, 24, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markAllIfAbsent_shouldCheckEachBucketWithSingleKeyScriptCall_withExpiry() {
+        // Given - 每次腳本呼叫只存取一個時間桶，Redis Cluster 中不會跨 slot
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(List.of("idempotency:game_play:473362")), anyList()))
+            .thenReturn(Mono.just("10"));
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(List.of("idempotency:game_play:473363")), anyList()))
+            .thenReturn(Mono.just("0"));
+
+        // When & Then
+        StepVerifier.create(idempotencyStore.markAllIfAbsent(SCOPE, List.of(
+                new EventRef("e1", TIME), new EventRef("e2", TIME + 3_600_000L), new EventRef("e3", TIME + 60_000L))))
+            .expectNext(List.of(true, false, false))
+            .verifyComplete();
+
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class),
+            eq(List.of("idempotency:game_play:473362")), eq(List.of("1704193200", "e1", "e3")));
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class),
+            eq(List.of("idempotency:game_play:473363")), eq(List.of("1704196800", "e2")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markAllIfAbsent_shouldReleaseMarkedEvents_whenAnotherBucketFails() {
+        // Given
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(List.of("idempotency:game_play:473362")), anyList()))
+            .thenReturn(Mono.just("10"), Mono.just(1L));
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), eq(List.of("idempotency:game_play:473363")), anyList()))
+            .thenReturn(Mono.error(new RuntimeException("redis down")));
+
+        // When & Then
+        StepVerifier.create(idempotencyStore.markAllIfAbsent(SCOPE, List.of(
+                new EventRef("e1", TIME), new EventRef("e3", TIME), new EventRef("e2", TIME + 3_600_000L))))
+            .expectErrorMessage("redis down")
+            .verify();
+
+        // Then - 只移除本次新記錄的 e1，e3 原本就已記錄
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class),
+            eq(List.of("idempotency:game_play:473362")), eq(List.of("e1")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markIfAbsent_shouldSkipRedis_whenEventIsInNearCache() {
+        // Given
+        EventRef event = new EventRef("e1", TIME);
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), anyList(), anyList()))
+            .thenReturn(Mono.just("1"));
+
+        // When & Then
+        StepVerifier.create(idempotencyStore.markIfAbsent(SCOPE, event)).expectNext(true).verifyComplete();
+        StepVerifier.create(idempotencyStore.markIfAbsent(SCOPE, event)).expectNext(false).verifyComplete();
+        StepVerifier.create(idempotencyStore.markIfAbsent("game_launch", event)).expectNext(true).verifyComplete();
+
+        verify(redisService, times(2)).executeScriptWithStringArgs(any(RedisScript.class), anyList(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markAllIfAbsent_shouldFallBackToRedis_whenNearCacheEvictedEvent() {
+        // Given
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), anyList(), anyList()))
+            .thenReturn(Mono.just("111"), Mono.just("0"));
+
+        // When & Then - 近端快取只保留 2 個事件，最早的 e1 已被移除
+        StepVerifier.create(idempotencyStore.markAllIfAbsent(SCOPE,
+                List.of(new EventRef("e1", TIME), new EventRef("e2", TIME), new EventRef("e3", TIME))))
+            .expectNext(List.of(true, true, true))
+            .verifyComplete();
+        StepVerifier.create(idempotencyStore.markIfAbsent(SCOPE, new EventRef("e1", TIME)))
+            .expectNext(false)
+            .verifyComplete();
+
+        verify(redisService, times(2)).executeScriptWithStringArgs(any(RedisScript.class), anyList(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void release_shouldRemoveFromNearCacheAndRedis() {
+        // Given
+        EventRef event = new EventRef("e1", TIME);
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), anyList(), anyList()))
+            .thenReturn(Mono.just("1"), Mono.just(1L), Mono.just("1"));
+        StepVerifier.create(idempotencyStore.markIfAbsent(SCOPE, event)).expectNext(true).verifyComplete();
+
+        // When
+        StepVerifier.create(idempotencyStore.release(SCOPE, List.of(event))).verifyComplete();
+
+        // Then - 移除後重新投遞的事件會再次被視為首次出現
+        StepVerifier.create(idempotencyStore.markIfAbsent(SCOPE, event)).expectNext(true).verifyComplete();
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class),
+            eq(List.of("idempotency:game_play:473362")), eq(List.of("e1")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void release_shouldRemoveEachBucketWithSingleKeyScriptCall() {
+        // Given
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), anyList(), anyList()))
+            .thenReturn(Mono.just(2L), Mono.just(1L));
+
+        // When
+        StepVerifier.create(idempotencyStore.release(SCOPE, List.of(
+                new EventRef("e1", TIME), new EventRef("e2", TIME + 3_600_000L), new EventRef("e3", TIME))))
+            .verifyComplete();
+
+        // Then
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class),
+            eq(List.of("idempotency:game_play:473362")), eq(List.of("e1", "e3")));
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class),
+            eq(List.of("idempotency:game_play:473363")), eq(List.of("e2")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markIfAbsent_shouldStoreUuidEventIdAsCompactMember() {
+        // Given
+        String eventId = EventIds.next();
+        when(redisService.executeScriptWithStringArgs(any(RedisScript.class), anyList(), anyList()))
+            .thenReturn(Mono.just("1"));
+
+        // When
+        StepVerifier.create(idempotencyStore.markIfAbsent(SCOPE, new EventRef(eventId, EventIds.timestampOf(eventId))))
+            .expectNext(true)
+            .verifyComplete();
+
+        // Then - 16 位元組的 Base64 編碼為 22 個字元，比 36 個字元的 UUID 字串精簡
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisService).executeScriptWithStringArgs(any(RedisScript.class), anyList(), args.capture());
+        assertEquals(22, args.getValue().get(1).length());
+    }
+}
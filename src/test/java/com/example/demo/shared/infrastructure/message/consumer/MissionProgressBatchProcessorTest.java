@@ -0,0 +1,119 @@
+package com.example.demo.shared.infrastructure.message.consumer;
+
+import com.example.demo.mission.application.service.MissionProgressCoalescer;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
+import com.example.demo.shared.infrastructure.message.consumer.IdempotencyStore.EventRef;
+import com.example.demo.shared.infrastructure.message.consumer.MissionProgressBatchProcessor.ProgressEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MissionProgressBatchProcessorTest {
+
+    private static final String SCOPE = "game_play";
+    private static final LocalDateTime PLAY_TIME = LocalDateTime.of(2024, 1, 1, 10, 0, 0);
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private MissionProgressCoalescer missionProgressCoalescer;
+
+    @InjectMocks
+    private MissionProgressBatchProcessor batchProcessor;
+
+    @Test
+    void process_shouldDedupeInOneCallAndEvaluateOncePerUser() {
+        // Given
+        List<ProgressEvent> events = List.of(
+            play("e1", 1L, 1500),
+            play("e2", 2L, 800),
+            play("e3", 1L, 500),
+            play("e4", 1L, 700));
+        when(idempotencyStore.markAllIfAbsent(SCOPE, List.of(ref("e1"), ref("e2"), ref("e3"), ref("e4"))))
+            .thenReturn(Mono.just(List.of(true, true, true, false)));
+        when(missionProgressCoalescer.submit(anyLong(), anyString(), any(MissionProgressDelta.class))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(batchProcessor.process(SCOPE, events))
+            .verifyComplete();
+
+        verify(idempotencyStore, times(1)).markAllIfAbsent(eq(SCOPE), anyList());
+        verify(missionProgressCoalescer).submit(1L, "user1", new MissionProgressDelta(false, 0, 2, 2000, playTime("e1"), playTime("e3"),
+            Set.of("play:" + playTime("e1"), "play:" + playTime("e3"))));
+        verify(missionProgressCoalescer).submit(2L, "user2", MissionProgressDelta.ofGamePlay(800, playTime("e2")));
+        verifyNoMoreInteractions(missionProgressCoalescer);
+    }
+
+    @Test
+    void process_shouldReleaseEventsOfFailedUserOnly_andReportError() {
+        // Given
+        List<ProgressEvent> events = List.of(play("e1", 1L, 100), play("e2", 2L, 200), play("e3", 1L, 300));
+        when(idempotencyStore.markAllIfAbsent(eq(SCOPE), anyList()))
+            .thenReturn(Mono.just(List.of(true, true, true)));
+        when(missionProgressCoalescer.submit(eq(1L), anyString(), any(MissionProgressDelta.class)))
+            .thenReturn(Mono.error(new RuntimeException("db down")));
+        when(missionProgressCoalescer.submit(eq(2L), anyString(), any(MissionProgressDelta.class)))
+            .thenReturn(Mono.empty());
+        when(idempotencyStore.release(SCOPE, List.of(ref("e1"), ref("e3")))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(batchProcessor.process(SCOPE, events))
+            .expectErrorMessage("db down")
+            .verify();
+
+        verify(missionProgressCoalescer).submit(eq(2L), eq("user2"), any(MissionProgressDelta.class));
+        verify(idempotencyStore).release(SCOPE, List.of(ref("e1"), ref("e3")));
+    }
+
+    @Test
+    void process_shouldReleaseEvents_whenEvaluationIsCancelled() {
+        // Given
+        List<ProgressEvent> events = List.of(play("e1", 1L, 100));
+        when(idempotencyStore.markAllIfAbsent(eq(SCOPE), anyList())).thenReturn(Mono.just(List.of(true)));
+        when(missionProgressCoalescer.submit(anyLong(), anyString(), any(MissionProgressDelta.class))).thenReturn(Mono.never());
+        when(idempotencyStore.release(SCOPE, List.of(ref("e1")))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(batchProcessor.process(SCOPE, events))
+            .expectSubscription()
+            .thenAwait(Duration.ofMillis(50))
+            .thenCancel()
+            .verify();
+
+        verify(idempotencyStore).release(SCOPE, List.of(ref("e1")));
+    }
+
+    @Test
+    void process_shouldSkipIdempotencyStore_whenBatchIsEmpty() {
+        StepVerifier.create(batchProcessor.process(SCOPE, List.of()))
+            .verifyComplete();
+
+        verifyNoInteractions(idempotencyStore, missionProgressCoalescer);
+    }
+
+    private ProgressEvent play(String eventId, Long userId, int score) {
+        return new ProgressEvent(ref(eventId), userId, "user" + userId, MissionProgressDelta.ofGamePlay(score, playTime(eventId)));
+    }
+
+    private LocalDateTime playTime(String eventId) {
+        return PLAY_TIME.plusSeconds(Integer.parseInt(eventId.substring(1)));
+    }
+
+    private EventRef ref(String eventId) {
+        return new EventRef(eventId, 1_704_103_200_000L);
+    }
+}
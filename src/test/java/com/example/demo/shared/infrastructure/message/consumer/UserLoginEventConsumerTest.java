@@ -1,38 +1,56 @@
 package com.example.demo.shared.infrastructure.message.consumer;
 
-import com.example.demo.mission.application.service.MissionCommandService;
+import com.example.demo.mission.application.service.MissionProgressCoalescer;
+import com.example.demo.mission.domain.model.MissionProgressDelta;
 import com.example.demo.shared.application.dto.event.UserLoginEvent;
-import com.example.demo.shared.infrastructure.redis.RedisService;
+import com.example.demo.shared.infrastructure.message.EventCodec;
+import com.example.demo.shared.infrastructure.message.EventFormat;
+import com.example.demo.shared.infrastructure.message.EventIds;
+import com.example.demo.shared.infrastructure.message.consumer.IdempotencyStore.EventRef;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserLoginEventConsumerTest {
 
+    private static final String SCOPE = "user_login";
+
+    @Mock
+    private MissionProgressCoalescer missionProgressCoalescer;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
     @Mock
-    private MissionCommandService missionCommandService;
+    private FailedEventRouter failedEventRouter;
 
     @Mock
-    private RedisService redisService;
+    private MissionProgressBatchProcessor batchProcessor;
 
-    @Spy
-    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final EventCodec eventCodec = new EventCodec(EventFormat.BINARY);
+
+    private ConsumerPipelineFactory consumerPipelineFactory;
 
-    @InjectMocks
     private UserLoginEventConsumer userLoginEventConsumer;
 
     private UserLoginEvent testEvent;
@@ -40,6 +58,9 @@ class UserLoginEventConsumerTest {
 
     @BeforeEach
     void setUp() throws Exception {
+        consumerPipelineFactory = new ConsumerPipelineFactory(eventCodec, idempotencyStore,
+                new ConsumerFlowControl(16, 1000, false, 32), failedEventRouter, new SimpleMeterRegistry(), 4, 1000);
+        userLoginEventConsumer = new UserLoginEventConsumer(consumerPipelineFactory, missionProgressCoalescer, batchProcessor);
         testEvent = new UserLoginEvent(
                 1L,
                 "testuser",
@@ -48,48 +69,39 @@ class UserLoginEventConsumerTest {
         testEventJson = objectMapper.writeValueAsString(testEvent);
     }
 
+    @AfterEach
+    void tearDown() {
+        consumerPipelineFactory.destroy();
+    }
+
     @Test
     void onMessage_shouldProcessEvent_whenFirstTimeReceived() {
         // Given
-        String idempotencyKey = "user_login_event:idempotency:1";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        userLoginEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        userLoginEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
     }
 
     @Test
     void onMessage_shouldSkipProcessing_whenDuplicateEvent() {
         // Given
-        String idempotencyKey = "user_login_event:idempotency:1";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(false));
 
         // When
-        userLoginEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        userLoginEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -98,218 +110,148 @@ class UserLoginEventConsumerTest {
         String invalidJson = "{invalid json}";
 
         // When
-        userLoginEventConsumer.onMessage(invalidJson);
+        userLoginEventConsumer.onMessage(jsonMessage(invalidJson));
 
         // Then
-        verify(redisService, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        verify(idempotencyStore, never()).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
     void onMessage_shouldHandleMissionUpdateFailure() {
         // Given
-        String idempotencyKey = "user_login_event:idempotency:1";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.error(new RuntimeException("Mission update failed")));
+        when(idempotencyStore.release(eq(SCOPE), anyList())).thenReturn(Mono.empty());
 
-        // When
-        userLoginEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // When & Then - 拋出例外讓 broker 重新投遞
+        assertThrows(RuntimeException.class, () -> userLoginEventConsumer.onMessage(jsonMessage(testEventJson)));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class));
+        verify(idempotencyStore).release(eq(SCOPE), anyList());
     }
 
     @Test
     void onMessage_shouldHandleRedisFailure() {
         // Given
-        String idempotencyKey = "user_login_event:idempotency:1";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.error(new RuntimeException("Redis connection failed")));
 
-        // When
-        userLoginEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // When & Then
+        assertThrows(RuntimeException.class, () -> userLoginEventConsumer.onMessage(jsonMessage(testEventJson)));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
-    void onMessage_shouldUseCorrectIdempotencyKey() {
+    void onMessage_shouldIdentifyEventByEventIdHeader() {
         // Given
-        String expectedKey = "user_login_event:idempotency:1";
-        when(redisService.setIfAbsent(eq(expectedKey), eq("processed"), any(Duration.class)))
+        MessageExt message = jsonMessage(testEventJson);
+        String eventId = message.getUserProperty(EventIds.HEADER);
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        userLoginEventConsumer.onMessage(testEventJson);
+        userLoginEventConsumer.onMessage(message);
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(eq(expectedKey), eq("processed"), eq(Duration.ofDays(1)));
+        // Then
+        verify(idempotencyStore).markIfAbsent(SCOPE, new EventRef(eventId, EventIds.timestampOf(eventId)));
     }
 
     @Test
-    void onMessage_shouldProcessDifferentUserEvents() throws Exception {
-        // Given
-        UserLoginEvent event2 = new UserLoginEvent(
-                2L,
-                "user2",
-                LocalDateTime.of(2024, 1, 1, 10, 0, 0)
-        );
-        String event2Json = objectMapper.writeValueAsString(event2);
-        String idempotencyKey2 = "user_login_event:idempotency:2";
-
-        when(redisService.setIfAbsent(eq(idempotencyKey2), eq("processed"), any(Duration.class)))
+    void onMessage_shouldProcessEachLogin_whenSameUserLogsInAgain() {
+        // Given - 同一使用者的兩次登入是不同的事件，各自有事件 ID
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(2L, "user2"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        userLoginEventConsumer.onMessage(event2Json);
+        userLoginEventConsumer.onMessage(jsonMessage(testEventJson));
+        userLoginEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(eq(idempotencyKey2), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(2L, "user2");
+        // Then
+        ArgumentCaptor<EventRef> refCaptor = ArgumentCaptor.forClass(EventRef.class);
+        verify(idempotencyStore, times(2)).markIfAbsent(eq(SCOPE), refCaptor.capture());
+        List<EventRef> refs = refCaptor.getAllValues();
+        assertNotEquals(refs.get(0).eventId(), refs.get(1).eventId());
+        verify(missionProgressCoalescer, times(2)).submit(eq(1L), eq("testuser"), eq(MissionProgressDelta.ofLogin()));
     }
 
     @Test
-    void onMessage_shouldCallUpdateMissionProgressWithCorrectParams() {
-        // Given
-        String idempotencyKey = "user_login_event:idempotency:1";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
-                .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
-                .thenReturn(Mono.empty());
+    void onMessage_shouldFallBackToMsgId_whenEventIdHeaderIsMissing() {
+        // Given - 升級前發布、沒有事件 ID 標頭的訊息
+        MessageExt message = new MessageExt();
+        message.setBody(testEventJson.getBytes(StandardCharsets.UTF_8));
+        message.setMsgId("AC11000100002A9F0000000000000001");
+        message.setBornTimestamp(1_704_103_200_000L);
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
+                .thenReturn(Mono.just(false));
 
         // When
-        userLoginEventConsumer.onMessage(testEventJson);
+        userLoginEventConsumer.onMessage(message);
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(missionCommandService).updateMissionProgress(eq(1L), eq("testuser"));
-        verify(missionCommandService, never()).updateMissionProgress(argThat(id -> !id.equals(1L)), anyString());
+        // Then
+        verify(idempotencyStore).markIfAbsent(SCOPE, new EventRef("AC11000100002A9F0000000000000001", 1_704_103_200_000L));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
-    void onMessage_shouldSetCorrectTTLForIdempotencyKey() {
+    void onMessage_shouldProcessDifferentUserEvents() throws Exception {
         // Given
-        String idempotencyKey = "user_login_event:idempotency:1";
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1))))
+        UserLoginEvent event2 = new UserLoginEvent(
+                2L,
+                "user2",
+                LocalDateTime.of(2024, 1, 1, 10, 0, 0)
+        );
+        String event2Json = objectMapper.writeValueAsString(event2);
+
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(2L), eq("user2"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        userLoginEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        verify(redisService).setIfAbsent(anyString(), anyString(), eq(Duration.ofDays(1)));
-    }
-
-    @Test
-    void onMessage_shouldHandleEmptyMessage() {
-        // Given
-        String emptyMessage = "";
-
-        // When
-        userLoginEventConsumer.onMessage(emptyMessage);
+        userLoginEventConsumer.onMessage(jsonMessage(event2Json));
 
         // Then
-        verify(redisService, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(2L), eq("user2"), any(MissionProgressDelta.class));
     }
 
     @Test
-    void onMessage_shouldHandleMultipleLoginsBySameUser_withSameIdempotencyKey() {
-        // Given - same user logs in multiple times (within TTL window)
-        String idempotencyKey = "user_login_event:idempotency:1";
-        
-        // First login - should process
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+    void onMessage_shouldCallUpdateMissionProgressWithCorrectParams() {
+        // Given
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(1L, "testuser"))
+        when(missionProgressCoalescer.submit(eq(1L), eq("testuser"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        userLoginEventConsumer.onMessage(testEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        userLoginEventConsumer.onMessage(jsonMessage(testEventJson));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(1L, "testuser");
+        // Then
+        verify(missionProgressCoalescer).submit(eq(1L), eq("testuser"), eq(MissionProgressDelta.ofLogin()));
+        verify(missionProgressCoalescer, never()).submit(argThat(id -> !id.equals(1L)), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
-    void onMessage_shouldUseOnlyUserIdInIdempotencyKey() throws Exception {
-        // Given - same user, different login times should have same idempotency key
-        UserLoginEvent laterEvent = new UserLoginEvent(
-                1L,
-                "testuser",
-                LocalDateTime.of(2024, 1, 1, 15, 0, 0) // Different time
-        );
-        String laterEventJson = objectMapper.writeValueAsString(laterEvent);
-        String idempotencyKey = "user_login_event:idempotency:1";
-
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
-                .thenReturn(Mono.just(false)); // Already processed
+    void onMessage_shouldHandleEmptyMessage() {
+        // Given
+        String emptyMessage = "";
 
         // When
-        userLoginEventConsumer.onMessage(laterEventJson);
-
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        userLoginEventConsumer.onMessage(jsonMessage(emptyMessage));
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService, never()).updateMissionProgress(anyLong(), anyString());
+        // Then
+        verify(idempotencyStore, never()).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer, never()).submit(anyLong(), anyString(), any(MissionProgressDelta.class));
     }
 
     @Test
@@ -317,18 +259,15 @@ class UserLoginEventConsumerTest {
         // Given
         String jsonWithNullUsername = "{\"userId\":1,\"username\":null,\"loginTime\":\"2024-01-01T10:00:00\"}";
 
-        // When
-        userLoginEventConsumer.onMessage(jsonWithNullUsername);
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
+                .thenReturn(Mono.just(false));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // When
+        userLoginEventConsumer.onMessage(jsonMessage(jsonWithNullUsername));
 
+        // Then
         // Should attempt to process or handle gracefully
-        verify(redisService, atMost(1)).setIfAbsent(anyString(), anyString(), any(Duration.class));
+        verify(idempotencyStore, atMost(1)).markIfAbsent(eq(SCOPE), any(EventRef.class));
     }
 
     @Test
@@ -340,24 +279,24 @@ class UserLoginEventConsumerTest {
                 LocalDateTime.of(2024, 1, 1, 10, 0, 0)
         );
         String eventJson = objectMapper.writeValueAsString(eventWithLongId);
-        String idempotencyKey = "user_login_event:idempotency:999999999";
 
-        when(redisService.setIfAbsent(eq(idempotencyKey), eq("processed"), any(Duration.class)))
+        when(idempotencyStore.markIfAbsent(eq(SCOPE), any(EventRef.class)))
                 .thenReturn(Mono.just(true));
-        when(missionCommandService.updateMissionProgress(999999999L, "userwithlongid"))
+        when(missionProgressCoalescer.submit(eq(999999999L), eq("userwithlongid"), any(MissionProgressDelta.class)))
                 .thenReturn(Mono.empty());
 
         // When
-        userLoginEventConsumer.onMessage(eventJson);
+        userLoginEventConsumer.onMessage(jsonMessage(eventJson));
 
-        // Then - give reactive chain time to complete
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // Then
+        verify(idempotencyStore).markIfAbsent(eq(SCOPE), any(EventRef.class));
+        verify(missionProgressCoalescer).submit(eq(999999999L), eq("userwithlongid"), any(MissionProgressDelta.class));
+    }
 
-        verify(redisService).setIfAbsent(eq(idempotencyKey), eq("processed"), eq(Duration.ofDays(1)));
-        verify(missionCommandService).updateMissionProgress(999999999L, "userwithlongid");
+    private MessageExt jsonMessage(String json) {
+        MessageExt message = new MessageExt();
+        message.setBody(json.getBytes(StandardCharsets.UTF_8));
+        message.putUserProperty(EventIds.HEADER, EventIds.next());
+        return message;
     }
 }
@@ -0,0 +1,96 @@
+package com.example.demo.shared.infrastructure.redis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisBitmapServiceTest {
+
+    @Mock
+    private ReactiveRedisOperations<String, Object> redisOperations;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> reactiveValueOperations;
+
+    @InjectMocks
+    private RedisService redisService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisOperations.opsForValue()).thenReturn(reactiveValueOperations);
+    }
+
+    @Test
+    void setBit_shouldDelegateToValueOperations() {
+        when(reactiveValueOperations.setBit("calendar", 9L, true)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(redisService.setBit("calendar", 9L, true))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBits_shouldMapMostSignificantBitToLowestOffset() {
+        // 5 個位元 10110 -> 偏移 0、2、3 為 1
+        when(reactiveValueOperations.bitField(eq("calendar"), any(BitFieldSubCommands.class)))
+                .thenReturn(Mono.just(List.of(0b10110L)));
+
+        StepVerifier.create(redisService.getBits("calendar", 4L, 5))
+                .assertNext(bits -> assertEquals(bitSetOf(0, 2, 3), bits))
+                .verifyComplete();
+    }
+
+    @Test
+    void getBits_shouldSplitLongWindowsIntoSeveralGets_inOneCommand() {
+        // 70 個位元需要 63 + 7 兩個 GET 子命令
+        when(reactiveValueOperations.bitField(eq("calendar"), any(BitFieldSubCommands.class)))
+                .thenReturn(Mono.just(Arrays.asList(1L, 0b1000000L)));
+
+        StepVerifier.create(redisService.getBits("calendar", 0L, 70))
+                .assertNext(bits -> assertEquals(bitSetOf(62, 63), bits))
+                .verifyComplete();
+
+        ArgumentCaptor<BitFieldSubCommands> commandsCaptor = ArgumentCaptor.forClass(BitFieldSubCommands.class);
+        verify(reactiveValueOperations, times(1)).bitField(eq("calendar"), commandsCaptor.capture());
+        List<BitFieldSubCommands.BitFieldSubCommand> subCommands = commandsCaptor.getValue().getSubCommands();
+        assertEquals(2, subCommands.size());
+        assertEquals(63L, subCommands.get(1).getOffset().getValue());
+    }
+
+    @Test
+    void getBits_shouldReturnEmptyBitSet_whenLengthIsZero() {
+        StepVerifier.create(redisService.getBits("calendar", 0L, 0))
+                .assertNext(bits -> assertTrue(bits.isEmpty()))
+                .verifyComplete();
+
+        verifyNoInteractions(reactiveValueOperations);
+    }
+
+    private static BitSet bitSetOf(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.shared.infrastructure.repository.impl;
+
+import com.example.demo.mission.domain.model.Mission;
+import com.example.demo.mission.domain.model.MissionDefinition;
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.shared.infrastructure.repository.data.MissionData;
+import com.example.demo.shared.infrastructure.repository.mapper.MissionPersistenceMapper;
+import com.example.demo.shared.infrastructure.repository.r2dbc.MissionR2dbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MissionRepositoryImplTest {
+
+    @Mock
+    private MissionR2dbcRepository r2dbcRepository;
+
+    @Mock
+    private MissionPersistenceMapper mapper;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MissionRepositoryImpl missionRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        missionRepository = new MissionRepositoryImpl(r2dbcRepository, mapper, meterRegistry);
+    }
+
+    private Mission loadedMission(Long id, MissionType type, int progress) {
+        return Mission.builder()
+            .id(id)
+            .userId(1L)
+            .missionType(type)
+            .currentProgress(progress)
+            .targetProgress(3)
+            .isCompleted(false)
+            .isRewarded(false)
+            .rewardPoints(0)
+            .build();
+    }
+
+    @Test
+    void saveAll_shouldSkipUnchangedMissions_andOnlyUpdateChangedColumns() {
+        // Given
+        Mission unchanged = loadedMission(1L, MissionType.CONSECUTIVE_LOGIN, 2);
+        unchanged.updateProgress(2);
+        Mission changed = loadedMission(2L, MissionType.LAUNCH_GAMES, 1);
+        changed.updateProgress(2);
+
+        when(mapper.toData(changed)).thenReturn(new MissionData());
+        when(r2dbcRepository.upsertAll(anyList(), anySet())).thenReturn(Mono.just(2L));
+
+        // When & Then
+        StepVerifier.create(missionRepository.saveAll(List.of(unchanged, changed)))
+            .verifyComplete();
+
+        verify(mapper, never()).toData(unchanged);
+        verify(r2dbcRepository).upsertAll(argThat(list -> list.size() == 1), eq(Set.of("current_progress")));
+        assertFalse(changed.hasChanges());
+        assertEquals(1.0, meterRegistry.counter("mission.persistence.writes", "result", "written").count());
+        assertEquals(1.0, meterRegistry.counter("mission.persistence.writes", "result", "skipped").count());
+        assertEquals(0.5, meterRegistry.get("mission.persistence.skipped.ratio").gauge().value());
+    }
+
+    @Test
+    void saveAll_shouldUpdateTargetAndRewardColumns_whenMissionWasRetargeted() {
+        // Given
+        Mission retargeted = loadedMission(1L, MissionType.PLAY_GAMES, 1);
+        retargeted.retarget(new MissionDefinition(MissionType.PLAY_GAMES, 5, 1000, 20));
+
+        when(mapper.toData(retargeted)).thenReturn(new MissionData());
+        when(r2dbcRepository.upsertAll(anyList(), anySet())).thenReturn(Mono.just(2L));
+
+        // When & Then
+        StepVerifier.create(missionRepository.saveAll(List.of(retargeted)))
+            .verifyComplete();
+
+        verify(r2dbcRepository).upsertAll(anyList(), eq(Set.of("target_progress", "reward_points")));
+    }
+
+    @Test
+    void saveAll_shouldNotQuery_whenNoMissionChanged() {
+        // Given
+        Mission unchanged = loadedMission(1L, MissionType.PLAY_GAMES, 0);
+
+        // When & Then
+        StepVerifier.create(missionRepository.saveAll(List.of(unchanged)))
+            .verifyComplete();
+
+        verifyNoInteractions(r2dbcRepository, mapper);
+        assertEquals(1.0, meterRegistry.counter("mission.persistence.writes", "result", "skipped").count());
+    }
+
+    @Test
+    void saveAll_shouldUpdateAllColumns_whenBatchContainsNewMission() {
+        // Given
+        Mission newMission = Mission.create(1L, MissionType.PLAY_GAMES, 3, 0);
+
+        when(mapper.toData(any(Mission.class))).thenReturn(new MissionData());
+        when(r2dbcRepository.upsertAll(anyList(), anySet())).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(missionRepository.saveAll(List.of(newMission)))
+            .verifyComplete();
+
+        verify(r2dbcRepository).upsertAll(anyList(), eq(Set.of()));
+    }
+}
@@ -1,17 +1,26 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
 
+import com.example.demo.shared.infrastructure.repository.data.GameLaunchRecordData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
 import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +42,12 @@ class GameLaunchRecordR2dbcRepositoryImplTest {
     @Mock
     private RowsFetchSpec<Object> fetchSpec;
 
+    @Mock
+    private FetchSpec<Map<String, Object>> updateSpec;
+
+    @Spy
+    private MultiRowInsert multiRowInsert = new MultiRowInsert(2);
+
     @InjectMocks
     private GameLaunchRecordR2dbcRepositoryImpl repository;
 
@@ -63,6 +78,23 @@ class GameLaunchRecordR2dbcRepositoryImplTest {
         verify(genericExecuteSpec).bind("userId", userId);
     }
 
+    @Test
+    void countDistinctGamesLaunchedByUserUntil_shouldOnlyCountLaunchesUpToGivenTime() {
+        // Given
+        Long userId = 1L;
+        LocalDateTime until = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123456000);
+        when(fetchSpec.one()).thenReturn(Mono.just(2L));
+
+        // When & Then
+        StepVerifier.create(repository.countDistinctGamesLaunchedByUserUntil(userId, until))
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(databaseClient).sql("SELECT COUNT(DISTINCT game_id) FROM game_launch_record WHERE user_id = :userId AND launch_time <= :until");
+        verify(genericExecuteSpec).bind("userId", userId);
+        verify(genericExecuteSpec).bind("until", until);
+    }
+
     @Test
     void countDistinctGamesLaunchedByUser_shouldReturnZero_whenUserHasNotLaunchedAnyGames() {
         // Given
@@ -206,4 +238,101 @@ class GameLaunchRecordR2dbcRepositoryImplTest {
         // Then
         verify(genericExecuteSpec).bind("userId", 42L);
     }
+
+    @Test
+    void findLaunchedGameIds_shouldReturnDistinctGameIds() {
+        // Given
+        when(fetchSpec.all()).thenReturn(Flux.just(1L, 3L));
+
+        // When & Then
+        StepVerifier.create(repository.findLaunchedGameIds(7L))
+                .expectNext(1L, 3L)
+                .verifyComplete();
+
+        verify(databaseClient).sql("SELECT DISTINCT game_id FROM game_launch_record WHERE user_id = :userId");
+        verify(genericExecuteSpec).bind("userId", 7L);
+    }
+
+    @Test
+    void insertIfAbsent_shouldReturnOne_whenFirstLaunch() {
+        // Given
+        GameLaunchRecordData record = new GameLaunchRecordData();
+        record.setUserId(1L);
+        record.setGameId(2L);
+        record.setLaunchTime(LocalDateTime.now());
+        record.setCreatedAt(LocalDateTime.now());
+        when(genericExecuteSpec.fetch()).thenReturn(updateSpec);
+        when(updateSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfAbsent(record))
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(databaseClient).sql(startsWith("INSERT INTO game_launch_record"));
+        verify(genericExecuteSpec).bind("userId", 1L);
+        verify(genericExecuteSpec).bind("gameId", 2L);
+    }
+
+    @Test
+    void insertIfAbsent_shouldReturnZero_whenAlreadyLaunched() {
+        // Given
+        GameLaunchRecordData record = new GameLaunchRecordData();
+        record.setUserId(1L);
+        record.setGameId(2L);
+        record.setLaunchTime(LocalDateTime.now());
+        record.setCreatedAt(LocalDateTime.now());
+        when(genericExecuteSpec.fetch()).thenReturn(updateSpec);
+        when(updateSpec.rowsUpdated()).thenReturn(Mono.error(new DuplicateKeyException("Duplicate entry for uk_user_game")));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfAbsent(record))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void insertIfAbsent_shouldPropagateForeignKeyErrors() {
+        // Given
+        GameLaunchRecordData record = new GameLaunchRecordData();
+        record.setUserId(1L);
+        record.setGameId(999L);
+        record.setLaunchTime(LocalDateTime.now());
+        record.setCreatedAt(LocalDateTime.now());
+        when(genericExecuteSpec.fetch()).thenReturn(updateSpec);
+        when(updateSpec.rowsUpdated()).thenReturn(Mono.error(new DataIntegrityViolationException("Cannot add or update a child row")));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfAbsent(record))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    @Test
+    void insertAllIfAbsent_shouldWriteAllRecordsInOneInsertSkippingDuplicates() {
+        // Given
+        GameLaunchRecordData first = new GameLaunchRecordData();
+        first.setUserId(1L);
+        first.setGameId(2L);
+        first.setLaunchTime(LocalDateTime.now());
+        first.setCreatedAt(LocalDateTime.now());
+        GameLaunchRecordData second = new GameLaunchRecordData();
+        second.setUserId(1L);
+        second.setGameId(3L);
+        second.setLaunchTime(LocalDateTime.now());
+        second.setCreatedAt(LocalDateTime.now());
+        when(genericExecuteSpec.fetch()).thenReturn(updateSpec);
+        when(updateSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.insertAllIfAbsent(List.of(first, second)))
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(databaseClient, times(1)).sql("INSERT INTO game_launch_record (user_id, game_id, launch_time, created_at) VALUES "
+                + "(:userId0, :gameId0, :launchTime0, :createdAt0), (:userId1, :gameId1, :launchTime1, :createdAt1)"
+                + " ON DUPLICATE KEY UPDATE id = id");
+        verify(genericExecuteSpec).bind("gameId0", 2L);
+        verify(genericExecuteSpec).bind("gameId1", 3L);
+    }
 }
@@ -1,17 +1,23 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
 
+import com.example.demo.shared.infrastructure.repository.data.GamePlayRecordData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
 import org.springframework.r2dbc.core.RowsFetchSpec;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +39,12 @@ class GamePlayRecordR2dbcRepositoryImplTest {
     @Mock
     private RowsFetchSpec<Object> fetchSpec;
 
+    @Mock
+    private FetchSpec<Map<String, Object>> updateSpec;
+
+    @Spy
+    private MultiRowInsert multiRowInsert = new MultiRowInsert(2);
+
     @InjectMocks
     private GamePlayRecordR2dbcRepositoryImpl repository;
 
@@ -63,6 +75,23 @@ class GamePlayRecordR2dbcRepositoryImplTest {
         verify(genericExecuteSpec).bind("userId", userId);
     }
 
+    @Test
+    void sumScoreByUserIdUntil_shouldOnlySumRecordsUpToGivenTime() {
+        // Given
+        Long userId = 1L;
+        LocalDateTime until = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123456000);
+        when(fetchSpec.one()).thenReturn(Mono.just(1500));
+
+        // When & Then
+        StepVerifier.create(repository.sumScoreByUserIdUntil(userId, until))
+                .expectNext(1500)
+                .verifyComplete();
+
+        verify(databaseClient).sql("SELECT COALESCE(SUM(score), 0) FROM games_play_record WHERE user_id = :userId AND play_time <= :until");
+        verify(genericExecuteSpec).bind("userId", userId);
+        verify(genericExecuteSpec).bind("until", until);
+    }
+
     @Test
     void sumScoreByUserId_shouldReturnZero_whenUserHasNoPlayRecords() {
         // Given
@@ -273,4 +302,44 @@ class GamePlayRecordR2dbcRepositoryImplTest {
             sql != null && sql.contains("COALESCE") && sql.contains("SUM(score)")
         ));
     }
+
+    @Test
+    void insertAll_shouldWriteAllRecordsInOneStatement() {
+        // Given
+        when(genericExecuteSpec.bindNull(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(updateSpec);
+        when(updateSpec.rowsUpdated()).thenReturn(Mono.just(2L));
+
+        // When & Then
+        StepVerifier.create(repository.insertAll(List.of(playRecord(1L, 30), playRecord(2L, null))))
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(databaseClient, times(1)).sql("INSERT INTO games_play_record (user_id, game_id, score, play_duration, play_time, created_at) VALUES "
+                + "(:userId0, :gameId0, :score0, :playDuration0, :playTime0, :createdAt0), "
+                + "(:userId1, :gameId1, :score1, :playDuration1, :playTime1, :createdAt1)");
+        verify(genericExecuteSpec).bind("playDuration0", 30);
+        verify(genericExecuteSpec).bindNull("playDuration1", Integer.class);
+    }
+
+    @Test
+    void insertAll_shouldNotQuery_whenListIsEmpty() {
+        // When & Then
+        StepVerifier.create(repository.insertAll(List.of()))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(databaseClient);
+    }
+
+    private GamePlayRecordData playRecord(Long userId, Integer playDuration) {
+        GamePlayRecordData record = new GamePlayRecordData();
+        record.setUserId(userId);
+        record.setGameId(1L);
+        record.setScore(100);
+        record.setPlayDuration(playDuration);
+        record.setPlayTime(LocalDateTime.now());
+        record.setCreatedAt(LocalDateTime.now());
+        return record;
+    }
 }
@@ -6,20 +6,28 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.ReactiveSelectOperation;
 import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +43,18 @@ class LoginRecordR2dbcRepositoryImplTest {
     @Mock
     private ReactiveSelectOperation.TerminatingSelect<LoginRecordData> terminatingSelect;
 
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Mock
+    private DatabaseClient.GenericExecuteSpec genericExecuteSpec;
+
+    @Mock
+    private FetchSpec<Map<String, Object>> fetchSpec;
+
+    @Spy
+    private MultiRowInsert multiRowInsert = new MultiRowInsert(2);
+
     @InjectMocks
     private LoginRecordR2dbcRepositoryImpl loginRecordR2dbcRepositoryImpl;
 
@@ -289,4 +309,101 @@ class LoginRecordR2dbcRepositoryImplTest {
         verify(reactiveSelect).matching(any(Query.class));
         verify(terminatingSelect).all();
     }
+
+    @Test
+    void insertIfAbsent_shouldReportInsertedRows() {
+        // Given
+        LoginRecordData record = new LoginRecordData();
+        record.setUserId(1L);
+        record.setLoginDate(LocalDate.now());
+        record.setLoginTime(LocalDateTime.now());
+        record.setCreatedAt(LocalDateTime.now());
+        when(r2dbcEntityTemplate.getDatabaseClient()).thenReturn(databaseClient);
+        when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(loginRecordR2dbcRepositoryImpl.insertIfAbsent(record))
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(databaseClient).sql(startsWith("INSERT INTO login_record"));
+        verify(genericExecuteSpec).bind("userId", 1L);
+        verify(genericExecuteSpec).bind("loginDate", LocalDate.now());
+    }
+
+    @Test
+    void insertIfAbsent_shouldReturnZero_whenAlreadyLoggedInThatDay() {
+        // Given
+        LoginRecordData record = new LoginRecordData();
+        record.setUserId(1L);
+        record.setLoginDate(LocalDate.now());
+        record.setLoginTime(LocalDateTime.now());
+        record.setCreatedAt(LocalDateTime.now());
+        when(r2dbcEntityTemplate.getDatabaseClient()).thenReturn(databaseClient);
+        when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.error(new DuplicateKeyException("Duplicate entry for uk_user_login_date")));
+
+        // When & Then
+        StepVerifier.create(loginRecordR2dbcRepositoryImpl.insertIfAbsent(record))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void insertIfAbsent_shouldPropagateForeignKeyErrors() {
+        // Given
+        LoginRecordData record = new LoginRecordData();
+        record.setUserId(999L);
+        record.setLoginDate(LocalDate.now());
+        record.setLoginTime(LocalDateTime.now());
+        record.setCreatedAt(LocalDateTime.now());
+        when(r2dbcEntityTemplate.getDatabaseClient()).thenReturn(databaseClient);
+        when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.error(new DataIntegrityViolationException("Cannot add or update a child row")));
+
+        // When & Then
+        StepVerifier.create(loginRecordR2dbcRepositoryImpl.insertIfAbsent(record))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    @Test
+    void insertAllIfAbsent_shouldSplitRecordsIntoStatementsOfBatchSize() {
+        // Given
+        when(r2dbcEntityTemplate.getDatabaseClient()).thenReturn(databaseClient);
+        when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(2L), Mono.just(0L));
+
+        // When & Then
+        StepVerifier.create(loginRecordR2dbcRepositoryImpl.insertAllIfAbsent(List.of(record1, record2, record3)))
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(databaseClient).sql("INSERT INTO login_record (user_id, login_date, login_time, created_at) VALUES "
+                + "(:userId0, :loginDate0, :loginTime0, :createdAt0), (:userId1, :loginDate1, :loginTime1, :createdAt1)"
+                + " ON DUPLICATE KEY UPDATE id = id");
+        verify(databaseClient).sql("INSERT INTO login_record (user_id, login_date, login_time, created_at) VALUES "
+                + "(:userId0, :loginDate0, :loginTime0, :createdAt0) ON DUPLICATE KEY UPDATE id = id");
+        verify(genericExecuteSpec).bind("loginDate1", record2.getLoginDate());
+        verify(genericExecuteSpec).bind("loginDate0", record3.getLoginDate());
+    }
+
+    @Test
+    void insertAllIfAbsent_shouldNotQuery_whenListIsEmpty() {
+        // When & Then
+        StepVerifier.create(loginRecordR2dbcRepositoryImpl.insertAllIfAbsent(List.of()))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(databaseClient);
+    }
 }
@@ -5,21 +5,31 @@ import com.example.demo.shared.infrastructure.repository.data.MissionData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.ReactiveSelectOperation;
 import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -38,9 +48,23 @@ class MissionR2dbcRepositoryImplTest {
     @Mock
     private ReactiveSelectOperation.TerminatingSelect<Long> terminatingSelectLong;
 
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Mock
+    private DatabaseClient.GenericExecuteSpec genericExecuteSpec;
+
+    @Mock
+    private FetchSpec<Map<String, Object>> fetchSpec;
+
+    @Spy
+    private MultiRowInsert multiRowInsert = new MultiRowInsert(2);
+
     @InjectMocks
     private MissionR2dbcRepositoryImpl missionR2dbcRepositoryImpl;
 
+    private static final Set<MissionType> ALL_MISSION_TYPES = EnumSet.allOf(MissionType.class);
+
     private MissionData completedUnrewardedMission1;
     private MissionData completedUnrewardedMission2;
     private MissionData completedRewardedMission;
@@ -202,7 +226,7 @@ class MissionR2dbcRepositoryImplTest {
         when(r2dbcEntityTemplate.count(any(Query.class), eq(MissionData.class))).thenReturn(Mono.just(3L));
 
         // When & Then
-        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId))
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId, ALL_MISSION_TYPES))
                 .expectNext(true)
                 .verifyComplete();
 
@@ -217,7 +241,7 @@ class MissionR2dbcRepositoryImplTest {
         when(r2dbcEntityTemplate.count(any(Query.class), eq(MissionData.class))).thenReturn(Mono.just(2L));
 
         // When & Then
-        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId))
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId, ALL_MISSION_TYPES))
                 .expectNext(false)
                 .verifyComplete();
 
@@ -232,7 +256,7 @@ class MissionR2dbcRepositoryImplTest {
         when(r2dbcEntityTemplate.count(any(Query.class), eq(MissionData.class))).thenReturn(Mono.just(1L));
 
         // When & Then
-        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId))
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId, ALL_MISSION_TYPES))
                 .expectNext(false)
                 .verifyComplete();
 
@@ -247,7 +271,7 @@ class MissionR2dbcRepositoryImplTest {
         when(r2dbcEntityTemplate.count(any(Query.class), eq(MissionData.class))).thenReturn(Mono.just(0L));
 
         // When & Then
-        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId))
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId, ALL_MISSION_TYPES))
                 .expectNext(false)
                 .verifyComplete();
 
@@ -263,7 +287,7 @@ class MissionR2dbcRepositoryImplTest {
         when(r2dbcEntityTemplate.count(any(Query.class), eq(MissionData.class))).thenReturn(Mono.error(repositoryError));
 
         // When & Then
-        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId))
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId, ALL_MISSION_TYPES))
                 .expectErrorMatches(throwable ->
                         throwable instanceof RuntimeException &&
                                 throwable.getMessage().equals("Database error"))
@@ -280,13 +304,37 @@ class MissionR2dbcRepositoryImplTest {
         when(r2dbcEntityTemplate.count(any(Query.class), eq(MissionData.class))).thenReturn(Mono.just(3L));
 
         // When & Then
-        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId))
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId, ALL_MISSION_TYPES))
                 .expectNext(true)
                 .verifyComplete();
 
         verify(r2dbcEntityTemplate).count(any(Query.class), eq(MissionData.class));
     }
 
+    @Test
+    void areAllMissionsCompleted_shouldCompareWithCatalogSize_whenCatalogHasFewerMissions() {
+        // Given
+        Long userId = 100L;
+
+        when(r2dbcEntityTemplate.count(any(Query.class), eq(MissionData.class))).thenReturn(Mono.just(2L));
+
+        // When & Then
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId,
+                        EnumSet.of(MissionType.CONSECUTIVE_LOGIN, MissionType.PLAY_GAMES)))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void areAllMissionsCompleted_shouldReturnFalse_withoutQuerying_whenCatalogIsEmpty() {
+        // When & Then
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(100L, EnumSet.noneOf(MissionType.class)))
+                .expectNext(false)
+                .verifyComplete();
+
+        verifyNoInteractions(r2dbcEntityTemplate);
+    }
+
     @Test
     void findUnrewardedCompletedMissions_shouldHandleDifferentUserId() {
         // Given
@@ -320,7 +368,7 @@ class MissionR2dbcRepositoryImplTest {
         when(r2dbcEntityTemplate.count(any(Query.class), eq(MissionData.class))).thenReturn(Mono.just(4L));
 
         // When & Then
-        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId))
+        StepVerifier.create(missionR2dbcRepositoryImpl.areAllMissionsCompleted(userId, ALL_MISSION_TYPES))
                 .expectNext(false)
                 .verifyComplete();
 
@@ -351,4 +399,112 @@ class MissionR2dbcRepositoryImplTest {
         verify(reactiveSelect).matching(any(Query.class));
         verify(terminatingSelect).all();
     }
+
+    @Test
+    void upsertAll_shouldReturnZero_withoutQuerying_whenListIsEmpty() {
+        // When & Then
+        StepVerifier.create(missionR2dbcRepositoryImpl.upsertAll(List.of(), Set.of()))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(r2dbcEntityTemplate);
+    }
+
+    @Test
+    void upsertAll_shouldSplitMissionsIntoStatementsOfBatchSize() {
+        // Given
+        when(r2dbcEntityTemplate.getDatabaseClient()).thenReturn(databaseClient);
+        when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bindNull(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(2L), Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(missionR2dbcRepositoryImpl.upsertAll(
+                        List.of(completedUnrewardedMission1, completedUnrewardedMission2, incompleteMission), Set.of()))
+                .expectNext(3L)
+                .verifyComplete();
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient, times(2)).sql(sqlCaptor.capture());
+        List<String> sqls = sqlCaptor.getAllValues();
+        assertTrue(sqls.get(0).startsWith("INSERT INTO missions"));
+        assertTrue(sqls.get(0).contains("ON DUPLICATE KEY UPDATE"));
+        assertEquals(2, sqls.get(0).split(":missionType").length - 1);
+        assertEquals(1, sqls.get(1).split(":missionType").length - 1);
+        // 每個語句的參數名稱從 0 開始編號，兩個語句的第一列都是 CONSECUTIVE_LOGIN 任務
+        verify(genericExecuteSpec, times(2)).bind("missionType0", MissionType.CONSECUTIVE_LOGIN.name());
+        verify(genericExecuteSpec).bind("missionType1", MissionType.LAUNCH_GAMES.name());
+        verify(genericExecuteSpec).bindNull("completedAt0", LocalDateTime.class);
+        verify(fetchSpec, times(2)).rowsUpdated();
+    }
+
+    @Test
+    void upsertAll_shouldOnlyUpdateChangedColumns_whenColumnsAreGiven() {
+        // Given
+        when(r2dbcEntityTemplate.getDatabaseClient()).thenReturn(databaseClient);
+        when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bindNull(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(2L));
+
+        // When & Then
+        StepVerifier.create(missionR2dbcRepositoryImpl.upsertAll(List.of(incompleteMission), Set.of("current_progress")))
+                .expectNext(2L)
+                .verifyComplete();
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient).sql(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+        assertTrue(sql.endsWith("ON DUPLICATE KEY UPDATE current_progress = VALUES(current_progress), updated_at = VALUES(updated_at)"));
+    }
+
+    @Test
+    void retargetIncomplete_shouldUpdateOnlyIncompleteMissionsWithDifferentValues() {
+        // Given
+        when(r2dbcEntityTemplate.getDatabaseClient()).thenReturn(databaseClient);
+        when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(5L));
+
+        // When & Then
+        StepVerifier.create(missionR2dbcRepositoryImpl.retargetIncomplete(MissionType.PLAY_GAMES, 5, 20))
+                .expectNext(5L)
+                .verifyComplete();
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient).sql(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+        assertTrue(sql.startsWith("UPDATE missions SET target_progress = :targetProgress, reward_points = :rewardPoints"));
+        assertTrue(sql.contains("is_completed = FALSE"));
+        verify(genericExecuteSpec).bind("missionType", MissionType.PLAY_GAMES.name());
+        verify(genericExecuteSpec).bind("targetProgress", 5);
+        verify(genericExecuteSpec).bind("rewardPoints", 20);
+    }
+
+    @Test
+    void insertAllIfAbsent_shouldInsertAllMissionsWithSingleStatementSkippingDuplicates() {
+        // Given
+        when(r2dbcEntityTemplate.getDatabaseClient()).thenReturn(databaseClient);
+        when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.bindNull(anyString(), any())).thenReturn(genericExecuteSpec);
+        when(genericExecuteSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(2L));
+
+        // When & Then
+        StepVerifier.create(missionR2dbcRepositoryImpl.insertAllIfAbsent(List.of(incompleteMission, completedRewardedMission)))
+                .expectNext(2L)
+                .verifyComplete();
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient, times(1)).sql(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+        assertTrue(sql.startsWith("INSERT INTO missions"));
+        assertTrue(sql.endsWith(" ON DUPLICATE KEY UPDATE id = id"));
+        assertEquals(2, sql.split(":missionType").length - 1);
+    }
 }
@@ -0,0 +1,143 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
+
+import com.example.demo.shared.infrastructure.repository.data.OutboxEventData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxEventR2dbcRepositoryImplTest {
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Mock
+    private DatabaseClient.GenericExecuteSpec genericExecuteSpec;
+
+    @Mock
+    private FetchSpec<Map<String, Object>> updateSpec;
+
+    @Mock
+    private RowsFetchSpec<Object> rowsSpec;
+
+    @Spy
+    private MultiRowInsert multiRowInsert = new MultiRowInsert(2);
+
+    @InjectMocks
+    private OutboxEventR2dbcRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        lenient().when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        lenient().when(genericExecuteSpec.bindNull(anyString(), any())).thenReturn(genericExecuteSpec);
+        lenient().when(genericExecuteSpec.fetch()).thenReturn(updateSpec);
+    }
+
+    @Test
+    void insertAll_shouldWriteAllEventsInOneStatement() {
+        // Given
+        when(updateSpec.rowsUpdated()).thenReturn(Mono.just(2L));
+
+        // When & Then
+        StepVerifier.create(repository.insertAll(List.of(outboxEvent("1"), outboxEvent(null))))
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(databaseClient, times(1)).sql("INSERT INTO event_outbox (topic, sharding_key, event_id, format, payload, created_at) VALUES "
+                + "(:topic0, :shardingKey0, :eventId0, :format0, :payload0, :createdAt0), "
+                + "(:topic1, :shardingKey1, :eventId1, :format1, :payload1, :createdAt1)");
+        verify(genericExecuteSpec).bind("shardingKey0", "1");
+        verify(genericExecuteSpec).bindNull("shardingKey1", String.class);
+    }
+
+    @Test
+    void insertAll_shouldNotQuery_whenListIsEmpty() {
+        // When & Then
+        StepVerifier.create(repository.insertAll(List.of()))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(databaseClient);
+    }
+
+    @Test
+    void claim_shouldClaimOnlyUnclaimedOrExpiredEvents_inOneStatement() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123456000);
+        when(updateSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.claim(List.of(1L, 2L), "token", now, now.plusSeconds(30)))
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(databaseClient).sql("UPDATE event_outbox SET claim_token = :claimToken, claimed_until = :claimedUntil "
+                + "WHERE id IN (:ids) AND (claimed_until IS NULL OR claimed_until < :now)");
+        verify(genericExecuteSpec).bind("ids", List.of(1L, 2L));
+        verify(genericExecuteSpec).bind("claimToken", "token");
+        verify(genericExecuteSpec).bind("now", now);
+        verify(genericExecuteSpec).bind("claimedUntil", now.plusSeconds(30));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findClaimedIds_shouldQueryByClaimToken() {
+        // Given
+        when(genericExecuteSpec.map(any(Function.class))).thenReturn(rowsSpec);
+        when(rowsSpec.all()).thenReturn(Flux.just(1L, 2L));
+
+        // When & Then
+        StepVerifier.create(repository.findClaimedIds("token"))
+                .expectNext(1L, 2L)
+                .verifyComplete();
+
+        verify(databaseClient).sql("SELECT id FROM event_outbox WHERE claim_token = :claimToken");
+        verify(genericExecuteSpec).bind("claimToken", "token");
+    }
+
+    @Test
+    void release_shouldClearOnlyOwnClaims() {
+        // Given
+        when(updateSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.release(List.of(3L), "token"))
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(databaseClient).sql("UPDATE event_outbox SET claim_token = NULL, claimed_until = NULL "
+                + "WHERE id IN (:ids) AND claim_token = :claimToken");
+        verify(genericExecuteSpec).bind("ids", List.of(3L));
+        verify(genericExecuteSpec).bind("claimToken", "token");
+    }
+
+    private OutboxEventData outboxEvent(String shardingKey) {
+        OutboxEventData event = new OutboxEventData();
+        event.setTopic("game-play");
+        event.setShardingKey(shardingKey);
+        event.setEventId("00000000-0000-0000-0000-00000000000" + (shardingKey == null ? "0" : shardingKey));
+        event.setFormat("JSON");
+        event.setPayload(new byte[]{1, 2, 3});
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+}
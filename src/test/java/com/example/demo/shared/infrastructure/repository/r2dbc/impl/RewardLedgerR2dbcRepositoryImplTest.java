@@ -0,0 +1,117 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
+
+import com.example.demo.mission.domain.model.MissionType;
+import com.example.demo.mission.domain.model.RewardType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RewardLedgerR2dbcRepositoryImplTest {
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Mock
+    private DatabaseClient.GenericExecuteSpec genericExecuteSpec;
+
+    @Mock
+    private FetchSpec<Long> fetchSpec;
+
+    @InjectMocks
+    private RewardLedgerR2dbcRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        lenient().when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        lenient().when(genericExecuteSpec.fetch()).thenReturn((FetchSpec) fetchSpec);
+    }
+
+    @Test
+    void insertIfEligible_shouldUseSingleConditionalInsert_andReturnRowsUpdated() {
+        // Given
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfEligible(1L, RewardType.MISSION_COMPLETION,
+                        EnumSet.allOf(MissionType.class), 777))
+                .expectNext(1L)
+                .verifyComplete();
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient, times(1)).sql(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+        assertTrue(sql.startsWith("INSERT INTO reward_ledger"));
+        assertTrue(sql.contains("HAVING COUNT(*) = :missionCount"));
+        verify(genericExecuteSpec).bind("userId", 1L);
+        verify(genericExecuteSpec).bind("rewardType", "MISSION_COMPLETION");
+        verify(genericExecuteSpec).bind("points", 777);
+        verify(genericExecuteSpec).bind("missionTypes", List.of("CONSECUTIVE_LOGIN", "LAUNCH_GAMES", "PLAY_GAMES"));
+        verify(genericExecuteSpec).bind("missionCount", 3);
+    }
+
+    @Test
+    void insertIfEligible_shouldReturnZero_whenNotEligible() {
+        // Given
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(0L));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfEligible(1L, RewardType.MISSION_COMPLETION,
+                        EnumSet.allOf(MissionType.class), 777))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void insertIfEligible_shouldReturnZero_whenAlreadyClaimed() {
+        // Given
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.error(new DuplicateKeyException("Duplicate entry for uk_user_reward")));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfEligible(1L, RewardType.MISSION_COMPLETION,
+                        EnumSet.allOf(MissionType.class), 777))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void insertIfEligible_shouldPropagateOtherIntegrityErrors() {
+        // Given
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.error(new DataIntegrityViolationException("Cannot add or update a child row")));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfEligible(1L, RewardType.MISSION_COMPLETION,
+                        EnumSet.allOf(MissionType.class), 777))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    @Test
+    void insertIfEligible_shouldReturnZero_withoutQuerying_whenNoMissionTypes() {
+        // When & Then
+        StepVerifier.create(repository.insertIfEligible(1L, RewardType.MISSION_COMPLETION,
+                        EnumSet.noneOf(MissionType.class), 777))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(databaseClient);
+    }
+}
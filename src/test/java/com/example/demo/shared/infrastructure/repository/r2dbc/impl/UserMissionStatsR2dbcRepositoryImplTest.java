@@ -0,0 +1,103 @@
+package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
+
+import com.example.demo.shared.infrastructure.repository.data.UserMissionStatsData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserMissionStatsR2dbcRepositoryImplTest {
+
+    private static final LocalDateTime EVENT_TIME = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123456000);
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Mock
+    private DatabaseClient.GenericExecuteSpec genericExecuteSpec;
+
+    @Mock
+    private FetchSpec<Long> fetchSpec;
+
+    @InjectMocks
+    private UserMissionStatsR2dbcRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(databaseClient.sql(anyString())).thenReturn(genericExecuteSpec);
+        lenient().when(genericExecuteSpec.bind(anyString(), any())).thenReturn(genericExecuteSpec);
+        lenient().when(genericExecuteSpec.fetch()).thenReturn((FetchSpec) fetchSpec);
+    }
+
+    @Test
+    void incrementAfterSeed_shouldIncrementInSingleStatement_guardedBySeedTime() {
+        // Given
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.incrementAfterSeed(1L, 1, 2, 800, EVENT_TIME.minusSeconds(1), EVENT_TIME))
+                .expectNext(1L)
+                .verifyComplete();
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient, times(1)).sql(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+        assertTrue(sql.contains("play_count = play_count + :plays"));
+        assertTrue(sql.contains("total_score = total_score + :score"));
+        assertTrue(sql.contains("WHERE user_id = :userId AND seeded_until < :firstEventAt"));
+        verify(genericExecuteSpec).bind("launchedGames", 1);
+        verify(genericExecuteSpec).bind("plays", 2);
+        verify(genericExecuteSpec).bind("score", 800);
+        verify(genericExecuteSpec).bind("firstEventAt", EVENT_TIME.minusSeconds(1));
+        verify(genericExecuteSpec).bind("lastEventAt", EVENT_TIME);
+    }
+
+    @Test
+    void incrementAfterSeed_shouldReturnZero_whenDeltaOverlapsSeed() {
+        // Given
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(0L));
+
+        // When & Then
+        StepVerifier.create(repository.incrementAfterSeed(1L, 0, 1, 500, EVENT_TIME, EVENT_TIME))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void reseed_shouldOverwriteCounters_onlyWhenNoLaterDeltaWasApplied() {
+        // Given
+        UserMissionStatsData stats = new UserMissionStatsData();
+        stats.setUserId(1L);
+        stats.setLaunchedGamesCount(2);
+        stats.setPlayCount(3);
+        stats.setTotalScore(1100);
+        stats.setSeededUntil(EVENT_TIME);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.reseed(stats))
+                .expectNext(1L)
+                .verifyComplete();
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient).sql(sqlCaptor.capture());
+        assertTrue(sqlCaptor.getValue().contains("WHERE user_id = :userId AND last_event_at <= :seededUntil"));
+        verify(genericExecuteSpec).bind("playCount", 3);
+        verify(genericExecuteSpec).bind("totalScore", 1100);
+        verify(genericExecuteSpec).bind("seededUntil", EVENT_TIME);
+    }
+}
@@ -1,16 +1,22 @@
 package com.example.demo.shared.infrastructure.repository.r2dbc.impl;
 
+import com.example.demo.shared.infrastructure.repository.data.UserData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.FetchSpec;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -286,4 +292,76 @@ class UserR2DbcR2dbcRepositoryImplTest {
         verify(databaseClient, times(2)).sql(anyString());
     }
 
+
+    @Test
+    void insertIfAbsent_shouldIgnoreDuplicateUsername() {
+        // Given
+        UserData user = new UserData();
+        user.setUsername("testuser");
+        user.setPoints(0);
+        user.setRegistrationDate(LocalDateTime.now());
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.error(new DuplicateKeyException("Duplicate entry 'testuser'")));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfAbsent(user))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(databaseClient).sql(startsWith("INSERT INTO users"));
+        verify(genericExecuteSpec).bind("username", "testuser");
+        verify(genericExecuteSpec).bind("points", 0);
+    }
+
+    @Test
+    void insertIfAbsent_shouldPropagateOtherIntegrityErrors() {
+        // Given
+        UserData user = new UserData();
+        user.setUsername("testuser");
+        user.setPoints(0);
+        user.setRegistrationDate(LocalDateTime.now());
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.error(new DataIntegrityViolationException("Data too long for column 'username'")));
+
+        // When & Then
+        StepVerifier.create(repository.insertIfAbsent(user))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    @Test
+    void recordLoginStreak_shouldContinueFromPreviousDay() {
+        // Given
+        Long userId = 1L;
+        LocalDate today = LocalDate.now();
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.recordLoginStreak(userId, today))
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(databaseClient).sql(contains("last_login_date < :loginDate"));
+        verify(genericExecuteSpec).bind("loginDate", today);
+        verify(genericExecuteSpec).bind("previousDate", today.minusDays(1));
+    }
+
+    @Test
+    void initializeLoginStreak_shouldOnlyUpdateUsersWithoutLastLoginDate() {
+        // Given
+        Long userId = 1L;
+        LocalDate lastLoginDate = LocalDate.now().minusDays(1);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        // When & Then
+        StepVerifier.create(repository.initializeLoginStreak(userId, lastLoginDate, 4))
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(databaseClient).sql(contains("last_login_date IS NULL"));
+        verify(genericExecuteSpec).bind("lastLoginDate", lastLoginDate);
+        verify(genericExecuteSpec).bind("currentStreak", 4);
+    }
 }
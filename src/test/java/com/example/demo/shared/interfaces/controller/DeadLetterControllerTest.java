@@ -0,0 +1,55 @@
+package com.example.demo.shared.interfaces.controller;
+
+import com.example.demo.shared.infrastructure.message.DeadLetterReplayService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterControllerTest {
+
+    @Mock
+    private DeadLetterReplayService deadLetterReplayService;
+
+    @InjectMocks
+    private DeadLetterController deadLetterController;
+
+    @Test
+    void replay_shouldReturnReplayedCount() {
+        // Given
+        when(deadLetterReplayService.replay(500)).thenReturn(Mono.just(3));
+
+        // When & Then
+        StepVerifier.create(deadLetterController.replay(500))
+                .assertNext(response -> {
+                    assertTrue(response.success());
+                    assertEquals("死信事件重新投遞成功", response.message());
+                    assertEquals(3, response.data());
+                })
+                .verifyComplete();
+
+        verify(deadLetterReplayService).replay(500);
+    }
+
+    @Test
+    void replay_shouldReturnError_whenReplayFails() {
+        // Given
+        when(deadLetterReplayService.replay(500)).thenReturn(Mono.error(new RuntimeException("資料庫連線失敗")));
+
+        // When & Then
+        StepVerifier.create(deadLetterController.replay(500))
+                .assertNext(response -> {
+                    assertFalse(response.success());
+                    assertTrue(response.message().contains("資料庫連線失敗"));
+                    assertNull(response.data());
+                })
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.demo.user.application.service;
+
+import com.example.demo.shared.infrastructure.redis.RedisService;
+import com.example.demo.user.domain.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginCalendarServiceTest {
+
+    @Mock
+    private RedisService redisService;
+
+    @InjectMocks
+    private LoginCalendarService loginCalendarService;
+
+    private LocalDate today;
+    private LocalDate registrationDate;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+        registrationDate = today.minusDays(9);
+    }
+
+    @Test
+    void recordLogin_shouldSetBitForDaysSinceRegistration() {
+        // Given
+        User user = User.builder().id(1L).registrationDate(registrationDate.atTime(10, 0)).build();
+        when(redisService.put("user:login:calendar:start", "1", registrationDate.toEpochDay())).thenReturn(Mono.just(true));
+        when(redisService.putIfAbsent("user:login:calendar:recorded-from", "1", today.toEpochDay())).thenReturn(Mono.just(true));
+        when(redisService.setBit("user:login:calendar:1", 9, true)).thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.recordLogin(user, today))
+                .verifyComplete();
+
+        verify(redisService).setBit("user:login:calendar:1", 9, true);
+        verify(redisService).putIfAbsent("user:login:calendar:recorded-from", "1", today.toEpochDay());
+    }
+
+    @Test
+    void findCalendar_shouldReadOnlyTheRequestedWindow() {
+        // Given
+        BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(2);
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 7, 3)).thenReturn(Mono.just(bits));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.findCalendar(1L, today.minusDays(2), today))
+                .assertNext(calendar -> {
+                    assertEquals(List.of(today.minusDays(2), today), calendar.loginDates());
+                    assertEquals(2, calendar.loggedInDays());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void findCalendar_shouldClampWindowToRegistrationDate() {
+        // Given
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just((int) registrationDate.toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 0, 10)).thenReturn(Mono.just(new BitSet()));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.findCalendar(1L, today.minusDays(29), today))
+                .assertNext(calendar -> assertEquals(registrationDate, calendar.startDate()))
+                .verifyComplete();
+    }
+
+    @Test
+    void findCalendar_shouldBeEmpty_whenUserHasNoCalendar() {
+        // Given
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.findCalendar(1L, today.minusDays(6), today))
+                .verifyComplete();
+
+        verify(redisService, never()).getBits(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getLoginStreak_shouldCountBackFromToday() {
+        // Given - 第 5、7、8、9 天登入，今天為第 9 天
+        BitSet bits = new BitSet();
+        bits.set(5);
+        bits.set(7);
+        bits.set(8);
+        bits.set(9);
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.get("user:login:calendar:recorded-from", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 0, 10)).thenReturn(Mono.just(bits));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.getLoginStreak(1L, today))
+                .expectNext(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginStreak_shouldKeepStreak_whenNotYetLoggedInToday() {
+        // Given
+        BitSet bits = new BitSet();
+        bits.set(7);
+        bits.set(8);
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.get("user:login:calendar:recorded-from", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 0, 10)).thenReturn(Mono.just(bits));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.getLoginStreak(1L, today))
+                .expectNext(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginStreak_shouldBeZero_whenStreakBrokeWithoutNewLogin() {
+        // Given
+        BitSet bits = new BitSet();
+        bits.set(6);
+        bits.set(7);
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.get("user:login:calendar:recorded-from", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 0, 10)).thenReturn(Mono.just(bits));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.getLoginStreak(1L, today))
+                .expectNext(0)
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginStreak_shouldOnlyReadRecentWindow_whenRegisteredLongAgo() {
+        // Given
+        LocalDate longAgo = today.minusDays(1000);
+        BitSet bits = new BitSet();
+        bits.set(LoginCalendarService.STREAK_WINDOW_DAYS - 1);
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(longAgo.toEpochDay()));
+        when(redisService.get("user:login:calendar:recorded-from", "1")).thenReturn(Mono.just(longAgo.toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 1000 - LoginCalendarService.STREAK_WINDOW_DAYS + 1,
+                LoginCalendarService.STREAK_WINDOW_DAYS)).thenReturn(Mono.just(bits));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.getLoginStreak(1L, today))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginStreak_shouldCountStreak_whenItStartsOnRegistrationDate() {
+        // Given - 自註冊日起每天登入
+        BitSet bits = new BitSet();
+        bits.set(0, 10);
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.get("user:login:calendar:recorded-from", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 0, 10)).thenReturn(Mono.just(bits));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.getLoginStreak(1L, today))
+                .expectNext(10)
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginStreak_shouldBeEmpty_whenStreakReachesFirstRecordedDay() {
+        // Given - 第 7 天才開始記錄，之後每天登入，更早的登入不在日曆中
+        BitSet bits = new BitSet();
+        bits.set(0, 3);
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.get("user:login:calendar:recorded-from", "1")).thenReturn(Mono.just(registrationDate.plusDays(7).toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 7, 3)).thenReturn(Mono.just(bits));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.getLoginStreak(1L, today))
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginStreak_shouldBeEmpty_whenStreakCoversWholeWindow() {
+        // Given
+        LocalDate longAgo = today.minusDays(1000);
+        BitSet bits = new BitSet();
+        bits.set(0, LoginCalendarService.STREAK_WINDOW_DAYS);
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(longAgo.toEpochDay()));
+        when(redisService.get("user:login:calendar:recorded-from", "1")).thenReturn(Mono.just(longAgo.toEpochDay()));
+        when(redisService.getBits("user:login:calendar:1", 1000 - LoginCalendarService.STREAK_WINDOW_DAYS + 1,
+                LoginCalendarService.STREAK_WINDOW_DAYS)).thenReturn(Mono.just(bits));
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.getLoginStreak(1L, today))
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginStreak_shouldBeEmpty_whenFirstRecordedDayIsUnknown() {
+        // Given
+        when(redisService.get("user:login:calendar:start", "1")).thenReturn(Mono.just(registrationDate.toEpochDay()));
+        when(redisService.get("user:login:calendar:recorded-from", "1")).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(loginCalendarService.getLoginStreak(1L, today))
+                .verifyComplete();
+
+        verify(redisService, never()).getBits(anyString(), anyLong(), anyInt());
+    }
+}
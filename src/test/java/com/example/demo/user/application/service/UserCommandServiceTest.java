@@ -7,12 +7,14 @@ import com.example.demo.user.domain.model.LoginRecord;
 import com.example.demo.user.domain.model.User;
 import com.example.demo.user.domain.repository.LoginRecordRepository;
 import com.example.demo.user.domain.repository.UserRepository;
+import com.example.demo.user.domain.service.UserDomainService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -32,6 +34,9 @@ class UserCommandServiceTest {
     @Mock
     private LoginRecordRepository loginRecordRepository;
 
+    @Mock
+    private LoginCalendarService loginCalendarService;
+
     private EventPublisher eventPublisher;
 
     private UserCommandServiceImpl userCommandService;
@@ -42,7 +47,7 @@ class UserCommandServiceTest {
     @BeforeEach
     void setUp() {
         eventPublisher = mock(EventPublisher.class);
-        userCommandService = new UserCommandServiceImpl(userRepository, loginRecordRepository, eventPublisher);
+        userCommandService = new UserCommandServiceImpl(userRepository, loginRecordRepository, eventPublisher, new UserDomainService(), loginCalendarService);
         
         existingUser = User.builder()
                 .id(1L)
@@ -62,7 +67,10 @@ class UserCommandServiceTest {
                 .build();
         
         // Lenient stub to prevent NPE in switchIfEmpty when not explicitly stubbed
-        lenient().when(userRepository.save(any(User.class))).thenReturn(Mono.just(existingUser));
+        lenient().when(userRepository.createIfAbsent(any(User.class))).thenReturn(Mono.just(existingUser));
+        lenient().when(userRepository.recordLoginStreak(anyLong(), any(LocalDate.class))).thenReturn(Mono.empty());
+        lenient().when(loginRecordRepository.findRecentByUserId(anyLong(), anyInt())).thenReturn(Flux.empty());
+        lenient().when(loginCalendarService.recordLogin(any(User.class), any(LocalDate.class))).thenReturn(Mono.empty());
     }
 
     @Test
@@ -70,9 +78,8 @@ class UserCommandServiceTest {
         // Given
         String username = "testuser";
         when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now()))
-                .thenReturn(Mono.just(true));
-        when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
+                .thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(userCommandService.handleLogin(username))
@@ -85,9 +92,8 @@ class UserCommandServiceTest {
                 .verifyComplete();
 
         verify(userRepository).findByUsername(username);
-        verify(loginRecordRepository).existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now());
-        verify(loginRecordRepository, never()).save(any(LoginRecord.class));
-        verify(eventPublisher).publishLoginEvent(any(UserLoginEvent.class));
+        verify(loginRecordRepository).insertIfAbsent(any(LoginRecord.class));
+        verify(eventPublisher, never()).publishLoginEvent(any(UserLoginEvent.class));
     }
 
     @Test
@@ -104,10 +110,9 @@ class UserCommandServiceTest {
                 .build();
 
         when(userRepository.findByUsername(username)).thenReturn(Mono.empty());
-        when(userRepository.save(any(User.class))).thenReturn(Mono.just(newUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(newUser.getId(), LocalDate.now()))
-                .thenReturn(Mono.just(false));
-        when(loginRecordRepository.save(any(LoginRecord.class))).thenReturn(Mono.just(loginRecord));
+        when(userRepository.createIfAbsent(any(User.class))).thenReturn(Mono.just(newUser));
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
+                .thenReturn(Mono.just(true));
         when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
 
         // When & Then
@@ -121,9 +126,8 @@ class UserCommandServiceTest {
                 .verifyComplete();
 
         verify(userRepository).findByUsername(username);
-        verify(userRepository).save(any(User.class));
-        verify(loginRecordRepository).existsByUserIdAndLoginDate(newUser.getId(), LocalDate.now());
-        verify(loginRecordRepository).save(any(LoginRecord.class));
+        verify(userRepository).createIfAbsent(any(User.class));
+        verify(loginRecordRepository).insertIfAbsent(any(LoginRecord.class));
         verify(eventPublisher).publishLoginEvent(any(UserLoginEvent.class));
     }
 
@@ -132,9 +136,8 @@ class UserCommandServiceTest {
         // Given
         String username = "testuser";
         when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now()))
-                .thenReturn(Mono.just(false));
-        when(loginRecordRepository.save(any(LoginRecord.class))).thenReturn(Mono.just(loginRecord));
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
+                .thenReturn(Mono.just(true));
         when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
 
         // When & Then
@@ -146,7 +149,7 @@ class UserCommandServiceTest {
                 .verifyComplete();
 
         ArgumentCaptor<LoginRecord> loginRecordCaptor = ArgumentCaptor.forClass(LoginRecord.class);
-        verify(loginRecordRepository).save(loginRecordCaptor.capture());
+        verify(loginRecordRepository).insertIfAbsent(loginRecordCaptor.capture());
 
         LoginRecord savedRecord = loginRecordCaptor.getValue();
         assertEquals(existingUser.getId(), savedRecord.getUserId());
@@ -154,13 +157,12 @@ class UserCommandServiceTest {
     }
 
     @Test
-    void handleLogin_shouldNotCreateLoginRecord_whenAlreadyLoggedInToday() {
+    void handleLogin_shouldNotPublishEvent_whenAlreadyLoggedInToday() {
         // Given
         String username = "testuser";
         when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now()))
-                .thenReturn(Mono.just(true));
-        when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
+                .thenReturn(Mono.just(false));
 
         // When & Then
         StepVerifier.create(userCommandService.handleLogin(username))
@@ -170,8 +172,8 @@ class UserCommandServiceTest {
                 })
                 .verifyComplete();
 
-        verify(loginRecordRepository).existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now());
-        verify(loginRecordRepository, never()).save(any(LoginRecord.class));
+        verify(loginRecordRepository).insertIfAbsent(any(LoginRecord.class));
+        verify(eventPublisher, never()).publishLoginEvent(any(UserLoginEvent.class));
     }
 
     @Test
@@ -179,7 +181,7 @@ class UserCommandServiceTest {
         // Given
         String username = "testuser";
         when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now()))
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
                 .thenReturn(Mono.just(true));
         when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
 
@@ -204,7 +206,7 @@ class UserCommandServiceTest {
         RuntimeException publishError = new RuntimeException("Event publishing failed");
 
         when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now()))
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
                 .thenReturn(Mono.just(true));
         when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class)))
                 .thenReturn(Mono.error(publishError));
@@ -235,7 +237,7 @@ class UserCommandServiceTest {
                 .verify();
 
         verify(userRepository).findByUsername(username);
-        verify(loginRecordRepository, never()).existsByUserIdAndLoginDate(anyLong(), any(LocalDate.class));
+        verify(loginRecordRepository, never()).insertIfAbsent(any(LoginRecord.class));
         verify(eventPublisher, never()).publishLoginEvent(any(UserLoginEvent.class));
     }
 
@@ -246,9 +248,7 @@ class UserCommandServiceTest {
         RuntimeException repositoryError = new RuntimeException("Failed to save login record");
 
         when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now()))
-                .thenReturn(Mono.just(false));
-        when(loginRecordRepository.save(any(LoginRecord.class)))
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
                 .thenReturn(Mono.error(repositoryError));
 
         // When & Then
@@ -258,7 +258,7 @@ class UserCommandServiceTest {
                     throwable.getMessage().equals("Failed to save login record"))
                 .verify();
 
-        verify(loginRecordRepository).save(any(LoginRecord.class));
+        verify(loginRecordRepository).insertIfAbsent(any(LoginRecord.class));
         verify(eventPublisher, never()).publishLoginEvent(any(UserLoginEvent.class));
     }
 
@@ -269,7 +269,7 @@ class UserCommandServiceTest {
         RuntimeException saveError = new RuntimeException("Failed to create user");
 
         when(userRepository.findByUsername(username)).thenReturn(Mono.empty());
-        when(userRepository.save(any(User.class))).thenReturn(Mono.error(saveError));
+        when(userRepository.createIfAbsent(any(User.class))).thenReturn(Mono.error(saveError));
 
         // When & Then
         StepVerifier.create(userCommandService.handleLogin(username))
@@ -278,8 +278,8 @@ class UserCommandServiceTest {
                     throwable.getMessage().equals("Failed to create user"))
                 .verify();
 
-        verify(userRepository).save(any(User.class));
-        verify(loginRecordRepository, never()).existsByUserIdAndLoginDate(anyLong(), any(LocalDate.class));
+        verify(userRepository).createIfAbsent(any(User.class));
+        verify(loginRecordRepository, never()).insertIfAbsent(any(LoginRecord.class));
         verify(eventPublisher, never()).publishLoginEvent(any(UserLoginEvent.class));
     }
 
@@ -297,10 +297,9 @@ class UserCommandServiceTest {
                 .build();
 
         when(userRepository.findByUsername(username)).thenReturn(Mono.empty());
-        when(userRepository.save(any(User.class))).thenReturn(Mono.just(newUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(newUser.getId(), LocalDate.now()))
-                .thenReturn(Mono.just(false));
-        when(loginRecordRepository.save(any(LoginRecord.class))).thenReturn(Mono.just(loginRecord));
+        when(userRepository.createIfAbsent(any(User.class))).thenReturn(Mono.just(newUser));
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
+                .thenReturn(Mono.just(true));
         when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
 
         // When & Then
@@ -314,9 +313,8 @@ class UserCommandServiceTest {
 
         // Verify all operations were called in correct order
         verify(userRepository).findByUsername(username);
-        verify(userRepository).save(any(User.class));
-        verify(loginRecordRepository).existsByUserIdAndLoginDate(newUser.getId(), LocalDate.now());
-        verify(loginRecordRepository).save(any(LoginRecord.class));
+        verify(userRepository).createIfAbsent(any(User.class));
+        verify(loginRecordRepository).insertIfAbsent(any(LoginRecord.class));
         verify(eventPublisher).publishLoginEvent(any(UserLoginEvent.class));
     }
 
@@ -327,7 +325,7 @@ class UserCommandServiceTest {
         RuntimeException checkError = new RuntimeException("Failed to check login record");
 
         when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now()))
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
                 .thenReturn(Mono.error(checkError));
 
         // When & Then
@@ -337,8 +335,7 @@ class UserCommandServiceTest {
                     throwable.getMessage().equals("Failed to check login record"))
                 .verify();
 
-        verify(loginRecordRepository).existsByUserIdAndLoginDate(existingUser.getId(), LocalDate.now());
-        verify(loginRecordRepository, never()).save(any(LoginRecord.class));
+        verify(loginRecordRepository).insertIfAbsent(any(LoginRecord.class));
         verify(eventPublisher, never()).publishLoginEvent(any(UserLoginEvent.class));
     }
 
@@ -356,7 +353,7 @@ class UserCommandServiceTest {
                 .build();
 
         when(userRepository.findByUsername(username)).thenReturn(Mono.just(ineligibleUser));
-        when(loginRecordRepository.existsByUserIdAndLoginDate(ineligibleUser.getId(), LocalDate.now()))
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class)))
                 .thenReturn(Mono.just(true));
 
         // When & Then
@@ -369,8 +366,103 @@ class UserCommandServiceTest {
                 .verifyComplete();
 
         verify(userRepository).findByUsername(username);
-        verify(loginRecordRepository).existsByUserIdAndLoginDate(ineligibleUser.getId(), LocalDate.now());
+        verify(loginRecordRepository).insertIfAbsent(any(LoginRecord.class));
         // Event should NOT be published for ineligible users
         verify(eventPublisher, never()).publishLoginEvent(any(UserLoginEvent.class));
     }
+
+    @Test
+    void handleLogin_shouldUpdateLoginStreak_whenFirstLoginOfDay() {
+        // Given
+        String username = "testuser";
+        existingUser.setLastLoginDate(LocalDate.now().minusDays(1));
+        existingUser.setCurrentStreak(2);
+        when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class))).thenReturn(Mono.just(true));
+        when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(userCommandService.handleLogin(username))
+                .assertNext(user -> {
+                    assertEquals(LocalDate.now(), user.getLastLoginDate());
+                    assertEquals(3, user.getCurrentStreak());
+                })
+                .verifyComplete();
+
+        verify(userRepository).recordLoginStreak(existingUser.getId(), LocalDate.now());
+    }
+
+    @Test
+    void handleLogin_shouldInitializeLoginStreakFromRecords_whenUserHasNoStoredStreak() {
+        // Given - 連續登入狀態上線前已連續登入兩天
+        String username = "testuser";
+        LocalDate today = LocalDate.now();
+        when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class))).thenReturn(Mono.just(true));
+        when(loginRecordRepository.findRecentByUserId(existingUser.getId(), UserDomainService.LOGIN_STREAK_HISTORY_LIMIT))
+                .thenReturn(Flux.just(
+                        LoginRecord.builder().userId(1L).loginDate(today).build(),
+                        LoginRecord.builder().userId(1L).loginDate(today.minusDays(1)).build(),
+                        LoginRecord.builder().userId(1L).loginDate(today.minusDays(2)).build()));
+        when(userRepository.initializeLoginStreak(existingUser.getId(), today, 3)).thenReturn(Mono.empty());
+        when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(userCommandService.handleLogin(username))
+                .assertNext(user -> {
+                    assertEquals(today, user.getLastLoginDate());
+                    assertEquals(3, user.getCurrentStreak());
+                })
+                .verifyComplete();
+
+        verify(userRepository).initializeLoginStreak(existingUser.getId(), today, 3);
+    }
+
+    @Test
+    void handleLogin_shouldNotUpdateLoginStreak_whenAlreadyLoggedInToday() {
+        // Given
+        String username = "testuser";
+        when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class))).thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(userCommandService.handleLogin(username))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(userRepository, never()).recordLoginStreak(anyLong(), any(LocalDate.class));
+    }
+
+    @Test
+    void handleLogin_shouldWriteLoginCalendar_onEveryLogin() {
+        // Given
+        String username = "testuser";
+        when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class))).thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(userCommandService.handleLogin(username))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(loginCalendarService).recordLogin(existingUser, LocalDate.now());
+    }
+
+    @Test
+    void handleLogin_shouldStillSucceed_whenLoginCalendarWriteFails() {
+        // Given
+        String username = "testuser";
+        when(userRepository.findByUsername(username)).thenReturn(Mono.just(existingUser));
+        when(loginRecordRepository.insertIfAbsent(any(LoginRecord.class))).thenReturn(Mono.just(true));
+        when(loginCalendarService.recordLogin(any(User.class), any(LocalDate.class)))
+                .thenReturn(Mono.error(new RuntimeException("Redis down")));
+        when(eventPublisher.publishLoginEvent(any(UserLoginEvent.class))).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(userCommandService.handleLogin(username))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(eventPublisher).publishLoginEvent(any(UserLoginEvent.class));
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.demo.user.domain.service;
 
 import com.example.demo.user.domain.model.LoginRecord;
+import com.example.demo.user.domain.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -254,6 +255,101 @@ class UserDomainServiceTest {
         assertEquals(3, result, "Should handle future dates correctly by sorting");
     }
 
+    @Test
+    void calculateLoginStreak_shouldReturnZero_whenUserNeverLoggedIn() {
+        // Given
+        User user = User.builder().id(1L).build();
+
+        // When & Then
+        assertEquals(0, userDomainService.calculateLoginStreak(user, LocalDate.now()));
+    }
+
+    @Test
+    void calculateLoginStreak_shouldKeepStreak_untilTheDayAfterLastLogin() {
+        // Given
+        LocalDate today = LocalDate.now();
+        User user = User.builder().id(1L).lastLoginDate(today.minusDays(1)).currentStreak(4).build();
+
+        // When & Then
+        assertEquals(4, userDomainService.calculateLoginStreak(user, today));
+        assertEquals(0, userDomainService.calculateLoginStreak(user, today.plusDays(1)));
+    }
+
+    @Test
+    void applyLogin_shouldIncrementStreak_whenLastLoginWasYesterday() {
+        // Given
+        LocalDate today = LocalDate.now();
+        User user = User.builder().id(1L).lastLoginDate(today.minusDays(1)).currentStreak(2).build();
+
+        // When
+        userDomainService.applyLogin(user, today);
+
+        // Then
+        assertEquals(today, user.getLastLoginDate());
+        assertEquals(3, user.getCurrentStreak());
+    }
+
+    @Test
+    void applyLogin_shouldRestartStreak_whenThereIsAGap() {
+        // Given
+        LocalDate today = LocalDate.now();
+        User user = User.builder().id(1L).lastLoginDate(today.minusDays(3)).currentStreak(5).build();
+
+        // When
+        userDomainService.applyLogin(user, today);
+
+        // Then
+        assertEquals(1, user.getCurrentStreak());
+    }
+
+    @Test
+    void applyLogin_shouldNotChangeStreak_whenAlreadyLoggedInThatDay() {
+        // Given
+        LocalDate today = LocalDate.now();
+        User user = User.builder().id(1L).lastLoginDate(today).currentStreak(2).build();
+
+        // When
+        userDomainService.applyLogin(user, today);
+
+        // Then
+        assertEquals(2, user.getCurrentStreak());
+    }
+
+    @Test
+    void initializeLoginStreak_shouldUseLatestRecordAndStreakEndingThere() {
+        // Given
+        LocalDate today = LocalDate.now();
+        User user = User.builder().id(1L).currentStreak(0).build();
+        List<LoginRecord> loginRecords = Arrays.asList(
+                createLoginRecord(1L, 1L, today.minusDays(1)),
+                createLoginRecord(2L, 1L, today.minusDays(2)),
+                createLoginRecord(3L, 1L, today.minusDays(4))
+        );
+
+        // When
+        boolean initialized = userDomainService.initializeLoginStreak(user, loginRecords);
+
+        // Then
+        assertTrue(initialized);
+        assertEquals(today.minusDays(1), user.getLastLoginDate());
+        assertEquals(2, user.getCurrentStreak());
+        assertEquals(2, userDomainService.calculateLoginStreak(user, today));
+    }
+
+    @Test
+    void initializeLoginStreak_shouldLeaveUserUnchanged_whenNoLoginRecords() {
+        // Given
+        User user = User.builder().id(1L).currentStreak(0).build();
+
+        // When
+        boolean initialized = userDomainService.initializeLoginStreak(user, Collections.emptyList());
+
+        // Then
+        assertFalse(initialized);
+        assertNull(user.getLastLoginDate());
+        assertEquals(0, user.getCurrentStreak());
+    }
+
     private LoginRecord createLoginRecord(Long id, Long userId, LocalDate loginDate) {
         return LoginRecord.builder()
                 .id(id)
@@ -2,8 +2,12 @@ package com.example.demo.user.interfaces.controller;
 
 import com.example.demo.mission.application.service.MissionCommandService;
 import com.example.demo.shared.application.dto.ApiResponse;
+import com.example.demo.shared.application.dto.LoginCalendarResponse;
 import com.example.demo.shared.application.dto.LoginRequest;
+import com.example.demo.user.application.service.LoginCalendarService;
 import com.example.demo.user.application.service.UserCommandService;
+import com.example.demo.user.application.service.UserQueryService;
+import com.example.demo.user.domain.model.LoginCalendar;
 import com.example.demo.user.domain.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,7 +18,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +38,12 @@ class UserControllerTest {
     @Mock
     private MissionCommandService missionCommandService;
 
+    @Mock
+    private UserQueryService userQueryService;
+
+    @Mock
+    private LoginCalendarService loginCalendarService;
+
     @InjectMocks
     private UserController userController;
 
@@ -341,4 +354,65 @@ class UserControllerTest {
                 })
                 .verifyComplete();
     }
+
+    @Test
+    void getLoginCalendar_shouldReturnCalendar_fromLoginCalendarService() {
+        // Given
+        LocalDate today = LocalDate.now();
+        BitSet days = new BitSet();
+        days.set(5);
+        days.set(6);
+        LoginCalendar calendar = new LoginCalendar(today.minusDays(6), today, days);
+        when(userQueryService.getUserByUsername("testuser")).thenReturn(Mono.just(testUser));
+        when(loginCalendarService.findCalendar(1L, today.minusDays(6), today)).thenReturn(Mono.just(calendar));
+        when(userQueryService.getConsecutiveLoginDays(1L)).thenReturn(Mono.just(2));
+        when(loginCalendarService.countLoginDays(1L)).thenReturn(Mono.just(3L));
+
+        // When & Then
+        StepVerifier.create(userController.getLoginCalendar("testuser", 7))
+                .assertNext(response -> {
+                    assertTrue(response.success());
+                    LoginCalendarResponse data = response.data();
+                    assertEquals("testuser", data.username());
+                    assertEquals(List.of(today.minusDays(1), today), data.loginDates());
+                    assertEquals(2, data.loggedInDays());
+                    assertEquals(2, data.currentStreak());
+                    assertEquals(3L, data.totalLoginDays());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginCalendar_shouldReturnEmptyCalendar_whenUserHasNoLoginCalendar() {
+        // Given
+        LocalDate today = LocalDate.now();
+        when(userQueryService.getUserByUsername("testuser")).thenReturn(Mono.just(testUser));
+        when(loginCalendarService.findCalendar(1L, today.minusDays(29), today)).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(userController.getLoginCalendar("testuser", 30))
+                .assertNext(response -> {
+                    assertTrue(response.success());
+                    assertTrue(response.data().loginDates().isEmpty());
+                    assertEquals(0, response.data().currentStreak());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getLoginCalendar_shouldReturnError_whenUserNotFound() {
+        // Given
+        when(userQueryService.getUserByUsername("unknown"))
+                .thenReturn(Mono.error(new IllegalArgumentException("找不到使用者: unknown")));
+
+        // When & Then
+        StepVerifier.create(userController.getLoginCalendar("unknown", 30))
+                .assertNext(response -> {
+                    assertFalse(response.success());
+                    assertTrue(response.message().contains("找不到使用者"));
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(loginCalendarService);
+    }
 }